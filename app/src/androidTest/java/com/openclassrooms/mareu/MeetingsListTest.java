@@ -37,6 +37,7 @@ import static org.hamcrest.core.IsNull.notNullValue;
 import android.os.SystemClock;
 
 import java.time.Instant;
+import java.util.ArrayList;
 
 /**
  * Instrumented test class for the meetings list
@@ -143,7 +144,9 @@ public class MeetingsListTest {
         );
 
         // add the meetings to the API service
-        service.getMeetings().clear();
+        for (Meeting meeting : new ArrayList<>(service.getMeetings())) {
+            service.deleteMeeting(meeting);
+        }
         service.addMeeting(meetingOne);
         service.addMeeting(meetingTwo);
         service.addMeeting(meetingThree);
@@ -1,7 +1,17 @@
 package com.openclassrooms.mareu.di;
 
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
 import com.openclassrooms.mareu.service.DummyMeetingsApiService;
 import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsArchive;
+import com.openclassrooms.mareu.service.MeetingsChangeEvent;
+import com.openclassrooms.mareu.service.MeetingsChangeEventPublisher;
+import com.openclassrooms.mareu.service.MeetingsStorage;
+import com.openclassrooms.mareu.service.SubjectIndex;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.io.File;
 
 /**
  * Injecteur de dépendance pour obtenir une instance de services
@@ -9,9 +19,35 @@ import com.openclassrooms.mareu.service.MeetingsApiService;
 public class DI {
 
     /**
-     * Instance variable of MeetingsApiService interface (DummyMeetingsApiService implementation)
+     * Instance variable of MeetingsApiService interface (ConcurrentMeetingsApiService implementation :
+     * shared by every screen and by the background queries, its readers never wait for its writers)
+     */
+    private static MeetingsApiService mMeetingsApiService = new ConcurrentMeetingsApiService();
+
+    /**
+     * Bus of the change events of the service (see {@link MeetingsChangeEvent})
+     */
+    private static final EventBus mMeetingsEventBus = EventBus.getDefault();
+
+    /**
+     * Full-text index of the subjects of the meetings of the service, following its changes
+     */
+    private static final SubjectIndex mSubjectIndex = new SubjectIndex(mMeetingsApiService);
+
+    static {
+        // publish the changes of the service on the bus, for the whole life of the application
+        new MeetingsChangeEventPublisher(mMeetingsApiService, mMeetingsEventBus);
+    }
+
+    /**
+     * Storage of the meetings of the service, null until opened by the application
      */
-    private static MeetingsApiService mMeetingsApiService = new DummyMeetingsApiService();
+    private static MeetingsStorage mMeetingsStorage;
+
+    /**
+     * Archive of the past meetings, null until one is opened (by the storage, on a worker thread)
+     */
+    private static volatile MeetingsArchive mMeetingsArchive;
 
     /**
      * Get an instance on @{@link MeetingsApiService}
@@ -21,6 +57,22 @@ public class DI {
         return mMeetingsApiService;
     }
 
+    /**
+     * Get the bus of the change events of @{@link MeetingsApiService}
+     * @return @{@link EventBus} posting the @{@link MeetingsChangeEvent}
+     */
+    public static EventBus getMeetingsEventBus() {
+        return mMeetingsEventBus;
+    }
+
+    /**
+     * Get the full-text index of the subjects of @{@link MeetingsApiService}
+     * @return @{@link SubjectIndex}
+     */
+    public static SubjectIndex getSubjectIndex() {
+        return mSubjectIndex;
+    }
+
     /**
      * Get always a new instance on @{@link MeetingsApiService}.
      * Useful for tests, so we ensure the context is clean.
@@ -29,4 +81,36 @@ public class DI {
     public static MeetingsApiService getNewInstanceMeetingsApiService() {
         return new DummyMeetingsApiService();
     }
+
+    /**
+     * Open the storage of @{@link MeetingsApiService}, once per process : the archive and the meetings
+     * of the last snapshot are restored in background, then the past meetings are archived, and the next
+     * calls return the same storage
+     * @param directory the directory of the files of the application
+     * @return @{@link MeetingsStorage}
+     */
+    public static synchronized MeetingsStorage openMeetingsStorage(File directory) {
+        if (mMeetingsStorage == null) {
+            mMeetingsStorage = new MeetingsStorage(directory, mMeetingsApiService, DI::setMeetingsArchive);
+            mMeetingsStorage.loadInBackground();
+        }
+        return mMeetingsStorage;
+    }
+
+    /**
+     * Get the archive of the past meetings
+     * @return @{@link MeetingsArchive}, or null if none
+     */
+    public static MeetingsArchive getMeetingsArchive() {
+        return mMeetingsArchive;
+    }
+
+    /**
+     * Set the archive of the past meetings, once opened (or null to drop it) : the meetings lists query
+     * the new archive from their next query
+     * @param meetingsArchive @{@link MeetingsArchive}
+     */
+    public static void setMeetingsArchive(MeetingsArchive meetingsArchive) {
+        mMeetingsArchive = meetingsArchive;
+    }
 }
@@ -1,21 +1,46 @@
 package com.openclassrooms.mareu.model;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Objet modèle représentant une réunion, avec la capacité comparable
  */
 public class Meeting implements Comparable<Meeting> {
 
+    /**
+     * Total chronological order of the meetings : by date, then by place name
+     * (two meetings may share the same date, as long as they do not share the same place)
+     */
+    public static final Comparator<Meeting> CHRONOLOGICAL_ORDER = (m1, m2) -> {
+        int ret = m1.getDate().compareTo(m2.getDate());
+        if (ret == 0) {
+            ret = m1.getPlace().getName().compareTo(m2.getPlace().getName());
+        }
+        return ret;
+    };
+
+    /**
+     * Duration of a meeting, when not given
+     */
+    public static final Duration DEFAULT_DURATION = Duration.ofHours(1);
+
     /**
      * Date of the meeting, using Java 8+ Instant
      */
     private Instant mDate;
 
+    /**
+     * Duration of the meeting : the meeting takes place within [date, date + duration)
+     */
+    private Duration mDuration = DEFAULT_DURATION;
+
     /**
      * Subject of the meeting
      */
@@ -27,9 +52,19 @@ public class Meeting implements Comparable<Meeting> {
     private Place mPlace;
 
     /**
-     * List of persons invited to the meeting
+     * No person invited to the meeting
+     */
+    private static final int[] NO_PERSON_IDS = new int[0];
+
+    /**
+     * Ids of the persons invited to the meeting (see {@link PersonRegistry}), sorted
+     */
+    private int[] mPersonIds = NO_PERSON_IDS;
+
+    /**
+     * Version of the meeting, incremented on each change (to invalidate what is computed from it)
      */
-    private final Set<Person> mPersons;
+    private int mVersion;
 
     /**
      * Constructor with date, subject, place
@@ -39,7 +74,6 @@ public class Meeting implements Comparable<Meeting> {
      * @param place Place of the meeting
      */
     public Meeting(Instant date, String subject, Place place) {
-        mPersons = new TreeSet<>();
         setDate(date);
         setSubject(subject);
         setPlace(place);
@@ -58,6 +92,20 @@ public class Meeting implements Comparable<Meeting> {
         addPeople(persons);
     }
 
+    /**
+     * Constructor with duration and persons invited to the meeting additional arguments
+     *
+     * @param date   Date of the meeting
+     * @param subject Subject of the meeting
+     * @param place Place of the meeting
+     * @param duration Duration of the meeting
+     * @param persons Persons invited to the meeting
+     */
+    public Meeting(Instant date, String subject, Place place, Duration duration, Person... persons) {
+        this(date, subject, place, persons);
+        setDuration(duration);
+    }
+
     /**
      * Getter for date
      *
@@ -73,6 +121,32 @@ public class Meeting implements Comparable<Meeting> {
      */
     public void setDate(Instant date) {
         this.mDate = date;
+        mVersion++;
+    }
+
+    /**
+     * Getter for duration
+     * @return Duration of the meeting
+     */
+    public Duration getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Setter for duration
+     * @param duration Duration of the meeting
+     */
+    public void setDuration(Duration duration) {
+        this.mDuration = duration;
+        mVersion++;
+    }
+
+    /**
+     * Get the end date of the meeting (exclusive)
+     * @return date + duration
+     */
+    public Instant getEndDate() {
+        return mDate.plus(mDuration);
     }
 
     /**
@@ -89,6 +163,7 @@ public class Meeting implements Comparable<Meeting> {
      */
     public void setSubject(String subject) {
         this.mSubject = subject;
+        mVersion++;
     }
 
     /**
@@ -101,28 +176,124 @@ public class Meeting implements Comparable<Meeting> {
      * Setter for place
      * @param place Place of the meeting
      */
-    public void setPlace(Place place) { this.mPlace = place; }
+    public void setPlace(Place place) {
+        this.mPlace = place;
+        mVersion++;
+    }
+
+    /**
+     * Getter for version
+     * @return Version of the meeting, which changes each time the meeting is modified
+     */
+    public int getVersion() {
+        return mVersion;
+    }
 
     /**
      * Getter for persons invited to the meeting
-     * @return Persons invited to the meeting
+     * @return Persons invited to the meeting, read-only view on their ids
      */
     public Set<Person> getPersons() {
-        return mPersons;
+        return new PersonsView();
+    }
+
+    /**
+     * Getter for the ids of the persons invited to the meeting (see {@link PersonRegistry})
+     * @return Sorted ids of the persons, copy
+     */
+    public int[] getPersonIds() {
+        return mPersonIds.clone();
     }
 
     /**
      * Add persons to the meeting
+     * A registered meeting stays indexed with its previous persons : replace it with
+     * {@link com.openclassrooms.mareu.service.MeetingsApiService#updateMeeting} instead
      * @param p Persons to add
      */
-    public void addPerson(Person p){ this.mPersons.add(p); }
+    public void addPerson(Person p){
+        int id = PersonRegistry.getInstance().getId(p);
+        int index = Arrays.binarySearch(mPersonIds, id);
+        if (index < 0) {
+            // insert the id at its place, so the array stays sorted
+            index = -index - 1;
+            int[] personIds = new int[mPersonIds.length + 1];
+            System.arraycopy(mPersonIds, 0, personIds, 0, index);
+            personIds[index] = id;
+            System.arraycopy(mPersonIds, index, personIds, index + 1, mPersonIds.length - index);
+            mPersonIds = personIds;
+            mVersion++;
+        }
+    }
 
     /**
      * Add persons to the meeting
+     * A registered meeting stays indexed with its previous persons : replace it with
+     * {@link com.openclassrooms.mareu.service.MeetingsApiService#updateMeeting} instead
      * @param p Persons to add
      */
     public void addPeople(Person... p){
-        this.mPersons.addAll(Stream.of(p).collect(Collectors.toList()));
+        if (p.length == 0) {
+            return;
+        }
+        // add all the ids, then sort and drop the duplicates once
+        int[] personIds = Arrays.copyOf(mPersonIds, mPersonIds.length + p.length);
+        for (int i = 0; i < p.length; i++) {
+            personIds[mPersonIds.length + i] = PersonRegistry.getInstance().getId(p[i]);
+        }
+        Arrays.sort(personIds);
+        int size = 0;
+        for (int id : personIds) {
+            if (size == 0 || personIds[size - 1] != id) {
+                personIds[size++] = id;
+            }
+        }
+        // the ids only grow : the meeting changed if some ids were added
+        if (size != mPersonIds.length) {
+            mPersonIds = size == personIds.length ? personIds : Arrays.copyOf(personIds, size);
+            mVersion++;
+        }
+    }
+
+    /**
+     * Read-only view on the persons invited to the meeting, resolved through the registry
+     */
+    private final class PersonsView extends AbstractSet<Person> {
+
+        @Override
+        public Iterator<Person> iterator() {
+            final int[] personIds = mPersonIds;
+            return new Iterator<Person>() {
+                private int mIndex;
+
+                @Override
+                public boolean hasNext() {
+                    return mIndex < personIds.length;
+                }
+
+                @Override
+                public Person next() {
+                    if (mIndex >= personIds.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return PersonRegistry.getInstance().getPerson(personIds[mIndex++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return mPersonIds.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Person)) {
+                return false;
+            }
+            int id = PersonRegistry.getInstance().findId((Person) o);
+            return id != PersonRegistry.NO_ID && Arrays.binarySearch(mPersonIds, id) >= 0;
+        }
     }
 
     /**
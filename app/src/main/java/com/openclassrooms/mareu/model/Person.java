@@ -9,8 +9,9 @@ public class Person implements Comparable<Person> { // we may also call it User
 
     /**
      * Email of the person
+     * (immutable : the persons are shared by the meetings, see {@link PersonRegistry})
      */
-    private String mEmail;
+    private final String mEmail;
 
     /**
      * Constructor with email
@@ -18,7 +19,7 @@ public class Person implements Comparable<Person> { // we may also call it User
      * @param email Email of the person
      */
     public Person(String email) {
-        setEmail(email);
+        mEmail = email;
     }
 
     /**
@@ -30,15 +31,6 @@ public class Person implements Comparable<Person> { // we may also call it User
         return mEmail;
     }
 
-    /**
-     * Setter for email
-     *
-     * @param email Email of the person
-     */
-    public void setEmail(String email) {
-        this.mEmail = email;
-    }
-
     /**
      * Compare two persons by email
      * @param o Person to compare
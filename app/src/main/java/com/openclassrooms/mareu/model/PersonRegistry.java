@@ -0,0 +1,95 @@
+package com.openclassrooms.mareu.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionnaire global des personnes
+ * Chaque personne (identifiée par son email) n'est instanciée qu'une fois, et reçoit un identifiant
+ * entier dense (0, 1, 2...) : les réunions ne stockent que les identifiants de leurs invités,
+ * au lieu d'un arbre d'objets Person dupliqués dans chaque réunion.
+ */
+public class PersonRegistry {
+
+    /**
+     * Id returned for a person which has never been registered
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * The registry shared by all the meetings
+     */
+    private static final PersonRegistry sInstance = new PersonRegistry();
+
+    /**
+     * Ids by email
+     */
+    private final Map<String, Integer> mIdsByEmail = new HashMap<>();
+
+    /**
+     * Canonical persons, by id
+     */
+    private final List<Person> mPersons = new ArrayList<>();
+
+    /**
+     * Get the registry shared by all the meetings
+     * @return the registry
+     */
+    public static PersonRegistry getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Get the id of a person, registering it on first use
+     * @param person the person
+     * @return the id of the person
+     */
+    public synchronized int getId(Person person) {
+        Integer id = mIdsByEmail.get(person.getEmail());
+        if (id == null) {
+            id = mPersons.size();
+            mIdsByEmail.put(person.getEmail(), id);
+            mPersons.add(person);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of a person, without registering it
+     * @param person the person
+     * @return the id of the person, or {@link #NO_ID} if never registered
+     */
+    public synchronized int findId(Person person) {
+        Integer id = mIdsByEmail.get(person.getEmail());
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Get the canonical instance of a person, registering it on first use
+     * @param person the person
+     * @return the canonical instance, shared by all the meetings
+     */
+    public synchronized Person intern(Person person) {
+        return mPersons.get(getId(person));
+    }
+
+    /**
+     * Get a person by id
+     * @param id the id of the person
+     * @return the canonical instance
+     */
+    public synchronized Person getPerson(int id) {
+        return mPersons.get(id);
+    }
+
+    /**
+     * Get the number of registered persons (ids are in [0, size))
+     * @return the number of registered persons
+     */
+    public synchronized int size() {
+        return mPersons.size();
+    }
+
+}
@@ -58,18 +58,19 @@ public class MeetingRegistrationFakeRepository implements MeetingRegistrationDia
      * Save the meeting to through the service
      * @param place the place of the meeting
      * @param subject the subject of the meeting
+     * @return true if saved, false if the place is already booked (see {@link Meeting#DEFAULT_DURATION})
      */
     @Override
-    public void saveMeeting(String place, String subject) {
-        // create the meeting
+    public boolean saveMeeting(String place, String subject) {
+        // create the meeting, lasting the default duration
         Meeting meeting = new Meeting(mMeetingDate, subject, new Place(place));
         // add the persons invited to the meeting
         for (Person person : mPersonsInvitedToTheMeeting) {
             // add the person to the meeting
             meeting.addPerson(person);
         }
-        // persist the meeting through the service
-        mApiService.addMeeting(meeting);
+        // persist the meeting through the service, unless it overlaps another one
+        return mApiService.addMeeting(meeting);
     }
 
     /**
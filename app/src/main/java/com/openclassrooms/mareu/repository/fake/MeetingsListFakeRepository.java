@@ -2,21 +2,47 @@ package com.openclassrooms.mareu.repository.fake;
 
 import com.openclassrooms.mareu.di.DI;
 import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.MeetingQuery;
+import com.openclassrooms.mareu.service.MeetingQueryPlanner;
 import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsArchive;
+import com.openclassrooms.mareu.service.PersistentSortedList;
 import com.openclassrooms.mareu.ui.meetings_list.MeetingsListContract;
 import com.openclassrooms.mareu.utils.DateEasy;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Model/Repository for the MVP MeetingsList
  * Note that, in a real app, this content MUST be dispatched to DAO, models, services, etc.
+ *
+ * The filtered and sorted meetings are materialized : the result is patched when a meeting is added or
+ * deleted through the service, and recomputed only when the filters actually change. It is a persistent
+ * sorted list (see {@link PersistentSortedList}) : a patch costs O(log n), and the lists already handed
+ * out never change, so they are returned without a copy. The meetings are sorted chronologically, or, with
+ * a subject filter, the best matches of the subject first (see SubjectIndex.relevanceOrder).
+ *
+ * The repository may be queried from a worker thread, while the service notifies its changes from
+ * the main thread : its state is guarded by its own lock, never held while reading the service. The
+ * service of DI hands out immutable views (see ConcurrentMeetingsApiService), read without its lock :
+ * so a query never blocks the writers of the service, nor its notifications. The changes notified
+ * while a query runs are logged, then applied to its result (adding a meeting already there, or
+ * deleting one already gone, does nothing : so the result is right, whichever changes it has seen).
+ *
+ * The past meetings may have been moved to an archive (see {@link MeetingsArchive}) : it is queried
+ * only when the start date filter reaches back into the archived dates. The archive is looked up at
+ * each query : when a new one is published (see MeetingsStorage), the meetings moved to it are deleted
+ * from the service, so the list is recomputed, instead of dropping them as deleted meetings.
  */
-public class MeetingsListFakeRepository implements MeetingsListContract.Model {
+public class MeetingsListFakeRepository implements MeetingsListContract.Model,
+        MeetingsApiService.OnMeetingsChangedListener {
 
     /**
      * The start date filter
@@ -36,23 +62,109 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     private String mFilterPlace;
 
+    /**
+     * The attendee filter (email of a person invited to the meetings)
+     * AVOID TO STORE THIS STRING HERE, IN A REAL APP, USE A DAO
+     */
+    private String mFilterPerson;
+
+    /**
+     * The subject filter (text searched in the subjects, case and accent insensitive)
+     * AVOID TO STORE THIS STRING HERE, IN A REAL APP, USE A DAO
+     */
+    private String mFilterSubject;
+
     /**
      * The external service
      */
     private final MeetingsApiService mMeetingsApiService;
 
+    /**
+     * The archive of the past meetings queried for the filtered meetings, or null
+     */
+    private MeetingsArchive mMeetingsArchive;
+
+    /**
+     * The planner of the queries on the service
+     */
+    private final MeetingQueryPlanner mQueryPlanner;
+
+    /**
+     * The query of the current filters, built with the filtered meetings
+     */
+    private MeetingQuery mQuery;
+
+    /**
+     * The lock guarding the repository state
+     */
+    private final Object mLock = new Object();
+
+    /**
+     * The lock letting a single query run at a time (held without the state lock)
+     */
+    private final Object mQueryLock = new Object();
+
+    /**
+     * The meetings matching the filters, sorted with the comparator of the query (see {@link #buildQuery()})
+     */
+    private PersistentSortedList<Meeting> mFilteredMeetings =
+            PersistentSortedList.empty(Meeting.CHRONOLOGICAL_ORDER);
+
+    /**
+     * True if the filters changed since the last computation of the filtered meetings
+     */
+    private boolean mFiltersChanged = true;
+
+    /**
+     * Number of changes of the filters, so a query knows if they changed while it was running
+     */
+    private long mFiltersGeneration;
+
+    /**
+     * The changes of the service notified while a query runs, in order, or null if no query runs
+     */
+    private List<Change> mPendingChanges;
+
+    /**
+     * A change of the service : a meeting added or deleted
+     */
+    private static final class Change {
+        final Meeting mMeeting;
+        final boolean mAdded;
+
+        Change(Meeting meeting, boolean added) {
+            mMeeting = meeting;
+            mAdded = added;
+        }
+    }
+
     /**
      * Constructor
      */
     public MeetingsListFakeRepository() {
         // init the external model service, thanks to dependency injection
         mMeetingsApiService = DI.getMeetingsApiService();
+        // plan the queries on the indexes of the service, and on the full-text index of the subjects
+        mQueryPlanner = new MeetingQueryPlanner(mMeetingsApiService, DI.getSubjectIndex());
         // init the start date to now
         mFilterStartDate = DateEasy.startOfDay(DateEasy.now());
         // init the end date to now plus one year
         mFilterEndDate = DateEasy.endOfDay(DateEasy.plusOneYear(DateEasy.now()));
         // init the place to empty string
         mFilterPlace = "";
+        // init the attendee to empty string
+        mFilterPerson = "";
+        // init the subject to empty string
+        mFilterSubject = "";
+        // listen to the service, in order to patch the filtered meetings
+        mMeetingsApiService.addOnMeetingsChangedListener(this);
+    }
+
+    /**
+     * Stop listening to the service, once the repository is not used anymore
+     */
+    public void release() {
+        mMeetingsApiService.removeOnMeetingsChangedListener(this);
     }
 
     /**
@@ -61,71 +173,228 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public List<Meeting> getFilteredAndSortedMeetings() {
-        // get the meetings list from the api service
-        List<Meeting> meetings = mMeetingsApiService.getMeetings();
-
-        // create a empty list of meetings and push the initial meetings list to the new list
-        List<Meeting> filteredMeetings = new ArrayList<>(meetings);
-        // filter the meetings list
-        filterByPlace(filteredMeetings);
-        // sort the meetings list
-        filterByTimeSpan(filteredMeetings);
-        // sort the meetings list
-        Collections.sort(filteredMeetings);
-
-        // return the meetings list
-        return filteredMeetings;
-    }
-
-    /**
-     * Filter the meetings list by place
-     * @param meetings the meetings list to be filtered
-     */
-    private void filterByPlace(List<Meeting> meetings) {
-        // create an iterator on the meetings list
-        Iterator<Meeting> meetingIterator = meetings.iterator();
-
-        if(mFilterPlace != null && !mFilterPlace.equals("")) {
-            // loop on the meetings list
-            while (meetingIterator.hasNext()) {
-                // if the next meeting place do not match the filter place
-                if (!meetingIterator
-                        .next()
-                        .getPlace()
-                        .getName()
-                        .toLowerCase()
-                        .startsWith(mFilterPlace.toLowerCase())) {
-                    // drop it from the list
-                    meetingIterator.remove();
+        synchronized (mQueryLock) {
+            while (true) {
+                MeetingQuery query;
+                MeetingsArchive archive;
+                long generation;
+                synchronized (mLock) {
+                    archive = DI.getMeetingsArchive();
+                    // recompute the meetings list only if the filters, or the archive, changed
+                    if (!mFiltersChanged && archive == mMeetingsArchive) {
+                        // return the meetings list, immutable
+                        return mFilteredMeetings;
+                    }
+                    mFiltersChanged = true;
+                    mMeetingsArchive = archive;
+                    query = buildQuery();
+                    generation = mFiltersGeneration;
+                    // log the changes notified from now on
+                    mPendingChanges = new ArrayList<>();
                 }
+                // query the service without any lock
+                PersistentSortedList<Meeting> meetings = computeFilteredMeetings(query, archive);
+                synchronized (mLock) {
+                    List<Change> pending = mPendingChanges;
+                    mPendingChanges = null;
+                    // the filters, or the archive, changed while querying : query again
+                    if (generation == mFiltersGeneration) {
+                        mQuery = query;
+                        mFilteredMeetings = meetings;
+                        mFiltersChanged = false;
+                        // apply the changes the query may have missed
+                        for (Change change : pending) {
+                            patch(change.mMeeting, change.mAdded);
+                        }
+                        return mFilteredMeetings;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the version of the meetings of the service
+     * @return the version, which changes each time the service meetings change
+     */
+    @Override
+    public long getMeetingsVersion() {
+        return mMeetingsApiService.getVersion();
+    }
+
+    /**
+     * Build the query of the current filters
+     * @return the query, sorted by relevance for the subject filter, else chronologically
+     */
+    private MeetingQuery buildQuery() {
+        return MeetingQuery.all()
+                .withDates(mFilterStartDate, mFilterEndDate)
+                .withPlacePrefix(mFilterPlace)
+                .withAttendee(isEmpty(mFilterPerson) ? null : new Person(mFilterPerson))
+                .withSubjectText(mFilterSubject)
+                .withOrder(MeetingQuery.Order.BY_SUBJECT_RELEVANCE);
+    }
+
+    /**
+     * Compute the meetings list from scratch, regarding the filters
+     * The query planner reads the most selective index (attendee, places, subjects or dates)
+     * @param query the query of the filters
+     * @param archive the archive of the past meetings, or null
+     * @return the meetings matching the query
+     */
+    private PersistentSortedList<Meeting> computeFilteredMeetings(MeetingQuery query, MeetingsArchive archive) {
+        Comparator<Meeting> order = query.getComparator();
+        List<Meeting> meetings = mQueryPlanner.execute(query);
+        if (isArchiveQueried(query, archive)) {
+            List<Meeting> archived = getArchivedMeetings(query, archive);
+            if (!archived.isEmpty()) {
+                // merge the archived meetings with the live ones, in the query order
+                List<Meeting> merged = new ArrayList<>(meetings);
+                merged.addAll(archived);
+                Collections.sort(merged, order);
+                // a meeting being archived is in both, until deleted from the service : keep it once
+                meetings = new ArrayList<>(merged.size());
+                for (Meeting meeting : merged) {
+                    if (meetings.isEmpty() || order.compare(meetings.get(meetings.size() - 1), meeting) != 0) {
+                        meetings.add(meeting);
+                    }
+                }
+            }
+        }
+        // build the tree from the sorted meetings, in O(n)
+        return PersistentSortedList.fromSorted(order, meetings);
+    }
+
+    /**
+     * Check if the archive may hold meetings matching the start date filter
+     * @param query the query of the filters
+     * @param archive the archive of the past meetings, or null
+     * @return true if the start date filter is before the last archived meeting
+     */
+    private static boolean isArchiveQueried(MeetingQuery query, MeetingsArchive archive) {
+        return archive != null && archive.size() > 0 &&
+                (query.getFrom() == null || !query.getFrom().isAfter(archive.getLastDate()));
+    }
+
+    /**
+     * Get the archived meetings matching the query, read from the attendee, places or dates of the archive
+     * (the archive decodes what it reads, so its candidates are not counted beforehand)
+     * @param query the query of the filters
+     * @param archive the archive of the past meetings
+     * @return the archived meetings, sorted
+     */
+    private static List<Meeting> getArchivedMeetings(MeetingQuery query, MeetingsArchive archive) {
+        List<Meeting> candidates;
+        if (query.getAttendee() != null) {
+            candidates = archive.getMeetingsOf(query.getAttendee(), query.getFrom(), query.getTo());
+        } else if (query.getPlacePrefix() == null) {
+            candidates = archive.getMeetingsBetween(query.getFrom(), query.getTo());
+        } else {
+            candidates = new ArrayList<>();
+            for (Place place : archive.getPlacesStartingWith(query.getPlacePrefix())) {
+                candidates.addAll(archive.getMeetingsBetween(place, query.getFrom(), query.getTo()));
+            }
+        }
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : candidates) {
+            if (query.matches(meeting)) {
+                ret.add(meeting);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Apply a change of the service to the filtered meetings, in O(log n)
+     * @param meeting the meeting added or deleted
+     * @param added true if added, false if deleted
+     */
+    private void patch(Meeting meeting, boolean added) {
+        if (!added) {
+            // a meeting moved to the archive stays listed, read from the archive
+            if (mMeetingsArchive == null || !mMeetingsArchive.containsMeeting(meeting)) {
+                mFilteredMeetings = mFilteredMeetings.without(meeting);
             }
+        } else if (mQuery.matches(meeting)) {
+            // a meeting already listed is kept once
+            mFilteredMeetings = mFilteredMeetings.with(meeting);
         }
     }
 
     /**
-     * Filter the meetings list by time span
-     * @param meetings the meetings list to be filtered
+     * A change of the service is notified : patch the filtered meetings, or log the change if a query runs
+     * (to be called holding the state lock)
+     * @param meeting the meeting added or deleted
+     * @param added true if added, false if deleted
+     */
+    private void onMeetingChanged(Meeting meeting, boolean added) {
+        if (DI.getMeetingsArchive() != mMeetingsArchive) {
+            // a new archive is published : its meetings are deleted from the service, recompute
+            mFiltersChanged = true;
+            mFiltersGeneration++;
+        } else if (mPendingChanges != null) {
+            mPendingChanges.add(new Change(meeting, added));
+        } else if (!mFiltersChanged) {
+            // nothing to patch if the list will be recomputed anyway
+            patch(meeting, added);
+        }
+    }
+
+    /**
+     * Check if a text filter is not set
+     * @param filter the text filter
+     * @return true if null or empty
+     */
+    private static boolean isEmpty(String filter) {
+        return filter == null || filter.equals("");
+    }
+
+    /**
+     * A meeting has been added through the service : insert it at its place, in O(log n)
+     * @param meeting the added meeting
      */
-    private void filterByTimeSpan(List<Meeting> meetings) {
-        // create an iterator on the meetings list
-        Iterator<Meeting> meetingIterator = meetings.iterator();
+    @Override
+    public void onMeetingAdded(Meeting meeting) {
+        synchronized (mLock) {
+            onMeetingChanged(meeting, true);
+        }
+    }
 
-        // loop on the meetings list
-        while (meetingIterator.hasNext()) {
-            // if the next meeting date is not included in the time span
-            Meeting meeting = meetingIterator.next();
-            if (
-                    // the meeting date before the filter start date
-                    (mFilterStartDate != null && meeting.getDate().compareTo(mFilterStartDate) < 0) ||
-                    // the meeting date after the filter end date
-                    (mFilterEndDate != null && meeting.getDate().compareTo(mFilterEndDate) > 0)
-            ) {
-                // drop it from the list
-                meetingIterator.remove();
+    /**
+     * A meeting has been deleted through the service : drop it, in O(log n)
+     * @param meeting the deleted meeting
+     */
+    @Override
+    public void onMeetingDeleted(Meeting meeting) {
+        synchronized (mLock) {
+            onMeetingChanged(meeting, false);
+        }
+    }
 
+    /**
+     * Several meetings have been added through the service : insert the matching ones, in O(k log n)
+     * @param meetings the added meetings
+     */
+    @Override
+    public void onMeetingsAdded(List<Meeting> meetings) {
+        synchronized (mLock) {
+            for (Meeting meeting : meetings) {
+                onMeetingChanged(meeting, true);
             }
         }
+    }
 
+    /**
+     * Several meetings have been deleted through the service : drop them, in O(k log n)
+     * @param meetings the deleted meetings
+     */
+    @Override
+    public void onMeetingsDeleted(List<Meeting> meetings) {
+        synchronized (mLock) {
+            for (Meeting meeting : meetings) {
+                onMeetingChanged(meeting, false);
+            }
+        }
     }
 
     /**
@@ -134,7 +403,31 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public String getFilterPlace() {
-        return mFilterPlace;
+        synchronized (mLock) {
+            return mFilterPlace;
+        }
+    }
+
+    /**
+     * Get the filter attendee
+     * @return the filter attendee
+     */
+    @Override
+    public String getFilterPerson() {
+        synchronized (mLock) {
+            return mFilterPerson;
+        }
+    }
+
+    /**
+     * Get the filter subject
+     * @return the filter subject
+     */
+    @Override
+    public String getFilterSubject() {
+        synchronized (mLock) {
+            return mFilterSubject;
+        }
     }
 
     /**
@@ -143,7 +436,9 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public Instant getFilterStartDate() {
-        return mFilterStartDate;
+        synchronized (mLock) {
+            return mFilterStartDate;
+        }
     }
 
     /**
@@ -152,7 +447,9 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public Instant getFilterEndDate() {
-        return mFilterEndDate;
+        synchronized (mLock) {
+            return mFilterEndDate;
+        }
     }
 
     /**
@@ -161,6 +458,13 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public void deleteMeeting(Meeting meeting) {
+        MeetingsArchive archive = DI.getMeetingsArchive();
+        if (archive != null && archive.deleteMeeting(meeting)) {
+            // an archived meeting : no notification, patch the filtered meetings here
+            onMeetingDeleted(meeting);
+            return;
+        }
+        // the filtered meetings are patched back by the service notification
         mMeetingsApiService.deleteMeeting(meeting);
     }
 
@@ -170,7 +474,14 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public void setFilterStartDate(Instant filterStartDate) {
-        mFilterStartDate = DateEasy.startOfDay(filterStartDate);
+        synchronized (mLock) {
+            Instant startDate = filterStartDate == null ? null : DateEasy.startOfDay(filterStartDate);
+            if (!Objects.equals(startDate, mFilterStartDate)) {
+                mFilterStartDate = startDate;
+                mFiltersChanged = true;
+                mFiltersGeneration++;
+            }
+        }
     }
 
     /**
@@ -179,7 +490,14 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public void setFilterEndDate(Instant filterEndDate) {
-        mFilterEndDate = DateEasy.endOfDay(filterEndDate);
+        synchronized (mLock) {
+            Instant endDate = filterEndDate == null ? null : DateEasy.endOfDay(filterEndDate);
+            if (!Objects.equals(endDate, mFilterEndDate)) {
+                mFilterEndDate = endDate;
+                mFiltersChanged = true;
+                mFiltersGeneration++;
+            }
+        }
     }
 
     /**
@@ -188,7 +506,43 @@ public class MeetingsListFakeRepository implements MeetingsListContract.Model {
      */
     @Override
     public void setFilterPlace(String filterPlace) {
-        mFilterPlace = filterPlace;
+        synchronized (mLock) {
+            if (!Objects.equals(filterPlace, mFilterPlace)) {
+                mFilterPlace = filterPlace;
+                mFiltersChanged = true;
+                mFiltersGeneration++;
+            }
+        }
+    }
+
+    /**
+     * Set the attendee filter
+     * @param filterPerson the email of the person invited to the meetings
+     */
+    @Override
+    public void setFilterPerson(String filterPerson) {
+        synchronized (mLock) {
+            if (!Objects.equals(filterPerson, mFilterPerson)) {
+                mFilterPerson = filterPerson;
+                mFiltersChanged = true;
+                mFiltersGeneration++;
+            }
+        }
+    }
+
+    /**
+     * Set the subject filter
+     * @param filterSubject the text searched in the subjects
+     */
+    @Override
+    public void setFilterSubject(String filterSubject) {
+        synchronized (mLock) {
+            if (!Objects.equals(filterSubject, mFilterSubject)) {
+                mFilterSubject = filterSubject;
+                mFiltersChanged = true;
+                mFiltersGeneration++;
+            }
+        }
     }
 
 }
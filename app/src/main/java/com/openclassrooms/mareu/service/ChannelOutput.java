@@ -0,0 +1,92 @@
+package com.openclassrooms.mareu.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Sortie des formats binaires (voir {@link MeetingsSnapshot} et {@link MeetingsArchive}) : les valeurs sont
+ * écrites dans un tampon de taille fixe, vidé dans le canal dès qu'il est plein, de sorte qu'un fichier
+ * n'est jamais construit en entier sur le tas. La somme de contrôle CRC32 des octets écrits est calculée
+ * au passage, si demandée.
+ */
+final class ChannelOutput {
+
+    /**
+     * Size of the buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel mChannel;
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The checksum of the bytes flushed, or null
+     */
+    private final CRC32 mCrc;
+
+    /**
+     * Constructor
+     * @param channel the channel to write (blocking), not closed
+     * @param checksum true to compute the checksum of the bytes written
+     */
+    ChannelOutput(WritableByteChannel channel, boolean checksum) {
+        mChannel = channel;
+        mCrc = checksum ? new CRC32() : null;
+    }
+
+    ChannelOutput putInt(int value) throws IOException {
+        ensureRemaining(4);
+        mBuffer.putInt(value);
+        return this;
+    }
+
+    ChannelOutput putLong(long value) throws IOException {
+        ensureRemaining(8);
+        mBuffer.putLong(value);
+        return this;
+    }
+
+    ChannelOutput put(byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            ensureRemaining(1);
+            int length = Math.min(mBuffer.remaining(), bytes.length - offset);
+            mBuffer.put(bytes, offset, length);
+            offset += length;
+        }
+        return this;
+    }
+
+    /**
+     * Get the checksum of the bytes written so far
+     * @return the CRC32
+     * @throws IOException if the channel fails
+     */
+    int getChecksum() throws IOException {
+        flush();
+        return (int) mCrc.getValue();
+    }
+
+    /**
+     * Write the buffered bytes to the channel
+     * @throws IOException if the channel fails
+     */
+    void flush() throws IOException {
+        mBuffer.flip();
+        if (mCrc != null) {
+            mCrc.update(mBuffer.array(), 0, mBuffer.limit());
+        }
+        while (mBuffer.hasRemaining()) {
+            mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+
+    private void ensureRemaining(int size) throws IOException {
+        if (mBuffer.remaining() < size) {
+            flush();
+        }
+    }
+
+}
@@ -0,0 +1,541 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implémentation concurrente de {@link MeetingsApiService}, à isolation par instantanés
+ * Les index sont des listes triées persistantes (voir {@link PersistentSortedList}) : chaque écriture
+ * construit de nouveaux index en O(log n), qui partagent tout le reste avec les précédents, puis les publie
+ * d'un coup. Les lecteurs ne prennent aucun verrou : ils lisent le dernier état publié, et les listes
+ * qu'ils obtiennent ne changent plus jamais, même parcourues pendant une écriture.
+ * Les écritures sont sérialisées par le verrou du service, et les écouteurs sont notifiés en le détenant.
+ */
+public class ConcurrentMeetingsApiService implements MeetingsApiService {
+
+    /**
+     * Place with the lowest name, used to build the bounds of a range query
+     */
+    private static final Place LOWEST_PLACE = new Place("");
+
+    /**
+     * Order of the bookings : by place (normalized name, then name), then by date
+     */
+    private static final Comparator<Booking> BOOKING_ORDER = (b1, b2) -> {
+        int ret = b1.key.compareTo(b2.key);
+        if (ret == 0) {
+            ret = b1.name.compareTo(b2.name);
+        }
+        if (ret == 0) {
+            ret = b1.date.compareTo(b2.date);
+        }
+        return ret;
+    };
+
+    /**
+     * Order of the attendances : by person id, then by date, then by place name
+     */
+    private static final Comparator<Attendance> ATTENDANCE_ORDER = (a1, a2) -> {
+        int ret = Integer.compare(a1.personId, a2.personId);
+        if (ret == 0) {
+            ret = a1.date.compareTo(a2.date);
+        }
+        if (ret == 0) {
+            ret = a1.placeName.compareTo(a2.placeName);
+        }
+        return ret;
+    };
+
+    /**
+     * A meeting in the index of its place (the key is normalized once, for the prefix search), with the ids
+     * of the persons indexed for it (the invited persons of the meeting may change once registered)
+     */
+    private static final class Booking {
+        final String key;
+        final String name;
+        final Instant date;
+        final Meeting meeting;
+        final int[] personIds;
+
+        Booking(String key, String name, Instant date, Meeting meeting, int[] personIds) {
+            this.key = key;
+            this.name = name;
+            this.date = date;
+            this.meeting = meeting;
+            this.personIds = personIds;
+        }
+
+        Booking(String key, String name, Instant date, Meeting meeting) {
+            this(key, name, date, meeting, null);
+        }
+
+        Booking(Place place, Instant date, Meeting meeting) {
+            this(PlaceIndex.normalize(place.getName()), place.getName(), date, meeting);
+        }
+
+        Booking(Meeting meeting) {
+            this(PlaceIndex.normalize(meeting.getPlace().getName()), meeting.getPlace().getName(),
+                    meeting.getDate(), meeting, meeting.getPersonIds());
+        }
+    }
+
+    /**
+     * A meeting in the index of a person invited to it
+     */
+    private static final class Attendance {
+        final int personId;
+        final Instant date;
+        final String placeName;
+        final Meeting meeting;
+
+        Attendance(int personId, Instant date, String placeName, Meeting meeting) {
+            this.personId = personId;
+            this.date = date;
+            this.placeName = placeName;
+            this.meeting = meeting;
+        }
+
+        Attendance(int personId, Meeting meeting) {
+            this(personId, meeting.getDate(), meeting.getPlace().getName(), meeting);
+        }
+    }
+
+    /**
+     * A published state of the indexes, never modified
+     */
+    private static final class State {
+        final PersistentSortedList<Meeting> meetings;
+        final PersistentSortedList<Booking> bookings;
+        final PersistentSortedList<Attendance> attendances;
+        final long version;
+
+        State(PersistentSortedList<Meeting> meetings, PersistentSortedList<Booking> bookings,
+              PersistentSortedList<Attendance> attendances, long version) {
+            this.meetings = meetings;
+            this.bookings = bookings;
+            this.attendances = attendances;
+            this.version = version;
+        }
+    }
+
+    /**
+     * The indexes under construction by a write, from a published state
+     */
+    private static final class Changes {
+        PersistentSortedList<Meeting> meetings;
+        PersistentSortedList<Booking> bookings;
+        PersistentSortedList<Attendance> attendances;
+
+        Changes(State state) {
+            meetings = state.meetings;
+            bookings = state.bookings;
+            attendances = state.attendances;
+        }
+
+        /**
+         * Insert a meeting in every index, unless its place is already booked, in O(log n + a log n)
+         * @param meeting {@link Meeting}
+         * @return the outcome of the insertion
+         */
+        AddOutcome insert(Meeting meeting) {
+            if (meetings.find(meeting) != null) {
+                return AddOutcome.DUPLICATE;
+            }
+            if (!overlapping(bookings, meeting.getPlace(), meeting.getDate(), meeting.getEndDate()).isEmpty()) {
+                return AddOutcome.CONFLICT;
+            }
+            Booking booking = new Booking(meeting);
+            meetings = meetings.with(meeting);
+            bookings = bookings.with(booking);
+            for (int personId : booking.personIds) {
+                attendances = attendances.with(new Attendance(personId, meeting));
+            }
+            return AddOutcome.ADDED;
+        }
+
+        /**
+         * Remove a meeting from every index
+         * @param meeting {@link Meeting}, or a key equal to it
+         * @return the registered meeting, or null if not registered
+         */
+        Meeting remove(Meeting meeting) {
+            Meeting registered = meetings.find(meeting);
+            if (registered == null) {
+                return null;
+            }
+            // the booking knows the persons indexed (the given meeting may be a mere key, and the persons
+            // of the registered one may have changed since)
+            Booking booking = bookings.find(new Booking(registered.getPlace(), registered.getDate(), registered));
+            meetings = meetings.without(registered);
+            bookings = bookings.without(booking);
+            for (int personId : booking.personIds) {
+                attendances = attendances.without(new Attendance(personId, registered));
+            }
+            return registered;
+        }
+    }
+
+    /**
+     * The last published state (read without lock)
+     */
+    private volatile State mState = new State(PersistentSortedList.<Meeting>empty(Meeting.CHRONOLOGICAL_ORDER),
+            PersistentSortedList.empty(BOOKING_ORDER), PersistentSortedList.empty(ATTENDANCE_ORDER), 0);
+
+    /**
+     * Listeners to notify when a meeting is added, deleted or updated (guarded by the service lock)
+     */
+    private final List<OnMeetingsChangedListener> mListeners = new ArrayList<>();
+
+    /**
+     * Get the version of the meetings, without lock
+     * @return the version of the last published state
+     */
+    @Override
+    public long getVersion() {
+        return mState.version;
+    }
+
+    /**
+     * Get the meetings, in chronological order, without lock and in O(1)
+     * @return {@link List} immutable snapshot
+     */
+    @Override
+    public List<Meeting> getMeetings() {
+        return mState.meetings;
+    }
+
+    /**
+     * Get meetings within a time span, without lock and in O(log n)
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} immutable snapshot, iterated in O(log n + k)
+     */
+    @Override
+    public Collection<Meeting> getMeetingsBetween(Instant from, Instant to) {
+        PersistentSortedList<Meeting> meetings = mState.meetings;
+        int start = from == null ? 0 : meetings.lowerCount(rangeBound(from));
+        // every meeting at "to" is strictly lower than the bound at "to" + 1 ns
+        int end = to == null || !to.isBefore(Instant.MAX) ? meetings.size()
+                : meetings.lowerCount(rangeBound(to.plusNanos(1)));
+        return meetings.subList(start, Math.max(start, end));
+    }
+
+    /**
+     * Get meetings of a place within a time span, without lock and in O(log n)
+     * @param place the place
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} immutable snapshot, iterated in O(log n + k)
+     */
+    @Override
+    public Collection<Meeting> getMeetingsBetween(Place place, Instant from, Instant to) {
+        PersistentSortedList<Booking> bookings = mState.bookings;
+        int start = bookings.lowerCount(new Booking(place, from == null ? Instant.MIN : from, null));
+        int end = bookings.lowerOrEqualCount(new Booking(place, to == null ? Instant.MAX : to, null));
+        return meetingsOf(bookings.subList(start, Math.max(start, end)));
+    }
+
+    /**
+     * Get meetings of a person within a time span, without lock and in O(log n)
+     * @param person the person
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} immutable snapshot, iterated in O(log n + k)
+     */
+    @Override
+    public Collection<Meeting> getMeetingsOf(Person person, Instant from, Instant to) {
+        int id = PersonRegistry.getInstance().findId(person);
+        if (id == PersonRegistry.NO_ID) {
+            return Collections.emptyList();
+        }
+        PersistentSortedList<Attendance> attendances = mState.attendances;
+        int start = attendances.lowerCount(new Attendance(id, from == null ? Instant.MIN : from, "", null));
+        // every meeting of the person at "to" is strictly lower than the bound at "to" + 1 ns
+        int end = to == null || !to.isBefore(Instant.MAX)
+                ? attendances.lowerCount(new Attendance(id + 1, Instant.MIN, "", null))
+                : attendances.lowerCount(new Attendance(id, to.plusNanos(1), "", null));
+        List<Attendance> range = attendances.subList(start, Math.max(start, end));
+        return new AbstractList<Meeting>() {
+            @Override
+            public Meeting get(int index) {
+                return range.get(index).meeting;
+            }
+
+            @Override
+            public int size() {
+                return range.size();
+            }
+        };
+    }
+
+    /**
+     * Get the places whose name starts with the prefix, without lock and in O(p log n)
+     * (the bookings of a place are skipped at once, thanks to a binary search)
+     * @param prefix the prefix (case insensitive)
+     * @return {@link Collection} of places, sorted by normalized name
+     */
+    @Override
+    public Collection<Place> getPlacesStartingWith(String prefix) {
+        PersistentSortedList<Booking> bookings = mState.bookings;
+        String key = PlaceIndex.normalize(prefix);
+        List<Place> ret = new ArrayList<>();
+        int index = bookings.lowerCount(new Booking(key, "", Instant.MIN, null));
+        while (index < bookings.size()) {
+            Booking booking = bookings.get(index);
+            if (!booking.key.startsWith(key)) {
+                break;
+            }
+            ret.add(booking.meeting.getPlace());
+            // jump after the last booking of this place
+            index = bookings.lowerOrEqualCount(new Booking(booking.meeting.getPlace(), Instant.MAX, null));
+        }
+        return ret;
+    }
+
+    /**
+     * Get meetings of a place overlapping a time slot, without lock and in O(log n + k)
+     * @param place the place
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return {@link List} of the overlapping meetings
+     */
+    @Override
+    public List<Meeting> getOverlappingMeetings(Place place, Instant start, Instant end) {
+        return overlapping(mState.bookings, place, start, end);
+    }
+
+    /**
+     * Get the meetings of a place overlapping a time slot : as the meetings of a place never overlap each other,
+     * only the last one starting before the slot may overlap it, then the ones starting within the slot
+     * @param bookings the bookings
+     * @param place the place
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return {@link List} of the overlapping meetings, in chronological order
+     */
+    private static List<Meeting> overlapping(PersistentSortedList<Booking> bookings, Place place,
+                                             Instant start, Instant end) {
+        List<Meeting> ret = new ArrayList<>();
+        int index = bookings.lowerCount(new Booking(place, start, null));
+        if (index > 0 && bookings.get(index - 1).name.equals(place.getName())) {
+            index--;
+        }
+        for (Booking booking : bookings.subList(index, bookings.size())) {
+            if (!booking.name.equals(place.getName()) || !booking.date.isBefore(end)) {
+                break;
+            }
+            if (booking.meeting.getEndDate().isAfter(start)) {
+                ret.add(booking.meeting);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Build a probe meeting, lower than every meeting registered at the same date
+     * @param date the date
+     * @return the probe
+     */
+    private static Meeting rangeBound(Instant date) {
+        return new Meeting(date, null, LOWEST_PLACE);
+    }
+
+    /**
+     * Read-only view on the meetings of bookings
+     * @param bookings the bookings
+     * @return {@link List} of their meetings
+     */
+    private static List<Meeting> meetingsOf(List<Booking> bookings) {
+        return new AbstractList<Meeting>() {
+            @Override
+            public Meeting get(int index) {
+                return bookings.get(index).meeting;
+            }
+
+            @Override
+            public int size() {
+                return bookings.size();
+            }
+        };
+    }
+
+    /**
+     * Check if a meeting is registered, without lock and in O(log n)
+     * @param meeting {@link Meeting}
+     * @return true if registered
+     */
+    @Override
+    public boolean containsMeeting(Meeting meeting) {
+        return mState.meetings.find(meeting) != null;
+    }
+
+    /**
+     * Add a meeting, unless its place is already booked, then publish the new state
+     * @param meeting {@link Meeting}
+     * @return true if added
+     */
+    @Override
+    public synchronized boolean addMeeting(Meeting meeting) {
+        Changes changes = new Changes(mState);
+        if (changes.insert(meeting) != AddOutcome.ADDED) {
+            return false;
+        }
+        publish(changes);
+        for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+            listener.onMeetingAdded(meeting);
+        }
+        return true;
+    }
+
+    /**
+     * Add several meetings, then publish a single new state, and notify the listeners once
+     * (an empty store and a sorted batch without conflict, e.g. a snapshot, is loaded in O(k))
+     * @param meetings {@link Collection} of meetings
+     * @return {@link List} of the outcomes
+     */
+    @Override
+    public synchronized List<AddOutcome> addMeetings(Collection<Meeting> meetings) {
+        List<AddOutcome> outcomes = new ArrayList<>(meetings.size());
+        Changes changes = new Changes(mState);
+        List<Meeting> added = changes.meetings.isEmpty()
+                ? IndexedMeetingsApiService.getSortedWithoutConflict(meetings) : null;
+        if (added != null) {
+            load(changes, added);
+            outcomes.addAll(Collections.nCopies(added.size(), AddOutcome.ADDED));
+        } else {
+            added = new ArrayList<>();
+            for (Meeting meeting : meetings) {
+                AddOutcome outcome = changes.insert(meeting);
+                if (outcome == AddOutcome.ADDED) {
+                    added.add(meeting);
+                }
+                outcomes.add(outcome);
+            }
+        }
+        if (!added.isEmpty()) {
+            publish(changes);
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingsAdded(added);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Build the indexes from sorted meetings without conflict, in O(k log k)
+     * @param changes the empty indexes
+     * @param sortedMeetings the meetings, sorted by {@link Meeting#CHRONOLOGICAL_ORDER}
+     */
+    private static void load(Changes changes, List<Meeting> sortedMeetings) {
+        List<Booking> bookings = new ArrayList<>(sortedMeetings.size());
+        List<Attendance> attendances = new ArrayList<>();
+        for (Meeting meeting : sortedMeetings) {
+            Booking booking = new Booking(meeting);
+            bookings.add(booking);
+            for (int personId : booking.personIds) {
+                attendances.add(new Attendance(personId, meeting));
+            }
+        }
+        Collections.sort(bookings, BOOKING_ORDER);
+        Collections.sort(attendances, ATTENDANCE_ORDER);
+        changes.meetings = PersistentSortedList.fromSorted(Meeting.CHRONOLOGICAL_ORDER, sortedMeetings);
+        changes.bookings = PersistentSortedList.fromSorted(BOOKING_ORDER, bookings);
+        changes.attendances = PersistentSortedList.fromSorted(ATTENDANCE_ORDER, attendances);
+    }
+
+    /**
+     * Delete a meeting, then publish the new state
+     * @param meeting {@link Meeting}
+     */
+    @Override
+    public synchronized void deleteMeeting(Meeting meeting) {
+        Changes changes = new Changes(mState);
+        if (changes.remove(meeting) != null) {
+            publish(changes);
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingDeleted(meeting);
+            }
+        }
+    }
+
+    /**
+     * Delete several meetings, then publish a single new state, and notify the listeners once
+     * @param meetings {@link Collection} of meetings
+     * @return the number of meetings deleted
+     */
+    @Override
+    public synchronized int deleteMeetings(Collection<Meeting> meetings) {
+        Changes changes = new Changes(mState);
+        List<Meeting> deleted = new ArrayList<>();
+        for (Meeting meeting : meetings) {
+            // a meeting repeated in the batch is removed only once
+            if (changes.remove(meeting) != null) {
+                deleted.add(meeting);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            publish(changes);
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingsDeleted(deleted);
+            }
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Replace a meeting by an updated one, then publish the new state (nothing is published if refused)
+     * @param meeting {@link Meeting} to replace
+     * @param updated {@link Meeting} replacing it
+     * @return true if replaced
+     */
+    @Override
+    public synchronized boolean updateMeeting(Meeting meeting, Meeting updated) {
+        Changes changes = new Changes(mState);
+        Meeting previous = changes.remove(meeting);
+        if (previous == null || changes.insert(updated) != AddOutcome.ADDED) {
+            return false;
+        }
+        publish(changes);
+        for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+            listener.onMeetingUpdated(previous, updated);
+        }
+        return true;
+    }
+
+    /**
+     * Publish the indexes of a write, as the next version (the service lock is held)
+     * @param changes the new indexes
+     */
+    private void publish(Changes changes) {
+        mState = new State(changes.meetings, changes.bookings, changes.attendances, mState.version + 1);
+    }
+
+    /**
+     * Register a listener to notify on each change
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void addOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void removeOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+}
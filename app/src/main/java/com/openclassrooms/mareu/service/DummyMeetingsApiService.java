@@ -1,9 +1,19 @@
 package com.openclassrooms.mareu.service;
 
 import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implémentation concrète de {@link MeetingsApiService}
@@ -16,23 +26,211 @@ public class DummyMeetingsApiService implements MeetingsApiService {
      */
     private final List<Meeting> meetings = new ArrayList<>();
 
+    /**
+     * Listeners to notify when a meeting is added, deleted or updated
+     */
+    private final List<OnMeetingsChangedListener> listeners = new ArrayList<>();
+
+    /**
+     * Version of the meetings, incremented by each change
+     */
+    private long version;
+
+    /**
+     * Get the version of the meetings
+     * @return the version, incremented by each change
+     */
+    @Override
+    public synchronized long getVersion() {
+        return version;
+    }
+
     /**
      * Get meetings list
      * @return {@link List}
      */
     @Override
-    public List<Meeting> getMeetings() {
+    public synchronized List<Meeting> getMeetings() {
         return meetings;
     }
 
     /**
-     * Add a meeting
+     * Get meetings within a time span, by walking the whole list
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} sorted copy
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsBetween(Instant from, Instant to) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : meetings) {
+            if ((from == null || meeting.getDate().compareTo(from) >= 0) &&
+                    (to == null || meeting.getDate().compareTo(to) <= 0)) {
+                ret.add(meeting);
+            }
+        }
+        Collections.sort(ret);
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * Get meetings of a place within a time span, by walking the whole list
+     * @param place the place
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} sorted copy
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsBetween(Place place, Instant from, Instant to) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : getMeetingsBetween(from, to)) {
+            if (meeting.getPlace().equals(place)) {
+                ret.add(meeting);
+            }
+        }
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * Get meetings of a person within a time span, by walking the whole list
+     * @param person the person
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} sorted copy
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsOf(Person person, Instant from, Instant to) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : getMeetingsBetween(from, to)) {
+            if (meeting.getPersons().contains(person)) {
+                ret.add(meeting);
+            }
+        }
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * Get places whose name starts with the prefix, by walking the whole list
+     * @param prefix the prefix (case insensitive)
+     * @return {@link Collection} of places
+     */
+    @Override
+    public synchronized Collection<Place> getPlacesStartingWith(String prefix) {
+        Set<Place> ret = new LinkedHashSet<>();
+        for (Meeting meeting : meetings) {
+            if (meeting.getPlace().getName().toLowerCase().startsWith(prefix.toLowerCase())) {
+                ret.add(meeting.getPlace());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get meetings of a place overlapping a time slot, by walking the whole list
+     * @param place the place
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return {@link List} sorted copy
+     */
+    @Override
+    public synchronized List<Meeting> getOverlappingMeetings(Place place, Instant start, Instant end) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : meetings) {
+            if (meeting.getPlace().equals(place) &&
+                    meeting.getDate().isBefore(end) && meeting.getEndDate().isAfter(start)) {
+                ret.add(meeting);
+            }
+        }
+        Collections.sort(ret, Meeting.CHRONOLOGICAL_ORDER);
+        return ret;
+    }
+
+    /**
+     * Add a meeting, unless its place is already booked
      * @param meeting {@link Meeting}
+     * @return true if added
      */
     @Override
-    public void addMeeting(Meeting meeting) {
-        if(!meetings.contains(meeting))
-            meetings.add(meeting);
+    public synchronized boolean addMeeting(Meeting meeting) {
+        if (meetings.contains(meeting) || !getOverlappingMeetings(
+                meeting.getPlace(), meeting.getDate(), meeting.getEndDate()).isEmpty()) {
+            return false;
+        }
+        meetings.add(meeting);
+        version++;
+        for (OnMeetingsChangedListener listener : new ArrayList<>(listeners)) {
+            listener.onMeetingAdded(meeting);
+        }
+        return true;
+    }
+
+    /**
+     * Add several meetings, with a single walk through the list to index the registered meetings
+     * @param meetings {@link Collection} of meetings
+     * @return {@link List} of the outcomes
+     */
+    @Override
+    public synchronized List<AddOutcome> addMeetings(Collection<Meeting> meetings) {
+        // index the registered meetings by identity, and by place for the overlap checks
+        Set<Meeting> registered = new HashSet<>(this.meetings);
+        Map<Place, List<Meeting>> byPlace = new HashMap<>();
+        for (Meeting meeting : this.meetings) {
+            placeMeetings(byPlace, meeting.getPlace()).add(meeting);
+        }
+        List<AddOutcome> outcomes = new ArrayList<>(meetings.size());
+        List<Meeting> added = new ArrayList<>();
+        for (Meeting meeting : meetings) {
+            List<Meeting> placeMeetings = placeMeetings(byPlace, meeting.getPlace());
+            if (registered.contains(meeting)) {
+                outcomes.add(AddOutcome.DUPLICATE);
+            } else if (overlaps(placeMeetings, meeting)) {
+                outcomes.add(AddOutcome.CONFLICT);
+            } else {
+                // the next meetings of the batch are checked against this one too
+                registered.add(meeting);
+                placeMeetings.add(meeting);
+                added.add(meeting);
+                outcomes.add(AddOutcome.ADDED);
+            }
+        }
+        this.meetings.addAll(added);
+        if (!added.isEmpty()) {
+            version++;
+            for (OnMeetingsChangedListener listener : new ArrayList<>(listeners)) {
+                listener.onMeetingsAdded(added);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Get the meetings of a place, from a map filled on demand
+     * @param byPlace the meetings by place
+     * @param place the place
+     * @return {@link List} of the meetings of the place
+     */
+    private static List<Meeting> placeMeetings(Map<Place, List<Meeting>> byPlace, Place place) {
+        List<Meeting> placeMeetings = byPlace.get(place);
+        if (placeMeetings == null) {
+            placeMeetings = new ArrayList<>();
+            byPlace.put(place, placeMeetings);
+        }
+        return placeMeetings;
+    }
+
+    /**
+     * Check if a meeting overlaps one of the meetings of its place
+     * @param placeMeetings the meetings of the place
+     * @param meeting the meeting
+     * @return true if the time slots overlap
+     */
+    private static boolean overlaps(List<Meeting> placeMeetings, Meeting meeting) {
+        for (Meeting other : placeMeetings) {
+            if (other.getDate().isBefore(meeting.getEndDate()) && other.getEndDate().isAfter(meeting.getDate())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -40,8 +238,101 @@ public class DummyMeetingsApiService implements MeetingsApiService {
      * @param meeting {@link Meeting}
      */
     @Override
-    public void deleteMeeting(Meeting meeting) {
-        meetings.remove(meeting);
+    public synchronized void deleteMeeting(Meeting meeting) {
+        if (meetings.remove(meeting)) {
+            version++;
+            for (OnMeetingsChangedListener listener : new ArrayList<>(listeners)) {
+                listener.onMeetingDeleted(meeting);
+            }
+        }
+    }
+
+    /**
+     * Delete several meetings, with a single walk through the list
+     * @param meetings {@link Collection} of meetings
+     * @return the number of meetings deleted
+     */
+    @Override
+    public synchronized int deleteMeetings(Collection<Meeting> meetings) {
+        Set<Meeting> toDelete = new HashSet<>(meetings);
+        List<Meeting> deleted = new ArrayList<>();
+        // compact the kept meetings at the head of the list, then cut its tail
+        int kept = 0;
+        for (Meeting meeting : this.meetings) {
+            if (toDelete.contains(meeting)) {
+                deleted.add(meeting);
+            } else {
+                this.meetings.set(kept++, meeting);
+            }
+        }
+        this.meetings.subList(kept, this.meetings.size()).clear();
+        if (!deleted.isEmpty()) {
+            version++;
+            for (OnMeetingsChangedListener listener : new ArrayList<>(listeners)) {
+                listener.onMeetingsDeleted(deleted);
+            }
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Replace a meeting by an updated one, checked against the other meetings only
+     * @param meeting {@link Meeting} to replace
+     * @param updated {@link Meeting} replacing it
+     * @return true if replaced
+     */
+    @Override
+    public synchronized boolean updateMeeting(Meeting meeting, Meeting updated) {
+        int index = meetings.indexOf(meeting);
+        if (index < 0) {
+            return false;
+        }
+        List<Meeting> others = new ArrayList<>();
+        for (Meeting other : meetings) {
+            if (other.getPlace().equals(updated.getPlace()) && !other.equals(meeting)) {
+                if (other.equals(updated)) {
+                    return false;
+                }
+                others.add(other);
+            }
+        }
+        if (overlaps(others, updated)) {
+            return false;
+        }
+        Meeting previous = meetings.set(index, updated);
+        version++;
+        for (OnMeetingsChangedListener listener : new ArrayList<>(listeners)) {
+            listener.onMeetingUpdated(previous, updated);
+        }
+        return true;
+    }
+
+    /**
+     * Check if a meeting is registered
+     * @param meeting {@link Meeting}
+     * @return true if registered
+     */
+    @Override
+    public synchronized boolean containsMeeting(Meeting meeting) {
+        return meetings.contains(meeting);
+    }
+
+    /**
+     * Register a listener
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void addOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void removeOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        listeners.remove(listener);
     }
 
 }
@@ -0,0 +1,645 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecteur en flux de fichiers iCalendar (RFC 5545) : chaque VEVENT devient une réunion
+ * (LOCATION donne le lieu, SUMMARY le sujet, les ATTENDEE "mailto:" les personnes invitées).
+ * Le fichier est lu par blocs depuis un canal, et analysé octet par octet, sans décodage des lignes
+ * inutiles : la mémoire utilisée ne dépend que de la plus longue ligne, pas du nombre d'événements.
+ */
+public class IcsMeetingsReader implements Closeable {
+
+    /**
+     * Size of the read buffer, by default
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Number of meetings given at once to the service, by default (see {@link #importInto(MeetingsApiService)})
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    /**
+     * No date, nor duration, read
+     */
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    /**
+     * The channel, and the bytes read from it, within [mPosition, mLimit)
+     */
+    private final ReadableByteChannel mChannel;
+    private final byte[] mBytes;
+    private final ByteBuffer mBuffer;
+    private int mPosition;
+    private int mLimit;
+    private boolean mEndOfInput;
+
+    /**
+     * The current logical line (unfolded), without its line break
+     */
+    private byte[] mLine = new byte[256];
+    private int mLineLength;
+
+    /**
+     * The calendar of the floating dates (without time zone), and the calendar of each TZID
+     */
+    private final ZonedEpochCalendar mLocalCalendar;
+    private final Map<String, ZonedEpochCalendar> mZoneCalendars = new HashMap<>();
+
+    /**
+     * The event being read : its properties, and the depth of its sub-components (VALARM...)
+     */
+    private boolean mInEvent;
+    private int mSubComponentDepth;
+    private boolean mInvalidEvent;
+    private long mStart;
+    private long mEnd;
+    private long mDurationSeconds;
+    private boolean mStartIsDate;
+    private String mSummary;
+    private String mLocation;
+    private final List<Person> mPersons = new ArrayList<>();
+
+    /**
+     * Number of events which could not be turned into a meeting
+     */
+    private int mSkippedCount;
+
+    /**
+     * Constructor, the floating dates being in the app TimeZone
+     * @param channel the channel to read (blocking)
+     */
+    public IcsMeetingsReader(ReadableByteChannel channel) {
+        this(channel, DateEasy.getLocaleCalendar(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param channel the channel to read (blocking)
+     * @param localCalendar the calendar of the floating dates, and of the unknown TZID
+     * @param bufferSize the size of the read buffer
+     */
+    public IcsMeetingsReader(ReadableByteChannel channel, ZonedEpochCalendar localCalendar, int bufferSize) {
+        mChannel = channel;
+        mLocalCalendar = localCalendar;
+        mBytes = new byte[bufferSize];
+        mBuffer = ByteBuffer.wrap(mBytes);
+    }
+
+    /**
+     * Read the next meeting
+     * The events without place or valid dates are skipped (see {@link #getSkippedCount()})
+     * @return the meeting, or null at the end of the file
+     * @throws IOException if the channel fails
+     */
+    public Meeting read() throws IOException {
+        while (readLine()) {
+            Meeting meeting = parseLine();
+            if (meeting != null) {
+                return meeting;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read all the meetings, and add them to a service by batches (the memory used stays bounded)
+     * @param service the service
+     * @return {@link ImportReport} the outcomes of the import
+     * @throws IOException if the channel fails
+     */
+    public ImportReport importInto(MeetingsApiService service) throws IOException {
+        return importInto(service, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Read all the meetings, and add them to a service by batches (the memory used stays bounded)
+     * @param service the service
+     * @param batchSize the number of meetings given at once to the service
+     * @return {@link ImportReport} the outcomes of the import
+     * @throws IOException if the channel fails
+     */
+    public ImportReport importInto(MeetingsApiService service, int batchSize) throws IOException {
+        ImportReport report = new ImportReport();
+        List<Meeting> batch = new ArrayList<>(batchSize);
+        Meeting meeting;
+        while ((meeting = read()) != null) {
+            batch.add(meeting);
+            if (batch.size() == batchSize) {
+                report.count(service.addMeetings(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            report.count(service.addMeetings(batch));
+        }
+        report.mSkipped = mSkippedCount;
+        return report;
+    }
+
+    /**
+     * Get the number of events skipped so far
+     * @return the number of events without place or valid dates
+     */
+    public int getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    /**
+     * Close the channel
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    /**
+     * Read the next logical line : the folded lines (CRLF followed by a space or a tab) are joined
+     * @return false at the end of the file
+     * @throws IOException if the channel fails
+     */
+    private boolean readLine() throws IOException {
+        mLineLength = 0;
+        boolean hasBytes = false;
+        while (mPosition < mLimit || fill()) {
+            hasBytes = true;
+            // copy the bytes up to the line break, in bulk
+            int start = mPosition;
+            while (mPosition < mLimit && mBytes[mPosition] != '\n') {
+                mPosition++;
+            }
+            appendToLine(start, mPosition);
+            if (mPosition == mLimit) {
+                continue;
+            }
+            // skip the line break, then look for a folding
+            mPosition++;
+            if (mLineLength > 0 && mLine[mLineLength - 1] == '\r') {
+                mLineLength--;
+            }
+            if ((mPosition < mLimit || fill()) && (mBytes[mPosition] == ' ' || mBytes[mPosition] == '\t')) {
+                mPosition++;
+                continue;
+            }
+            return true;
+        }
+        return hasBytes;
+    }
+
+    /**
+     * Read the next block of the channel
+     * @return false at the end of the file
+     * @throws IOException if the channel fails
+     */
+    private boolean fill() throws IOException {
+        if (mEndOfInput) {
+            return false;
+        }
+        mBuffer.clear();
+        int count;
+        do {
+            count = mChannel.read(mBuffer);
+        } while (count == 0);
+        if (count < 0) {
+            mEndOfInput = true;
+            mPosition = mLimit = 0;
+            return false;
+        }
+        mPosition = 0;
+        mLimit = count;
+        return true;
+    }
+
+    /**
+     * Append bytes of the read buffer to the current line
+     * @param from first byte (inclusive)
+     * @param to last byte (exclusive)
+     */
+    private void appendToLine(int from, int to) {
+        int length = to - from;
+        if (mLineLength + length > mLine.length) {
+            byte[] line = new byte[Math.max(mLine.length * 2, mLineLength + length)];
+            System.arraycopy(mLine, 0, line, 0, mLineLength);
+            mLine = line;
+        }
+        System.arraycopy(mBytes, from, mLine, mLineLength, length);
+        mLineLength += length;
+    }
+
+    /**
+     * Parse the current line : "NAME;PARAM=value;...:value"
+     * @return the meeting if the line ends an event, null otherwise
+     */
+    private Meeting parseLine() {
+        // the name ends with the first ';' or ':'
+        int nameEnd = 0;
+        while (nameEnd < mLineLength && mLine[nameEnd] != ';' && mLine[nameEnd] != ':') {
+            nameEnd++;
+        }
+        // the value starts after the first ':' out of a quoted parameter value
+        int valueStart = nameEnd;
+        boolean quoted = false;
+        while (valueStart < mLineLength && (quoted || mLine[valueStart] != ':')) {
+            if (mLine[valueStart] == '"') {
+                quoted = !quoted;
+            }
+            valueStart++;
+        }
+        if (valueStart == mLineLength) {
+            // blank or malformed line
+            return null;
+        }
+        valueStart++;
+
+        if (isName(nameEnd, "BEGIN")) {
+            if (mInEvent) {
+                mSubComponentDepth++;
+            } else if (isValue(valueStart, "VEVENT")) {
+                startEvent();
+            }
+        } else if (isName(nameEnd, "END")) {
+            if (mInEvent) {
+                if (mSubComponentDepth > 0) {
+                    mSubComponentDepth--;
+                } else {
+                    mInEvent = false;
+                    return endEvent();
+                }
+            }
+        } else if (mInEvent && mSubComponentDepth == 0) {
+            // a property of the event itself (not of one of its alarms)
+            if (isName(nameEnd, "DTSTART")) {
+                mStartIsDate = isDate(valueStart);
+                mStart = parseDate(nameEnd, valueStart - 1, valueStart);
+            } else if (isName(nameEnd, "DTEND")) {
+                mEnd = parseDate(nameEnd, valueStart - 1, valueStart);
+            } else if (isName(nameEnd, "DURATION")) {
+                mDurationSeconds = parseDuration(valueStart);
+            } else if (isName(nameEnd, "SUMMARY")) {
+                mSummary = decodeText(valueStart);
+            } else if (isName(nameEnd, "LOCATION")) {
+                mLocation = decodeText(valueStart);
+            } else if (isName(nameEnd, "ATTENDEE")) {
+                if (startsWithIgnoreCase(valueStart, "mailto:")) {
+                    String email = decode(valueStart + 7, mLineLength).trim();
+                    if (!email.isEmpty()) {
+                        mPersons.add(new Person(email));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reset the properties, at the beginning of an event
+     */
+    private void startEvent() {
+        mInEvent = true;
+        mSubComponentDepth = 0;
+        mInvalidEvent = false;
+        mStart = NO_VALUE;
+        mEnd = NO_VALUE;
+        mDurationSeconds = NO_VALUE;
+        mStartIsDate = false;
+        mSummary = null;
+        mLocation = null;
+        mPersons.clear();
+    }
+
+    /**
+     * Build the meeting, at the end of an event
+     * Without DTEND nor DURATION, a meeting lasts a day if it starts on a date,
+     * or {@link Meeting#DEFAULT_DURATION} otherwise
+     * @return the meeting, or null if the event is skipped
+     */
+    private Meeting endEvent() {
+        long durationSeconds;
+        if (mEnd != NO_VALUE) {
+            durationSeconds = mEnd - mStart;
+        } else if (mDurationSeconds != NO_VALUE) {
+            durationSeconds = mDurationSeconds;
+        } else {
+            durationSeconds = mStartIsDate ? SECONDS_PER_DAY : Meeting.DEFAULT_DURATION.getSeconds();
+        }
+        if (mInvalidEvent || mStart == NO_VALUE || mLocation == null || mLocation.isEmpty() || durationSeconds <= 0) {
+            mSkippedCount++;
+            return null;
+        }
+        Meeting meeting = new Meeting(Instant.ofEpochSecond(mStart), mSummary == null ? "" : mSummary,
+                new Place(mLocation), Duration.ofSeconds(durationSeconds),
+                mPersons.toArray(new Person[0]));
+        mPersons.clear();
+        return meeting;
+    }
+
+    /**
+     * Parse a date property : DATE ("yyyyMMdd") or DATE-TIME ("yyyyMMdd'T'HHmmss", UTC if followed by 'Z',
+     * in the zone of the TZID parameter if any, floating otherwise)
+     * @param paramsStart start of the parameters (at the ';' after the name)
+     * @param paramsEnd end of the parameters (at the ':' before the value)
+     * @param valueStart start of the value
+     * @return the epoch seconds, or NO_VALUE if invalid (the event is then skipped)
+     */
+    private long parseDate(int paramsStart, int paramsEnd, int valueStart) {
+        int length = mLineLength - valueStart;
+        if (length != 8 && length != 15 && length != 16) {
+            mInvalidEvent = true;
+            return NO_VALUE;
+        }
+        int year = parseDigits(valueStart, 4);
+        int month = parseDigits(valueStart + 4, 2);
+        int day = parseDigits(valueStart + 6, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1
+                || day > lengthOfMonth(year, month)) {
+            mInvalidEvent = true;
+            return NO_VALUE;
+        }
+        long epochDay = ZonedEpochCalendar.daysFromCivil(year, month, day);
+        ZonedEpochCalendar calendar = getCalendar(paramsStart, paramsEnd);
+        if (length == 8) {
+            return calendar.startOfLocalDayToEpochSecond(epochDay);
+        }
+        int hour = parseDigits(valueStart + 9, 2);
+        int minute = parseDigits(valueStart + 11, 2);
+        int second = parseDigits(valueStart + 13, 2);
+        boolean isUtc = length == 16;
+        if (mLine[valueStart + 8] != 'T' || (isUtc && mLine[valueStart + 15] != 'Z')
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            mInvalidEvent = true;
+            return NO_VALUE;
+        }
+        // a leap second is read as the next second
+        long local = epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        return isUtc ? local : calendar.localToEpochSecond(local);
+    }
+
+    /**
+     * Parse a DURATION value : "P15DT5H0M20S" or "P7W" (the negative durations are invalid)
+     * @param valueStart start of the value
+     * @return the seconds, or NO_VALUE if invalid (the event is then skipped)
+     */
+    private long parseDuration(int valueStart) {
+        int index = valueStart;
+        if (index < mLineLength && mLine[index] == '+') {
+            index++;
+        }
+        if (index == mLineLength || mLine[index] != 'P') {
+            mInvalidEvent = true;
+            return NO_VALUE;
+        }
+        index++;
+        long seconds = 0;
+        long number = -1;
+        boolean inTime = false;
+        for (; index < mLineLength; index++) {
+            byte b = mLine[index];
+            if (b >= '0' && b <= '9') {
+                number = (number < 0 ? 0 : number * 10) + (b - '0');
+                if (number > Integer.MAX_VALUE) {
+                    break;
+                }
+            } else if (b == 'T' && number < 0 && !inTime) {
+                inTime = true;
+            } else if (number >= 0 && !inTime && (b == 'W' || b == 'D')) {
+                seconds += number * (b == 'W' ? 7L * SECONDS_PER_DAY : SECONDS_PER_DAY);
+                number = -1;
+            } else if (number >= 0 && inTime && (b == 'H' || b == 'M' || b == 'S')) {
+                seconds += number * (b == 'H' ? 3600L : b == 'M' ? 60L : 1L);
+                number = -1;
+            } else {
+                break;
+            }
+        }
+        if (index != mLineLength || number >= 0) {
+            mInvalidEvent = true;
+            return NO_VALUE;
+        }
+        return seconds;
+    }
+
+    /**
+     * Get the calendar of a date property, from its TZID parameter
+     * @param paramsStart start of the parameters
+     * @param paramsEnd end of the parameters
+     * @return the calendar of the zone, or the local calendar if the zone is missing or unknown
+     */
+    private ZonedEpochCalendar getCalendar(int paramsStart, int paramsEnd) {
+        int index = paramsStart;
+        while (index < paramsEnd) {
+            // at a ';' : look for "TZID="
+            int nameStart = index + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < paramsEnd && mLine[nameEnd] != '=' && mLine[nameEnd] != ';') {
+                nameEnd++;
+            }
+            int valueEnd = nameEnd;
+            boolean quoted = false;
+            while (valueEnd < paramsEnd && (quoted || mLine[valueEnd] != ';')) {
+                if (mLine[valueEnd] == '"') {
+                    quoted = !quoted;
+                }
+                valueEnd++;
+            }
+            if (nameEnd < paramsEnd && mLine[nameEnd] == '=' && equalsIgnoreCase(nameStart, nameEnd, "TZID")) {
+                String zone = decode(nameEnd + 1, valueEnd).replace("\"", "");
+                return getZoneCalendar(zone.startsWith("/") ? zone.substring(1) : zone);
+            }
+            index = valueEnd;
+        }
+        return mLocalCalendar;
+    }
+
+    /**
+     * Get the calendar of a zone, built once per file
+     * @param zone the zone id
+     * @return the calendar of the zone, or the local calendar if the zone is unknown
+     */
+    private ZonedEpochCalendar getZoneCalendar(String zone) {
+        ZonedEpochCalendar calendar = mZoneCalendars.get(zone);
+        if (calendar == null) {
+            try {
+                calendar = new ZonedEpochCalendar(ZoneId.of(zone));
+            } catch (DateTimeException e) {
+                // a zone only defined by a VTIMEZONE of the file (ex: Windows names)
+                calendar = mLocalCalendar;
+            }
+            mZoneCalendars.put(zone, calendar);
+        }
+        return calendar;
+    }
+
+    /**
+     * Decode a TEXT value, unescaping "\\", "\;", "\," and "\n"
+     * @param valueStart start of the value
+     * @return the text
+     */
+    private String decodeText(int valueStart) {
+        // unescape in place : the escapes are ASCII, so the UTF-8 sequences are kept whole
+        int to = valueStart;
+        for (int from = valueStart; from < mLineLength; from++) {
+            byte b = mLine[from];
+            if (b == '\\' && from + 1 < mLineLength) {
+                byte escaped = mLine[++from];
+                b = escaped == 'n' || escaped == 'N' ? (byte) '\n' : escaped;
+            }
+            mLine[to++] = b;
+        }
+        return decode(valueStart, to);
+    }
+
+    /**
+     * Decode UTF-8 bytes of the current line
+     * @param from first byte (inclusive)
+     * @param to last byte (exclusive)
+     * @return the string
+     */
+    private String decode(int from, int to) {
+        return new String(mLine, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a fixed count of decimal digits of the current line
+     * @param from first digit
+     * @param count number of digits
+     * @return the number, or -1 if not a number
+     */
+    private int parseDigits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = mLine[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Get the number of days of a month
+     * @param year the year
+     * @param month the month, from 1 to 12
+     * @return the number of days
+     */
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Check if a date value is a DATE (without time)
+     * @param valueStart start of the value
+     * @return true if the value is a DATE
+     */
+    private boolean isDate(int valueStart) {
+        return mLineLength - valueStart == 8;
+    }
+
+    private boolean isName(int nameEnd, String name) {
+        return equalsIgnoreCase(0, nameEnd, name);
+    }
+
+    private boolean isValue(int valueStart, String value) {
+        return equalsIgnoreCase(valueStart, mLineLength, value);
+    }
+
+    private boolean startsWithIgnoreCase(int from, String prefix) {
+        return mLineLength - from >= prefix.length() && equalsIgnoreCase(from, from + prefix.length(), prefix);
+    }
+
+    /**
+     * Compare ASCII bytes of the current line with a string, ignoring the case
+     * @param from first byte (inclusive)
+     * @param to last byte (exclusive)
+     * @param ascii the string, in ASCII
+     * @return true if equal
+     */
+    private boolean equalsIgnoreCase(int from, int to, String ascii) {
+        if (to - from != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            int b = mLine[from + i];
+            int c = ascii.charAt(i);
+            // only the letters may differ, by their case bit
+            boolean isLetter = (c | 0x20) >= 'a' && (c | 0x20) <= 'z';
+            if (b != c && (!isLetter || (b | 0x20) != (c | 0x20))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Outcomes of an import : number of meetings added, duplicated, conflicting, and events skipped
+     */
+    public static final class ImportReport {
+
+        private int mAdded;
+        private int mDuplicates;
+        private int mConflicts;
+        private int mSkipped;
+
+        /**
+         * Count the outcomes of a batch
+         * @param outcomes the outcomes
+         */
+        private void count(List<MeetingsApiService.AddOutcome> outcomes) {
+            for (MeetingsApiService.AddOutcome outcome : outcomes) {
+                switch (outcome) {
+                    case ADDED:
+                        mAdded++;
+                        break;
+                    case DUPLICATE:
+                        mDuplicates++;
+                        break;
+                    case CONFLICT:
+                        mConflicts++;
+                        break;
+                }
+            }
+        }
+
+        public int getAdded() {
+            return mAdded;
+        }
+
+        public int getDuplicates() {
+            return mDuplicates;
+        }
+
+        public int getConflicts() {
+            return mConflicts;
+        }
+
+        public int getSkipped() {
+            return mSkipped;
+        }
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+
+/**
+ * Écrivain en flux de fichiers iCalendar (RFC 5545) : chaque réunion devient un VEVENT
+ * (voir {@link IcsMeetingsReader} pour la lecture). Les dates sont écrites en UTC, et les textes encodés
+ * en UTF-8 directement dans le tampon d'écriture, vidé dans le canal par blocs : la mémoire utilisée
+ * ne dépend pas du nombre de réunions.
+ */
+public class IcsMeetingsWriter implements Closeable {
+
+    /**
+     * Size of the write buffer, by default
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum length of a line, in octets, without its line break (longer lines are folded)
+     */
+    private static final int MAX_LINE_LENGTH = 75;
+
+    /**
+     * Room to keep in the buffer before writing a character : a 4 octets character, then a folding
+     */
+    private static final int MAX_CHARACTER_SIZE = 8;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    /**
+     * The channel, and the bytes not written yet, within [0, mPosition)
+     */
+    private final WritableByteChannel mChannel;
+    private final byte[] mBytes;
+    private final ByteBuffer mBuffer;
+    private int mPosition;
+
+    /**
+     * Length of the current line, in octets
+     */
+    private int mLineLength;
+
+    /**
+     * The date of the export (DTSTAMP of the events), formatted once
+     */
+    private final String mStamp;
+
+    /**
+     * Number of meetings written so far
+     */
+    private int mWrittenCount;
+
+    /**
+     * Constructor, stamping the events with the current date
+     * @param channel the channel to write (blocking)
+     * @throws IOException if the channel fails
+     */
+    public IcsMeetingsWriter(WritableByteChannel channel) throws IOException {
+        this(channel, DateEasy.now(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor : write the header of the calendar
+     * @param channel the channel to write (blocking)
+     * @param stamp the date of the export
+     * @param bufferSize the size of the write buffer (at least 16 octets)
+     * @throws IOException if the channel fails
+     */
+    public IcsMeetingsWriter(WritableByteChannel channel, Instant stamp, int bufferSize) throws IOException {
+        mChannel = channel;
+        mBytes = new byte[Math.max(bufferSize, 2 * MAX_CHARACTER_SIZE)];
+        mBuffer = ByteBuffer.wrap(mBytes);
+        mStamp = formatUtc(stamp.getEpochSecond());
+        writeLine("BEGIN:VCALENDAR");
+        writeLine("VERSION:2.0");
+        writeLine("PRODID:-//OpenClassrooms//MaReu//FR");
+        writeLine("CALSCALE:GREGORIAN");
+    }
+
+    /**
+     * Write a meeting, as a VEVENT
+     * @param meeting the meeting
+     * @throws IOException if the channel fails
+     */
+    public void write(Meeting meeting) throws IOException {
+        long start = meeting.getDate().getEpochSecond();
+        writeLine("BEGIN:VEVENT");
+        // the date and the place identify a meeting
+        write("UID:");
+        write(Long.toString(start));
+        write("-");
+        write(Integer.toHexString(meeting.getPlace().getName().hashCode()));
+        writeLine("@mareu");
+        write("DTSTAMP:");
+        writeLine(mStamp);
+        write("DTSTART:");
+        writeLine(formatUtc(start));
+        write("DTEND:");
+        writeLine(formatUtc(meeting.getEndDate().getEpochSecond()));
+        write("SUMMARY:");
+        writeText(meeting.getSubject());
+        endLine();
+        write("LOCATION:");
+        writeText(meeting.getPlace().getName());
+        endLine();
+        for (Person person : meeting.getPersons()) {
+            write("ATTENDEE:mailto:");
+            writeLine(person.getEmail());
+        }
+        writeLine("END:VEVENT");
+        mWrittenCount++;
+    }
+
+    /**
+     * Write meetings, as VEVENTs
+     * @param meetings the meetings
+     * @throws IOException if the channel fails
+     */
+    public void writeAll(Iterable<Meeting> meetings) throws IOException {
+        for (Meeting meeting : meetings) {
+            write(meeting);
+        }
+    }
+
+    /**
+     * Get the number of meetings written so far
+     * @return the number of meetings
+     */
+    public int getWrittenCount() {
+        return mWrittenCount;
+    }
+
+    /**
+     * Write the footer of the calendar, flush the buffer and close the channel
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeLine("END:VCALENDAR");
+            flush();
+        } finally {
+            mChannel.close();
+        }
+    }
+
+    /**
+     * Format epoch seconds as an UTC DATE-TIME : "yyyyMMdd'T'HHmmss'Z'"
+     * @param epochSecond the epoch seconds
+     * @return the formatted date
+     */
+    private static String formatUtc(long epochSecond) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, (long) SECONDS_PER_DAY);
+        char[] chars = new char[16];
+        putDigits(chars, 0, ZonedEpochCalendar.civilFromDays(epochDay, 0), 4);
+        putDigits(chars, 4, ZonedEpochCalendar.civilFromDays(epochDay, 1), 2);
+        putDigits(chars, 6, ZonedEpochCalendar.civilFromDays(epochDay, 2), 2);
+        chars[8] = 'T';
+        putDigits(chars, 9, secondOfDay / 3600, 2);
+        putDigits(chars, 11, secondOfDay / 60 % 60, 2);
+        putDigits(chars, 13, secondOfDay % 60, 2);
+        chars[15] = 'Z';
+        return new String(chars);
+    }
+
+    /**
+     * Put the decimal digits of a number, padded with zeros
+     * @param chars the destination
+     * @param from first digit
+     * @param value the number
+     * @param count number of digits
+     */
+    private static void putDigits(char[] chars, int from, long value, int count) {
+        for (int i = from + count - 1; i >= from; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Write a string, then end the line
+     * @param string the string
+     * @throws IOException if the channel fails
+     */
+    private void writeLine(String string) throws IOException {
+        write(string);
+        endLine();
+    }
+
+    /**
+     * Write a TEXT value, escaping "\", ";", "," and the line breaks
+     * @param text the text
+     * @throws IOException if the channel fails
+     */
+    private void writeText(String text) throws IOException {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == ';' || c == ',') {
+                writeEscape(c);
+            } else if (c == '\n') {
+                writeEscape('n');
+            } else if (c != '\r') {
+                i = writeCharacter(text, i);
+            }
+        }
+    }
+
+    /**
+     * Write an escape sequence, never folded between the backslash and the escaped character
+     * @param c the escaped character
+     * @throws IOException if the channel fails
+     */
+    private void writeEscape(char c) throws IOException {
+        reserve(2);
+        put((byte) '\\');
+        put((byte) c);
+    }
+
+    /**
+     * Write a string, as is (except the folding)
+     * @param string the string
+     * @throws IOException if the channel fails
+     */
+    private void write(String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            i = writeCharacter(string, i);
+        }
+    }
+
+    /**
+     * Write a character in UTF-8, never folded within its octets
+     * @param string the string
+     * @param index the index of the character
+     * @return the index of its last char (a surrogate pair takes two)
+     * @throws IOException if the channel fails
+     */
+    private int writeCharacter(String string, int index) throws IOException {
+        char c = string.charAt(index);
+        if (c < 0x80) {
+            reserve(1);
+            put((byte) c);
+        } else if (c < 0x800) {
+            reserve(2);
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < string.length()
+                && Character.isLowSurrogate(string.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, string.charAt(++index));
+            reserve(4);
+            put((byte) (0xF0 | codePoint >> 18));
+            put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            put((byte) (0x80 | codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // an unpaired surrogate can not be encoded
+            reserve(1);
+            put((byte) '?');
+        } else {
+            reserve(3);
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        }
+        return index;
+    }
+
+    /**
+     * Make room for octets which must stay on the same line : fold the line if they do not fit
+     * @param count number of octets
+     * @throws IOException if the channel fails
+     */
+    private void reserve(int count) throws IOException {
+        if (mPosition + MAX_CHARACTER_SIZE > mBytes.length) {
+            flush();
+        }
+        if (mLineLength + count > MAX_LINE_LENGTH) {
+            // the continuation line starts with a space, which counts
+            put((byte) '\r');
+            put((byte) '\n');
+            put((byte) ' ');
+            mLineLength = 1;
+        }
+        mLineLength += count;
+    }
+
+    /**
+     * End the current line
+     * @throws IOException if the channel fails
+     */
+    private void endLine() throws IOException {
+        if (mPosition + 2 > mBytes.length) {
+            flush();
+        }
+        put((byte) '\r');
+        put((byte) '\n');
+        mLineLength = 0;
+    }
+
+    private void put(byte b) {
+        mBytes[mPosition++] = b;
+    }
+
+    /**
+     * Write the buffer to the channel
+     * @throws IOException if the channel fails
+     */
+    private void flush() throws IOException {
+        mBuffer.clear();
+        mBuffer.limit(mPosition);
+        while (mBuffer.hasRemaining()) {
+            mChannel.write(mBuffer);
+        }
+        mPosition = 0;
+    }
+
+}
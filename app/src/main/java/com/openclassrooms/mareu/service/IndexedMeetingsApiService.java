@@ -0,0 +1,578 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+
+import java.time.Instant;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Implémentation indexée de {@link MeetingsApiService}
+ * Les réunions sont indexées par leur identité (date + lieu) et triées par date,
+ * afin que l'ajout, la suppression et le test d'existence ne parcourent plus toute la liste
+ */
+public class IndexedMeetingsApiService implements MeetingsApiService {
+
+    /**
+     * Place with the lowest name, used to build the bounds of a range query
+     */
+    private static final Place LOWEST_PLACE = new Place("");
+
+    /**
+     * Hash index on the meeting identity (date + place, see {@link Meeting#equals(Object)}), to the ids of
+     * the persons indexed for the meeting (its invited persons may change once registered)
+     */
+    private final Map<Meeting, int[]> mMeetingsIndex = new HashMap<>();
+
+    /**
+     * Meetings sorted by date, thanks to a red-black tree
+     */
+    private final NavigableSet<Meeting> mMeetingsByDate = new TreeSet<>(Meeting.CHRONOLOGICAL_ORDER);
+
+    /**
+     * Meetings of each place, sorted by date
+     */
+    private final Map<Place, NavigableSet<Meeting>> mMeetingsByPlace = new HashMap<>();
+
+    /**
+     * Interval tree of each place, to detect the overlapping bookings
+     */
+    private final Map<Place, MeetingIntervalTree> mBookingsByPlace = new HashMap<>();
+
+    /**
+     * Inverted index : meetings of each person, sorted by date, by person id (see {@link PersonRegistry})
+     * (the persons invited once the meeting is added are not indexed : update the meeting to index them)
+     */
+    private final List<NavigableSet<Meeting>> mMeetingsByPerson = new ArrayList<>();
+
+    /**
+     * Prefix index on the names of the places having at least one meeting
+     */
+    private final PlaceIndex mPlaceIndex = new PlaceIndex();
+
+    /**
+     * Listeners to notify when a meeting is added, deleted or updated
+     */
+    private final List<OnMeetingsChangedListener> mListeners = new ArrayList<>();
+
+    /**
+     * Version of the meetings, incremented by each change
+     */
+    private long mVersion;
+
+    /**
+     * Read-only chronological view of the meetings, rebuilt lazily after a modification
+     */
+    private List<Meeting> mMeetingsView;
+
+    /**
+     * Get the version of the meetings
+     * @return the version, incremented by each change
+     */
+    @Override
+    public synchronized long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Get meetings list, in chronological order
+     * @return {@link List} read-only
+     */
+    @Override
+    public synchronized List<Meeting> getMeetings() {
+        // the tree is already sorted, so a plain copy is enough (no sort needed)
+        if (mMeetingsView == null) {
+            mMeetingsView = Collections.unmodifiableList(new ArrayList<>(mMeetingsByDate));
+        }
+        return mMeetingsView;
+    }
+
+    /**
+     * Get meetings within a time span, thanks to a binary search in the tree, in O(log n + k)
+     * The returned collection is a read-only view on the store (no copy)
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} read-only view
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsBetween(Instant from, Instant to) {
+        return Collections.unmodifiableSet(subRange(mMeetingsByDate, from, to));
+    }
+
+    /**
+     * Get meetings of a place within a time span, in O(log n + k)
+     * @param place the place
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} read-only view
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsBetween(Place place, Instant from, Instant to) {
+        NavigableSet<Meeting> meetings = mMeetingsByPlace.get(place);
+        if (meetings == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(subRange(meetings, from, to));
+    }
+
+    /**
+     * Get meetings of a person within a time span, thanks to the inverted index, in O(log k + k)
+     * @param person the person
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link Collection} read-only view
+     */
+    @Override
+    public synchronized Collection<Meeting> getMeetingsOf(Person person, Instant from, Instant to) {
+        int id = PersonRegistry.getInstance().findId(person);
+        if (id == PersonRegistry.NO_ID || id >= mMeetingsByPerson.size() || mMeetingsByPerson.get(id) == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(subRange(mMeetingsByPerson.get(id), from, to));
+    }
+
+    /**
+     * Get the places whose name starts with the prefix, in O(log p + matches)
+     * @param prefix the prefix (case insensitive)
+     * @return {@link Collection} of places
+     */
+    @Override
+    public synchronized Collection<Place> getPlacesStartingWith(String prefix) {
+        return mPlaceIndex.getPlacesStartingWith(prefix);
+    }
+
+    /**
+     * Restrict a date-sorted set to a time span, thanks to a binary search
+     * @param meetings the date-sorted set
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return the view on the time span
+     */
+    private static NavigableSet<Meeting> subRange(NavigableSet<Meeting> meetings,
+                                                  Instant from, Instant to) {
+        NavigableSet<Meeting> range = meetings;
+        if (from != null) {
+            // every meeting at "from" is greater or equal to this bound
+            range = range.tailSet(rangeBound(from), true);
+        }
+        if (to != null && to.isBefore(Instant.MAX)) {
+            // every meeting at "to" is strictly lower than this bound
+            range = range.headSet(rangeBound(to.plusNanos(1)), false);
+        }
+        return range;
+    }
+
+    /**
+     * Build a probe meeting, lower than every meeting registered at the same date
+     * @param date the date of the bound
+     * @return the probe meeting
+     */
+    private static Meeting rangeBound(Instant date) {
+        return new Meeting(date, null, LOWEST_PLACE);
+    }
+
+    /**
+     * Get meetings of a place overlapping a time slot, thanks to its interval tree, in O(log n + k)
+     * @param place the place
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return {@link List} of the overlapping meetings
+     */
+    @Override
+    public synchronized List<Meeting> getOverlappingMeetings(Place place, Instant start, Instant end) {
+        MeetingIntervalTree bookings = mBookingsByPlace.get(place);
+        if (bookings == null) {
+            return new ArrayList<>();
+        }
+        return bookings.findOverlapping(start, end);
+    }
+
+    /**
+     * Add a meeting, unless its place is already booked, in O(log n + k)
+     * @param meeting {@link Meeting}
+     * @return true if added
+     */
+    @Override
+    public synchronized boolean addMeeting(Meeting meeting) {
+        if (insert(meeting) != AddOutcome.ADDED) {
+            return false;
+        }
+        mVersion++;
+        // notify the listeners
+        for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+            listener.onMeetingAdded(meeting);
+        }
+        return true;
+    }
+
+    /**
+     * Add several meetings, in O(k (log n + c)), then notify the listeners once
+     * Each meeting is checked against the store, which already holds the previous meetings of the batch :
+     * the duplicates and the conflicts within the batch are detected in the same pass
+     * @param meetings {@link Collection} of meetings
+     * @return {@link List} of the outcomes
+     */
+    @Override
+    public synchronized List<AddOutcome> addMeetings(Collection<Meeting> meetings) {
+        List<AddOutcome> outcomes = new ArrayList<>(meetings.size());
+        List<Meeting> added = mMeetingsIndex.isEmpty() ? getSortedWithoutConflict(meetings) : null;
+        if (added != null) {
+            // an empty store, and a sorted batch without conflict (ex: a snapshot) : load it in O(k)
+            load(added);
+            outcomes.addAll(Collections.nCopies(added.size(), AddOutcome.ADDED));
+        } else {
+            added = new ArrayList<>();
+            for (Meeting meeting : meetings) {
+                AddOutcome outcome = insert(meeting);
+                if (outcome == AddOutcome.ADDED) {
+                    added.add(meeting);
+                }
+                outcomes.add(outcome);
+            }
+        }
+        // notify the listeners, once for the whole batch
+        if (!added.isEmpty()) {
+            mVersion++;
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingsAdded(added);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Check if meetings are sorted by {@link Meeting#CHRONOLOGICAL_ORDER}, without duplicate nor conflict
+     * @param meetings the meetings
+     * @return {@link List} copy of the meetings if so, null otherwise
+     */
+    static List<Meeting> getSortedWithoutConflict(Collection<Meeting> meetings) {
+        List<Meeting> sorted = new ArrayList<>(meetings.size());
+        // the end of the last meeting of each place : sorted by date, the next one must start after it
+        Map<Place, Instant> placeEnds = new HashMap<>();
+        Meeting previous = null;
+        for (Meeting meeting : meetings) {
+            if (previous != null && Meeting.CHRONOLOGICAL_ORDER.compare(previous, meeting) >= 0) {
+                return null;
+            }
+            Instant placeEnd = placeEnds.put(meeting.getPlace(), meeting.getEndDate());
+            if (placeEnd != null && placeEnd.isAfter(meeting.getDate())) {
+                return null;
+            }
+            sorted.add(meeting);
+            previous = meeting;
+        }
+        return sorted;
+    }
+
+    /**
+     * Fill the empty indexes with sorted meetings without conflict, without notification, in O(k)
+     * (the trees are built from the sorted lists, instead of k insertions in O(log k))
+     * @param sortedMeetings the meetings, sorted by {@link Meeting#CHRONOLOGICAL_ORDER}
+     */
+    private void load(List<Meeting> sortedMeetings) {
+        mMeetingsByDate.addAll(new SortedListSet(sortedMeetings));
+        // split the meetings by place, and by person : each part stays sorted
+        Map<Place, List<Meeting>> byPlace = new HashMap<>();
+        List<List<Meeting>> byPerson = new ArrayList<>();
+        for (Meeting meeting : sortedMeetings) {
+            List<Meeting> placeMeetings = byPlace.get(meeting.getPlace());
+            if (placeMeetings == null) {
+                placeMeetings = new ArrayList<>();
+                byPlace.put(meeting.getPlace(), placeMeetings);
+            }
+            placeMeetings.add(meeting);
+            int[] personIds = meeting.getPersonIds();
+            mMeetingsIndex.put(meeting, personIds);
+            for (int personId : personIds) {
+                while (byPerson.size() <= personId) {
+                    byPerson.add(null);
+                }
+                if (byPerson.get(personId) == null) {
+                    byPerson.set(personId, new ArrayList<Meeting>());
+                }
+                byPerson.get(personId).add(meeting);
+            }
+        }
+        for (Map.Entry<Place, List<Meeting>> entry : byPlace.entrySet()) {
+            NavigableSet<Meeting> placeMeetings = new TreeSet<>(new SortedListSet(entry.getValue()));
+            MeetingIntervalTree bookings = new MeetingIntervalTree();
+            bookings.addAllSorted(entry.getValue());
+            mMeetingsByPlace.put(entry.getKey(), placeMeetings);
+            mBookingsByPlace.put(entry.getKey(), bookings);
+            mPlaceIndex.add(entry.getKey());
+        }
+        for (int personId = 0; personId < byPerson.size(); personId++) {
+            if (byPerson.get(personId) != null) {
+                while (mMeetingsByPerson.size() <= personId) {
+                    mMeetingsByPerson.add(null);
+                }
+                NavigableSet<Meeting> personMeetings = new TreeSet<>(new SortedListSet(byPerson.get(personId)));
+                mMeetingsByPerson.set(personId, personMeetings);
+            }
+        }
+        mMeetingsView = null;
+    }
+
+    /**
+     * Insert a meeting in every index, unless its place is already booked, without notification
+     * @param meeting {@link Meeting}
+     * @return the outcome of the insertion
+     */
+    private AddOutcome insert(Meeting meeting) {
+        // O(1) check on the hash index, then O(log n + k) check on the interval tree of the place
+        if (mMeetingsIndex.containsKey(meeting)) {
+            return AddOutcome.DUPLICATE;
+        }
+        if (!getOverlappingMeetings(meeting.getPlace(), meeting.getDate(), meeting.getEndDate()).isEmpty()) {
+            return AddOutcome.CONFLICT;
+        }
+        // O(log n) insertions in the trees
+        int[] personIds = meeting.getPersonIds();
+        mMeetingsIndex.put(meeting, personIds);
+        mMeetingsByDate.add(meeting);
+        NavigableSet<Meeting> placeMeetings = mMeetingsByPlace.get(meeting.getPlace());
+        if (placeMeetings == null) {
+            // first meeting in this place : index its name
+            placeMeetings = new TreeSet<>(Meeting.CHRONOLOGICAL_ORDER);
+            mMeetingsByPlace.put(meeting.getPlace(), placeMeetings);
+            mBookingsByPlace.put(meeting.getPlace(), new MeetingIntervalTree());
+            mPlaceIndex.add(meeting.getPlace());
+        }
+        placeMeetings.add(meeting);
+        mBookingsByPlace.get(meeting.getPlace()).add(meeting);
+        for (int personId : personIds) {
+            while (mMeetingsByPerson.size() <= personId) {
+                mMeetingsByPerson.add(null);
+            }
+            NavigableSet<Meeting> personMeetings = mMeetingsByPerson.get(personId);
+            if (personMeetings == null) {
+                personMeetings = new TreeSet<>(Meeting.CHRONOLOGICAL_ORDER);
+                mMeetingsByPerson.set(personId, personMeetings);
+            }
+            personMeetings.add(meeting);
+        }
+        mMeetingsView = null;
+        return AddOutcome.ADDED;
+    }
+
+    /**
+     * Delete a meeting, in O(log n)
+     * @param meeting {@link Meeting}
+     */
+    @Override
+    public synchronized void deleteMeeting(Meeting meeting) {
+        if (remove(meeting)) {
+            mVersion++;
+            // notify the listeners
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingDeleted(meeting);
+            }
+        }
+    }
+
+    /**
+     * Delete several meetings, in O(k log n), then notify the listeners once
+     * @param meetings {@link Collection} of meetings
+     * @return the number of meetings deleted
+     */
+    @Override
+    public synchronized int deleteMeetings(Collection<Meeting> meetings) {
+        List<Meeting> deleted = new ArrayList<>();
+        for (Meeting meeting : meetings) {
+            // a meeting repeated in the batch is removed only once
+            if (remove(meeting)) {
+                deleted.add(meeting);
+            }
+        }
+        // notify the listeners, once for the whole batch
+        if (!deleted.isEmpty()) {
+            mVersion++;
+            for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+                listener.onMeetingsDeleted(deleted);
+            }
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Replace a meeting by an updated one, in O(log n + k) : the previous meeting is removed from every index,
+     * and restored if the updated one is refused
+     * @param meeting {@link Meeting} to replace
+     * @param updated {@link Meeting} replacing it
+     * @return true if replaced
+     */
+    @Override
+    public synchronized boolean updateMeeting(Meeting meeting, Meeting updated) {
+        if (!mMeetingsIndex.containsKey(meeting)) {
+            return false;
+        }
+        // the registered instance, to restore it with its persons
+        Meeting previous = mMeetingsByDate.ceiling(meeting);
+        remove(previous);
+        if (insert(updated) != AddOutcome.ADDED) {
+            insert(previous);
+            return false;
+        }
+        mVersion++;
+        // notify the listeners
+        for (OnMeetingsChangedListener listener : new ArrayList<>(mListeners)) {
+            listener.onMeetingUpdated(previous, updated);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a meeting from every index, without notification
+     * @param meeting {@link Meeting}
+     * @return true if the meeting was registered
+     */
+    private boolean remove(Meeting meeting) {
+        // the persons indexed (the given meeting may be a mere key, and the persons of the registered one may
+        // have changed since)
+        int[] personIds = mMeetingsIndex.remove(meeting);
+        if (personIds == null) {
+            return false;
+        }
+        mMeetingsByDate.remove(meeting);
+        for (int personId : personIds) {
+            NavigableSet<Meeting> personMeetings = mMeetingsByPerson.get(personId);
+            personMeetings.remove(meeting);
+            if (personMeetings.isEmpty()) {
+                mMeetingsByPerson.set(personId, null);
+            }
+        }
+        NavigableSet<Meeting> placeMeetings = mMeetingsByPlace.get(meeting.getPlace());
+        placeMeetings.remove(meeting);
+        mBookingsByPlace.get(meeting.getPlace()).remove(meeting);
+        if (placeMeetings.isEmpty()) {
+            // last meeting in this place : drop it from the index
+            mMeetingsByPlace.remove(meeting.getPlace());
+            mBookingsByPlace.remove(meeting.getPlace());
+            mPlaceIndex.remove(meeting.getPlace());
+        }
+        mMeetingsView = null;
+        return true;
+    }
+
+    /**
+     * Check if a meeting is registered, in O(1)
+     * @param meeting {@link Meeting}
+     * @return true if registered
+     */
+    @Override
+    public synchronized boolean containsMeeting(Meeting meeting) {
+        return mMeetingsIndex.containsKey(meeting);
+    }
+
+    /**
+     * Register a listener to notify on each change
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void addOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener
+     * @param listener {@link OnMeetingsChangedListener}
+     */
+    @Override
+    public synchronized void removeOnMeetingsChangedListener(OnMeetingsChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Read-only sorted set over a list sorted by {@link Meeting#CHRONOLOGICAL_ORDER}, without duplicates
+     * The views and lookups are binary searches on the list, so a TreeSet is built from it in O(n)
+     * (see TreeSet#TreeSet(SortedSet)), instead of n insertions in O(log n)
+     */
+    private static final class SortedListSet extends AbstractSet<Meeting> implements SortedSet<Meeting> {
+
+        private final List<Meeting> mList;
+
+        SortedListSet(List<Meeting> list) {
+            mList = list;
+        }
+
+        @Override
+        public Comparator<? super Meeting> comparator() {
+            return Meeting.CHRONOLOGICAL_ORDER;
+        }
+
+        @Override
+        public Iterator<Meeting> iterator() {
+            return Collections.unmodifiableList(mList).iterator();
+        }
+
+        @Override
+        public int size() {
+            return mList.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Meeting
+                    && Collections.binarySearch(mList, (Meeting) o, Meeting.CHRONOLOGICAL_ORDER) >= 0;
+        }
+
+        @Override
+        public Meeting first() {
+            if (mList.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return mList.get(0);
+        }
+
+        @Override
+        public Meeting last() {
+            if (mList.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return mList.get(mList.size() - 1);
+        }
+
+        @Override
+        public SortedSet<Meeting> subSet(Meeting fromElement, Meeting toElement) {
+            if (Meeting.CHRONOLOGICAL_ORDER.compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("fromElement > toElement");
+            }
+            return new SortedListSet(mList.subList(indexOf(fromElement), indexOf(toElement)));
+        }
+
+        @Override
+        public SortedSet<Meeting> headSet(Meeting toElement) {
+            return new SortedListSet(mList.subList(0, indexOf(toElement)));
+        }
+
+        @Override
+        public SortedSet<Meeting> tailSet(Meeting fromElement) {
+            return new SortedListSet(mList.subList(indexOf(fromElement), mList.size()));
+        }
+
+        /**
+         * Get the index of the first meeting at or after a meeting, in O(log n)
+         * @param meeting the meeting
+         * @return the index, or the size of the list
+         */
+        private int indexOf(Meeting meeting) {
+            int ret = Collections.binarySearch(mList, meeting, Meeting.CHRONOLOGICAL_ORDER);
+            return ret >= 0 ? ret : -ret - 1;
+        }
+    }
+
+}
@@ -0,0 +1,383 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.PersonRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encodage par colonnes des réunions, commun aux formats binaires (voir {@link MeetingsSnapshot} et
+ * {@link MeetingsArchive}) : les réunions sont triées dans l'ordre chronologique, les lieux, sujets et
+ * emails sont remplacés par leurs identifiants dans des dictionnaires, puis chaque format écrit les colonnes
+ * dans l'ordre qui lui est propre
+ * Les lignes d'une archive précédente peuvent être fusionnées avec les réunions : elles sont copiées colonne
+ * par colonne depuis le fichier projeté, sans être décodées en réunions, et seuls leurs identifiants de
+ * dictionnaire sont renumérotés (une fois par lieu, sujet ou personne).
+ */
+final class MeetingColumns {
+
+    /**
+     * Subject id of a meeting without subject
+     */
+    static final int NO_SUBJECT = -1;
+
+    /**
+     * The meetings, in chronological order
+     */
+    private final List<Meeting> mMeetings;
+
+    /**
+     * The previous archive whose rows are merged, or null
+     */
+    private final MeetingsArchive mArchive;
+
+    /**
+     * The merged rows, in chronological order : a row of the archive if positive or zero, the meeting
+     * -(row + 1) otherwise
+     */
+    private final int[] mRows;
+
+    /**
+     * The dictionary id of each place, subject and person id of the archive, once known
+     * (0 if unknown, id + 1 otherwise)
+     */
+    private final int[] mArchivePlaceIds;
+    private final int[] mArchiveSubjectIds;
+    private final int[] mArchivePersonIds;
+
+    /**
+     * A run of attendees of an archive row, reused
+     */
+    private int[] mRun = new int[8];
+
+    /**
+     * The dictionaries of the places, subjects and persons (emails)
+     */
+    private final StringDictionary mPlaces = new StringDictionary();
+    private final StringDictionary mSubjects = new StringDictionary();
+    private final StringDictionary mPersons = new StringDictionary();
+
+    /**
+     * The ids of the place and the subject of each meeting (not of the archive rows)
+     */
+    private final int[] mPlaceIds;
+    private final int[] mSubjectIds;
+
+    /**
+     * The ids of the persons of each meeting (not of the archive rows), sorted (so a run may be searched),
+     * and the number of attendees of all the rows
+     */
+    private final int[][] mAttendees;
+    private final int mAttendeesCount;
+
+    /**
+     * True if a start date has nanos
+     */
+    private final boolean mHasNanos;
+
+    /**
+     * Constructor : sort the meetings, and build the dictionaries and the columns of ids
+     * @param meetings the meetings
+     */
+    MeetingColumns(Collection<Meeting> meetings) {
+        this(null, meetings);
+    }
+
+    /**
+     * Constructor : sort the meetings, merge them with the rows of an archive (but the deleted ones), and
+     * build the dictionaries and the columns of ids
+     * A meeting of the same date and place as a row is dropped : the row is kept
+     * @param archive the archive, or null
+     * @param meetings the meetings
+     */
+    MeetingColumns(MeetingsArchive archive, Collection<Meeting> meetings) {
+        mArchive = archive;
+        mMeetings = new ArrayList<>(meetings);
+        Collections.sort(mMeetings, Meeting.CHRONOLOGICAL_ORDER);
+        mRows = merge(archive, mMeetings);
+        int count = mMeetings.size();
+        mPlaceIds = new int[count];
+        mSubjectIds = new int[count];
+        mAttendees = new int[count][];
+        mArchivePlaceIds = new int[archive == null ? 0 : archive.getPlacesCount()];
+        mArchiveSubjectIds = new int[archive == null ? 0 : archive.getSubjectsCount()];
+        mArchivePersonIds = new int[archive == null ? 0 : archive.getPersonsCount()];
+        int attendeesCount = 0;
+        boolean hasNanos = false;
+        PersonRegistry registry = PersonRegistry.getInstance();
+        // the dictionary id of each registry id, once known (0 if unknown, id + 1 otherwise)
+        int[] dictionaryPersonIds = new int[registry.size()];
+        // the dictionaries are filled in the order of the rows
+        for (int row : mRows) {
+            if (row >= 0) {
+                mapArchivePlace(archive.getPlaceId(row));
+                int subjectId = archive.getSubjectId(row);
+                if (subjectId != NO_SUBJECT) {
+                    mapArchiveSubject(subjectId);
+                }
+                int end = archive.getAttendeesOffset(row + 1);
+                for (int i = archive.getAttendeesOffset(row); i < end; i++) {
+                    mapArchivePerson(archive.getAttendee(i));
+                    attendeesCount++;
+                }
+                hasNanos |= archive.getStartNano(row) != 0;
+                continue;
+            }
+            int index = -(row + 1);
+            Meeting meeting = mMeetings.get(index);
+            mPlaceIds[index] = mPlaces.getId(meeting.getPlace().getName());
+            mSubjectIds[index] = meeting.getSubject() == null ? NO_SUBJECT : mSubjects.getId(meeting.getSubject());
+            int[] personIds = meeting.getPersonIds();
+            for (int j = 0; j < personIds.length; j++) {
+                int registryId = personIds[j];
+                if (registryId >= dictionaryPersonIds.length) {
+                    dictionaryPersonIds = Arrays.copyOf(dictionaryPersonIds, registry.size());
+                }
+                if (dictionaryPersonIds[registryId] == 0) {
+                    dictionaryPersonIds[registryId] = mPersons.getId(registry.getPerson(registryId).getEmail()) + 1;
+                }
+                personIds[j] = dictionaryPersonIds[registryId] - 1;
+            }
+            Arrays.sort(personIds);
+            mAttendees[index] = personIds;
+            attendeesCount += personIds.length;
+            hasNanos |= meeting.getDate().getNano() != 0;
+        }
+        mAttendeesCount = attendeesCount;
+        mHasNanos = hasNanos;
+    }
+
+    /**
+     * Merge the rows of an archive, but the deleted ones, with sorted meetings, in chronological order
+     * @param archive the archive, or null
+     * @param meetings the meetings, sorted
+     * @return the merged rows (see {@link #mRows})
+     */
+    private static int[] merge(MeetingsArchive archive, List<Meeting> meetings) {
+        BitSet deleted = archive == null ? new BitSet() : archive.getDeletedRows();
+        int archiveCount = archive == null ? 0 : archive.size();
+        int[] ret = new int[archiveCount - deleted.cardinality() + meetings.size()];
+        int size = 0;
+        int row = deleted.nextClearBit(0);
+        int index = 0;
+        while (row < archiveCount || index < meetings.size()) {
+            int cmp = row >= archiveCount ? 1
+                    : index >= meetings.size() ? -1 : archive.compareRow(row, meetings.get(index));
+            if (cmp <= 0) {
+                ret[size++] = row;
+                row = deleted.nextClearBit(row + 1);
+                if (cmp == 0) {
+                    index++;
+                }
+            } else {
+                ret[size++] = -(index + 1);
+                index++;
+            }
+        }
+        return size == ret.length ? ret : Arrays.copyOf(ret, size);
+    }
+
+    private int mapArchivePlace(int placeId) {
+        if (mArchivePlaceIds[placeId] == 0) {
+            mArchivePlaceIds[placeId] = mPlaces.getId(mArchive.getPlaceName(placeId)) + 1;
+        }
+        return mArchivePlaceIds[placeId] - 1;
+    }
+
+    private int mapArchiveSubject(int subjectId) {
+        if (mArchiveSubjectIds[subjectId] == 0) {
+            mArchiveSubjectIds[subjectId] = mSubjects.getId(mArchive.getSubject(subjectId)) + 1;
+        }
+        return mArchiveSubjectIds[subjectId] - 1;
+    }
+
+    private int mapArchivePerson(int personId) {
+        if (mArchivePersonIds[personId] == 0) {
+            mArchivePersonIds[personId] = mPersons.getId(mArchive.getPersonEmail(personId)) + 1;
+        }
+        return mArchivePersonIds[personId] - 1;
+    }
+
+    /**
+     * Get the meeting of a merged row
+     * @param row the merged row, negative
+     * @return the meeting
+     */
+    private Meeting getMeeting(int row) {
+        return mMeetings.get(-(row + 1));
+    }
+
+    /**
+     * Get the number of rows
+     * @return the number of rows : of meetings, and of archive rows
+     */
+    int size() {
+        return mRows.length;
+    }
+
+    /**
+     * Get the number of attendees, of all the meetings
+     * @return the number of attendees
+     */
+    int getAttendeesCount() {
+        return mAttendeesCount;
+    }
+
+    /**
+     * Check if a start date has nanos (else the column of the nanos may be skipped)
+     * @return true if a start date has nanos
+     */
+    boolean hasNanos() {
+        return mHasNanos;
+    }
+
+    StringDictionary getPlaces() {
+        return mPlaces;
+    }
+
+    StringDictionary getSubjects() {
+        return mSubjects;
+    }
+
+    StringDictionary getPersons() {
+        return mPersons;
+    }
+
+    /**
+     * Write the column of the start dates, in epoch seconds (long)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeStartSeconds(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            output.putLong(row >= 0 ? mArchive.getStartSecond(row) : getMeeting(row).getDate().getEpochSecond());
+        }
+    }
+
+    /**
+     * Write the column of the nanos of the start dates (int)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeStartNanos(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            output.putInt(row >= 0 ? mArchive.getStartNano(row) : getMeeting(row).getDate().getNano());
+        }
+    }
+
+    /**
+     * Write the column of the durations, in nanos (long)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeDurations(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            output.putLong(row >= 0 ? mArchive.getDurationNanos(row) : getMeeting(row).getDuration().toNanos());
+        }
+    }
+
+    /**
+     * Write the column of the place ids (int)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writePlaceIds(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            output.putInt(row >= 0 ? mapArchivePlace(mArchive.getPlaceId(row)) : mPlaceIds[-(row + 1)]);
+        }
+    }
+
+    /**
+     * Write the column of the subject ids (int, NO_SUBJECT if none)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeSubjectIds(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            int subjectId;
+            if (row >= 0) {
+                subjectId = mArchive.getSubjectId(row);
+                if (subjectId != NO_SUBJECT) {
+                    subjectId = mapArchiveSubject(subjectId);
+                }
+            } else {
+                subjectId = mSubjectIds[-(row + 1)];
+            }
+            output.putInt(subjectId);
+        }
+    }
+
+    /**
+     * Write the column of the numbers of attendees (int)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeAttendeesCounts(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            output.putInt(getAttendeesCount(row));
+        }
+    }
+
+    /**
+     * Write the offsets of the runs of attendees (int[meetings + 1], the run i is within
+     * [offsets[i], offsets[i + 1]) of the attendees)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeAttendeesOffsets(ChannelOutput output) throws IOException {
+        int offset = 0;
+        output.putInt(offset);
+        for (int row : mRows) {
+            offset += getAttendeesCount(row);
+            output.putInt(offset);
+        }
+    }
+
+    /**
+     * Write the person ids of the attendees (int), run after run
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeAttendees(ChannelOutput output) throws IOException {
+        for (int row : mRows) {
+            if (row < 0) {
+                for (int personId : mAttendees[-(row + 1)]) {
+                    output.putInt(personId);
+                }
+                continue;
+            }
+            // the run of the archive, renumbered, then sorted again
+            int start = mArchive.getAttendeesOffset(row);
+            int length = mArchive.getAttendeesOffset(row + 1) - start;
+            if (length > mRun.length) {
+                mRun = new int[length];
+            }
+            for (int i = 0; i < length; i++) {
+                mRun[i] = mapArchivePerson(mArchive.getAttendee(start + i));
+            }
+            Arrays.sort(mRun, 0, length);
+            for (int i = 0; i < length; i++) {
+                output.putInt(mRun[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the number of attendees of a merged row
+     * @param row the merged row
+     * @return the number of attendees
+     */
+    private int getAttendeesCount(int row) {
+        if (row < 0) {
+            return mAttendees[-(row + 1)].length;
+        }
+        return mArchive.getAttendeesOffset(row + 1) - mArchive.getAttendeesOffset(row);
+    }
+
+}
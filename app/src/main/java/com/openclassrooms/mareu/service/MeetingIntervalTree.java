@@ -0,0 +1,247 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arbre d'intervalles des réunions d'un même lieu
+ * Arbre AVL trié par date de début, dont chaque noeud connaît la plus grande date de fin de son
+ * sous-arbre : la recherche des réunions qui chevauchent un créneau coûte O(log n + k)
+ * Les créneaux sont semi-ouverts [début, fin) : deux réunions qui se suivent ne se chevauchent pas
+ */
+public class MeetingIntervalTree {
+
+    /**
+     * A node of the tree
+     */
+    private static final class Node {
+        final Meeting meeting;
+        final Instant end;
+        Instant maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Meeting meeting) {
+            this.meeting = meeting;
+            this.end = meeting.getEndDate();
+            this.maxEnd = end;
+        }
+    }
+
+    /**
+     * The root of the tree
+     */
+    private Node mRoot;
+
+    /**
+     * The number of meetings in the tree
+     */
+    private int mSize;
+
+    /**
+     * Get the number of meetings
+     * @return the number of meetings
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Add a meeting, in O(log n)
+     * @param meeting the meeting to add
+     * @return true if added, false if the same meeting (date + place) is already in the tree
+     */
+    public boolean add(Meeting meeting) {
+        int size = mSize;
+        mRoot = insert(mRoot, meeting);
+        return mSize > size;
+    }
+
+    /**
+     * Fill an empty tree with meetings sorted by {@link Meeting#CHRONOLOGICAL_ORDER}, without duplicates,
+     * in O(n) instead of O(n log n) : the sorted meetings are split in halves, recursively
+     * @param sortedMeetings the sorted meetings
+     */
+    public void addAllSorted(List<Meeting> sortedMeetings) {
+        if (mRoot != null) {
+            for (Meeting meeting : sortedMeetings) {
+                add(meeting);
+            }
+            return;
+        }
+        mRoot = build(sortedMeetings, 0, sortedMeetings.size());
+        mSize = sortedMeetings.size();
+    }
+
+    /**
+     * Build a perfectly balanced sub-tree
+     * @param sortedMeetings the sorted meetings
+     * @param from first meeting (inclusive)
+     * @param to last meeting (exclusive)
+     * @return the root of the sub-tree
+     */
+    private static Node build(List<Meeting> sortedMeetings, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = new Node(sortedMeetings.get(middle));
+        node.left = build(sortedMeetings, from, middle);
+        node.right = build(sortedMeetings, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    /**
+     * Remove a meeting, in O(log n)
+     * @param meeting the meeting to remove
+     * @return true if removed
+     */
+    public boolean remove(Meeting meeting) {
+        int size = mSize;
+        mRoot = delete(mRoot, meeting);
+        return mSize < size;
+    }
+
+    /**
+     * Find the meetings overlapping the time slot [start, end), in O(log n + k)
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return the overlapping meetings, sorted by date
+     */
+    public List<Meeting> findOverlapping(Instant start, Instant end) {
+        List<Meeting> ret = new ArrayList<>();
+        collectOverlapping(mRoot, start, end, ret);
+        return ret;
+    }
+
+    /**
+     * Walk the tree in order, skipping the sub-trees which cannot overlap the time slot
+     */
+    private static void collectOverlapping(Node node, Instant start, Instant end, List<Meeting> ret) {
+        // every meeting of this sub-tree ends before the slot starts
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collectOverlapping(node.left, start, end, ret);
+        // this meeting (and the whole right sub-tree) starts after the slot ends
+        if (!node.meeting.getDate().isBefore(end)) {
+            return;
+        }
+        if (node.end.isAfter(start)) {
+            ret.add(node.meeting);
+        }
+        collectOverlapping(node.right, start, end, ret);
+    }
+
+    private Node insert(Node node, Meeting meeting) {
+        if (node == null) {
+            mSize++;
+            return new Node(meeting);
+        }
+        int cmp = Meeting.CHRONOLOGICAL_ORDER.compare(meeting, node.meeting);
+        if (cmp < 0) {
+            node.left = insert(node.left, meeting);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, meeting);
+        } else {
+            return node;
+        }
+        return rebalance(node);
+    }
+
+    private Node delete(Node node, Meeting meeting) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = Meeting.CHRONOLOGICAL_ORDER.compare(meeting, node.meeting);
+        if (cmp < 0) {
+            node.left = delete(node.left, meeting);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, meeting);
+        } else {
+            mSize--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // replace the node by the lowest node of its right sub-tree
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.meeting);
+            replacement.right = deleteLowest(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private Node deleteLowest(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteLowest(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        Instant maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+}
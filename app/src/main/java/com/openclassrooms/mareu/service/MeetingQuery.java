@@ -0,0 +1,373 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Requête sur les réunions, immuable : chaque critère est ajouté par une méthode "with...",
+ * qui retourne une nouvelle requête (les requêtes se composent donc sans effet de bord)
+ * Les critères non renseignés ne filtrent rien. Voir {@link MeetingQueryPlanner} pour l'exécuter
+ * sur les index du service, sans parcourir toutes les réunions.
+ */
+public final class MeetingQuery {
+
+    /**
+     * Order of the meetings returned by a query
+     */
+    public enum Order {
+        // by date, then by place name (see Meeting.CHRONOLOGICAL_ORDER)
+        CHRONOLOGICAL(Meeting.CHRONOLOGICAL_ORDER),
+        // the most recent first
+        REVERSE_CHRONOLOGICAL((m1, m2) -> Meeting.CHRONOLOGICAL_ORDER.compare(m2, m1)),
+        // by place name (case insensitive), then chronologically
+        BY_PLACE((m1, m2) -> {
+            int ret = PlaceIndex.normalize(m1.getPlace().getName())
+                    .compareTo(PlaceIndex.normalize(m2.getPlace().getName()));
+            return ret != 0 ? ret : Meeting.CHRONOLOGICAL_ORDER.compare(m1, m2);
+        }),
+        // the best matches of the subject text first (see SubjectIndex.relevanceOrder), chronological without it
+        BY_SUBJECT_RELEVANCE(Meeting.CHRONOLOGICAL_ORDER);
+
+        private final Comparator<Meeting> mComparator;
+
+        Order(Comparator<Meeting> comparator) {
+            mComparator = comparator;
+        }
+
+        /**
+         * Get the comparator of the order
+         * @return the comparator
+         */
+        public Comparator<Meeting> getComparator() {
+            return mComparator;
+        }
+    }
+
+    /**
+     * No limit on the number of meetings
+     */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    /**
+     * No time of day window
+     */
+    private static final int NO_MINUTE = -1;
+
+    /**
+     * The calendar of the app TimeZone, for the time of day and days of week criteria
+     */
+    private static final ZonedEpochCalendar CALENDAR = DateEasy.getLocaleCalendar();
+
+    /**
+     * The query without criteria
+     */
+    private static final MeetingQuery ALL = new MeetingQuery(null, null, null, null, null,
+            NO_MINUTE, NO_MINUTE, null, Order.CHRONOLOGICAL, NO_LIMIT);
+
+    /**
+     * The prefix of the place name (normalized, see PlaceIndex.normalize), or null
+     */
+    private final String mPlacePrefix;
+
+    /**
+     * The date range (inclusive bounds), or null
+     */
+    private final Instant mFrom;
+    private final Instant mTo;
+
+    /**
+     * The person invited to the meetings, or null
+     */
+    private final Person mAttendee;
+
+    /**
+     * The text searched in the subject (normalized, see SubjectIndex.normalize), or null
+     */
+    private final String mSubjectText;
+
+    /**
+     * The time of day window of the start of the meetings, in local minutes of day (inclusive), or NO_MINUTE
+     */
+    private final int mFromMinute;
+    private final int mToMinute;
+
+    /**
+     * The local days of week of the start of the meetings, or null for every day
+     */
+    private final Set<DayOfWeek> mDaysOfWeek;
+
+    /**
+     * The order of the result
+     */
+    private final Order mOrder;
+
+    /**
+     * The maximum number of meetings of the result
+     */
+    private final int mLimit;
+
+    private MeetingQuery(String placePrefix, Instant from, Instant to, Person attendee, String subjectText,
+                         int fromMinute, int toMinute, Set<DayOfWeek> daysOfWeek, Order order, int limit) {
+        mPlacePrefix = placePrefix;
+        mFrom = from;
+        mTo = to;
+        mAttendee = attendee;
+        mSubjectText = subjectText;
+        mFromMinute = fromMinute;
+        mToMinute = toMinute;
+        mDaysOfWeek = daysOfWeek;
+        mOrder = order;
+        mLimit = limit;
+    }
+
+    /**
+     * Get the query without criteria : every meeting, in chronological order
+     * @return the query
+     */
+    public static MeetingQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Get a query restricted to the places whose name starts with a prefix
+     * @param prefix the prefix (case insensitive), null or empty for every place
+     * @return the new query
+     */
+    public MeetingQuery withPlacePrefix(String prefix) {
+        return new MeetingQuery(isEmpty(prefix) ? null : PlaceIndex.normalize(prefix), mFrom, mTo, mAttendee,
+                mSubjectText, mFromMinute, mToMinute, mDaysOfWeek, mOrder, mLimit);
+    }
+
+    /**
+     * Get a query restricted to the meetings whose date is within [from, to]
+     * @param from lower bound (inclusive), or null for no lower bound
+     * @param to upper bound (inclusive), or null for no upper bound
+     * @return the new query
+     */
+    public MeetingQuery withDates(Instant from, Instant to) {
+        return new MeetingQuery(mPlacePrefix, from, to, mAttendee, mSubjectText,
+                mFromMinute, mToMinute, mDaysOfWeek, mOrder, mLimit);
+    }
+
+    /**
+     * Get a query restricted to the meetings a person is invited to
+     * @param attendee the person, or null for everybody
+     * @return the new query
+     */
+    public MeetingQuery withAttendee(Person attendee) {
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, attendee, mSubjectText,
+                mFromMinute, mToMinute, mDaysOfWeek, mOrder, mLimit);
+    }
+
+    /**
+     * Get a query restricted to the meetings whose subject contains a text
+     * @param text the text (case and accent insensitive), null or empty for every subject
+     * @return the new query
+     */
+    public MeetingQuery withSubjectText(String text) {
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, mAttendee,
+                isEmpty(text) ? null : SubjectIndex.normalize(text),
+                mFromMinute, mToMinute, mDaysOfWeek, mOrder, mLimit);
+    }
+
+    /**
+     * Get a query restricted to the meetings starting within a local time of day window (to the minute)
+     * @param from the earliest local start time (inclusive)
+     * @param to the latest local start time (inclusive), not before from
+     * @return the new query
+     */
+    public MeetingQuery withTimeOfDay(LocalTime from, LocalTime to) {
+        int fromMinute = from.getHour() * 60 + from.getMinute();
+        int toMinute = to.getHour() * 60 + to.getMinute();
+        if (toMinute < fromMinute) {
+            throw new IllegalArgumentException("The time of day window ends before it starts: " + from + " " + to);
+        }
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, mAttendee, mSubjectText,
+                fromMinute, toMinute, mDaysOfWeek, mOrder, mLimit);
+    }
+
+    /**
+     * Get a query restricted to the meetings starting on some local days of week
+     * @param daysOfWeek the days of week
+     * @return the new query
+     */
+    public MeetingQuery withDaysOfWeek(DayOfWeek... daysOfWeek) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        days.addAll(Arrays.asList(daysOfWeek));
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, mAttendee, mSubjectText,
+                mFromMinute, mToMinute, days.size() == 7 ? null : Collections.unmodifiableSet(days), mOrder, mLimit);
+    }
+
+    /**
+     * Get a query sorting its result in another order
+     * @param order the order
+     * @return the new query
+     */
+    public MeetingQuery withOrder(Order order) {
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, mAttendee, mSubjectText,
+                mFromMinute, mToMinute, mDaysOfWeek, order, mLimit);
+    }
+
+    /**
+     * Get a query returning at most a number of meetings (the first ones, in the query order)
+     * @param limit the maximum number of meetings, or NO_LIMIT
+     * @return the new query
+     */
+    public MeetingQuery withLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative limit: " + limit);
+        }
+        return new MeetingQuery(mPlacePrefix, mFrom, mTo, mAttendee, mSubjectText,
+                mFromMinute, mToMinute, mDaysOfWeek, mOrder, limit);
+    }
+
+    /**
+     * Get the prefix of the place name
+     * @return the normalized prefix, or null
+     */
+    public String getPlacePrefix() {
+        return mPlacePrefix;
+    }
+
+    /**
+     * Get the lower bound of the date range
+     * @return the lower bound (inclusive), or null
+     */
+    public Instant getFrom() {
+        return mFrom;
+    }
+
+    /**
+     * Get the upper bound of the date range
+     * @return the upper bound (inclusive), or null
+     */
+    public Instant getTo() {
+        return mTo;
+    }
+
+    /**
+     * Get the person invited to the meetings
+     * @return the person, or null
+     */
+    public Person getAttendee() {
+        return mAttendee;
+    }
+
+    /**
+     * Get the text searched in the subject
+     * @return the normalized text, or null
+     */
+    public String getSubjectText() {
+        return mSubjectText;
+    }
+
+    /**
+     * Check if the query has a time of day window
+     * @return true if restricted to a time of day window
+     */
+    public boolean hasTimeOfDay() {
+        return mFromMinute != NO_MINUTE;
+    }
+
+    /**
+     * Get the earliest local start time
+     * @return the minutes of day (inclusive)
+     */
+    public int getFromMinuteOfDay() {
+        return hasTimeOfDay() ? mFromMinute : 0;
+    }
+
+    /**
+     * Get the latest local start time
+     * @return the minutes of day (inclusive)
+     */
+    public int getToMinuteOfDay() {
+        return hasTimeOfDay() ? mToMinute : 24 * 60 - 1;
+    }
+
+    /**
+     * Get the local days of week of the start of the meetings
+     * @return the days of week, or null for every day
+     */
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return mDaysOfWeek;
+    }
+
+    /**
+     * Get the order of the result
+     * @return the order
+     */
+    public Order getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Get the comparator of the order of the result
+     * @return the comparator of the order, by relevance for the subject text if any
+     */
+    public Comparator<Meeting> getComparator() {
+        if (mOrder == Order.BY_SUBJECT_RELEVANCE && mSubjectText != null) {
+            return SubjectIndex.relevanceOrder(mSubjectText);
+        }
+        return mOrder.getComparator();
+    }
+
+    /**
+     * Get the maximum number of meetings of the result
+     * @return the limit, or NO_LIMIT
+     */
+    public int getLimit() {
+        return mLimit;
+    }
+
+    /**
+     * Check if a meeting matches every criterion of the query (the order and the limit aside)
+     * @param meeting the meeting
+     * @return true if the meeting matches
+     */
+    public boolean matches(Meeting meeting) {
+        Instant date = meeting.getDate();
+        if ((mFrom != null && date.compareTo(mFrom) < 0) || (mTo != null && date.compareTo(mTo) > 0)) {
+            return false;
+        }
+        if (mPlacePrefix != null && !PlaceIndex.normalize(meeting.getPlace().getName())
+                .startsWith(mPlacePrefix)) {
+            return false;
+        }
+        if (mAttendee != null && !meeting.getPersons().contains(mAttendee)) {
+            return false;
+        }
+        if (mSubjectText != null && (meeting.getSubject() == null ||
+                !SubjectIndex.normalize(meeting.getSubject()).contains(mSubjectText))) {
+            return false;
+        }
+        if (hasTimeOfDay()) {
+            int minute = CALENDAR.getHour(date) * 60 + CALENDAR.getMinute(date);
+            if (minute < mFromMinute || minute > mToMinute) {
+                return false;
+            }
+        }
+        return mDaysOfWeek == null || mDaysOfWeek.contains(CALENDAR.getDayOfWeek(date));
+    }
+
+    /**
+     * Check if a text criterion is not set
+     * @param text the text criterion
+     * @return true if null or empty
+     */
+    private static boolean isEmpty(String text) {
+        return text == null || text.equals("");
+    }
+
+}
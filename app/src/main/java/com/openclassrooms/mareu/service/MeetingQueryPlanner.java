@@ -0,0 +1,335 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Planificateur des requêtes sur les réunions (voir {@link MeetingQuery})
+ * Chaque index du service utilisable par la requête (dates, lieux, participant, créneaux horaires
+ * jour par jour, et texte du sujet si un {@link SubjectIndex} est fourni) fournit des réunions
+ * candidates : le plus sélectif est parcouru, et les autres critères sont vérifiés sur ses seules
+ * réunions (intersection). Les candidats sont comptés du plus sélectif a priori au moins sélectif,
+ * chacun au plus jusqu'au meilleur compte déjà trouvé : estimer un plan ne coûte donc pas plus que
+ * de l'exécuter.
+ * Comme pour toute vue du service, le plan doit être construit et exécuté en détenant le verrou du
+ * service (inutile pour {@link ConcurrentMeetingsApiService}, dont les vues sont des instantanés).
+ */
+public class MeetingQueryPlanner {
+
+    /**
+     * The index driving a plan
+     */
+    public enum Index {
+        // the meetings of the person
+        ATTENDEE,
+        // the meetings of the places matching the prefix
+        PLACE,
+        // the meetings whose subject contains the text (see SubjectIndex)
+        SUBJECT,
+        // the meetings of the time of day windows, day by day
+        TIME_SLOTS,
+        // the meetings of the date range
+        DATE
+    }
+
+    /**
+     * Nanoseconds in a second
+     */
+    private static final int NANOS_PER_SECOND = 1000000000;
+
+    /**
+     * The plan of a query : the index driving it, and its candidate meetings
+     */
+    public static final class Plan {
+
+        private final MeetingQuery mQuery;
+        private final Index mIndex;
+
+        /**
+         * The candidate meetings, as views on the index
+         */
+        private final List<Collection<Meeting>> mParts;
+
+        /**
+         * True if the parts, one after the other, are in chronological order
+         */
+        private final boolean mChronological;
+
+        /**
+         * Number of candidate meetings, plus one per view looked up
+         */
+        private final int mEstimatedCost;
+
+        private Plan(MeetingQuery query, Index index, List<Collection<Meeting>> parts,
+                     boolean chronological, int estimatedCost) {
+            mQuery = query;
+            mIndex = index;
+            mParts = parts;
+            mChronological = chronological;
+            mEstimatedCost = estimatedCost;
+        }
+
+        /**
+         * Get the index driving the plan
+         * @return the index
+         */
+        public Index getIndex() {
+            return mIndex;
+        }
+
+        /**
+         * Get the estimated cost of the plan
+         * @return the number of candidate meetings, plus one per view looked up
+         */
+        public int getEstimatedCost() {
+            return mEstimatedCost;
+        }
+
+        /**
+         * Execute the plan : filter the candidates, sort and limit them
+         * In chronological order, a chronological index is read only up to the limit
+         * @return {@link List} of the meetings matching the query
+         */
+        public List<Meeting> execute() {
+            List<Meeting> ret = new ArrayList<>();
+            int limit = mQuery.getLimit();
+            MeetingQuery.Order order = mQuery.getOrder();
+            boolean stopAtLimit = mChronological && order == MeetingQuery.Order.CHRONOLOGICAL;
+            if (limit == 0) {
+                return ret;
+            }
+            for (Collection<Meeting> part : mParts) {
+                for (Meeting meeting : part) {
+                    if (mQuery.matches(meeting)) {
+                        ret.add(meeting);
+                        if (stopAtLimit && ret.size() == limit) {
+                            return ret;
+                        }
+                    }
+                }
+            }
+            if (mChronological && order == MeetingQuery.Order.REVERSE_CHRONOLOGICAL) {
+                Collections.reverse(ret);
+            } else if (!stopAtLimit) {
+                Collections.sort(ret, mQuery.getComparator());
+            }
+            if (ret.size() > limit) {
+                ret.subList(limit, ret.size()).clear();
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * The service
+     */
+    private final MeetingsApiService mService;
+
+    /**
+     * The index of the subjects, or null
+     */
+    private final SubjectIndex mSubjectIndex;
+
+    /**
+     * Constructor
+     * @param service the service whose indexes are queried
+     */
+    public MeetingQueryPlanner(MeetingsApiService service) {
+        this(service, null);
+    }
+
+    /**
+     * Constructor
+     * @param service the service whose indexes are queried
+     * @param subjectIndex the index of the subjects of the service, or null
+     */
+    public MeetingQueryPlanner(MeetingsApiService service, SubjectIndex subjectIndex) {
+        mService = service;
+        mSubjectIndex = subjectIndex;
+    }
+
+    /**
+     * Plan and execute a query
+     * @param query the query
+     * @return {@link List} of the meetings matching the query
+     */
+    public List<Meeting> execute(MeetingQuery query) {
+        return plan(query).execute();
+    }
+
+    /**
+     * Plan a query : pick the most selective index
+     * @param query the query
+     * @return the plan
+     */
+    public Plan plan(MeetingQuery query) {
+        Instant from = query.getFrom();
+        Instant to = query.getTo();
+        Plan best = null;
+        // the usually most selective indexes first, so the others are counted up to their count only
+        if (query.getAttendee() != null) {
+            best = cheaper(best, query, Index.ATTENDEE,
+                    Collections.singletonList(mService.getMeetingsOf(query.getAttendee(), from, to)), true);
+        }
+        if (query.getPlacePrefix() != null) {
+            List<Collection<Meeting>> parts = new ArrayList<>();
+            for (Place place : mService.getPlacesStartingWith(query.getPlacePrefix())) {
+                parts.add(mService.getMeetingsBetween(place, from, to));
+            }
+            // the meetings of several places are merged by the final sort
+            best = cheaper(best, query, Index.PLACE, parts, parts.size() <= 1);
+        }
+        if (query.getSubjectText() != null && mSubjectIndex != null) {
+            // the matches within the dates, given up once as many as the candidates of the best plan
+            List<Meeting> matches = mSubjectIndex.getMeetingsContaining(query.getSubjectText(), from, to,
+                    best == null ? Integer.MAX_VALUE : best.getEstimatedCost() - 1);
+            best = cheaper(best, query, Index.SUBJECT,
+                    matches == null ? null : Collections.<Collection<Meeting>>singletonList(matches), false);
+        }
+        if (query.hasTimeOfDay() || query.getDaysOfWeek() != null) {
+            best = cheaper(best, query, Index.TIME_SLOTS,
+                    getTimeSlots(query, best == null ? Integer.MAX_VALUE : best.getEstimatedCost()), true);
+        }
+        return cheaper(best, query, Index.DATE,
+                Collections.singletonList(mService.getMeetingsBetween(from, to)), true);
+    }
+
+    /**
+     * Keep the cheaper of two plans (the best one, on a tie)
+     * @param best the best plan so far, or null
+     * @param query the query
+     * @param index the index of the other plan
+     * @param parts the candidates of the other plan, or null if they are already known to be too many
+     * @param chronological true if the candidates are in chronological order
+     * @return the cheaper plan
+     */
+    private static Plan cheaper(Plan best, MeetingQuery query, Index index, List<Collection<Meeting>> parts,
+                                boolean chronological) {
+        if (parts == null) {
+            return best;
+        }
+        int bound = best == null ? Integer.MAX_VALUE : best.getEstimatedCost();
+        int cost = parts.size();
+        for (Iterator<Collection<Meeting>> it = parts.iterator(); it.hasNext() && cost < bound; ) {
+            cost += countUpTo(it.next(), bound - cost);
+        }
+        return cost < bound ? new Plan(query, index, parts, chronological, cost) : best;
+    }
+
+    /**
+     * Count the meetings of a view, up to a bound
+     * The lists know their size, the other views are iterated up to the bound only
+     * @param meetings the view
+     * @param bound the bound
+     * @return the number of meetings, or the bound if reached
+     */
+    private static int countUpTo(Collection<Meeting> meetings, int bound) {
+        if (meetings instanceof List) {
+            return Math.min(meetings.size(), bound);
+        }
+        int ret = 0;
+        for (Iterator<Meeting> it = meetings.iterator(); it.hasNext() && ret < bound; it.next()) {
+            ret++;
+        }
+        return ret;
+    }
+
+    /**
+     * Get the views on the time of day windows of the allowed days, in chronological order
+     * The days without meeting are skipped, thanks to a lookup of the next meeting : so the number of
+     * lookups is bounded by the number of days having meetings, whatever the date range
+     * @param query the query
+     * @param bound the number of lookups and candidates to stop at
+     * @return the views, or null if the bound is reached
+     */
+    private List<Collection<Meeting>> getTimeSlots(MeetingQuery query, int bound) {
+        ZonedEpochCalendar calendar = DateEasy.getLocaleCalendar();
+        Set<DayOfWeek> daysOfWeek = query.getDaysOfWeek();
+        Instant from = query.getFrom();
+        Instant to = query.getTo();
+        List<Collection<Meeting>> ret = new ArrayList<>();
+        int cost = 0;
+        // the pending window, extended while the windows are contiguous (whole days)
+        Instant pendingFrom = null;
+        Instant pendingTo = null;
+        Instant cursor = from;
+        while (cost < bound) {
+            // the next meeting, from the cursor
+            Iterator<Meeting> next = mService.getMeetingsBetween(cursor, to).iterator();
+            cost++;
+            if (!next.hasNext()) {
+                break;
+            }
+            long day = calendar.getEpochDay(next.next().getDate());
+            while (daysOfWeek != null && !daysOfWeek.contains(ZonedEpochCalendar.dayOfWeek(day))) {
+                day++;
+            }
+            long dayStart = calendar.startOfLocalDayToEpochSecond(day);
+            long nextDayStart = calendar.startOfLocalDayToEpochSecond(day + 1);
+            Instant windowFrom;
+            Instant windowTo;
+            if (nextDayStart - dayStart == 86400) {
+                windowFrom = Instant.ofEpochSecond(dayStart + query.getFromMinuteOfDay() * 60L);
+                windowTo = Instant.ofEpochSecond(dayStart + query.getToMinuteOfDay() * 60L + 59, NANOS_PER_SECOND - 1);
+            } else {
+                // a change of time during the day : the whole day, the meetings are filtered by the query anyway
+                windowFrom = Instant.ofEpochSecond(dayStart);
+                windowTo = Instant.ofEpochSecond(nextDayStart - 1, NANOS_PER_SECOND - 1);
+            }
+            if (from != null && windowFrom.isBefore(from)) {
+                windowFrom = from;
+            }
+            if (to != null && windowTo.isAfter(to)) {
+                windowTo = to;
+            }
+            if (!windowFrom.isAfter(windowTo)) {
+                if (pendingTo != null && pendingTo.plusNanos(1).equals(windowFrom)) {
+                    pendingTo = windowTo;
+                } else {
+                    if (pendingFrom != null) {
+                        cost += addWindow(ret, pendingFrom, pendingTo, bound - cost);
+                    }
+                    pendingFrom = windowFrom;
+                    pendingTo = windowTo;
+                }
+            }
+            cursor = Instant.ofEpochSecond(nextDayStart);
+            if (to != null && cursor.isAfter(to)) {
+                break;
+            }
+        }
+        if (pendingFrom != null && cost < bound) {
+            cost += addWindow(ret, pendingFrom, pendingTo, bound - cost);
+        }
+        return cost < bound ? ret : null;
+    }
+
+    /**
+     * Add the view on a window, if not empty
+     * @param parts the views
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (inclusive)
+     * @param bound the number of candidates to stop at
+     * @return the cost of the view : its number of meetings, up to the bound, plus one for the lookup
+     */
+    private int addWindow(List<Collection<Meeting>> parts, Instant from, Instant to, int bound) {
+        Collection<Meeting> window = mService.getMeetingsBetween(from, to);
+        int count = countUpTo(window, bound);
+        if (count > 0) {
+            parts.add(window);
+        }
+        return count + 1;
+    }
+
+}
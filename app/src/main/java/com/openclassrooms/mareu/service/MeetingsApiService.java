@@ -1,11 +1,22 @@
 package com.openclassrooms.mareu.service;
 
 import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Service d'API pour gérer les données des réunions
+ * Les implémentations sont thread-safe, grâce à un verrou sur le service lui-même :
+ * les vues retournées (voir getMeetingsBetween) doivent être parcourues en détenant ce verrou,
+ * comme pour {@link java.util.Collections#synchronizedList(List)}, et les écouteurs sont notifiés
+ * en le détenant. Seul {@link ConcurrentMeetingsApiService} retourne des instantanés immuables,
+ * lisibles sans verrou.
+ * Chaque modification effective incrémente la version du service, et est publiée aux écouteurs
+ * (voir {@link MeetingsChangeEvent} pour la publier sur un bus d'événements).
  */
 public interface MeetingsApiService {
 
@@ -16,10 +27,81 @@ public interface MeetingsApiService {
     List<Meeting> getMeetings();
 
     /**
-     * Add a Meeting
+     * Get the version of the Meetings, incremented once by each call that changes them (a batch included)
+     * A caller which kept the version of what it computed may skip its work while the version is unchanged
+     * @return the version, monotonically increasing, 0 for a service never changed
+     */
+    long getVersion();
+
+    /**
+     * Get the Meetings whose date is within [from, to], in chronological order
+     * @param from lower bound (inclusive), or null for no lower bound
+     * @param to upper bound (inclusive), or null for no upper bound
+     * @return {@link Collection} read-only
+     */
+    Collection<Meeting> getMeetingsBetween(Instant from, Instant to);
+
+    /**
+     * Get the Meetings of a Place whose date is within [from, to], in chronological order
+     * @param place the place of the meetings
+     * @param from lower bound (inclusive), or null for no lower bound
+     * @param to upper bound (inclusive), or null for no upper bound
+     * @return {@link Collection} read-only
+     */
+    Collection<Meeting> getMeetingsBetween(Place place, Instant from, Instant to);
+
+    /**
+     * Get the Meetings a Person is invited to, whose date is within [from, to], in chronological order
+     * @param person the person invited to the meetings
+     * @param from lower bound (inclusive), or null for no lower bound
+     * @param to upper bound (inclusive), or null for no upper bound
+     * @return {@link Collection} read-only
+     */
+    Collection<Meeting> getMeetingsOf(Person person, Instant from, Instant to);
+
+    /**
+     * Get the Places having at least one Meeting, whose name starts with a prefix
+     * @param prefix the prefix of the place name (case insensitive)
+     * @return {@link Collection} of places
+     */
+    Collection<Place> getPlacesStartingWith(String prefix);
+
+    /**
+     * Get the Meetings of a Place overlapping the time slot [start, end), in chronological order
+     * @param place the place of the meetings
+     * @param start start of the time slot (inclusive)
+     * @param end end of the time slot (exclusive)
+     * @return {@link List} of the overlapping meetings, empty if the place is free
+     */
+    List<Meeting> getOverlappingMeetings(Place place, Instant start, Instant end);
+
+    /**
+     * Add a Meeting, unless its Place is already booked during its time slot
+     * (see {@link #getOverlappingMeetings(Place, Instant, Instant)} to report the conflicts)
      * @param meeting Meeting to add
+     * @return true if added, false if already registered or overlapping another meeting
+     */
+    boolean addMeeting(Meeting meeting);
+
+    /**
+     * Outcome of the addition of a Meeting, within a batch
+     */
+    enum AddOutcome {
+        // the meeting has been added
+        ADDED,
+        // a meeting with the same date and place is already registered (or earlier in the batch)
+        DUPLICATE,
+        // the place is already booked during the time slot (or by a meeting earlier in the batch)
+        CONFLICT
+    }
+
+    /**
+     * Add several Meetings at once, in iteration order, as many calls to {@link #addMeeting(Meeting)} would do,
+     * but with a single notification of the listeners
+     * @param meetings Meetings to add
+     * @return {@link List} of the outcomes, one per meeting, in iteration order
      */
-    void addMeeting(Meeting meeting);
+    List<AddOutcome> addMeetings(Collection<Meeting> meetings);
 
     /**
      * Delete a Meeting
@@ -27,5 +109,84 @@ public interface MeetingsApiService {
      */
     void deleteMeeting(Meeting meeting);
 
-}
+    /**
+     * Delete several Meetings at once, with a single notification of the listeners
+     * @param meetings Meetings to delete (the unregistered ones, and the repeated ones, are ignored)
+     * @return the number of meetings deleted
+     */
+    int deleteMeetings(Collection<Meeting> meetings);
+
+    /**
+     * Replace a registered Meeting by an updated one, at once : the updated meeting may move
+     * (date, duration or place), as long as its new time slot does not overlap another meeting
+     * @param meeting Meeting to replace
+     * @param updated Meeting replacing it, a new instance (a registered meeting is indexed, so it must not be
+     *                modified in place), which may be equal to the replaced one (same date and place)
+     * @return true if replaced, false if the meeting is not registered, or if the updated one would be
+     * a duplicate of, or would overlap, another meeting (the meeting is then kept unchanged)
+     */
+    boolean updateMeeting(Meeting meeting, Meeting updated);
+
+    /**
+     * Check if a Meeting (same date and place) is already registered
+     * @param meeting Meeting to look for
+     * @return true if the meeting is registered, false otherwise
+     */
+    boolean containsMeeting(Meeting meeting);
 
+    /**
+     * Allow the service to notify its callers that a Meeting has been added, deleted or updated
+     * The listeners are notified after the change, holding the service lock : {@link #getVersion()} is
+     * then the version following the change
+     */
+    interface OnMeetingsChangedListener {
+        void onMeetingAdded(Meeting meeting);
+        void onMeetingDeleted(Meeting meeting);
+
+        /**
+         * Several Meetings have been added by a single call (never called with an empty list)
+         * By default, notify them one by one : override it to apply the whole batch at once
+         * @param meetings the added meetings, in the order of the call
+         */
+        default void onMeetingsAdded(List<Meeting> meetings) {
+            for (Meeting meeting : meetings) {
+                onMeetingAdded(meeting);
+            }
+        }
+
+        /**
+         * Several Meetings have been deleted by a single call (never called with an empty list)
+         * By default, notify them one by one : override it to apply the whole batch at once
+         * @param meetings the deleted meetings
+         */
+        default void onMeetingsDeleted(List<Meeting> meetings) {
+            for (Meeting meeting : meetings) {
+                onMeetingDeleted(meeting);
+            }
+        }
+
+        /**
+         * A Meeting has been replaced by an updated one
+         * By default, notify the deletion of the previous meeting, then the addition of the updated one
+         * @param previous the replaced meeting
+         * @param meeting the updated meeting
+         */
+        default void onMeetingUpdated(Meeting previous, Meeting meeting) {
+            onMeetingDeleted(previous);
+            onMeetingAdded(meeting);
+        }
+    }
+
+    /**
+     * Register a listener, notified after each change
+     * @param listener the listener to register
+     */
+    void addOnMeetingsChangedListener(OnMeetingsChangedListener listener);
+
+    /**
+     * Unregister a listener
+     * @param listener the listener to unregister
+     */
+    void removeOnMeetingsChangedListener(OnMeetingsChangedListener listener);
+
+}
@@ -0,0 +1,625 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archive en lecture seule des réunions passées, projetée en mémoire
+ * Les réunions sont stockées par colonnes, dans l'ordre chronologique, avec des tables d'offsets :
+ * une recherche par dates est une recherche dichotomique dans la colonne des dates, un filtre par lieu
+ * ou par personne ne lit que les colonnes d'identifiants, et seules les réunions retenues sont décodées.
+ * Le fichier n'est donc jamais désérialisé en entier, et les réunions archivées ne restent pas sur le tas.
+ *
+ * Format (entiers big-endian) :
+ * <pre>
+ * int magic "MARA", int version, int meetings count, int attendees count,
+ * int places count, int subjects count, int persons count,
+ * int places bytes, int subjects bytes, int persons bytes,
+ * long[meetings] start epoch seconds, int[meetings] start nanos, long[meetings] durations in nanos,
+ * int[meetings] place ids, int[meetings] subject ids (-1 if none),
+ * int[meetings + 1] attendees offsets, int[attendees] person ids (sorted, per meeting),
+ * places, subjects and persons dictionaries : int[count + 1] offsets, then the UTF-8 bytes
+ * </pre>
+ */
+public class MeetingsArchive {
+
+    /**
+     * Magic number, "MARA" in ASCII
+     */
+    private static final int MAGIC = 0x4D415241;
+
+    /**
+     * Version of the format written (a reader only accepts the versions it knows)
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 10 * 4;
+
+    /**
+     * Number of decoded meetings kept, so the meetings displayed keep their identity between two queries
+     */
+    private static final int DECODED_CACHE_SIZE = 1024;
+
+    /**
+     * The mapped file, and the offsets of its columns
+     */
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+    private final int mStartsOffset;
+    private final int mNanosOffset;
+    private final int mDurationsOffset;
+    private final int mPlaceIdsOffset;
+    private final int mSubjectIdsOffset;
+    private final int mAttendeesOffsetsOffset;
+    private final int mAttendeesOffset;
+    private final int mSubjectsOffset;
+    private final int mSubjectsCount;
+    private final int mPersonsOffset;
+    private final int mPersonsCount;
+
+    /**
+     * The places, decoded at opening (the dictionary is small), and their ids
+     */
+    private final Place[] mPlaces;
+    private final Map<Place, Integer> mPlaceIds = new HashMap<>();
+
+    /**
+     * The persons, decoded on demand, and their ids (built at the first query by person)
+     */
+    private final Person[] mPersons;
+    private Map<Person, Integer> mPersonIds;
+
+    /**
+     * The meetings deleted since the opening (the file is read-only : they are dropped when rewritten)
+     */
+    private final BitSet mDeleted = new BitSet();
+
+    /**
+     * The last decoded meetings, by row
+     */
+    private final Map<Integer, Meeting> mDecoded = new LinkedHashMap<Integer, Meeting>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Meeting> eldest) {
+            return size() > DECODED_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Constructor : check the header, locate the columns, and decode the places
+     * @param buffer the archive
+     * @throws IOException if the archive is invalid
+     */
+    private MeetingsArchive(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a meetings archive");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unknown meetings archive version " + buffer.getInt(4));
+        }
+        mCount = buffer.getInt(8);
+        int attendeesCount = buffer.getInt(12);
+        int placesCount = buffer.getInt(16);
+        mSubjectsCount = buffer.getInt(20);
+        mPersonsCount = buffer.getInt(24);
+        int placesBytes = buffer.getInt(28);
+        int subjectsBytes = buffer.getInt(32);
+        int personsBytes = buffer.getInt(36);
+        if (mCount < 0 || attendeesCount < 0 || placesCount < 0 || mSubjectsCount < 0 || mPersonsCount < 0
+                || placesBytes < 0 || subjectsBytes < 0 || personsBytes < 0) {
+            throw new IOException("Invalid meetings archive");
+        }
+        mStartsOffset = HEADER_SIZE;
+        mNanosOffset = mStartsOffset + mCount * 8;
+        mDurationsOffset = mNanosOffset + mCount * 4;
+        mPlaceIdsOffset = mDurationsOffset + mCount * 8;
+        mSubjectIdsOffset = mPlaceIdsOffset + mCount * 4;
+        mAttendeesOffsetsOffset = mSubjectIdsOffset + mCount * 4;
+        mAttendeesOffset = mAttendeesOffsetsOffset + (mCount + 1) * 4;
+        int placesOffset = mAttendeesOffset + attendeesCount * 4;
+        mSubjectsOffset = placesOffset + (placesCount + 1) * 4 + placesBytes;
+        mPersonsOffset = mSubjectsOffset + (mSubjectsCount + 1) * 4 + subjectsBytes;
+        long size = (long) mPersonsOffset + (mPersonsCount + 1) * 4L + personsBytes;
+        if (size != buffer.limit()) {
+            throw new IOException("Truncated meetings archive");
+        }
+        mPlaces = new Place[placesCount];
+        for (int i = 0; i < placesCount; i++) {
+            mPlaces[i] = new Place(readString(placesOffset, placesCount, i));
+            mPlaceIds.put(mPlaces[i], i);
+        }
+        mPersons = new Person[mPersonsCount];
+    }
+
+    /**
+     * Open an archive file, projected in memory (the channel may be closed afterwards)
+     * @param channel the channel of the file
+     * @return the archive
+     * @throws IOException if the channel fails, or if the archive is invalid
+     */
+    public static MeetingsArchive open(FileChannel channel) throws IOException {
+        return new MeetingsArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    /**
+     * Open an archive from a buffer
+     * @param buffer the archive, from its position to its limit
+     * @return the archive
+     * @throws IOException if the archive is invalid
+     */
+    public static MeetingsArchive open(ByteBuffer buffer) throws IOException {
+        return new MeetingsArchive(buffer.slice());
+    }
+
+    /**
+     * Move the meetings of a service, before a date, to a new archive : the new archive holds the meetings
+     * of the previous one (but the deleted ones) and the moved meetings, which are deleted from the service
+     * @param service the service
+     * @param before the date (exclusive)
+     * @param previous the previous archive, or null
+     * @param channel the channel of the new archive (blocking), not closed
+     * @return the number of meetings moved
+     * @throws IOException if the channel fails (the service is then left untouched)
+     */
+    public static int moveMeetingsBefore(MeetingsApiService service, Instant before,
+                                         MeetingsArchive previous, WritableByteChannel channel) throws IOException {
+        List<Meeting> moved = writeMeetingsBefore(service, before, previous, channel);
+        service.deleteMeetings(moved);
+        return moved.size();
+    }
+
+    /**
+     * Write a new archive with the meetings of a service before a date, without deleting them from the
+     * service (so the new archive may be opened first, see {@link #moveMeetingsBefore}) : the new archive
+     * holds the meetings of the previous one (but the deleted ones) and the meetings of the service
+     * The rows of the previous archive are copied from its mapped file, merged with the meetings of the
+     * service, and streamed to the channel : they are never decoded into meetings
+     * @param service the service
+     * @param before the date (exclusive)
+     * @param previous the previous archive, or null
+     * @param channel the channel of the new archive (blocking), not closed
+     * @return {@link List} of the meetings of the service archived, to delete from the service
+     * @throws IOException if the channel fails
+     */
+    public static List<Meeting> writeMeetingsBefore(MeetingsApiService service, Instant before,
+                                                    MeetingsArchive previous, WritableByteChannel channel)
+            throws IOException {
+        List<Meeting> moved;
+        synchronized (service) {
+            moved = new ArrayList<>(service.getMeetingsBetween(null, before.minusNanos(1)));
+        }
+        // a meeting already archived, if the service was not updated after the last archiving, is kept once
+        write(new MeetingColumns(previous, moved), channel);
+        return moved;
+    }
+
+    /**
+     * Write an archive of meetings
+     * @param meetings the meetings
+     * @param channel the channel to write (blocking), not closed
+     * @throws IOException if the channel fails
+     */
+    public static void write(Collection<Meeting> meetings, WritableByteChannel channel) throws IOException {
+        write(new MeetingColumns(meetings), channel);
+    }
+
+    /**
+     * Write an archive of the rows of columns
+     * @param columns the columns
+     * @param channel the channel to write (blocking), not closed
+     * @throws IOException if the channel fails
+     */
+    private static void write(MeetingColumns columns, WritableByteChannel channel) throws IOException {
+        StringDictionary places = columns.getPlaces();
+        StringDictionary subjects = columns.getSubjects();
+        StringDictionary persons = columns.getPersons();
+        ChannelOutput output = new ChannelOutput(channel, false);
+        output.putInt(MAGIC).putInt(VERSION).putInt(columns.size()).putInt(columns.getAttendeesCount())
+                .putInt(places.size()).putInt(subjects.size()).putInt(persons.size())
+                .putInt(places.getBytesSize()).putInt(subjects.getBytesSize()).putInt(persons.getBytesSize());
+        columns.writeStartSeconds(output);
+        columns.writeStartNanos(output);
+        columns.writeDurations(output);
+        columns.writePlaceIds(output);
+        columns.writeSubjectIds(output);
+        columns.writeAttendeesOffsets(output);
+        columns.writeAttendees(output);
+        places.writeIndexedTo(output);
+        subjects.writeIndexedTo(output);
+        persons.writeIndexedTo(output);
+        output.flush();
+    }
+
+    /**
+     * Get the number of meetings archived
+     * @return the number of meetings, including the deleted ones
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Get the date of the last meeting archived
+     * @return the date, or null if the archive is empty
+     */
+    public Instant getLastDate() {
+        return mCount == 0 ? null : getDate(mCount - 1);
+    }
+
+    /**
+     * Get the meetings whose date is within [from, to], in chronological order, in O(log n + k)
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link List} of the meetings
+     */
+    public synchronized List<Meeting> getMeetingsBetween(Instant from, Instant to) {
+        int end = upperRow(to);
+        List<Meeting> ret = new ArrayList<>();
+        for (int row = lowerRow(from); row < end; row++) {
+            if (!mDeleted.get(row)) {
+                ret.add(getMeeting(row));
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get the meetings of a place whose date is within [from, to], in chronological order
+     * Only the place ids of the time span are read, in O(log n + k)
+     * @param place the place
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link List} of the meetings
+     */
+    public synchronized List<Meeting> getMeetingsBetween(Place place, Instant from, Instant to) {
+        List<Meeting> ret = new ArrayList<>();
+        Integer placeId = mPlaceIds.get(place);
+        if (placeId == null) {
+            return ret;
+        }
+        int end = upperRow(to);
+        for (int row = lowerRow(from); row < end; row++) {
+            if (mBuffer.getInt(mPlaceIdsOffset + row * 4) == placeId && !mDeleted.get(row)) {
+                ret.add(getMeeting(row));
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get the meetings a person is invited to, whose date is within [from, to], in chronological order
+     * Only the attendees of the time span are read, in O(log n + k log a)
+     * @param person the person
+     * @param from lower bound (inclusive), or null
+     * @param to upper bound (inclusive), or null
+     * @return {@link List} of the meetings
+     */
+    public synchronized List<Meeting> getMeetingsOf(Person person, Instant from, Instant to) {
+        List<Meeting> ret = new ArrayList<>();
+        Integer personId = getPersonIds().get(person);
+        if (personId == null) {
+            return ret;
+        }
+        int end = upperRow(to);
+        for (int row = lowerRow(from); row < end; row++) {
+            if (isInvited(row, personId) && !mDeleted.get(row)) {
+                ret.add(getMeeting(row));
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get the archived places whose name starts with a prefix
+     * @param prefix the prefix (case insensitive)
+     * @return {@link List} of the places
+     */
+    public List<Place> getPlacesStartingWith(String prefix) {
+        String key = PlaceIndex.normalize(prefix);
+        List<Place> ret = new ArrayList<>();
+        for (Place place : mPlaces) {
+            if (PlaceIndex.normalize(place.getName()).startsWith(key)) {
+                ret.add(place);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Delete a meeting from the archive, until the archive is rewritten (see {@link #moveMeetingsBefore})
+     * @param meeting the meeting
+     * @return true if the meeting was archived
+     */
+    public synchronized boolean deleteMeeting(Meeting meeting) {
+        int row = findRow(meeting);
+        if (row < 0 || mDeleted.get(row)) {
+            return false;
+        }
+        mDeleted.set(row);
+        mDecoded.remove(row);
+        return true;
+    }
+
+    /**
+     * Check if a meeting (same date and place) is archived
+     * @param meeting the meeting
+     * @return true if archived, and not deleted
+     */
+    public synchronized boolean containsMeeting(Meeting meeting) {
+        int row = findRow(meeting);
+        return row >= 0 && !mDeleted.get(row);
+    }
+
+    /**
+     * Get the deleted rows
+     * @return a copy of the deleted rows
+     */
+    synchronized BitSet getDeletedRows() {
+        return (BitSet) mDeleted.clone();
+    }
+
+    /**
+     * Compare a row with a meeting, in {@link Meeting#CHRONOLOGICAL_ORDER}, without decoding the row
+     * @param row the row
+     * @param meeting the meeting
+     * @return negative, zero or positive if the row is before, at or after the meeting
+     */
+    int compareRow(int row, Meeting meeting) {
+        int ret = compareDate(row, meeting.getDate());
+        if (ret == 0) {
+            ret = mPlaces[getPlaceId(row)].getName().compareTo(meeting.getPlace().getName());
+        }
+        return ret;
+    }
+
+    // the raw columns and dictionaries, to copy the rows without decoding them (see MeetingColumns)
+
+    long getStartSecond(int row) {
+        return mBuffer.getLong(mStartsOffset + row * 8);
+    }
+
+    int getStartNano(int row) {
+        return mBuffer.getInt(mNanosOffset + row * 4);
+    }
+
+    long getDurationNanos(int row) {
+        return mBuffer.getLong(mDurationsOffset + row * 8);
+    }
+
+    int getPlaceId(int row) {
+        return mBuffer.getInt(mPlaceIdsOffset + row * 4);
+    }
+
+    int getSubjectId(int row) {
+        return mBuffer.getInt(mSubjectIdsOffset + row * 4);
+    }
+
+    /**
+     * Get the offset of the run of attendees of a row
+     * @param row the row, or the number of rows for the end of the last run
+     * @return the offset, in attendees
+     */
+    int getAttendeesOffset(int row) {
+        return mBuffer.getInt(mAttendeesOffsetsOffset + row * 4);
+    }
+
+    int getAttendee(int offset) {
+        return mBuffer.getInt(mAttendeesOffset + offset * 4);
+    }
+
+    int getPlacesCount() {
+        return mPlaces.length;
+    }
+
+    String getPlaceName(int placeId) {
+        return mPlaces[placeId].getName();
+    }
+
+    int getSubjectsCount() {
+        return mSubjectsCount;
+    }
+
+    String getSubject(int subjectId) {
+        return readString(mSubjectsOffset, mSubjectsCount, subjectId);
+    }
+
+    int getPersonsCount() {
+        return mPersonsCount;
+    }
+
+    String getPersonEmail(int personId) {
+        return readString(mPersonsOffset, mPersonsCount, personId);
+    }
+
+    /**
+     * Find the row of a meeting, by a binary search on its date, then on its place among the same date
+     * @param meeting the meeting
+     * @return the row, or -1
+     */
+    private int findRow(Meeting meeting) {
+        Integer placeId = mPlaceIds.get(meeting.getPlace());
+        if (placeId == null) {
+            return -1;
+        }
+        int end = upperRow(meeting.getDate());
+        for (int row = lowerRow(meeting.getDate()); row < end; row++) {
+            if (mBuffer.getInt(mPlaceIdsOffset + row * 4) == placeId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the first row whose date is at or after a date
+     * @param date the date, or null for the first row
+     * @return the row
+     */
+    private int lowerRow(Instant date) {
+        if (date == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = mCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareDate(middle, date) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the first row whose date is after a date
+     * @param date the date, or null for the end of the archive
+     * @return the row
+     */
+    private int upperRow(Instant date) {
+        if (date == null) {
+            return mCount;
+        }
+        int low = 0;
+        int high = mCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareDate(middle, date) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare the date of a row with a date, without decoding the row
+     * @param row the row
+     * @param date the date
+     * @return negative, zero or positive if the row is before, at or after the date
+     */
+    private int compareDate(int row, Instant date) {
+        int ret = Long.compare(mBuffer.getLong(mStartsOffset + row * 8), date.getEpochSecond());
+        if (ret == 0) {
+            ret = Integer.compare(mBuffer.getInt(mNanosOffset + row * 4), date.getNano());
+        }
+        return ret;
+    }
+
+    private Instant getDate(int row) {
+        return Instant.ofEpochSecond(mBuffer.getLong(mStartsOffset + row * 8), mBuffer.getInt(mNanosOffset + row * 4));
+    }
+
+    /**
+     * Check if a person is invited to the meeting of a row, by a binary search in its attendees
+     * @param row the row
+     * @param personId the id of the person
+     * @return true if invited
+     */
+    private boolean isInvited(int row, int personId) {
+        int low = mBuffer.getInt(mAttendeesOffsetsOffset + row * 4);
+        int high = mBuffer.getInt(mAttendeesOffsetsOffset + (row + 1) * 4) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = mBuffer.getInt(mAttendeesOffset + middle * 4);
+            if (id < personId) {
+                low = middle + 1;
+            } else if (id > personId) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the meeting of a row, decoded if not in the cache
+     * @param row the row
+     * @return the meeting
+     */
+    private Meeting getMeeting(int row) {
+        Meeting meeting = mDecoded.get(row);
+        if (meeting == null) {
+            int subjectId = mBuffer.getInt(mSubjectIdsOffset + row * 4);
+            int attendeesStart = mBuffer.getInt(mAttendeesOffsetsOffset + row * 4);
+            int attendeesEnd = mBuffer.getInt(mAttendeesOffsetsOffset + (row + 1) * 4);
+            Person[] persons = new Person[attendeesEnd - attendeesStart];
+            for (int i = 0; i < persons.length; i++) {
+                persons[i] = getPerson(mBuffer.getInt(mAttendeesOffset + (attendeesStart + i) * 4));
+            }
+            meeting = new Meeting(getDate(row),
+                    subjectId == MeetingColumns.NO_SUBJECT ? null : readString(mSubjectsOffset, mSubjectsCount, subjectId),
+                    mPlaces[mBuffer.getInt(mPlaceIdsOffset + row * 4)],
+                    Duration.ofNanos(mBuffer.getLong(mDurationsOffset + row * 8)), persons);
+            mDecoded.put(row, meeting);
+        }
+        return meeting;
+    }
+
+    /**
+     * Get a person of the dictionary, decoded once
+     * @param personId the id of the person in the archive
+     * @return the person, interned
+     */
+    private Person getPerson(int personId) {
+        Person person = mPersons[personId];
+        if (person == null) {
+            person = PersonRegistry.getInstance().intern(new Person(readString(mPersonsOffset, mPersonsCount, personId)));
+            mPersons[personId] = person;
+        }
+        return person;
+    }
+
+    /**
+     * Get the ids of the persons, decoding the whole persons dictionary once
+     * @return the ids, by person
+     */
+    private Map<Person, Integer> getPersonIds() {
+        if (mPersonIds == null) {
+            mPersonIds = new HashMap<>();
+            for (int i = 0; i < mPersonsCount; i++) {
+                mPersonIds.put(getPerson(i), i);
+            }
+        }
+        return mPersonIds;
+    }
+
+    /**
+     * Decode a string of a dictionary
+     * @param dictionaryOffset the offset of the dictionary
+     * @param count the number of strings of the dictionary
+     * @param id the id of the string
+     * @return the string
+     */
+    private String readString(int dictionaryOffset, int count, int id) {
+        int bytesOffset = dictionaryOffset + (count + 1) * 4;
+        int start = mBuffer.getInt(dictionaryOffset + id * 4);
+        int end = mBuffer.getInt(dictionaryOffset + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer string = mBuffer.duplicate();
+        string.position(bytesOffset + start);
+        string.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
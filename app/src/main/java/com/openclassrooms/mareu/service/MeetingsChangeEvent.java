@@ -0,0 +1,78 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Événement typé d'une modification des réunions d'un {@link MeetingsApiService}, avec la version
+ * du service qui suit la modification : un abonné qui connaît la version de ce qu'il affiche peut
+ * ignorer les événements déjà pris en compte, et appliquer les autres comme des deltas
+ */
+public final class MeetingsChangeEvent {
+
+    /**
+     * Type of the change
+     */
+    public enum Type {
+        // meetings have been added
+        ADDED,
+        // meetings have been deleted
+        REMOVED,
+        // meetings have been replaced by updated ones
+        UPDATED
+    }
+
+    private final Type mType;
+    private final List<Meeting> mMeetings;
+    private final List<Meeting> mPreviousMeetings;
+    private final long mVersion;
+
+    /**
+     * Constructor
+     * @param type the type of the change
+     * @param meetings the added, deleted or updated meetings
+     * @param previousMeetings the replaced meetings, one per updated meeting (empty unless updated)
+     * @param version the version of the service, following the change
+     */
+    public MeetingsChangeEvent(Type type, List<Meeting> meetings, List<Meeting> previousMeetings, long version) {
+        mType = type;
+        mMeetings = Collections.unmodifiableList(meetings);
+        mPreviousMeetings = Collections.unmodifiableList(previousMeetings);
+        mVersion = version;
+    }
+
+    /**
+     * Getter for type
+     * @return the type of the change
+     */
+    public Type getType() {
+        return mType;
+    }
+
+    /**
+     * Getter for meetings
+     * @return the added, deleted or updated meetings, read-only
+     */
+    public List<Meeting> getMeetings() {
+        return mMeetings;
+    }
+
+    /**
+     * Getter for previous meetings
+     * @return the meetings replaced by the updated ones, in the same order (empty unless {@link Type#UPDATED})
+     */
+    public List<Meeting> getPreviousMeetings() {
+        return mPreviousMeetings;
+    }
+
+    /**
+     * Getter for version
+     * @return the version of the service, following the change (see {@link MeetingsApiService#getVersion()})
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Publie les modifications d'un {@link MeetingsApiService} sur un bus d'événements, sous forme de
+ * {@link MeetingsChangeEvent} : une notification (un appel, un lot compris) produit un seul événement
+ * Les événements sont postés en détenant le verrou du service : les abonnés qui ont du travail à faire
+ * doivent le faire sur un autre thread (ThreadMode.MAIN, BACKGROUND, ou un exécuteur)
+ */
+public class MeetingsChangeEventPublisher implements MeetingsApiService.OnMeetingsChangedListener {
+
+    private final MeetingsApiService mMeetingsApiService;
+    private final EventBus mEventBus;
+
+    /**
+     * Constructor : start listening to the service
+     * @param meetingsApiService the service to listen to
+     * @param eventBus the bus to post the events to
+     */
+    public MeetingsChangeEventPublisher(MeetingsApiService meetingsApiService, EventBus eventBus) {
+        mMeetingsApiService = meetingsApiService;
+        mEventBus = eventBus;
+        mMeetingsApiService.addOnMeetingsChangedListener(this);
+    }
+
+    /**
+     * Stop listening to the service
+     */
+    public void release() {
+        mMeetingsApiService.removeOnMeetingsChangedListener(this);
+    }
+
+    @Override
+    public void onMeetingAdded(Meeting meeting) {
+        post(MeetingsChangeEvent.Type.ADDED, Collections.singletonList(meeting), Collections.<Meeting>emptyList());
+    }
+
+    @Override
+    public void onMeetingDeleted(Meeting meeting) {
+        post(MeetingsChangeEvent.Type.REMOVED, Collections.singletonList(meeting), Collections.<Meeting>emptyList());
+    }
+
+    @Override
+    public void onMeetingsAdded(List<Meeting> meetings) {
+        post(MeetingsChangeEvent.Type.ADDED, meetings, Collections.<Meeting>emptyList());
+    }
+
+    @Override
+    public void onMeetingsDeleted(List<Meeting> meetings) {
+        post(MeetingsChangeEvent.Type.REMOVED, meetings, Collections.<Meeting>emptyList());
+    }
+
+    @Override
+    public void onMeetingUpdated(Meeting previous, Meeting meeting) {
+        post(MeetingsChangeEvent.Type.UPDATED, Collections.singletonList(meeting), Collections.singletonList(previous));
+    }
+
+    /**
+     * Post an event, with the version following the change (the service lock is held by the notification)
+     * @param type the type of the change
+     * @param meetings the meetings
+     * @param previousMeetings the replaced meetings
+     */
+    private void post(MeetingsChangeEvent.Type type, List<Meeting> meetings, List<Meeting> previousMeetings) {
+        mEventBus.post(new MeetingsChangeEvent(type, meetings, previousMeetings, mMeetingsApiService.getVersion()));
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Instantané binaire et versionné des réunions, pour un démarrage à froid rapide
+ * Les réunions sont stockées par colonnes, dans l'ordre chronologique : dates (secondes epoch),
+ * durées, identifiants des lieux et des sujets, nombre et identifiants des invités. Les lieux, sujets
+ * et emails sont stockés une seule fois, dans des dictionnaires. Une somme de contrôle CRC32 termine
+ * le fichier : il est relu d'un seul bloc (projeté en mémoire), et vérifié avant d'être décodé.
+ *
+ * Format (entiers big-endian) :
+ * <pre>
+ * int magic "MARE", int version, int flags,
+ * int meetings count, int places count, int subjects count, int persons count, int attendees count,
+ * places, subjects and persons dictionaries : per entry, int length + UTF-8 bytes,
+ * long[meetings] start epoch seconds, int[meetings] start nanos (if FLAG_NANOS),
+ * long[meetings] durations in nanos, int[meetings] place ids, int[meetings] subject ids (-1 if none),
+ * int[meetings] attendees counts, int[attendees] person ids (the runs of each meeting),
+ * int CRC32 of all the previous bytes
+ * </pre>
+ */
+public final class MeetingsSnapshot {
+
+    /**
+     * Magic number, "MARE" in ASCII
+     */
+    private static final int MAGIC = 0x4D415245;
+
+    /**
+     * Version of the format written (a reader only accepts the versions it knows)
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The start dates have nanos : their column is written
+     */
+    private static final int FLAG_NANOS = 1;
+
+    /**
+     * Size of the header, and of the checksum, in bytes
+     */
+    private static final int HEADER_SIZE = 8 * 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    /**
+     * Size of the chunks copied to compute the checksum of a direct buffer
+     */
+    private static final int CHECKSUM_CHUNK_SIZE = 64 * 1024;
+
+    private MeetingsSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of meetings
+     * @param meetings the meetings
+     * @param channel the channel to write (blocking), not closed
+     * @throws IOException if the channel fails
+     */
+    public static void write(Collection<Meeting> meetings, WritableByteChannel channel) throws IOException {
+        MeetingColumns columns = new MeetingColumns(meetings);
+        int flags = columns.hasNanos() ? FLAG_NANOS : 0;
+        ChannelOutput output = new ChannelOutput(channel, true);
+        output.putInt(MAGIC).putInt(VERSION).putInt(flags)
+                .putInt(columns.size()).putInt(columns.getPlaces().size()).putInt(columns.getSubjects().size())
+                .putInt(columns.getPersons().size()).putInt(columns.getAttendeesCount());
+        columns.getPlaces().writeTo(output);
+        columns.getSubjects().writeTo(output);
+        columns.getPersons().writeTo(output);
+        columns.writeStartSeconds(output);
+        if ((flags & FLAG_NANOS) != 0) {
+            columns.writeStartNanos(output);
+        }
+        columns.writeDurations(output);
+        columns.writePlaceIds(output);
+        columns.writeSubjectIds(output);
+        columns.writeAttendeesCounts(output);
+        columns.writeAttendees(output);
+        output.putInt(output.getChecksum());
+        output.flush();
+    }
+
+    /**
+     * Read a snapshot file, projected in memory
+     * @param channel the channel of the file, not closed
+     * @return {@link List} of the meetings, in chronological order
+     * @throws IOException if the channel fails, or if the snapshot is corrupted or of an unknown version
+     */
+    public static List<Meeting> read(FileChannel channel) throws IOException {
+        return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    /**
+     * Read a snapshot, from its position to its limit
+     * @param buffer the snapshot
+     * @return {@link List} of the meetings, in chronological order
+     * @throws IOException if the snapshot is corrupted or of an unknown version
+     */
+    public static List<Meeting> read(ByteBuffer buffer) throws IOException {
+        ByteBuffer snapshot = buffer.slice();
+        if (snapshot.remaining() < HEADER_SIZE + CHECKSUM_SIZE) {
+            throw new IOException("Truncated meetings snapshot");
+        }
+        if (snapshot.getInt() != MAGIC) {
+            throw new IOException("Not a meetings snapshot");
+        }
+        int version = snapshot.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unknown meetings snapshot version " + version);
+        }
+        int end = snapshot.limit() - CHECKSUM_SIZE;
+        if (snapshot.getInt(end) != checksum(snapshot, end)) {
+            throw new IOException("Corrupted meetings snapshot");
+        }
+        try {
+            return decode(snapshot, end);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            // a consistent checksum, but inconsistent counts
+            throw new IOException("Invalid meetings snapshot", e);
+        }
+    }
+
+    /**
+     * Decode the body of a snapshot whose header and checksum are checked
+     * @param snapshot the snapshot, positioned after the version
+     * @param end the position of the checksum
+     * @return {@link List} of the meetings
+     */
+    private static List<Meeting> decode(ByteBuffer snapshot, int end) {
+        snapshot.limit(end);
+        int flags = snapshot.getInt();
+        int count = snapshot.getInt();
+        int placesCount = snapshot.getInt();
+        int subjectsCount = snapshot.getInt();
+        int personsCount = snapshot.getInt();
+        int attendeesCount = snapshot.getInt();
+
+        // the dictionaries : one Place instance per place, one interned Person per email
+        Place[] places = new Place[placesCount];
+        for (int i = 0; i < placesCount; i++) {
+            places[i] = new Place(readString(snapshot));
+        }
+        String[] subjects = new String[subjectsCount];
+        for (int i = 0; i < subjectsCount; i++) {
+            subjects[i] = readString(snapshot);
+        }
+        Person[] persons = new Person[personsCount];
+        PersonRegistry registry = PersonRegistry.getInstance();
+        for (int i = 0; i < personsCount; i++) {
+            persons[i] = registry.intern(new Person(readString(snapshot)));
+        }
+
+        // the columns, read in bulk
+        long[] startSeconds = new long[count];
+        snapshot.asLongBuffer().get(startSeconds);
+        snapshot.position(snapshot.position() + count * 8);
+        int[] startNanos = new int[count];
+        if ((flags & FLAG_NANOS) != 0) {
+            snapshot.asIntBuffer().get(startNanos);
+            snapshot.position(snapshot.position() + count * 4);
+        }
+        long[] durations = new long[count];
+        snapshot.asLongBuffer().get(durations);
+        snapshot.position(snapshot.position() + count * 8);
+        int[] placeIds = readInts(snapshot, count);
+        int[] subjectIds = readInts(snapshot, count);
+        int[] attendeesCounts = readInts(snapshot, count);
+        int[] attendees = readInts(snapshot, attendeesCount);
+        if (snapshot.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected bytes");
+        }
+
+        // the meetings
+        List<Meeting> meetings = new ArrayList<>(count);
+        int attendee = 0;
+        for (int i = 0; i < count; i++) {
+            Person[] meetingPersons = new Person[attendeesCounts[i]];
+            for (int j = 0; j < meetingPersons.length; j++) {
+                meetingPersons[j] = persons[attendees[attendee++]];
+            }
+            meetings.add(new Meeting(Instant.ofEpochSecond(startSeconds[i], startNanos[i]),
+                    subjectIds[i] == MeetingColumns.NO_SUBJECT ? null : subjects[subjectIds[i]],
+                    places[placeIds[i]], Duration.ofNanos(durations[i]), meetingPersons));
+        }
+        return meetings;
+    }
+
+    /**
+     * Compute the CRC32 of the bytes of a buffer, from its start
+     * @param buffer the buffer
+     * @param end the end of the bytes (exclusive)
+     * @return the checksum
+     */
+    private static int checksum(ByteBuffer buffer, int end) {
+        CRC32 crc = new CRC32();
+        if (buffer.hasArray()) {
+            crc.update(buffer.array(), buffer.arrayOffset(), end);
+        } else {
+            // a mapped file : copy it by chunks
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.position(0);
+            byte[] chunk = new byte[Math.min(CHECKSUM_CHUNK_SIZE, end)];
+            for (int position = 0; position < end; position += chunk.length) {
+                int length = Math.min(chunk.length, end - position);
+                bytes.get(chunk, 0, length);
+                crc.update(chunk, 0, length);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] ints = new int[count];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + count * 4);
+        return ints;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.openclassrooms.mareu.service;
+
+import android.util.Log;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stockage des réunions d'un service dans un répertoire de l'application
+ * Au démarrage, le service est restauré depuis l'instantané binaire (voir {@link MeetingsSnapshot}), et
+ * l'instantané est réécrit quand l'application passe en arrière-plan, seulement si les réunions ont changé.
+ * Les réunions passées sont ensuite déplacées dans l'archive (voir {@link MeetingsArchive}), projetée
+ * en mémoire : elles ne restent pas sur le tas. La nouvelle archive est publiée avant que les réunions
+ * soient supprimées du service, pour que les listes les relisent dans l'archive au lieu de les retirer.
+ * Un fichier est écrit dans un fichier temporaire, puis renommé : un arrêt brutal laisse le précédent.
+ * Les chargements et sauvegardes "in background" sont exécutés dans l'ordre, sur un unique thread de
+ * travail : une sauvegarde ne peut donc pas écraser l'instantané avant qu'il ait été chargé.
+ */
+public class MeetingsStorage {
+
+    /**
+     * Listener of the archives opened by the storage
+     */
+    public interface OnArchiveOpenedListener {
+        void onArchiveOpened(MeetingsArchive archive);
+    }
+
+    /**
+     * Set logger TAG
+     */
+    private static final String TAG = "MeetingsStorage";
+
+    /**
+     * Names of the files, in the directory
+     */
+    static final String SNAPSHOT_FILE_NAME = "meetings.snapshot";
+    static final String ARCHIVE_FILE_NAME = "meetings.archive";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * The directory of the files
+     */
+    private final File mDirectory;
+
+    /**
+     * The service stored
+     */
+    private final MeetingsApiService mService;
+
+    /**
+     * The listener of the archives opened
+     */
+    private final OnArchiveOpenedListener mOnArchiveOpenedListener;
+
+    /**
+     * The archive of the past meetings, or null
+     */
+    private MeetingsArchive mArchive;
+
+    /**
+     * The single worker thread of the background loads and saves
+     */
+    private final ExecutorService mWorker = Executors.newSingleThreadExecutor();
+
+    /**
+     * The version of the service when last loaded or saved, or -1
+     */
+    private long mStoredVersion = -1;
+
+    /**
+     * Constructor
+     * @param directory the directory of the files (e.g. the files directory of the application)
+     * @param service the service stored
+     * @param onArchiveOpenedListener the listener of the archives opened (e.g. to inject them)
+     */
+    public MeetingsStorage(File directory, MeetingsApiService service,
+                           OnArchiveOpenedListener onArchiveOpenedListener) {
+        mDirectory = directory;
+        mService = service;
+        mOnArchiveOpenedListener = onArchiveOpenedListener;
+    }
+
+    /**
+     * Open the archive, if any, then restore the meetings of the snapshot, if any, into the service
+     * (usually empty, so loaded in O(n))
+     * @return the number of meetings restored
+     * @throws IOException if the archive or the snapshot can't be read, or is invalid (the service is then
+     * left untouched)
+     */
+    public synchronized int load() throws IOException {
+        File archive = new File(mDirectory, ARCHIVE_FILE_NAME);
+        if (archive.exists()) {
+            openArchive(archive);
+        }
+        File snapshot = new File(mDirectory, SNAPSHOT_FILE_NAME);
+        if (!snapshot.exists()) {
+            return 0;
+        }
+        int ret = 0;
+        try (FileChannel channel = new FileInputStream(snapshot).getChannel()) {
+            for (MeetingsApiService.AddOutcome outcome : mService.addMeetings(MeetingsSnapshot.read(channel))) {
+                if (outcome == MeetingsApiService.AddOutcome.ADDED) {
+                    ret++;
+                }
+            }
+        }
+        mStoredVersion = mService.getVersion();
+        return ret;
+    }
+
+    /**
+     * Save the meetings of the service to the snapshot, unless unchanged since the last load or save
+     * @return true if the snapshot was written
+     * @throws IOException if the snapshot can't be written (the previous one is then kept)
+     */
+    public synchronized boolean save() throws IOException {
+        // the version, read before the meetings : a concurrent change will be saved next time
+        long version = mService.getVersion();
+        if (version == mStoredVersion) {
+            return false;
+        }
+        File snapshot = new File(mDirectory, SNAPSHOT_FILE_NAME);
+        File temporary = new File(mDirectory, SNAPSHOT_FILE_NAME + TEMPORARY_SUFFIX);
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            MeetingsSnapshot.write(mService.getMeetings(), stream.getChannel());
+            // on the disk before the rename
+            stream.getFD().sync();
+        }
+        if (!temporary.renameTo(snapshot)) {
+            throw new IOException("Can't rename " + temporary + " to " + snapshot);
+        }
+        mStoredVersion = version;
+        return true;
+    }
+
+    /**
+     * Move the meetings of the service before a date to a new archive, which replaces the previous one
+     * The new archive is opened and published first, then the moved meetings are deleted from the service,
+     * and the snapshot is saved without them
+     * @param before the date (exclusive)
+     * @return the number of meetings moved
+     * @throws IOException if the archive can't be written (the service is then left untouched)
+     */
+    public synchronized int archiveMeetingsBefore(Instant before) throws IOException {
+        if (mService.getMeetingsBetween(null, before.minusNanos(1)).isEmpty()) {
+            return 0;
+        }
+        File archive = new File(mDirectory, ARCHIVE_FILE_NAME);
+        File temporary = new File(mDirectory, ARCHIVE_FILE_NAME + TEMPORARY_SUFFIX);
+        List<Meeting> moved;
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            moved = MeetingsArchive.writeMeetingsBefore(mService, before, mArchive, stream.getChannel());
+            stream.getFD().sync();
+        }
+        if (!temporary.renameTo(archive)) {
+            throw new IOException("Can't rename " + temporary + " to " + archive);
+        }
+        openArchive(archive);
+        mService.deleteMeetings(moved);
+        save();
+        return moved.size();
+    }
+
+    /**
+     * Get the archive of the past meetings
+     * @return the archive, or null if none
+     */
+    public synchronized MeetingsArchive getArchive() {
+        return mArchive;
+    }
+
+    /**
+     * Open an archive file, and publish it
+     * @param file the archive file
+     * @throws IOException if the archive can't be read, or is invalid
+     */
+    private void openArchive(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            mArchive = MeetingsArchive.open(channel);
+        }
+        mOnArchiveOpenedListener.onArchiveOpened(mArchive);
+    }
+
+    /**
+     * Restore the meetings on the worker thread (see {@link #load()}), then move the meetings before today
+     * to the archive (see {@link #archiveMeetingsBefore(Instant)}), and log the failures
+     */
+    public void loadInBackground() {
+        mWorker.execute(() -> {
+            try {
+                load();
+                archiveMeetingsBefore(DateEasy.startOfDay(DateEasy.now()));
+            } catch (IOException e) {
+                Log.e(TAG, "Can't load or archive the meetings", e);
+            }
+        });
+    }
+
+    /**
+     * Save the meetings on the worker thread (see {@link #save()}), and log the failures
+     */
+    public void saveInBackground() {
+        mWorker.execute(() -> {
+            try {
+                save();
+            } catch (IOException e) {
+                Log.e(TAG, "Can't save the meetings snapshot", e);
+            }
+        });
+    }
+
+}
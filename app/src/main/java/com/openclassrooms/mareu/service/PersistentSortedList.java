@@ -0,0 +1,364 @@
+package com.openclassrooms.mareu.service;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Liste triée persistante (immuable), sans doublons selon son comparateur
+ * Arbre AVL dont chaque noeud connaît la taille de son sous-arbre : l'ajout et la suppression
+ * retournent une nouvelle liste en O(log n), qui partage tous les noeuds non modifiés avec
+ * l'ancienne (copie du seul chemin modifié), et l'accès par rang coûte O(log n).
+ * Une liste obtenue n'est donc jamais modifiée : elle peut être lue par plusieurs threads sans verrou.
+ * @param <E> the type of the elements
+ */
+public final class PersistentSortedList<E> extends AbstractList<E> {
+
+    /**
+     * A node of the tree, never modified once built
+     */
+    private static final class Node<E> {
+        final E element;
+        final Node<E> left;
+        final Node<E> right;
+        final int height;
+        final int size;
+
+        Node(E element, Node<E> left, Node<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private final Comparator<? super E> mComparator;
+    private final Node<E> mRoot;
+
+    private PersistentSortedList(Comparator<? super E> comparator, Node<E> root) {
+        mComparator = comparator;
+        mRoot = root;
+    }
+
+    /**
+     * Get an empty list
+     * @param comparator the order of the elements
+     * @param <E> the type of the elements
+     * @return the empty list
+     */
+    public static <E> PersistentSortedList<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedList<>(comparator, null);
+    }
+
+    /**
+     * Build a list from sorted elements, in O(n)
+     * @param comparator the order of the elements
+     * @param sorted the elements, sorted by the comparator, without duplicates
+     * @param <E> the type of the elements
+     * @return the list
+     */
+    public static <E> PersistentSortedList<E> fromSorted(Comparator<? super E> comparator, List<? extends E> sorted) {
+        return new PersistentSortedList<>(comparator, build(sorted, 0, sorted.size()));
+    }
+
+    private static <E> Node<E> build(List<? extends E> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>(sorted.get(middle), build(sorted, from, middle), build(sorted, middle + 1, to));
+    }
+
+    /**
+     * Get the list with an element more, in O(log n)
+     * @param element the element
+     * @return the new list, or this list if an equal element is already there
+     */
+    public PersistentSortedList<E> with(E element) {
+        Node<E> root = insert(mRoot, element);
+        return root == mRoot ? this : new PersistentSortedList<>(mComparator, root);
+    }
+
+    /**
+     * Get the list without an element, in O(log n)
+     * @param key an element equal to the element to remove, according to the comparator
+     * @return the new list, or this list if there is no such element
+     */
+    public PersistentSortedList<E> without(E key) {
+        Node<E> root = remove(mRoot, key);
+        return root == mRoot ? this : new PersistentSortedList<>(mComparator, root);
+    }
+
+    /**
+     * Find an element, in O(log n)
+     * @param key an element equal to the element to find, according to the comparator
+     * @return the element of the list, or null
+     */
+    public E find(E key) {
+        Node<E> node = mRoot;
+        while (node != null) {
+            int order = mComparator.compare(key, node.element);
+            if (order == 0) {
+                return node.element;
+            }
+            node = order < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of elements lower than a key, in O(log n)
+     * @param key the key
+     * @return the index of the first element greater than or equal to the key
+     */
+    public int lowerCount(E key) {
+        return count(key, false);
+    }
+
+    /**
+     * Get the number of elements lower than or equal to a key, in O(log n)
+     * @param key the key
+     * @return the index of the first element greater than the key
+     */
+    public int lowerOrEqualCount(E key) {
+        return count(key, true);
+    }
+
+    private int count(E key, boolean inclusive) {
+        int ret = 0;
+        Node<E> node = mRoot;
+        while (node != null) {
+            int order = mComparator.compare(node.element, key);
+            if (order < 0 || (inclusive && order == 0)) {
+                ret += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get an element by its rank, in O(log n)
+     * @param index the rank
+     * @return the element
+     */
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<E> node = mRoot;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new RangeIterator<>(mRoot, 0, size());
+    }
+
+    /**
+     * Get a read-only view on a range of the list, iterated in O(log n + k)
+     * @param fromIndex the first index (inclusive)
+     * @param toIndex the last index (exclusive)
+     * @return the view, never modified either
+     */
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+        }
+        return new Range<>(this, fromIndex, toIndex);
+    }
+
+    /**
+     * Read-only view on a range of the list
+     */
+    private static final class Range<E> extends AbstractList<E> {
+        private final PersistentSortedList<E> mList;
+        private final int mFrom;
+        private final int mTo;
+
+        Range(PersistentSortedList<E> list, int from, int to) {
+            mList = list;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return mList.get(mFrom + index);
+        }
+
+        @Override
+        public int size() {
+            return mTo - mFrom;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new RangeIterator<>(mList.mRoot, mFrom, mTo);
+        }
+
+        @Override
+        public List<E> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+            }
+            return new Range<>(mList, mFrom + fromIndex, mFrom + toIndex);
+        }
+    }
+
+    /**
+     * In-order iterator over a range of ranks : the path to the first element is found in O(log n),
+     * then each next element in O(1) amortized
+     */
+    private static final class RangeIterator<E> implements Iterator<E> {
+        private final Deque<Node<E>> mPath = new ArrayDeque<>();
+        private int mRemaining;
+
+        RangeIterator(Node<E> root, int from, int to) {
+            mRemaining = to - from;
+            // push the ancestors whose element comes at or after the rank "from"
+            Node<E> node = root;
+            int index = from;
+            while (node != null && mRemaining > 0) {
+                int leftSize = size(node.left);
+                if (index < leftSize) {
+                    mPath.push(node);
+                    node = node.left;
+                } else if (index > leftSize) {
+                    index -= leftSize + 1;
+                    node = node.right;
+                } else {
+                    mPath.push(node);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mRemaining > 0;
+        }
+
+        @Override
+        public E next() {
+            if (mRemaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = mPath.pop();
+            mRemaining--;
+            // the successor is the leftmost node of the right subtree, or the next pushed ancestor
+            for (Node<E> child = node.right; child != null && mRemaining > 0; child = child.left) {
+                mPath.push(child);
+            }
+            return node.element;
+        }
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+        int order = mComparator.compare(element, node.element);
+        if (order == 0) {
+            return node;
+        }
+        if (order < 0) {
+            Node<E> left = insert(node.left, element);
+            return left == node.left ? node : balance(node.element, left, node.right);
+        }
+        Node<E> right = insert(node.right, element);
+        return right == node.right ? node : balance(node.element, node.left, right);
+    }
+
+    private Node<E> remove(Node<E> node, E key) {
+        if (node == null) {
+            return null;
+        }
+        int order = mComparator.compare(key, node.element);
+        if (order < 0) {
+            Node<E> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.element, left, node.right);
+        }
+        if (order > 0) {
+            Node<E> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.element, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // replace the element by its successor, removed from the right subtree
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.element, node.left, removeFirst(node.right));
+    }
+
+    private static <E> Node<E> removeFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.element, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Build a node, rebalanced by one or two rotations if its subtrees heights differ by two
+     */
+    private static <E> Node<E> balance(E element, Node<E> left, Node<E> right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.element, left.left, new Node<>(element, left.right, right));
+            }
+            return new Node<>(left.right.element, new Node<>(left.element, left.left, left.right.left),
+                    new Node<>(element, left.right.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.element, new Node<>(element, left, right.left), right.right);
+            }
+            return new Node<>(right.left.element, new Node<>(element, left, right.left.left),
+                    new Node<>(right.element, right.left.right, right.right));
+        }
+        return new Node<>(element, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+}
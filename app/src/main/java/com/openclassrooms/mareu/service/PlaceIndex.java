@@ -0,0 +1,79 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Place;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index des lieux, trié par nom normalisé (minuscules)
+ * Permet de retrouver les lieux dont le nom commence par un préfixe, sans parcourir toutes les réunions
+ */
+public class PlaceIndex {
+
+    /**
+     * Places sorted by normalized name
+     * (several places may share the same normalized name, e.g. "Salle A" and "salle a")
+     */
+    private final NavigableMap<String, Set<Place>> mPlacesByKey = new TreeMap<>();
+
+    /**
+     * Normalize a place name (or a prefix), so the lookup is case insensitive
+     * @param name the name to normalize
+     * @return the normalized name
+     */
+    public static String normalize(String name) {
+        return name.toLowerCase();
+    }
+
+    /**
+     * Add a place to the index
+     * @param place the place to add
+     */
+    public void add(Place place) {
+        String key = normalize(place.getName());
+        Set<Place> places = mPlacesByKey.get(key);
+        if (places == null) {
+            places = new HashSet<>();
+            mPlacesByKey.put(key, places);
+        }
+        places.add(place);
+    }
+
+    /**
+     * Remove a place from the index
+     * @param place the place to remove
+     */
+    public void remove(Place place) {
+        String key = normalize(place.getName());
+        Set<Place> places = mPlacesByKey.get(key);
+        if (places != null && places.remove(place) && places.isEmpty()) {
+            mPlacesByKey.remove(key);
+        }
+    }
+
+    /**
+     * Get the places whose name starts with the given prefix (case insensitive)
+     * The prefix is normalized once, then a binary search gives the first candidate,
+     * and the walk stops at the first key that does not match anymore : O(log p + matches)
+     * @param prefix the prefix of the place name
+     * @return the matching places, sorted by normalized name
+     */
+    public List<Place> getPlacesStartingWith(String prefix) {
+        String key = normalize(prefix);
+        List<Place> ret = new ArrayList<>();
+        for (Map.Entry<String, Set<Place>> entry : mPlacesByKey.tailMap(key, true).entrySet()) {
+            if (!entry.getKey().startsWith(key)) {
+                break;
+            }
+            ret.addAll(entry.getValue());
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.mareu.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionnaire de chaînes des formats binaires (voir {@link MeetingsSnapshot} et {@link MeetingsArchive}) :
+ * chaque chaîne distincte reçoit un identifiant, par ordre de première apparition, et n'est encodée
+ * en UTF-8 qu'une seule fois
+ */
+class StringDictionary {
+
+    private final Map<String, Integer> mIds = new HashMap<>();
+    private final List<byte[]> mEntries = new ArrayList<>();
+    private int mBytesSize;
+
+    /**
+     * Get the id of a string, adding it if new
+     * @param string the string
+     * @return the id
+     */
+    int getId(String string) {
+        Integer id = mIds.get(string);
+        if (id == null) {
+            id = mEntries.size();
+            mIds.put(string, id);
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            mEntries.add(bytes);
+            mBytesSize += bytes.length;
+        }
+        return id;
+    }
+
+    /**
+     * Get the number of strings
+     * @return the number of strings
+     */
+    int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Get the size of the encoded strings, without their lengths nor offsets
+     * @return the size, in bytes
+     */
+    int getBytesSize() {
+        return mBytesSize;
+    }
+
+    /**
+     * Write the strings, each one after its length, for a sequential read
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeTo(ChannelOutput output) throws IOException {
+        for (byte[] bytes : mEntries) {
+            output.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Write the table of the offsets of the strings, then the strings, for a random access
+     * (the string i is within [offsets[i], offsets[i + 1]) of the strings)
+     * @param output the output
+     * @throws IOException if the output fails
+     */
+    void writeIndexedTo(ChannelOutput output) throws IOException {
+        int offset = 0;
+        output.putInt(offset);
+        for (byte[] bytes : mEntries) {
+            offset += bytes.length;
+            output.putInt(offset);
+        }
+        for (byte[] bytes : mEntries) {
+            output.put(bytes);
+        }
+    }
+
+}
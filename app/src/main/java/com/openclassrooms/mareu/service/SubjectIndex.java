@@ -0,0 +1,578 @@
+package com.openclassrooms.mareu.service;
+
+import com.openclassrooms.mareu.model.Meeting;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index plein texte des sujets des réunions, par trigrammes, insensible à la casse et aux accents
+ * ("reunion" trouve "Réunion de service")
+ * Chaque réunion reçoit un identifiant croissant, et chaque trigramme des sujets normalisés la liste
+ * triée des identifiants des réunions qui le contiennent : une recherche intersecte les listes des
+ * trigrammes du texte, de la plus courte à la plus longue, puis vérifie les seules réunions candidates.
+ * Les sujets sont complétés par des caractères de remplissage, de sorte qu'un texte de moins de trois
+ * caractères est le préfixe d'un trigramme à chacune de ses occurrences.
+ * L'index suit les modifications du service (il en est l'écouteur) : un ajout ajoute ses identifiants
+ * en fin de liste, une suppression marque l'identifiant supprimé, et l'index est compacté quand les
+ * identifiants supprimés deviennent majoritaires.
+ * Quand le texte recherché prolonge le précédent (saisie en cours), et que rien n'a changé entre-temps,
+ * le résultat précédent est seulement filtré.
+ * L'index est protégé par son propre verrou, jamais détenu pendant une lecture du service : il est construit
+ * depuis un instantané des réunions (voir {@link ConcurrentMeetingsApiService}), après s'être abonné aux
+ * modifications, qui sont donc toutes vues (indexer une réunion déjà indexée ne fait rien).
+ */
+public class SubjectIndex implements MeetingsApiService.OnMeetingsChangedListener {
+
+    /**
+     * Length of the indexed grams
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Padding of the subjects, never found in a normalized text
+     */
+    private static final String PADDING = "\u0000\u0000";
+
+    /**
+     * Range of the folded characters (Latin-1 supplement, Latin extended A and B)
+     */
+    private static final char FOLDED_FIRST = '\u00C0';
+    private static final char FOLDED_LAST = '\u024F';
+
+    /**
+     * Folded form (lower case, without accent) of each character of the range
+     */
+    private static final String[] FOLDED = new String[FOLDED_LAST - FOLDED_FIRST + 1];
+
+    static {
+        for (char c = FOLDED_FIRST; c <= FOLDED_LAST; c++) {
+            StringBuilder folded = new StringBuilder();
+            for (char d : Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).toCharArray()) {
+                if (Character.getType(d) != Character.NON_SPACING_MARK) {
+                    folded.append(d);
+                }
+            }
+            FOLDED[c - FOLDED_FIRST] = folded.toString().toLowerCase(Locale.ROOT);
+        }
+        // the ligatures have no decomposition
+        FOLDED['Æ' - FOLDED_FIRST] = "ae";
+        FOLDED['æ' - FOLDED_FIRST] = "ae";
+        FOLDED['Œ' - FOLDED_FIRST] = "oe";
+        FOLDED['œ' - FOLDED_FIRST] = "oe";
+        FOLDED['ß' - FOLDED_FIRST] = "ss";
+    }
+
+    /**
+     * Minimum number of deleted ids before a compaction
+     */
+    private static final int MIN_DELETED_TO_COMPACT = 64;
+
+    /**
+     * Sorted ids of the meetings containing a gram, appended in increasing order
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * The service
+     */
+    private final MeetingsApiService mService;
+
+    /**
+     * The lock guarding the index
+     */
+    private final Object mLock = new Object();
+
+    /**
+     * The meetings by id, null once deleted
+     */
+    private final List<Meeting> mMeetings = new ArrayList<>();
+
+    /**
+     * The normalized subjects by id, null once deleted
+     */
+    private final List<String> mSubjects = new ArrayList<>();
+
+    /**
+     * The ids of the indexed meetings
+     */
+    private final Map<Meeting, Integer> mIds = new HashMap<>();
+
+    /**
+     * The postings of each gram, sorted by gram (for the lookups of the texts shorter than a gram)
+     */
+    private final NavigableMap<String, Postings> mPostings = new TreeMap<>();
+
+    /**
+     * Number of deleted ids, not compacted yet
+     */
+    private int mDeletedCount;
+
+    /**
+     * Version of the index, incremented on each change
+     */
+    private long mVersion;
+
+    /**
+     * The last text searched, the version of the index then, and the ids of its matches
+     */
+    private String mLastText;
+    private long mLastVersion;
+    private int[] mLastIds;
+
+    /**
+     * Constructor : index the meetings of the service, then follow its changes
+     * @param service the service
+     */
+    public SubjectIndex(MeetingsApiService service) {
+        mService = service;
+        // subscribe first, so the changes after the snapshot below are notified
+        service.addOnMeetingsChangedListener(this);
+        synchronized (mLock) {
+            for (Meeting meeting : service.getMeetings()) {
+                add(meeting);
+            }
+        }
+    }
+
+    /**
+     * Stop following the changes of the service
+     */
+    public void release() {
+        mService.removeOnMeetingsChangedListener(this);
+    }
+
+    /**
+     * Normalize a text (a subject, or a searched text), so the search is case and accent insensitive
+     * The usual characters are folded thanks to a table, without Normalizer
+     * @param text the text
+     * @return the normalized text
+     */
+    public static String normalize(String text) {
+        StringBuilder ret = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String folded = null;
+            if (c >= 'A' && c <= 'Z') {
+                folded = String.valueOf((char) (c + ('a' - 'A')));
+            } else if (c >= FOLDED_FIRST && c <= FOLDED_LAST) {
+                folded = FOLDED[c - FOLDED_FIRST];
+            } else if (c >= '\u0300' && c <= '\u036F') {
+                // a combining accent, of an already decomposed text
+                folded = "";
+            } else if (c > FOLDED_LAST && Character.isUpperCase(c)) {
+                folded = String.valueOf(Character.toLowerCase(c));
+            }
+            if (folded != null && (folded.length() != 1 || folded.charAt(0) != c)) {
+                // copy the text only from its first changed character
+                if (ret == null) {
+                    ret = new StringBuilder(text.length()).append(text, 0, i);
+                }
+                ret.append(folded);
+            } else if (ret != null) {
+                ret.append(c);
+            }
+        }
+        return ret == null ? text : ret.toString();
+    }
+
+    /**
+     * Get the meetings whose subject contains a text
+     * @param text the text (case and accent insensitive)
+     * @return {@link List} of the meetings, in no particular order
+     */
+    public List<Meeting> getMeetingsContaining(String text) {
+        return getMeetingsContaining(text, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the meetings whose subject contains a text, within a date range, up to a bound
+     * (so a query planner gives up as soon as the index is less selective than another one)
+     * @param text the text (case and accent insensitive)
+     * @param from lower bound of the date (inclusive), or null
+     * @param to upper bound of the date (inclusive), or null
+     * @param bound the number of meetings to stop at
+     * @return {@link List} of the meetings, in no particular order, or null if the bound is reached
+     */
+    public List<Meeting> getMeetingsContaining(String text, Instant from, Instant to, int bound) {
+        synchronized (mLock) {
+            List<Meeting> ret = new ArrayList<>();
+            for (int id : findIds(normalize(text))) {
+                Meeting meeting = mMeetings.get(id);
+                if ((from == null || !meeting.getDate().isBefore(from)) &&
+                        (to == null || !meeting.getDate().isAfter(to))) {
+                    if (ret.size() == bound) {
+                        return null;
+                    }
+                    ret.add(meeting);
+                }
+            }
+            return Collections.unmodifiableList(ret);
+        }
+    }
+
+    /**
+     * Get the order of the meetings by relevance for a text, the best matches first : the subjects starting
+     * with the text, then those with a word starting with the text, then the others, each group in
+     * chronological order
+     * @param text the text (case and accent insensitive)
+     * @return the comparator
+     */
+    public static Comparator<Meeting> relevanceOrder(String text) {
+        return new RelevanceOrder(normalize(text));
+    }
+
+    /**
+     * Order of the meetings by relevance for a normalized text
+     * Each subject is ranked once, not on each comparison : a sort, or a patch of a sorted list, reads the
+     * ranks of the subjects already compared (a changed subject being another string, it is ranked again).
+     * Thread-safe : a filtered list and its patches may compare from different threads.
+     */
+    private static final class RelevanceOrder implements Comparator<Meeting> {
+
+        /**
+         * Maximum number of ranks kept, beyond which the cache is emptied (the deleted meetings are not
+         * notified to the comparator)
+         */
+        private static final int MAX_RANKS = 256 * 1024;
+
+        /**
+         * The normalized text
+         */
+        private final String mKey;
+
+        /**
+         * The rank of each subject compared
+         */
+        private final Map<String, Integer> mRanks = new ConcurrentHashMap<>();
+
+        RelevanceOrder(String key) {
+            mKey = key;
+        }
+
+        @Override
+        public int compare(Meeting m1, Meeting m2) {
+            int ret = Integer.compare(rank(m1.getSubject()), rank(m2.getSubject()));
+            return ret != 0 ? ret : Meeting.CHRONOLOGICAL_ORDER.compare(m1, m2);
+        }
+
+        /**
+         * Rank a subject, from the cache if already compared
+         * @param subject the subject, or null
+         * @return the rank of the match (see {@link SubjectIndex#rank(String, String)}), or 3 if the subject
+         * doesn't contain the text
+         */
+        private int rank(String subject) {
+            if (subject == null) {
+                return mKey.isEmpty() ? 0 : 3;
+            }
+            Integer rank = mRanks.get(subject);
+            if (rank == null) {
+                String normalized = normalize(subject);
+                rank = normalized.contains(mKey) ? SubjectIndex.rank(normalized, mKey) : 3;
+                if (mRanks.size() >= MAX_RANKS) {
+                    mRanks.clear();
+                }
+                mRanks.put(subject, rank);
+            }
+            return rank;
+        }
+    }
+
+    /**
+     * Search the meetings whose subject contains a text, the best matches first (see {@link #relevanceOrder})
+     * @param text the text (case and accent insensitive)
+     * @param limit the maximum number of meetings
+     * @return {@link List} of the best meetings
+     */
+    public List<Meeting> search(String text, int limit) {
+        synchronized (mLock) {
+            String key = normalize(text);
+            int[] ids = findIds(key);
+            // the matches of each rank
+            List<List<Meeting>> ranks = Arrays.<List<Meeting>>asList(
+                    new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            for (int id : ids) {
+                ranks.get(rank(mSubjects.get(id), key)).add(mMeetings.get(id));
+            }
+            List<Meeting> ret = new ArrayList<>();
+            for (List<Meeting> rank : ranks) {
+                if (ret.size() >= limit) {
+                    break;
+                }
+                ret.addAll(first(rank, limit - ret.size(), Meeting.CHRONOLOGICAL_ORDER));
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * Rank a match
+     * @param subject the normalized subject
+     * @param key the normalized text, found in the subject
+     * @return 0 if the subject starts with the text, 1 if a word starts with it, 2 otherwise
+     */
+    private static int rank(String subject, String key) {
+        if (subject.startsWith(key)) {
+            return 0;
+        }
+        for (int i = subject.indexOf(key); i > 0; i = subject.indexOf(key, i + 1)) {
+            if (!Character.isLetterOrDigit(subject.charAt(i - 1))) {
+                return 1;
+            }
+        }
+        return 2;
+    }
+
+    /**
+     * Get the first meetings of a list in an order, thanks to a bounded heap in O(n log k)
+     * @param meetings the meetings
+     * @param count the number of meetings to keep
+     * @param order the order
+     * @return the first meetings, sorted
+     */
+    private static List<Meeting> first(List<Meeting> meetings, int count, Comparator<Meeting> order) {
+        if (meetings.size() <= count) {
+            Collections.sort(meetings, order);
+            return meetings;
+        }
+        // the heap keeps the best meetings seen, the worst of them on top
+        PriorityQueue<Meeting> heap = new PriorityQueue<>(count + 1, (m1, m2) -> order.compare(m2, m1));
+        for (Meeting meeting : meetings) {
+            heap.add(meeting);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        List<Meeting> ret = new ArrayList<>(heap);
+        Collections.sort(ret, order);
+        return ret;
+    }
+
+    /**
+     * Find the ids of the meetings whose normalized subject contains a normalized text
+     * @param key the normalized text
+     * @return the ids, sorted
+     */
+    private int[] findIds(String key) {
+        int[] ret;
+        if (mLastText != null && mLastVersion == mVersion && key.contains(mLastText)) {
+            // the text extends the previous one : its matches are among the previous matches
+            ret = filter(mLastIds, mLastIds.length, key);
+        } else if (key.length() >= GRAM_LENGTH) {
+            ret = findByGrams(key);
+        } else {
+            ret = findByPrefix(key);
+        }
+        mLastText = key;
+        mLastVersion = mVersion;
+        mLastIds = ret;
+        return ret;
+    }
+
+    /**
+     * Intersect the postings of the grams of a text, the shortest first, then check the candidates
+     * @param key the normalized text, at least a gram long
+     * @return the ids, sorted
+     */
+    private int[] findByGrams(String key) {
+        List<Postings> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            Postings gram = mPostings.get(key.substring(i, i + GRAM_LENGTH));
+            if (gram == null) {
+                return new int[0];
+            }
+            if (!postings.contains(gram)) {
+                postings.add(gram);
+            }
+        }
+        Collections.sort(postings, (p1, p2) -> Integer.compare(p1.size, p2.size));
+        int[] candidates = Arrays.copyOf(postings.get(0).ids, postings.get(0).size);
+        int size = candidates.length;
+        for (int i = 1; i < postings.size() && size > 0; i++) {
+            size = intersect(candidates, size, postings.get(i));
+        }
+        // the grams may be found apart from each other : check the whole text
+        return filter(candidates, size, key);
+    }
+
+    /**
+     * Unite the postings of the grams starting with a text shorter than a gram
+     * @param key the normalized text
+     * @return the ids, sorted
+     */
+    private int[] findByPrefix(String key) {
+        BitSet ids = new BitSet(mMeetings.size());
+        for (Postings gram : mPostings.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < gram.size; i++) {
+                ids.set(gram.ids[i]);
+            }
+        }
+        int[] ret = new int[ids.cardinality()];
+        int size = 0;
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (mMeetings.get(id) != null) {
+                ret[size++] = id;
+            }
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    /**
+     * Intersect sorted ids with the sorted ids of a gram, in place
+     * @param ids the sorted ids
+     * @param size the number of ids
+     * @param gram the postings of the gram
+     * @return the number of ids kept
+     */
+    private static int intersect(int[] ids, int size, Postings gram) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < gram.size; i++) {
+            while (j < gram.size && gram.ids[j] < ids[i]) {
+                j++;
+            }
+            if (j < gram.size && gram.ids[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Keep the ids of the meetings, not deleted, whose subject contains a text
+     * @param ids the sorted ids
+     * @param size the number of ids
+     * @param key the normalized text
+     * @return the ids kept, sorted
+     */
+    private int[] filter(int[] ids, int size, String key) {
+        int[] ret = new int[size];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            String subject = mSubjects.get(ids[i]);
+            if (subject != null && subject.contains(key)) {
+                ret[kept++] = ids[i];
+            }
+        }
+        return kept == size ? ret : Arrays.copyOf(ret, kept);
+    }
+
+    /**
+     * Index a meeting, under a new id
+     * @param meeting the meeting
+     */
+    private void add(Meeting meeting) {
+        if (mIds.containsKey(meeting)) {
+            return;
+        }
+        int id = mMeetings.size();
+        String subject = meeting.getSubject() == null ? "" : normalize(meeting.getSubject());
+        mMeetings.add(meeting);
+        mSubjects.add(subject);
+        mIds.put(meeting, id);
+        addGrams(id, subject);
+        mVersion++;
+    }
+
+    /**
+     * Add an id to the postings of each gram of a subject (once per gram)
+     * @param id the id, greater than every indexed id
+     * @param subject the normalized subject
+     */
+    private void addGrams(int id, String subject) {
+        String padded = subject + PADDING;
+        for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+            String gram = padded.substring(i, i + GRAM_LENGTH);
+            Postings postings = mPostings.get(gram);
+            if (postings == null) {
+                postings = new Postings();
+                mPostings.put(gram, postings);
+            }
+            if (postings.size == 0 || postings.ids[postings.size - 1] != id) {
+                postings.add(id);
+            }
+        }
+    }
+
+    /**
+     * Remove a meeting : its id is marked deleted, and the index compacted once most ids are deleted
+     * @param meeting the meeting
+     */
+    private void remove(Meeting meeting) {
+        Integer id = mIds.remove(meeting);
+        if (id == null) {
+            return;
+        }
+        mMeetings.set(id, null);
+        mSubjects.set(id, null);
+        mDeletedCount++;
+        mVersion++;
+        if (mDeletedCount >= MIN_DELETED_TO_COMPACT && mDeletedCount * 2 > mMeetings.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumber the meetings not deleted, and rebuild the postings, in O(n)
+     */
+    private void compact() {
+        List<Meeting> meetings = new ArrayList<>(mIds.size());
+        List<String> subjects = new ArrayList<>(mIds.size());
+        for (int id = 0; id < mMeetings.size(); id++) {
+            if (mMeetings.get(id) != null) {
+                meetings.add(mMeetings.get(id));
+                subjects.add(mSubjects.get(id));
+            }
+        }
+        mMeetings.clear();
+        mSubjects.clear();
+        mIds.clear();
+        mPostings.clear();
+        for (int id = 0; id < meetings.size(); id++) {
+            mMeetings.add(meetings.get(id));
+            mSubjects.add(subjects.get(id));
+            mIds.put(meetings.get(id), id);
+            addGrams(id, subjects.get(id));
+        }
+        mDeletedCount = 0;
+    }
+
+    @Override
+    public void onMeetingAdded(Meeting meeting) {
+        synchronized (mLock) {
+            add(meeting);
+        }
+    }
+
+    @Override
+    public void onMeetingDeleted(Meeting meeting) {
+        synchronized (mLock) {
+            remove(meeting);
+        }
+    }
+
+}
@@ -6,12 +6,13 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.lifecycle.Observer;
 
 import com.google.android.material.textfield.TextInputLayout;
@@ -19,6 +20,7 @@ import com.openclassrooms.mareu.R;
 import com.openclassrooms.mareu.model.Person;
 import com.openclassrooms.mareu.ui.add_persons.AddPersonsDialogDisplayable;
 import com.openclassrooms.mareu.utils.PersonsListFormatter;
+import com.openclassrooms.mareu.utils.ui.PersonsListAdapter;
 import com.openclassrooms.mareu.utils.ui.SimpleTextWatcher;
 
 import java.util.Objects;
@@ -66,9 +68,12 @@ public class AddPersonsDialogFragment extends DialogFragment
     @BindView(R.id.fragment_add_person_text_input)
     TextInputLayout mAddPersonsTextInput;
 
-    // represent the UI text view for displaying the list of persons
-    @BindView(R.id.fragment_add_persons_full_list_text)
-    TextView mAddPersonsFullListText;
+    // represent the UI list for displaying the list of persons
+    @BindView(R.id.fragment_add_persons_full_list)
+    RecyclerView mAddPersonsFullList;
+
+    // the adapter of the list of persons : only the visible persons are formatted
+    private final PersonsListAdapter mAddPersonsFullListAdapter = new PersonsListAdapter();
 
     /**
      * Simple facility interface to notify the fragment is dismissed
@@ -113,20 +118,14 @@ public class AddPersonsDialogFragment extends DialogFragment
     }
 
     /**
-     * Build the full list of persons as string, when the presenter request it
+     * Update the full list of persons, when the presenter request it
      */
     public void updatePersonsList(Set<Person> personsSet) {
         if(!isUIReady) return;
 
-        // if the person set is empty, display a message
-        if(personsSet.isEmpty()){
-            mAddPersonsFullListText.setText("");
-        } else {
-            // create persons formatter
-            PersonsListFormatter personsListFormatter = new PersonsListFormatter(personsSet);
-            // set the list of persons in the UI
-            mAddPersonsFullListText.setText(personsListFormatter.format());
-        }
+        // set the list of persons in the UI, sorted by email
+        // (the emails are read only for the visible rows)
+        mAddPersonsFullListAdapter.setPersonIds(new PersonsListFormatter(personsSet).getIdsSortedByEmail());
     }
 
     /**
@@ -160,6 +159,9 @@ public class AddPersonsDialogFragment extends DialogFragment
         View view = inflater.inflate(R.layout.fragment_add_people_dialog, container, false);
         // bind the UI components
         ButterKnife.bind(this, view);
+        // configure the list of persons
+        mAddPersonsFullList.setLayoutManager(new LinearLayoutManager(getContext()));
+        mAddPersonsFullList.setAdapter(mAddPersonsFullListAdapter);
 
         // configure the add person text input
         configureAddPersonText();
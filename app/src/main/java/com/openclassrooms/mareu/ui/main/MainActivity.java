@@ -2,6 +2,8 @@ package com.openclassrooms.mareu.ui.main;
 
 import android.os.Bundle;
 import com.openclassrooms.mareu.R;
+import com.openclassrooms.mareu.di.DI;
+import com.openclassrooms.mareu.service.MeetingsStorage;
 import com.openclassrooms.mareu.ui.meetings_list.MeetingsListFragment;
 import com.openclassrooms.mareu.repository.fake.MeetingsListFakeRepository;
 import com.openclassrooms.mareu.ui.meetings_list.MeetingsListPresenter;
@@ -18,6 +20,16 @@ public class MainActivity extends AppCompatActivity {
      */
     private MeetingsListPresenter mMeetingsListPresenter;
 
+    /**
+     * The underlying fragment model
+     */
+    private MeetingsListFakeRepository mMeetingsListFakeRepository;
+
+    /**
+     * The storage of the meetings
+     */
+    private MeetingsStorage mMeetingsStorage;
+
     /**
      * called when the activity is created (ui life cycle android)
      * @param savedInstanceState the saved instance state
@@ -29,6 +41,9 @@ public class MainActivity extends AppCompatActivity {
         // set the content view
         setContentView(R.layout.activity_main);
 
+        // restore the meetings of the last snapshot, in background (once per process)
+        mMeetingsStorage = DI.openMeetingsStorage(getFilesDir());
+
         // try to recover the existing fragment
         MeetingsListFragment mMeetingsListFragment = (MeetingsListFragment)
                 getSupportFragmentManager()
@@ -45,10 +60,34 @@ public class MainActivity extends AppCompatActivity {
         }
 
         // create the model
-        MeetingsListFakeRepository meetingsListFakeRepository = new MeetingsListFakeRepository();
+        mMeetingsListFakeRepository = new MeetingsListFakeRepository();
 
         // create the presenter
-        mMeetingsListPresenter = new MeetingsListPresenter(mMeetingsListFragment, meetingsListFakeRepository);
+        mMeetingsListPresenter = new MeetingsListPresenter(mMeetingsListFragment, mMeetingsListFakeRepository);
+    }
+
+    /**
+     * called when the activity is no longer visible (ui life cycle android)
+     */
+    @Override
+    protected void onStop() {
+        // save the meetings, in background, if they have changed
+        mMeetingsStorage.saveInBackground();
+        // call the super method
+        super.onStop();
+    }
+
+    /**
+     * called when the activity is destroyed (ui life cycle android)
+     */
+    @Override
+    protected void onDestroy() {
+        // the presenter stops its query executor
+        mMeetingsListPresenter.release();
+        // the model stops listening to the meetings service
+        mMeetingsListFakeRepository.release();
+        // call the super method
+        super.onDestroy();
     }
 
     /**
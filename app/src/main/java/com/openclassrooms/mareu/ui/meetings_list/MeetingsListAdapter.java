@@ -1,23 +1,32 @@
 package com.openclassrooms.mareu.ui.meetings_list;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.openclassrooms.mareu.R;
 import com.openclassrooms.mareu.model.Meeting;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Meetings List Adapter
+ * Les identifiants stables sont tirés de l'identité des réunions (date + lieu), et l'état développé
+ * de chaque réunion est conservé ici, et non dans les vues recyclées.
+ * Les changements partiels (développer/réduire, textes, personnes) sont appliqués par des charges
+ * utiles (payloads), sans réafficher tout l'élément.
  */
 public class MeetingsListAdapter extends RecyclerView.Adapter<MeetingsListViewHolder> {
 
@@ -29,23 +38,95 @@ public class MeetingsListAdapter extends RecyclerView.Adapter<MeetingsListViewHo
     }
 
     /**
-     * La liste des réunions à afficher
+     * Interface pour gérer le clic développer/réduire sur une réunion
      */
-    private List<Meeting> mMeetings;
+    public interface ExpandClickListener {
+        void onClick(int position);
+    }
+
+    /**
+     * Charges utiles des changements partiels (combinables)
+     */
+    // l'état développé a changé
+    static final int PAYLOAD_EXPANSION = 1;
+    // le sujet, la date ou le lieu ont changé
+    static final int PAYLOAD_TEXTS = 1 << 1;
+    // les personnes invitées ont changé
+    static final int PAYLOAD_PERSONS = 1 << 2;
+
+    /**
+     * Comparer deux réunions pour le calcul des différences entre deux listes :
+     * - même élément si même identité (date + lieu, voir Meeting.equals)
+     * - même contenu si mêmes textes affichés (calculés par version de la réunion)
+     */
+    private static final DiffUtil.ItemCallback<MeetingsListItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<MeetingsListItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull MeetingsListItem oldItem, @NonNull MeetingsListItem newItem) {
+                    return oldItem.getMeeting().equals(newItem.getMeeting());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull MeetingsListItem oldItem, @NonNull MeetingsListItem newItem) {
+                    return oldItem.hasSameContents(newItem);
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull MeetingsListItem oldItem, @NonNull MeetingsListItem newItem) {
+                    // ne réafficher que ce qui a changé
+                    int payload = 0;
+                    if (!oldItem.hasSameTexts(newItem)) {
+                        payload |= PAYLOAD_TEXTS;
+                    }
+                    if (!oldItem.hasSamePersons(newItem)) {
+                        payload |= PAYLOAD_PERSONS;
+                    }
+                    return payload;
+                }
+            };
+
+    /**
+     * La liste des réunions à afficher, dont les différences sont calculées en arrière-plan
+     */
+    private final AsyncListDiffer<MeetingsListItem> mDiffer = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     /**
      * L'écouteur à notifier lorsqu'une réunion est abandonnée
      */
     private final DropClickListener mOnDropClickListener;
 
+    /**
+     * Les lignes des listes de personnes, recyclées d'une réunion à l'autre
+     */
+    private final RecyclerView.RecycledViewPool mPersonsViewPool = new RecyclerView.RecycledViewPool();
+
+    /**
+     * Les identifiants stables des réunions affichées, par identité (date + lieu)
+     */
+    private Map<Meeting, Long> mStableIds = new HashMap<>();
+
+    /**
+     * Le prochain identifiant stable
+     */
+    private long mNextStableId;
+
+    /**
+     * Les réunions développées (liste des personnes affichée), par identité (date + lieu)
+     */
+    private Set<Meeting> mExpandedMeetings = new HashSet<>();
+
     /**
      * Constructor
      *
      * @param meetings la liste des réunions à afficher
      * @param onDropClickListener l'écouteur doit être averti lorsqu'une réunion est abandonnée
      */
-    public MeetingsListAdapter(List<Meeting> meetings, DropClickListener onDropClickListener) {
+    public MeetingsListAdapter(List<MeetingsListItem> meetings, DropClickListener onDropClickListener) {
         mOnDropClickListener = onDropClickListener;
+        // identifiants stables : la vue recycleur réutilise les mêmes vues pour les mêmes réunions
+        setHasStableIds(true);
+        // oublier les réunions qui ne sont plus affichées
+        mDiffer.addListListener((previousList, currentList) -> forgetHiddenMeetings(currentList));
         setMeetings(meetings);
     }
 
@@ -65,7 +146,7 @@ public class MeetingsListAdapter extends RecyclerView.Adapter<MeetingsListViewHo
         LayoutInflater inflater = LayoutInflater.from(context);
         View view = inflater.inflate(R.layout.fragment_mettings_list_item, parent, false);
         // retourner le détenteur de la vue
-        return new MeetingsListViewHolder(view, mOnDropClickListener);
+        return new MeetingsListViewHolder(view, mOnDropClickListener, this::toggleExpanded, mPersonsViewPool);
     }
 
     /**
@@ -76,7 +157,92 @@ public class MeetingsListAdapter extends RecyclerView.Adapter<MeetingsListViewHo
      */
     @Override
     public void onBindViewHolder(@NonNull MeetingsListViewHolder holder, int position) {
-        holder.setMeeting(mMeetings.get(position));
+        MeetingsListItem item = mDiffer.getCurrentList().get(position);
+        holder.setItem(item, mExpandedMeetings.contains(item.getMeeting()));
+    }
+
+    /**
+     * Mettre à jour partiellement le détenteur de la vue, selon les charges utiles
+     *
+     * @param holder the view holder
+     * @param position la position afin d'afficher la réunion correspondante
+     * @param payloads les changements partiels, ou vide pour tout réafficher
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MeetingsListViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // combiner les changements notifiés depuis le dernier affichage
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
+        MeetingsListItem item = mDiffer.getCurrentList().get(position);
+        holder.updateItem(item, mExpandedMeetings.contains(item.getMeeting()),
+                (changes & PAYLOAD_TEXTS) != 0,
+                (changes & PAYLOAD_PERSONS) != 0,
+                (changes & PAYLOAD_EXPANSION) != 0);
+    }
+
+    /**
+     * Obtenir l'identifiant stable d'une réunion, tiré de son identité (date + lieu)
+     *
+     * @param position la position dans la liste affichée
+     * @return the stable id
+     */
+    @Override
+    public long getItemId(int position) {
+        Meeting meeting = getMeeting(position);
+        Long ret = mStableIds.get(meeting);
+        if (ret == null) {
+            ret = mNextStableId++;
+            mStableIds.put(meeting, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Développer ou réduire la liste des personnes d'une réunion
+     * @param position la position dans la liste affichée
+     */
+    private void toggleExpanded(int position) {
+        Meeting meeting = getMeeting(position);
+        if (!mExpandedMeetings.remove(meeting)) {
+            mExpandedMeetings.add(meeting);
+        }
+        notifyItemChanged(position, PAYLOAD_EXPANSION);
+    }
+
+    /**
+     * Vérifier si la liste des personnes d'une réunion est développée
+     * @param position la position dans la liste affichée
+     * @return true if expanded
+     */
+    public boolean isExpanded(int position) {
+        return mExpandedMeetings.contains(getMeeting(position));
+    }
+
+    /**
+     * Oublier les identifiants stables et l'état développé des réunions qui ne sont plus affichées
+     * @param currentList the list of meetings displayed
+     */
+    private void forgetHiddenMeetings(List<MeetingsListItem> currentList) {
+        Map<Meeting, Long> stableIds = new HashMap<>();
+        Set<Meeting> expandedMeetings = new HashSet<>();
+        for (MeetingsListItem item : currentList) {
+            Meeting meeting = item.getMeeting();
+            Long id = mStableIds.get(meeting);
+            if (id != null) {
+                stableIds.put(meeting, id);
+            }
+            if (mExpandedMeetings.contains(meeting)) {
+                expandedMeetings.add(meeting);
+            }
+        }
+        mStableIds = stableIds;
+        mExpandedMeetings = expandedMeetings;
     }
 
     /**
@@ -86,28 +252,35 @@ public class MeetingsListAdapter extends RecyclerView.Adapter<MeetingsListViewHo
      */
     @Override
     public int getItemCount() {
-        return mMeetings.size();
+        return mDiffer.getCurrentList().size();
+    }
+
+    /**
+     * Obtenir la réunion affichée à une position
+     *
+     * @param position la position dans la liste affichée
+     * @return the meeting
+     */
+    public Meeting getMeeting(int position) {
+        return mDiffer.getCurrentList().get(position).getMeeting();
     }
 
     /**
      * Définir la liste des réunions à afficher
-     * @param meetings the list of meetings to be displayed
+     * Les différences avec la liste affichée sont calculées en arrière-plan, puis seules les
+     * insertions, suppressions et modifications sont notifiées à la vue recycleur
+     * @param meetings the list of meetings to be displayed (must not be modified afterwards)
      */
-    @SuppressLint("NotifyDataSetChanged")
-    public void updateMeetings(List<Meeting> meetings) {
-        // définir la liste des réunions à afficher
+    public void updateMeetings(List<MeetingsListItem> meetings) {
         setMeetings(meetings);
-        // notifier que l'ensemble de données a changé globalement
-        notifyDataSetChanged();
     }
 
     /**
      * Paramètre de la liste des réunions à afficher
      * @param meetings the list of meetings to be displayed
      */
-    private void setMeetings(List<Meeting> meetings) {
-        mMeetings = checkNotNull(meetings);
+    private void setMeetings(List<MeetingsListItem> meetings) {
+        mDiffer.submitList(checkNotNull(meetings));
     }
 
 }
-
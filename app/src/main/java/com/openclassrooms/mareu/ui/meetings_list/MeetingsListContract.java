@@ -21,9 +21,18 @@ public interface MeetingsListContract {
         // Obtenir la liste des réunions, concernant le jeu de filtres actuel
         List<Meeting> getFilteredAndSortedMeetings();
 
+        // Obtenir la version des réunions, qui change à chaque modification du service
+        long getMeetingsVersion();
+
         // Obtenir le texte du filtre du lieu de la réunion
         String getFilterPlace();
 
+        // Obtenir le texte du filtre de la personne invitée (email)
+        String getFilterPerson();
+
+        // Obtenir le texte du filtre du sujet de la réunion
+        String getFilterSubject();
+
         // Obtenir la date de début du filtre
         Instant getFilterStartDate();
 
@@ -42,6 +51,12 @@ public interface MeetingsListContract {
         // Définir le filtre de lieu
         void setFilterPlace(String filterPlace);
 
+        // Définir le filtre de la personne invitée (email)
+        void setFilterPerson(String filterPerson);
+
+        // Définir le filtre de sujet (texte recherché dans les sujets)
+        void setFilterSubject(String filterSubject);
+
     }
 
     /**
@@ -49,11 +64,12 @@ public interface MeetingsListContract {
      */
     interface View extends SimpleMvp.View<Presenter> {
 
-        // Mettre à jour la liste des réunions dans la vue
-        void updateMeetings(List<Meeting> meetings);
+        // Mettre à jour la liste des réunions dans la vue (textes des lignes déjà calculés)
+        void updateMeetings(List<MeetingsListItem> meetings);
 
         // Mettre à jour les étiquettes des filtres dans la vue
-        void updateFilters(String filterPlace, String filterStartDate, String filterEndDate);
+        void updateFilters(String filterPlace, String filterPerson, String filterSubject,
+                           String filterStartDate, String filterEndDate);
 
         // Déclencher la boîte de dialogue d'inscription à la réunion
         void triggerMeetingRegistrationDialog();
@@ -84,10 +100,11 @@ public interface MeetingsListContract {
         void onCreateMeetingRequested();
 
         // Lorsque les filtres ont changé
-        void onFiltersChanged(String filterPlace, String filterStartDate, String filterEndDate);
+        void onFiltersChanged(String filterPlace, String filterPerson, String filterSubject,
+                              String filterStartDate, String filterEndDate);
 
         // Déposer une demande de rendez-vous (date et heure) de la réunion
-        void dropMeetingRequested(int position);
+        void dropMeetingRequested(Meeting meeting);
 
         // Définir la date de début du filtre
         void setFilterStartDate(String filterStartDate);
@@ -106,6 +123,12 @@ public interface MeetingsListContract {
 
         // Enregistrer l'emplacement du filtre
         void saveFilterPlace(String filterPlace);
+
+        // Enregistrer la personne invitée du filtre
+        void saveFilterPerson(String filterPerson);
+
+        // Enregistrer le sujet recherché du filtre
+        void saveFilterSubject(String filterSubject);
     }
 
 }
@@ -13,6 +13,7 @@ import com.openclassrooms.mareu.R;
 
 import android.annotation.SuppressLint;
 import android.graphics.drawable.Drawable;
+import android.text.Editable;
 import android.view.MotionEvent;
 import android.widget.EditText;
 import android.widget.ImageButton;
@@ -22,12 +23,12 @@ import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.openclassrooms.mareu.model.Meeting;
 import com.openclassrooms.mareu.ui.meetings_registration.MeetingRegistrationDialogFactory;
 import com.openclassrooms.mareu.ui.pickers.date.DatePickerFactory;
 import com.openclassrooms.mareu.ui.pickers.date.DatePickerFragment;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputLayout;
+import com.openclassrooms.mareu.utils.ui.SimpleTextWatcher;
 import com.openclassrooms.mareu.utils.ui.SimpleTextWatcherFactory;
 
 import java.time.Instant;
@@ -89,6 +90,14 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
     @BindView(R.id.fragment_meetings_card_view_filter_place)
     TextInputLayout mFilterPlaceTextInput;
 
+    // le filtre de saisie de texte de la personne invitée
+    @BindView(R.id.fragment_meetings_card_view_filter_person)
+    TextInputLayout mFilterPersonTextInput;
+
+    // le filtre de saisie de texte du sujet
+    @BindView(R.id.fragment_meetings_card_view_filter_subject)
+    TextInputLayout mFilterSubjectTextInput;
+
     // le filtre de saisie de texte de la date de début
     @BindView(R.id.fragment_meetings_card_view_filter_start_date)
     TextInputLayout mFilterStartDateTextInput;
@@ -163,7 +172,9 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
                 // liste vide des réunions au démarrage
                 new ArrayList<>(),
                 // l'action sur cliquer pour abandonner une réunion
-                (v, position) -> mPresenter.dropMeetingRequested(position)
+                (v, position) -> mPresenter.dropMeetingRequested(
+                        mMeetingsListAdapter.getMeeting(position)
+                )
         );
         // Définir le gestionnaire de mise en page de la vue recycleur
         mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
@@ -199,6 +210,14 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
                 Objects.requireNonNull(mFilterPlaceTextInput.getEditText())
                         .getText()
                         .toString(),
+                // Définir la valeur du filtre de saisie de texte de la personne invitée
+                Objects.requireNonNull(mFilterPersonTextInput.getEditText())
+                        .getText()
+                        .toString(),
+                // Définir la valeur du filtre de saisie de texte du sujet
+                Objects.requireNonNull(mFilterSubjectTextInput.getEditText())
+                        .getText()
+                        .toString(),
                 // Définir la valeur du filtre de saisie de texte de la date de début
                 Objects.requireNonNull(mFilterStartDateTextInput.getEditText())
                         .getText()
@@ -223,6 +242,38 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
         configureStartDateTextInput();
         configureEndDateTextInput();
         configurePlaceTextInput();
+        configurePersonTextInput();
+        configureSubjectTextInput();
+    }
+
+    /**
+     * Configurer le filtre de saisie de texte du sujet
+     */
+    private void configureSubjectTextInput() {
+        // à chaque saisie dans le filtre de sujet, informer le présenter (qui regroupe les saisies rapides)
+        Objects.requireNonNull(mFilterSubjectTextInput.getEditText()).addTextChangedListener(
+                new SimpleTextWatcher() {
+                    @Override
+                    public void afterTextChanged(Editable s) {
+                        mPresenter.saveFilterSubject(s.toString());
+                    }
+                }
+        );
+    }
+
+    /**
+     * Configurer le filtre de saisie de texte de la personne invitée
+     */
+    private void configurePersonTextInput() {
+        // à chaque saisie dans le filtre de personne, informer le présenter (qui regroupe les saisies rapides)
+        Objects.requireNonNull(mFilterPersonTextInput.getEditText()).addTextChangedListener(
+                new SimpleTextWatcher() {
+                    @Override
+                    public void afterTextChanged(Editable s) {
+                        mPresenter.saveFilterPerson(s.toString());
+                    }
+                }
+        );
     }
 
     /**
@@ -269,6 +320,14 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
             }
         });
 
+        // à chaque saisie dans le filtre de lieu, informer le présenter (qui regroupe les saisies rapides)
+        mFilterPlaceTextInput.getEditText().addTextChangedListener(new SimpleTextWatcher() {
+            @Override
+            public void afterTextChanged(Editable s) {
+                mPresenter.saveFilterPlace(s.toString());
+            }
+        });
+
         // lors du changement de texte sur le filtre de saisie du lieu, informer le présenter en conséquence
         SimpleTextWatcherFactory factory = new SimpleTextWatcherFactory();
         mFilterPlaceTextInput.getEditText().addTextChangedListener(
@@ -428,7 +487,7 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
      * @param meetings the meetings to display
      */
     @Override
-    public void updateMeetings(List<Meeting> meetings) {
+    public void updateMeetings(List<MeetingsListItem> meetings) {
         mMeetingsListAdapter.updateMeetings(meetings);
     }
 
@@ -454,6 +513,8 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
             mFilterEndDateTextInput.setVisibility(View.VISIBLE);
             mFilterApplyButton.setVisibility(View.VISIBLE);
             mFilterPlaceTextInput.setVisibility(View.VISIBLE);
+            mFilterPersonTextInput.setVisibility(View.VISIBLE);
+            mFilterSubjectTextInput.setVisibility(View.VISIBLE);
             mFilterCollapseButton.setVisibility(View.VISIBLE);
         } else {
             mFilterStartDateTextInput.setVisibility(View.GONE);
@@ -461,29 +522,34 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
             mFilterApplyButton.setVisibility(View.GONE);
             mFilterEndDateTextInput.setVisibility(View.GONE);
             mFilterPlaceTextInput.setVisibility(View.GONE);
+            mFilterPersonTextInput.setVisibility(View.GONE);
+            mFilterSubjectTextInput.setVisibility(View.GONE);
             mFilterExpandButton.setVisibility(View.VISIBLE);
         }
     }
 
     /**
      * Mettre à jour l'étiquette de saisie de texte des filtres et réinitialisez les icônes autour de chaque saisie de texte de filtre
-     * Mettre également à jour la position du curseur dans la saisie de texte, pour répondre aux attentes de l'utilisateur
+     * Mettre également à jour la position du curseur dans la saisie de texte modifiée, pour répondre aux attentes de l'utilisateur
      * @param filterPlace the place filter
+     * @param filterPerson the attendee filter
+     * @param filterSubject the subject filter
      * @param filterStartDate the start date filter
      * @param filterEndDate the end date filter
      */
     @Override
-    public void updateFilters(String filterPlace, String filterStartDate, String filterEndDate) {
+    public void updateFilters(String filterPlace, String filterPerson, String filterSubject,
+                              String filterStartDate, String filterEndDate) {
         // mettre à jour le filtre de texte de lieu
-        Objects.requireNonNull(mFilterPlaceTextInput.getEditText()).setText(filterPlace);
+        setTextIfChanged(mFilterPlaceTextInput, filterPlace);
+        // mettre à jour le filtre de texte de la personne invitée
+        setTextIfChanged(mFilterPersonTextInput, filterPerson);
+        // mettre à jour le filtre de texte du sujet
+        setTextIfChanged(mFilterSubjectTextInput, filterSubject);
         // mettre à jour le filtre de texte de la date de début
-        Objects.requireNonNull(mFilterStartDateTextInput.getEditText()).setText(
-                filterStartDate == null ? "": filterStartDate
-        );
+        setTextIfChanged(mFilterStartDateTextInput, filterStartDate == null ? "": filterStartDate);
         // mettre à jour le filtre de texte de la date de fin
-        Objects.requireNonNull(mFilterEndDateTextInput.getEditText()).setText(
-                filterEndDate == null ? "" : filterEndDate
-        );
+        setTextIfChanged(mFilterEndDateTextInput, filterEndDate == null ? "" : filterEndDate);
 
         // si le filtre de lieux est vide, ne pas afficher l'icône d'effacement. Sinon, l'afficher
         setCompoundDrawables(mFilterPlaceTextInput, mPlaceIconDrawable,
@@ -492,17 +558,21 @@ public class MeetingsListFragment extends Fragment implements MeetingsListContra
         setCompoundDrawables(mFilterStartDateTextInput, mDateTimeIconDrawable, mClearIconDrawable);
         // réinitialiser les icônes de date de fin, à l'heure et effacer les icônes
         setCompoundDrawables(mFilterEndDateTextInput, mDateTimeIconDrawable, mClearIconDrawable);
+    }
 
-        // placer le curseur de sélection à la fin du texte
-        mFilterPlaceTextInput.getEditText().setSelection(
-            mFilterPlaceTextInput.getEditText().getText().length()
-        );
-        mFilterStartDateTextInput.getEditText().setSelection(
-            mFilterStartDateTextInput.getEditText().getText().length()
-        );
-        mFilterEndDateTextInput.getEditText().setSelection(
-            mFilterEndDateTextInput.getEditText().getText().length()
-        );
+    /**
+     * Modifier le texte d'une saisie de texte, seulement s'il a changé
+     * (sinon, l'écouteur de saisie demanderait à nouveau une requête identique au présenter)
+     * @param textInputLayout the text input layout
+     * @param text the text
+     */
+    private void setTextIfChanged(TextInputLayout textInputLayout, String text) {
+        EditText editText = Objects.requireNonNull(textInputLayout.getEditText());
+        if (!editText.getText().toString().equals(text)) {
+            editText.setText(text);
+            // placer le curseur de sélection à la fin du texte
+            editText.setSelection(editText.getText().length());
+        }
     }
 
     /**
@@ -0,0 +1,123 @@
+package com.openclassrooms.mareu.ui.meetings_list;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.PersonsListFormatter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Modèle d'affichage d'un élément de la liste des réunions
+ * Les textes de la ligne (date, lieu, résumé des personnes invitées) sont calculés une fois par version
+ * de la réunion, hors du thread principal : l'affichage d'un élément se limite à quelques setText.
+ * La liste complète des personnes n'est pas formatée : seuls leurs identifiants, triés par email,
+ * sont conservés pour l'affichage paresseux de la liste développée.
+ */
+public final class MeetingsListItem {
+
+    /**
+     * The meeting, and its version when the texts were computed
+     */
+    private final Meeting mMeeting;
+    private final int mVersion;
+
+    /**
+     * The texts of the row
+     */
+    private final String mSubject;
+    private final String mDateLabel;
+    private final String mPlaceLabel;
+    // null if no person is invited
+    private final String mPersonsSummary;
+
+    /**
+     * The ids of the persons invited, sorted by email
+     */
+    private final int[] mSortedPersonIds;
+
+    /**
+     * Constructor : compute the texts of the row
+     * @param meeting the meeting
+     */
+    public MeetingsListItem(Meeting meeting) {
+        mMeeting = meeting;
+        mVersion = meeting.getVersion();
+        mSubject = meeting.getSubject();
+        mDateLabel = DateEasy.localeSpecialStringFromInstant(meeting.getDate());
+        mPlaceLabel = meeting.getPlace().getName();
+        mSortedPersonIds = new PersonsListFormatter(meeting.getPersons()).getIdsSortedByEmail();
+        mPersonsSummary = mSortedPersonIds.length == 0 ? null : PersonsListFormatter.formatSummary(mSortedPersonIds);
+    }
+
+    /**
+     * Check if the texts are still those of a meeting
+     * @param meeting the meeting
+     * @return true if computed from this very meeting, at its current version
+     */
+    public boolean isUpToDate(Meeting meeting) {
+        return mMeeting == meeting && mVersion == meeting.getVersion();
+    }
+
+    /**
+     * Check if two rows display the same texts
+     * @param other the other row
+     * @return true if the texts are the same
+     */
+    public boolean hasSameContents(MeetingsListItem other) {
+        return this == other || (hasSameTexts(other) && hasSamePersons(other));
+    }
+
+    /**
+     * Check if two rows display the same subject, date and place
+     * @param other the other row
+     * @return true if the texts are the same
+     */
+    public boolean hasSameTexts(MeetingsListItem other) {
+        return Objects.equals(mSubject, other.mSubject)
+                && Objects.equals(mDateLabel, other.mDateLabel)
+                && Objects.equals(mPlaceLabel, other.mPlaceLabel);
+    }
+
+    /**
+     * Check if two rows display the same persons
+     * @param other the other row
+     * @return true if the persons are the same
+     */
+    public boolean hasSamePersons(MeetingsListItem other) {
+        return Arrays.equals(mSortedPersonIds, other.mSortedPersonIds);
+    }
+
+    public Meeting getMeeting() {
+        return mMeeting;
+    }
+
+    public String getSubject() {
+        return mSubject;
+    }
+
+    public String getDateLabel() {
+        return mDateLabel;
+    }
+
+    public String getPlaceLabel() {
+        return mPlaceLabel;
+    }
+
+    /**
+     * Get the summary of the persons invited (count and first emails)
+     * @return the summary, or null if no person is invited
+     */
+    public String getPersonsSummary() {
+        return mPersonsSummary;
+    }
+
+    /**
+     * Get the persons invited
+     * @return the ids of the persons, sorted by email (must not be modified)
+     */
+    public int[] getSortedPersonIds() {
+        return mSortedPersonIds;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.mareu.ui.meetings_list;
+
+import com.openclassrooms.mareu.model.Meeting;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des modèles d'affichage des réunions
+ * Un élément n'est recalculé que si sa réunion a changé (nouvelle version, ou nouvelle instance),
+ * et seuls les éléments de la dernière liste sont conservés.
+ * Non thread-safe : utilisé par le seul thread de travail du présenter.
+ */
+public class MeetingsListItemCache {
+
+    /**
+     * The items of the last list, by meeting instance (the date and place of a meeting may change)
+     */
+    private Map<Meeting, MeetingsListItem> mItems = new IdentityHashMap<>();
+
+    /**
+     * The number of items computed, since the creation of the cache
+     */
+    private int mComputedCount;
+
+    /**
+     * Get the items of a list of meetings, computing only the new or changed ones
+     * @param meetings the meetings
+     * @return the items, in the same order
+     */
+    public List<MeetingsListItem> getItems(List<Meeting> meetings) {
+        List<MeetingsListItem> ret = new ArrayList<>(meetings.size());
+        Map<Meeting, MeetingsListItem> items = new IdentityHashMap<>(meetings.size());
+        for (Meeting meeting : meetings) {
+            MeetingsListItem item = mItems.get(meeting);
+            if (item == null || !item.isUpToDate(meeting)) {
+                item = new MeetingsListItem(meeting);
+                mComputedCount++;
+            }
+            items.put(meeting, item);
+            ret.add(item);
+        }
+        // forget the meetings which are no longer displayed
+        mItems = items;
+        return ret;
+    }
+
+    /**
+     * Get the number of items computed, since the creation of the cache
+     * @return the number of items computed
+     */
+    public int getComputedCount() {
+        return mComputedCount;
+    }
+
+}
@@ -2,8 +2,16 @@ package com.openclassrooms.mareu.ui.meetings_list;
 
 import androidx.annotation.NonNull;
 
+import com.openclassrooms.mareu.di.DI;
 import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.MeetingsChangeEvent;
 import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.DateParseResult;
+import com.openclassrooms.mareu.utils.QueryExecutor;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
 
 import java.time.Instant;
 import java.util.List;
@@ -12,6 +20,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Meetings List Presenter
+ * Le modèle n'est accédé que depuis le thread de travail de l'exécuteur de requêtes,
+ * et la vue n'est mise à jour que depuis le thread principal
+ * La liste est actualisée à chaque modification des réunions publiée sur le bus d'événements,
+ * et n'est pas recalculée à la reprise si les réunions n'ont pas changé depuis son affichage
  */
 public class MeetingsListPresenter implements MeetingsListContract.Presenter {
 
@@ -20,6 +32,11 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     private static final String TAG = "MeetingsListPresenter";
 
+    /**
+     * La période de calme par défaut, avant d'exécuter la requête après un changement de filtre
+     */
+    public static final long DEFAULT_FILTERS_QUIET_PERIOD_MS = 300;
+
     /**
      * La vue à mettre à jour
      */
@@ -31,9 +48,42 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
     private final MeetingsListContract.Model mModel;
 
     /**
-     * Buffer la liste des réunions filtrées et triées
+     * L'exécuteur des requêtes sur le modèle, hors du thread principal
+     */
+    private final QueryExecutor mQueryExecutor;
+
+    /**
+     * La période de calme, avant d'exécuter la requête après un changement de filtre saisi
+     */
+    private final long mFiltersQuietPeriodMillis;
+
+    /**
+     * Le cache des textes des lignes de la liste (thread de travail)
      */
-    private List<Meeting> mFilteredAndSortedMeetings;
+    private final MeetingsListItemCache mItemCache = new MeetingsListItemCache();
+
+    /**
+     * Le bus des événements de modification des réunions
+     */
+    private final EventBus mEventBus;
+
+    /**
+     * La version des réunions affichées, -1 tant que rien n'est affiché (thread principal)
+     */
+    private long mDisplayedVersion = -1;
+
+    /**
+     * Le résultat d'une requête : la liste des réunions, et les filtres formatés
+     */
+    private static final class MeetingsListResult {
+        long version;
+        List<MeetingsListItem> meetings;
+        String filterPlace;
+        String filterPerson;
+        String filterSubject;
+        String filterStartDate;
+        String filterEndDate;
+    }
 
     /**
      * Constructeur
@@ -42,18 +92,83 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     public MeetingsListPresenter(@NonNull MeetingsListContract.View view,
                                  @NonNull MeetingsListContract.Model model) {
+        this(view, model, new QueryExecutor(), DEFAULT_FILTERS_QUIET_PERIOD_MS);
+    }
+
+    /**
+     * Constructeur
+     * @param view la vue à mettre à jour
+     * @param model le modèle à utiliser
+     * @param queryExecutor l'exécuteur des requêtes sur le modèle
+     * @param filtersQuietPeriodMillis la période de calme après un changement de filtre saisi
+     */
+    public MeetingsListPresenter(@NonNull MeetingsListContract.View view,
+                                 @NonNull MeetingsListContract.Model model,
+                                 @NonNull QueryExecutor queryExecutor,
+                                 long filtersQuietPeriodMillis) {
+        this(view, model, queryExecutor, filtersQuietPeriodMillis, DI.getMeetingsEventBus());
+    }
+
+    /**
+     * Constructeur
+     * @param view la vue à mettre à jour
+     * @param model le modèle à utiliser
+     * @param queryExecutor l'exécuteur des requêtes sur le modèle
+     * @param filtersQuietPeriodMillis la période de calme après un changement de filtre saisi
+     * @param eventBus le bus des événements de modification des réunions
+     */
+    public MeetingsListPresenter(@NonNull MeetingsListContract.View view,
+                                 @NonNull MeetingsListContract.Model model,
+                                 @NonNull QueryExecutor queryExecutor,
+                                 long filtersQuietPeriodMillis,
+                                 @NonNull EventBus eventBus) {
         mView = checkNotNull(view);
         mModel = checkNotNull(model);
+        mQueryExecutor = checkNotNull(queryExecutor);
+        mFiltersQuietPeriodMillis = filtersQuietPeriodMillis;
+        mEventBus = checkNotNull(eventBus);
         // important : attacher immédiatement le présentateur dans la vue
         mView.attachPresenter(this);
+        // s'abonner aux modifications des réunions
+        mEventBus.register(this);
+    }
+
+    /**
+     * Se désabonner du bus, et arrêter l'exécuteur des requêtes, une fois la vue détruite
+     */
+    public void release() {
+        mEventBus.unregister(this);
+        mQueryExecutor.shutdown();
     }
 
     /**
      * Une fois la vue initialisée, mettez à jour la vue avec la liste des réunions
+     * À la reprise, la liste déjà affichée est gardée si les réunions n'ont pas changé entre-temps
      */
     @Override
     public void init() {
-        onRefreshMeetingsListRequested();
+        if (mDisplayedVersion < 0) {
+            onRefreshMeetingsListRequested();
+            return;
+        }
+        // comparer la version des réunions avec celle de la liste affichée (thread de travail)
+        mQueryExecutor.execute(mModel::getMeetingsVersion, version -> {
+            if (version != mDisplayedVersion) {
+                onRefreshMeetingsListRequested();
+            }
+        });
+    }
+
+    /**
+     * Les réunions ont été modifiées : actualiser la liste, sauf si la modification est déjà affichée
+     * (le modèle applique lui-même le delta : la requête ne fait que relire la liste à jour)
+     * @param event l'événement de modification
+     */
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onMeetingsChanged(MeetingsChangeEvent event) {
+        if (event.getVersion() > mDisplayedVersion) {
+            onRefreshMeetingsListRequested();
+        }
     }
 
     /**
@@ -62,18 +177,38 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void onRefreshMeetingsListRequested() {
-        // obtenir la liste des réunions, filtrées ou non
-        List<Meeting> meetings = mModel.getFilteredAndSortedMeetings();
-        // buffer the list, in order to ease the deletion of a meeting
-        mFilteredAndSortedMeetings = meetings;
-        // mettre à jour la vue avec la nouvelle liste de réunions
-        mView.updateMeetings(meetings);
-        // mettre à jour la vue avec les filtres à jour
-        mView.updateFilters(
-            mModel.getFilterPlace(),
-            DateEasy.localeDateTimeStringFromInstant(mModel.getFilterStartDate()),
-            DateEasy.localeDateTimeStringFromInstant(mModel.getFilterEndDate())
-        );
+        refreshMeetingsList(0);
+    }
+
+    /**
+     * Actualiser la liste des réunions après une période de calme
+     * La requête remplace les précédentes : si l'utilisateur continue à saisir les filtres pendant la
+     * période de calme, plusieurs changements ne produisent qu'une seule requête, et les résultats
+     * des requêtes obsolètes déjà en cours sont ignorés
+     * @param quietPeriodMillis la période de calme, en millisecondes
+     */
+    private void refreshMeetingsList(long quietPeriodMillis) {
+        mQueryExecutor.submitLatest(quietPeriodMillis, () -> {
+            MeetingsListResult result = new MeetingsListResult();
+            // la version, lue avant la liste : une modification concurrente sera actualisée ensuite
+            result.version = mModel.getMeetingsVersion();
+            // obtenir la liste des réunions, filtrées ou non (thread de travail)
+            // et les textes de leurs lignes, calculés seulement pour les réunions nouvelles ou modifiées
+            result.meetings = mItemCache.getItems(mModel.getFilteredAndSortedMeetings());
+            result.filterPlace = mModel.getFilterPlace();
+            result.filterPerson = mModel.getFilterPerson();
+            result.filterSubject = mModel.getFilterSubject();
+            result.filterStartDate = DateEasy.localeDateTimeStringFromInstant(mModel.getFilterStartDate());
+            result.filterEndDate = DateEasy.localeDateTimeStringFromInstant(mModel.getFilterEndDate());
+            return result;
+        }, result -> {
+            // mettre à jour la vue avec la nouvelle liste de réunions (thread principal)
+            mDisplayedVersion = result.version;
+            mView.updateMeetings(result.meetings);
+            // mettre à jour la vue avec les filtres à jour
+            mView.updateFilters(result.filterPlace, result.filterPerson, result.filterSubject,
+                    result.filterStartDate, result.filterEndDate);
+        });
     }
 
     /**
@@ -87,12 +222,14 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
 
     /**
      * L'abandon d'une réunion est demandé par la vue
-     * @param position la position de la réunion dans la liste
+     * La vue donne la réunion elle-même, car la liste affichée peut être en retard sur la dernière liste
+     * (les différences sont calculées en arrière-plan)
+     * @param meeting la réunion à abandonner
      */
     @Override
-    public void dropMeetingRequested(int position) {
+    public void dropMeetingRequested(Meeting meeting) {
         // abandonner réunion
-        mModel.deleteMeeting(mFilteredAndSortedMeetings.get(position));
+        mQueryExecutor.execute(() -> mModel.deleteMeeting(meeting));
         // actualiser la liste des réunions
         onRefreshMeetingsListRequested();
     }
@@ -100,50 +237,49 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
     /**
      * Appelé lorsque l'utilisateur a modifié les filtres
      * @param filterPlace le filtre de lieux
+     * @param filterPerson le filtre de personne invitée
+     * @param filterSubject le filtre de sujet
      * @param filterStartDate le filtre de date de début
      * @param filterEndDate le filtre de date de fin
      */
     @Override
-    public void onFiltersChanged(String filterPlace, String filterStartDate, String filterEndDate){
+    public void onFiltersChanged(String filterPlace, String filterPerson, String filterSubject,
+                                 String filterStartDate, String filterEndDate){
         // définir l'erreur sur faux
         boolean isError = false;
 
-        // vérifier si la date de début est vide
-        if (filterStartDate.isEmpty()) {
-            // définir la date de début sur null
-            mModel.setFilterStartDate(null);
-        } else {
-            // analyser la date de début
-            Instant tmp = DateEasy.parseDateStringToInstant(filterStartDate);
-            if (tmp == null) {
-                // si la date de début n'est pas valide, définir l'indicateur d'erreur sur true
-                isError = true;
-                mView.setErrorFilterStartDate();
-            } else {
-                // si la date de début est valide, définissez le filtre
-                mModel.setFilterStartDate(tmp);
-            }
+        // analyser la date de début (une date vide signifie pas de filtre)
+        DateParseResult startDate = DateEasy.parseDate(filterStartDate);
+        if (startDate.isError()) {
+            // si la date de début n'est pas valide, définir l'indicateur d'erreur sur true
+            isError = true;
+            mView.setErrorFilterStartDate();
         }
 
-        // vérifier si la date de fin est vide
-        if (filterEndDate.isEmpty()) {
-            // définir la date de fin sur null
-            mModel.setFilterEndDate(null);
-        } else {
-            // analyser la date de fin
-            Instant tmp = DateEasy.parseDateStringToInstant(filterEndDate);
-            // si la date de fin n'est pas valide, définir le drapeau d'erreur sur true
-            if (tmp == null) {
-                // si la date de fin n'est pas valide, définissez le drapeau d'erreur sur true
-                isError = true;
-                mView.setErrorFilterEndDate();
-            } else {
-                // si la date de fin est valide, définissez le filtre
-                mModel.setFilterEndDate(tmp);
-            }
+        // analyser la date de fin (une date vide signifie pas de filtre)
+        DateParseResult endDate = DateEasy.parseDate(filterEndDate);
+        if (endDate.isError()) {
+            // si la date de fin n'est pas valide, définissez le drapeau d'erreur sur true
+            isError = true;
+            mView.setErrorFilterEndDate();
         }
-        // s'il n'y a pas d'erreur
-        mModel.setFilterPlace(filterPlace);
+
+        // mettre à jour les filtres valides dans le modèle (thread de travail)
+        final boolean isStartDateValid = !startDate.isError();
+        final boolean isEndDateValid = !endDate.isError();
+        final Instant finalStartDate = startDate.getInstant();
+        final Instant finalEndDate = endDate.getInstant();
+        mQueryExecutor.execute(() -> {
+            if (isStartDateValid) {
+                mModel.setFilterStartDate(finalStartDate);
+            }
+            if (isEndDateValid) {
+                mModel.setFilterEndDate(finalEndDate);
+            }
+            mModel.setFilterPlace(filterPlace);
+            mModel.setFilterPerson(filterPerson);
+            mModel.setFilterSubject(filterSubject);
+        });
         // actualiser la liste des réunions
         onRefreshMeetingsListRequested();
         // développer ou réduire les filtres
@@ -158,15 +294,15 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void setFilterStartDate(String filterStartDate) {
-        if (filterStartDate.isEmpty()) {
-            mModel.setFilterStartDate(null);
-        } else {
-            Instant tmp = DateEasy.parseDateStringToInstant(filterStartDate);
-            if (tmp != null) {
+        DateParseResult result = DateEasy.parseDate(filterStartDate);
+        Instant tmp = result.getInstant();
+        boolean isValid = !result.isError();
+        mQueryExecutor.execute(() -> {
+            if (isValid) {
                 mModel.setFilterStartDate(tmp);
             }
-        }
-        mView.triggerDatePickerDialog(mModel.getFilterStartDate(), true);
+            return mModel.getFilterStartDate();
+        }, date -> mView.triggerDatePickerDialog(date, true));
     }
 
     /**
@@ -175,17 +311,15 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void setFilterStartDateManual(String filterStartDate) {
-        if (filterStartDate.isEmpty()) {
-            mModel.setFilterStartDate(null);
+        DateParseResult result = DateEasy.parseDate(filterStartDate);
+        Instant tmp = result.getInstant();
+        if (!result.isError()) {
+            mQueryExecutor.execute(() -> mModel.setFilterStartDate(tmp));
         } else {
-            Instant tmp = DateEasy.parseDateStringToInstant(filterStartDate);
-            if (tmp != null) {
-                mModel.setFilterStartDate(tmp);
-            } else {
-                mView.setErrorFilterStartDate();
-            }
+            mView.setErrorFilterStartDate();
         }
-        onRefreshMeetingsListRequested();
+        // requête différée : la saisie peut continuer
+        refreshMeetingsList(mFiltersQuietPeriodMillis);
     }
 
     /**
@@ -194,15 +328,15 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void setFilterEndDate(String filterEndDate) {
-        if (filterEndDate.isEmpty()) {
-            mModel.setFilterEndDate(null);
-        } else {
-            Instant tmp = DateEasy.parseDateStringToInstant(filterEndDate);
-            if (tmp != null) {
+        DateParseResult result = DateEasy.parseDate(filterEndDate);
+        Instant tmp = result.getInstant();
+        boolean isValid = !result.isError();
+        mQueryExecutor.execute(() -> {
+            if (isValid) {
                 mModel.setFilterEndDate(tmp);
             }
-        }
-        mView.triggerDatePickerDialog(mModel.getFilterEndDate(), false);
+            return mModel.getFilterEndDate();
+        }, date -> mView.triggerDatePickerDialog(date, false));
     }
 
     /**
@@ -211,17 +345,15 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void setFilterEndDateManual(String filterEndDate) {
-        if (filterEndDate.isEmpty()) {
-            mModel.setFilterEndDate(null);
+        DateParseResult result = DateEasy.parseDate(filterEndDate);
+        Instant tmp = result.getInstant();
+        if (!result.isError()) {
+            mQueryExecutor.execute(() -> mModel.setFilterEndDate(tmp));
         } else {
-            Instant tmp = DateEasy.parseDateStringToInstant(filterEndDate);
-            if (tmp != null) {
-                mModel.setFilterEndDate(tmp);
-            } else {
-                mView.setErrorFilterEndDate();
-            }
+            mView.setErrorFilterEndDate();
         }
-        onRefreshMeetingsListRequested();
+        // requête différée : la saisie peut continuer
+        refreshMeetingsList(mFiltersQuietPeriodMillis);
     }
 
     /**
@@ -231,11 +363,13 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void saveFilterDate(Instant date, boolean beginOrEnd) {
-        if (beginOrEnd) {
-            mModel.setFilterStartDate(date);
-        } else {
-            mModel.setFilterEndDate(date);
-        }
+        mQueryExecutor.execute(() -> {
+            if (beginOrEnd) {
+                mModel.setFilterStartDate(date);
+            } else {
+                mModel.setFilterEndDate(date);
+            }
+        });
         onRefreshMeetingsListRequested();
     }
 
@@ -245,8 +379,32 @@ public class MeetingsListPresenter implements MeetingsListContract.Presenter {
      */
     @Override
     public void saveFilterPlace(String filterPlace) {
-        mModel.setFilterPlace(filterPlace);
-        onRefreshMeetingsListRequested();
+        mQueryExecutor.execute(() -> mModel.setFilterPlace(filterPlace));
+        // requête différée : la saisie peut continuer
+        refreshMeetingsList(mFiltersQuietPeriodMillis);
+    }
+
+    /**
+     * Enregistrer le filtre de personne invitée
+     * @param filterPerson the attendee filter (email)
+     */
+    @Override
+    public void saveFilterPerson(String filterPerson) {
+        mQueryExecutor.execute(() -> mModel.setFilterPerson(filterPerson));
+        // requête différée : la saisie peut continuer
+        refreshMeetingsList(mFiltersQuietPeriodMillis);
     }
-}
 
+    /**
+     * Enregistrer le filtre de sujet
+     * Pendant la saisie, chaque texte prolonge le précédent : l'index des sujets filtre alors son
+     * résultat précédent, au lieu de chercher à nouveau
+     * @param filterSubject the subject filter (text searched in the subjects)
+     */
+    @Override
+    public void saveFilterSubject(String filterSubject) {
+        mQueryExecutor.execute(() -> mModel.setFilterSubject(filterSubject));
+        // requête différée : la saisie peut continuer
+        refreshMeetingsList(mFiltersQuietPeriodMillis);
+    }
+}
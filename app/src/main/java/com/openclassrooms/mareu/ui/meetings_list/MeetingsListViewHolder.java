@@ -6,16 +6,14 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.openclassrooms.mareu.R;
-import com.openclassrooms.mareu.model.Meeting;
-import com.openclassrooms.mareu.model.Person;
-import com.openclassrooms.mareu.utils.DateEasy;
-import com.openclassrooms.mareu.utils.PersonsListFormatter;
-
-import java.util.Set;
+import com.openclassrooms.mareu.utils.ui.MaxHeightRecyclerView;
+import com.openclassrooms.mareu.utils.ui.PersonsListAdapter;
 
+import butterknife.BindDimen;
 import butterknife.BindString;
 import butterknife.BindView;
 import butterknife.ButterKnife;
@@ -27,9 +25,9 @@ import butterknife.ButterKnife;
 public class MeetingsListViewHolder extends RecyclerView.ViewHolder {
 
     /**
-     * La réunion à afficher comme élément de la vue recycleur
+     * La réunion à afficher comme élément de la vue recycleur (textes déjà calculés)
      */
-    private Meeting mMeeting;
+    private MeetingsListItem mItem;
 
     /**
      * Composants de l'interface utilisateur
@@ -59,9 +57,17 @@ public class MeetingsListViewHolder extends RecyclerView.ViewHolder {
     @BindView(R.id.fragment_meetings_item_collapse_btn)
     ImageButton mCollapseButton;
 
-    // liste des personnes invitées à la réunion label
+    // résumé des personnes invitées à la réunion (nombre et premiers emails)
     @BindView(R.id.fragment_meetings_item_persons_text)
-    TextView mPersonsFlattenListText;
+    TextView mPersonsSummaryText;
+
+    // liste complète des personnes invitées à la réunion (affichée une fois développée)
+    @BindView(R.id.fragment_meetings_item_persons_list)
+    MaxHeightRecyclerView mPersonsList;
+
+    // hauteur maximale de la liste des personnes, au-delà elle défile
+    @BindDimen(R.dimen.persons_list_max_height)
+    int mPersonsListMaxHeight;
 
     // Chaîne de réunion vide (pas encore de personnes invitées)
     @BindString(R.string.empty_meeting_persons_list)
@@ -71,60 +77,110 @@ public class MeetingsListViewHolder extends RecyclerView.ViewHolder {
     @BindView(R.id.fragment_meetings_card_view)
     CardView mCardView;
 
+    /**
+     * L'adaptateur de la liste des personnes : seules les lignes visibles sont formatées
+     */
+    private final PersonsListAdapter mPersonsListAdapter = new PersonsListAdapter();
+
     /**
      * Constructeur
      *
      * @param itemView la vue de l'article
      * @param onClickListener l'écouteur à appeler lorsque le bouton de suppression est cliqué
+     * @param onExpandClickListener l'écouteur à appeler pour développer ou réduire la liste des personnes
+     * @param personsViewPool les lignes de personnes recyclées, partagées par tous les éléments
      */
     public MeetingsListViewHolder(@NonNull View itemView,
-                                  MeetingsListAdapter.DropClickListener onClickListener) {
+                                  MeetingsListAdapter.DropClickListener onClickListener,
+                                  MeetingsListAdapter.ExpandClickListener onExpandClickListener,
+                                  RecyclerView.RecycledViewPool personsViewPool) {
         // appelle toujours le super constructeur
         super(itemView);
         // lier les composants de l'interface utilisateur au code java
         ButterKnife.bind(this, itemView);
+        // configurer la liste des personnes (virtualisée, limitée en hauteur)
+        mPersonsList.setLayoutManager(new LinearLayoutManager(itemView.getContext()));
+        mPersonsList.setRecycledViewPool(personsViewPool);
+        mPersonsList.setMaxHeight(mPersonsListMaxHeight);
+        mPersonsList.setAdapter(mPersonsListAdapter);
         // appeler l'auditeur lorsque le bouton de suppression est cliqué
-        mDeleteButton.setOnClickListener(
-                v -> onClickListener.onClick(v, getLayoutPosition())
-        );
+        mDeleteButton.setOnClickListener(v -> {
+            // la position peut être inconnue pendant une animation de suppression
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                onClickListener.onClick(v, position);
+            }
+        });
+        // l'état développé est conservé par l'adaptateur (par réunion), qui réaffiche l'élément
+        View.OnClickListener expandOrCollapse = v -> {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                onExpandClickListener.onClick(position);
+            }
+        };
         // appeler l'écouteur lorsque le bouton de développement est cliqué
-        mExpandButton.setOnClickListener(v -> expandOrCollapseInvitedPersons());
+        mExpandButton.setOnClickListener(expandOrCollapse);
         // appeler l'écouteur lorsque le bouton Réduire est cliqué
-        mCollapseButton.setOnClickListener(v -> expandOrCollapseInvitedPersons());
+        mCollapseButton.setOnClickListener(expandOrCollapse);
         // définir l'écouteur de clic sur l'ensemble de l'élément (afficher/masquer les détails de la réunion)
-        itemView.setOnClickListener(v -> expandOrCollapseInvitedPersons());
+        itemView.setOnClickListener(expandOrCollapse);
     }
 
     /**
      * Définir la réunion à afficher en tant qu'élément de la vue recycleur
-     * @param meeting la réunion à afficher comme élément de la vue recycleur
+     * Les textes sont calculés par le présenter hors du thread principal : ici, seulement des setText
+     * @param item la réunion à afficher comme élément de la vue recycleur
+     * @param isExpanded vrai si la liste des personnes de cette réunion est développée
+     */
+    public void setItem(MeetingsListItem item, boolean isExpanded) {
+        updateItem(item, isExpanded, true, true, true);
+    }
+
+    /**
+     * Mettre à jour une partie de l'élément seulement
+     * @param item la réunion à afficher comme élément de la vue recycleur
+     * @param isExpanded vrai si la liste des personnes de cette réunion est développée
+     * @param updateTexts mettre à jour le sujet, la date et le lieu
+     * @param updatePersons mettre à jour les personnes invitées
+     * @param updateExpansion mettre à jour l'état développé
      */
-    public void setMeeting(Meeting meeting) {
+    public void updateItem(MeetingsListItem item, boolean isExpanded,
+                           boolean updateTexts, boolean updatePersons, boolean updateExpansion) {
         // définir la réunion à afficher
-        mMeeting = meeting;
-        //mettre à jour l'interface utilisateur en conséquence (date, sujet, lieu)
-        mDateText.setText(DateEasy.localeSpecialStringFromInstant(meeting.getDate()));
-        mSubjectText.setText(meeting.getSubject());
-        mPlaceText.setText(meeting.getPlace().getName());
-        // mettre à jour les personnes invitées à la liste de réunion
-        setPersonsList();
+        mItem = item;
+        if (updateTexts) {
+            //mettre à jour l'interface utilisateur en conséquence (date, sujet, lieu)
+            mDateText.setText(item.getDateLabel());
+            mSubjectText.setText(item.getSubject());
+            mPlaceText.setText(item.getPlaceLabel());
+        }
+        if (updateExpansion) {
+            // développer ou réduire (la liste complète est mise à jour si elle devient visible)
+            setExpanded(isExpanded);
+        }
+        if (updatePersons) {
+            // mettre à jour les personnes invitées à la liste de réunion
+            setPersonsList();
+        }
     }
 
     /**
      * Gérer la vue de la carte extensible, qui affiche la liste des personnes
+     * @param isExpanded vrai pour afficher la liste des personnes
      */
-    private void expandOrCollapseInvitedPersons() {
-        // si la vue de la carte est réduite, développez-la
-        if (mPersonsFlattenListText.getVisibility() == View.GONE) {
-            // afficher la liste des personnes
-            mPersonsFlattenListText.setVisibility(View.VISIBLE);
+    private void setExpanded(boolean isExpanded) {
+        // si la réunion est développée, afficher la liste
+        if (isExpanded) {
+            // afficher la liste des personnes (seulement maintenant)
+            mPersonsListAdapter.setPersonIds(mItem.getSortedPersonIds());
+            mPersonsList.setVisibility(View.VISIBLE);
             // afficher le bouton Réduire
             mCollapseButton.setVisibility(View.VISIBLE);
             // masquer le bouton de développement
             mExpandButton.setVisibility(View.GONE);
         } else {
             // else collapse it
-            mPersonsFlattenListText.setVisibility(View.GONE);
+            mPersonsList.setVisibility(View.GONE);
             // masquer le bouton Réduire
             mCollapseButton.setVisibility(View.GONE);
             // afficher le bouton de développement
@@ -134,18 +190,18 @@ public class MeetingsListViewHolder extends RecyclerView.ViewHolder {
 
     /**
      * Définir la liste des personnes invitées à la réunion dans l'interface utilisateur
+     * Réduite, seul le résumé est affiché : la liste complète n'est mise à jour que si elle est visible
      */
     private void setPersonsList() {
-        // obtenir des personnes
-        Set<Person> persons = mMeeting.getPersons();
-        // créer un formateur de personnes
-        PersonsListFormatter personsListFormatter = new PersonsListFormatter(persons);
         // si la liste des personnes est vide, affiche un message
-        if(persons.isEmpty()) {
-            mPersonsFlattenListText.setText(mEmptyMeetingInvitedPersonsList);
+        if (mItem.getPersonsSummary() == null) {
+            mPersonsSummaryText.setText(mEmptyMeetingInvitedPersonsList);
         } else {
-            // sinon, afficher la liste des personnes
-            mPersonsFlattenListText.setText(personsListFormatter.format());
+            // sinon, afficher le résumé de la liste des personnes
+            mPersonsSummaryText.setText(mItem.getPersonsSummary());
+        }
+        if (mPersonsList.getVisibility() == View.VISIBLE) {
+            mPersonsListAdapter.setPersonIds(mItem.getSortedPersonIds());
         }
     }
 
@@ -23,8 +23,8 @@ public interface MeetingRegistrationDialogContract {
         // enregistrer les personnes invitées à la réunion
         void saveInvitedPersons(Set<Person> persons);
 
-        // enregistrer la réunion
-        void saveMeeting(String place, String subject);
+        // enregistrer la réunion (false si le lieu est déjà réservé sur ce créneau)
+        boolean saveMeeting(String place, String subject);
 
         // récupérer la date de la réunion
         Instant getMeetingDate();
@@ -54,6 +54,8 @@ public interface MeetingRegistrationDialogContract {
         void setErrorTopicIsEmpty();
         // Le lieu doit être défini.
         void setErrorPlaceIsEmpty();
+        // Le lieu est déjà réservé sur ce créneau.
+        void setErrorPlaceIsAlreadyBooked();
         //
         //La date doit être fixée.
         void setErrorDateIsEmpty();
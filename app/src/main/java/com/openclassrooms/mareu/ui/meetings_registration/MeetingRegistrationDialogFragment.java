@@ -372,6 +372,14 @@ public class MeetingRegistrationDialogFragment extends DialogFragment implements
         mPlaceTextInput.setError("Must be set");
     }
 
+    /**
+     * Le lieu est déjà réservé sur ce créneau (erreur)
+     */
+    @Override
+    public void setErrorPlaceIsAlreadyBooked() {
+        mPlaceTextInput.setError(getString(R.string.place_already_booked));
+    }
+
     /**
      * Déclencher la boîte de dialogue de sélection de date
      * @param meetingDate la date initiale à définir dans le sélecteur de date
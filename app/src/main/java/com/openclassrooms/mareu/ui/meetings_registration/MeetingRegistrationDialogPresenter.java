@@ -5,6 +5,7 @@ import androidx.annotation.NonNull;
 import com.openclassrooms.mareu.model.Person;
 import com.openclassrooms.mareu.ui.meetings_registration.MeetingRegistrationDialogContract;
 import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.DateParseResult;
 import com.openclassrooms.mareu.utils.PersonsListFormatter;
 
 import java.time.Instant;
@@ -61,9 +62,6 @@ public class MeetingRegistrationDialogPresenter implements MeetingRegistrationDi
     @Override
     public void onCreateMeetingRequest(String topic, String dateText, String place) {
 
-        // déclarer une date, afin de l'analyser à partir du texte
-        Instant meetingDate = null;
-
         // vérification d'erreur
         boolean isError = false;
 
@@ -83,14 +81,15 @@ public class MeetingRegistrationDialogPresenter implements MeetingRegistrationDi
             mView.setErrorTopicIsEmpty();
         }
 
+        // analyser la date
+        DateParseResult dateResult = DateEasy.parseDateTime(dateText);
         // vérifier si la date est vide
-        if (dateText.isEmpty()) {
+        if (dateResult.isEmpty()) {
             // la date est vide
             isError = true;
             // afficher l'erreur
             mView.setErrorDateIsEmpty();
-        // analyser la date
-        } else if ((meetingDate = DateEasy.parseDateTimeStringToInstant(dateText)) == null) {
+        } else if (dateResult.isError()) {
             // la date a un mauvais format
             isError = true;
             // afficher l'erreur
@@ -100,11 +99,15 @@ public class MeetingRegistrationDialogPresenter implements MeetingRegistrationDi
         // s'il n'y a pas d'erreur
         if (!isError) {
             // sauvegarder cette date
-            mModel.saveMeetingDate(meetingDate);
-            // enregistrer la réunion
-            mModel.saveMeeting(place, topic);
-            // retour à la liste des réunions
-            mView.returnBackToMeetings();
+            mModel.saveMeetingDate(dateResult.getInstant());
+            // enregistrer la réunion, si le lieu est libre sur ce créneau
+            if (mModel.saveMeeting(place, topic)) {
+                // retour à la liste des réunions
+                mView.returnBackToMeetings();
+            } else {
+                // le lieu est déjà réservé (erreur)
+                mView.setErrorPlaceIsAlreadyBooked();
+            }
         }
     }
 
@@ -115,7 +118,8 @@ public class MeetingRegistrationDialogPresenter implements MeetingRegistrationDi
     @Override
     public void onMeetingDatePickRequest(String meetingDateTextInput) {
         // enregistrer la date dans le model
-        mModel.saveMeetingDate(DateEasy.parseDateTimeOrDateOrReturnNow(meetingDateTextInput));
+        // (date et heure, ou date seule, ou maintenant si la saisie n'est pas une date)
+        mModel.saveMeetingDate(DateEasy.parseDateTimeOrDate(meetingDateTextInput).getInstantOr(DateEasy.now()));
         // mettre à jour la vue de la date de la réunion
         mView.updateMeetingDate(mModel.getMeetingDate());
         // déclencher (afficher) la boîte de dialogue de sélection de date
@@ -166,8 +170,9 @@ public class MeetingRegistrationDialogPresenter implements MeetingRegistrationDi
         mModel.saveInvitedPersons(persons);
         // créer un formateur de participants
         PersonsListFormatter personsListFormatter = new PersonsListFormatter(persons);
-        // mettre à jour la vue (liste des participants invités à la réunion) en conséquence
-        mView.updatePersonsInvitedToTheMeeting(personsListFormatter.format());
+        // mettre à jour la vue (résumé des participants invités à la réunion : nombre et premiers emails)
+        mView.updatePersonsInvitedToTheMeeting(
+                PersonsListFormatter.formatSummary(personsListFormatter.getIdsSortedByEmail()));
     }
 
     /**
@@ -5,11 +5,9 @@ import android.util.Log;
 import com.openclassrooms.mareu.BuildConfig;
 
 import java.time.Instant;
-import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.TimeZone;
 
 /**
@@ -27,6 +25,10 @@ public class DateEasy {
      */
     private static final String sDebugZone = "Europe/Paris";
     private static final ZoneId sLocaleZone = getZoneId();
+    // cached zone offset transitions, for the calendar computations without ZonedDateTime
+    private static final ZonedEpochCalendar sLocaleCalendar = new ZonedEpochCalendar(sLocaleZone);
+    // hand-written parser of the date (time) strings, without exceptions
+    private static final DateParser sLocaleParser = new DateParser(sLocaleCalendar);
     static ZoneId getZoneId() {
         ZoneId ret = null;
         // If we are in DEBUG mode ..
@@ -43,40 +45,58 @@ public class DateEasy {
         return ret;
     }
 
+    /**
+     * Get the calendar of the app TimeZone
+     * @return the calendar, shared (thread-safe)
+     */
+    public static ZonedEpochCalendar getLocaleCalendar() {
+        return sLocaleCalendar;
+    }
+
     /**
      * DateTime Formatters
      */
     // full date time formatter, used by pickers
     private static final DateTimeFormatter sDateTimeFormatter =
             DateTimeFormatter.ofPattern("dd/MM/yy HH:mm");
-    // full date formatter, used by pickers
-    private static final DateTimeFormatter sDateFormatter =
-            DateTimeFormatter.ofPattern("dd/MM/yy");
     // special formatter for list item, used by recycler view
     private static final DateTimeFormatter sSpecialFormatter =
             DateTimeFormatter.ofPattern("dd MMMM HH:mm");
 
+    /**
+     * Parse DateTime string (regarding full date time format "dd/MM/yy HH:mm")
+     * @param date the date string in full date time format
+     * @return the result : the corresponding Instant, or the reason of the failure (never throws)
+     */
+    public static DateParseResult parseDateTime(CharSequence date){
+        return sLocaleParser.parseDateTime(date);
+    }
+
+    /**
+     * Parse Date string (regarding full date format "dd/MM/yy"), at the start of the day
+     * @param date the date string in full date format
+     * @return the result : the corresponding Instant, or the reason of the failure (never throws)
+     */
+    public static DateParseResult parseDate(CharSequence date){
+        return sLocaleParser.parseDate(date);
+    }
+
+    /**
+     * Parse DateTime string, or Date string (the length of the string tells the format)
+     * @param date the date string in full date (or date time) format
+     * @return the result : the corresponding Instant, or the reason of the failure (never throws)
+     */
+    public static DateParseResult parseDateTimeOrDate(CharSequence date){
+        return sLocaleParser.parseDateTimeOrDate(date);
+    }
+
     /**
      * Parse DateTime string (regarding full date time formatter) to Instant
      * @param date the date string in full date time format
      * @return the corresponding Instant, or null, if the input String is in wrong format
      */
     public static Instant parseDateTimeStringToInstant(String date){
-        try {
-            // parse the "date" parameter, as ZonedDateTime
-            ZonedDateTime zdt = ZonedDateTime.parse(
-                    date,
-                    // take into account the full date time formatter, and the appropriate TimeZone
-                    sDateTimeFormatter.withZone(sLocaleZone)
-            );
-            // return the corresponding Instant
-            return zdt.toInstant();
-        } catch(DateTimeParseException e){
-            // always log the exception
-            Log.e(TAG, "DateTimeParseException", e);
-            // return null
-            return null;
-        }
+        return parseDateTime(date).getInstant();
     }
 
     /**
@@ -85,19 +105,7 @@ public class DateEasy {
      * @return the corresponding Instant, or null, if the input String is in wrong format
      */
     public static Instant parseDateStringToInstant(String date){
-        try {
-            // parse the "date" parameter, as ZonedDateTime
-            // take into account the full date formatter, and the appropriate TimeZone
-            LocalDate localDate = LocalDate.parse( date, sDateFormatter);
-            ZonedDateTime zdt = localDate.atStartOfDay(sLocaleZone);
-            // return the corresponding Instant
-            return zdt.toInstant();
-        } catch(DateTimeParseException e){
-            // always log the exception
-            Log.e(TAG, "DateTimeParseException", e);
-            // return null
-            return null;
-        }
+        return parseDate(date).getInstant();
     }
 
     /**
@@ -109,20 +117,11 @@ public class DateEasy {
      * @return the corresponding Instant, or now(), if the input String is in wrong format
      */
     public static Instant parseDateTimeOrDateOrReturnNow(String date){
-        Instant ret;
-        if (
-                // try to parse the "date" parameter, as date and time
-                (ret = DateEasy.parseDateTimeStringToInstant(date)) == null
-                &&
-                // if the first parsing failed, try to parse as date
-                (ret = DateEasy.parseDateStringToInstant(date)) == null
-        ) {
-            // if nothing matches, return now()
-            ret = DateEasy.now();
-        }
-        return ret;
+        DateParseResult result = parseDateTimeOrDate(date);
+        // if nothing matches, return now()
+        return result.isSuccess() ? result.getInstant() : DateEasy.now();
     }
-    
+
     /**
      * Return now as Instant
      */
@@ -169,24 +168,19 @@ public class DateEasy {
      * @return the corresponding component
      */
     public static int getZonedInstantYear(Instant date) {
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.getYear();
+        return sLocaleCalendar.getYear(date);
     }
     public static int getZonedInstantMonth(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.getMonthValue() - 1;
+        return sLocaleCalendar.getMonthValue(date) - 1;
     }
     public static int getZonedInstantDay(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.getDayOfMonth();
+        return sLocaleCalendar.getDayOfMonth(date);
     }
     public static int getZonedInstantHour(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.getHour();
+        return sLocaleCalendar.getHour(date);
     }
     public static int getZonedInstantMinute(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.getMinute();
+        return sLocaleCalendar.getMinute(date);
     }
 
     /**
@@ -205,8 +199,7 @@ public class DateEasy {
      * @return the resulting date
      */
     public static Instant endOfDay(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.withHour(23).withMinute(59).withSecond(59).toInstant();
+        return sLocaleCalendar.endOfDay(date);
     }
 
     /**
@@ -215,16 +208,14 @@ public class DateEasy {
      * @return the resulting date
      */
     public static Instant startOfDay(Instant date){
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.withHour(0).withMinute(0).withSecond(0).toInstant();
+        return sLocaleCalendar.startOfDay(date);
     }
 
     /**
      * Add days
      */
     public static Instant plusDays(Instant date, int days) {
-        ZonedDateTime zdt = date.atZone(sLocaleZone);
-        return zdt.plusDays(days).toInstant();
+        return sLocaleCalendar.plusDays(date, days);
     }
 
     /**
@@ -0,0 +1,116 @@
+package com.openclassrooms.mareu.utils;
+
+import java.time.Instant;
+
+/**
+ * Résultat de l'analyse d'une date saisie : la date, ou la raison de l'échec
+ * Les échecs sont des instances partagées : une saisie invalide ne lève aucune exception
+ * et n'alloue rien.
+ */
+public final class DateParseResult {
+
+    /**
+     * Status of the parsing
+     */
+    public enum Status {
+        // the date has been parsed
+        SUCCESS,
+        // the text is empty (no date)
+        EMPTY,
+        // the text does not match the format
+        WRONG_FORMAT,
+        // the text matches the format, but a field is out of range (e.g. month 13, 25:00)
+        INVALID_VALUE
+    }
+
+    /**
+     * Shared results, for the failures
+     */
+    static final DateParseResult EMPTY = new DateParseResult(Status.EMPTY, null);
+    static final DateParseResult WRONG_FORMAT = new DateParseResult(Status.WRONG_FORMAT, null);
+    static final DateParseResult INVALID_VALUE = new DateParseResult(Status.INVALID_VALUE, null);
+
+    /**
+     * The status
+     */
+    private final Status mStatus;
+
+    /**
+     * The parsed date (null if the parsing failed)
+     */
+    private final Instant mInstant;
+
+    /**
+     * Constructor
+     * @param status the status
+     * @param instant the parsed date
+     */
+    private DateParseResult(Status status, Instant instant) {
+        mStatus = status;
+        mInstant = instant;
+    }
+
+    /**
+     * Create a successful result
+     * @param instant the parsed date
+     * @return the result
+     */
+    static DateParseResult success(Instant instant) {
+        return new DateParseResult(Status.SUCCESS, instant);
+    }
+
+    /**
+     * Get the status
+     * @return the status
+     */
+    public Status getStatus() {
+        return mStatus;
+    }
+
+    /**
+     * Check if a date has been parsed
+     * @return true if the text is a valid date
+     */
+    public boolean isSuccess() {
+        return mStatus == Status.SUCCESS;
+    }
+
+    /**
+     * Check if the text was empty
+     * @return true if there was no date to parse
+     */
+    public boolean isEmpty() {
+        return mStatus == Status.EMPTY;
+    }
+
+    /**
+     * Check if the text is not a valid date (an empty text is not an error)
+     * @return true if the text is wrong
+     */
+    public boolean isError() {
+        return mStatus == Status.WRONG_FORMAT || mStatus == Status.INVALID_VALUE;
+    }
+
+    /**
+     * Get the parsed date
+     * @return the date, or null if the parsing failed
+     */
+    public Instant getInstant() {
+        return mInstant;
+    }
+
+    /**
+     * Get the parsed date, or a default one
+     * @param defaultInstant the date to return if the parsing failed
+     * @return the date
+     */
+    public Instant getInstantOr(Instant defaultInstant) {
+        return mInstant != null ? mInstant : defaultInstant;
+    }
+
+    @Override
+    public String toString() {
+        return mStatus == Status.SUCCESS ? mInstant.toString() : mStatus.name();
+    }
+
+}
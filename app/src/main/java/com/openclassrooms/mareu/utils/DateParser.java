@@ -0,0 +1,171 @@
+package com.openclassrooms.mareu.utils;
+
+import java.time.Instant;
+
+/**
+ * Analyseur des dates saisies, écrit à la main pour les formats "dd/MM/yy HH:mm" et "dd/MM/yy"
+ * Il accepte exactement les mêmes textes que les DateTimeFormatter de ces formats (résolution SMART :
+ * un jour 29 à 31 trop grand pour le mois est ramené au dernier jour du mois, 24:00 est minuit le
+ * lendemain), mais une saisie invalide ne lève pas d'exception : le résultat porte la raison de l'échec.
+ * Les années sur deux chiffres vont de 2000 à 2099.
+ */
+public class DateParser {
+
+    /**
+     * Length of "dd/MM/yy" and "dd/MM/yy HH:mm"
+     */
+    private static final int DATE_LENGTH = 8;
+    private static final int DATE_TIME_LENGTH = 14;
+
+    /**
+     * Base of the two digits years
+     */
+    private static final int BASE_YEAR = 2000;
+
+    /**
+     * Seconds per day, per hour, per minute
+     */
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    /**
+     * The calendar of the zone, to convert the local date times to instants
+     */
+    private final ZonedEpochCalendar mCalendar;
+
+    /**
+     * Constructor
+     * @param calendar the calendar of the zone of the dates
+     */
+    public DateParser(ZonedEpochCalendar calendar) {
+        mCalendar = calendar;
+    }
+
+    /**
+     * Parse a "dd/MM/yy HH:mm" text
+     * @param text the text
+     * @return the result : the date, or the reason of the failure
+     */
+    public DateParseResult parseDateTime(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return DateParseResult.EMPTY;
+        }
+        if (text.length() != DATE_TIME_LENGTH) {
+            return DateParseResult.WRONG_FORMAT;
+        }
+        return parse(text, true);
+    }
+
+    /**
+     * Parse a "dd/MM/yy" text, at the start of the day
+     * @param text the text
+     * @return the result : the date, or the reason of the failure
+     */
+    public DateParseResult parseDate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return DateParseResult.EMPTY;
+        }
+        if (text.length() != DATE_LENGTH) {
+            return DateParseResult.WRONG_FORMAT;
+        }
+        return parse(text, false);
+    }
+
+    /**
+     * Parse a "dd/MM/yy HH:mm" or a "dd/MM/yy" text, in a single pass (the length tells the format)
+     * @param text the text
+     * @return the result : the date, or the reason of the failure
+     */
+    public DateParseResult parseDateTimeOrDate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return DateParseResult.EMPTY;
+        }
+        if (text.length() == DATE_TIME_LENGTH) {
+            return parse(text, true);
+        }
+        if (text.length() == DATE_LENGTH) {
+            return parse(text, false);
+        }
+        return DateParseResult.WRONG_FORMAT;
+    }
+
+    /**
+     * Parse a text of the right length
+     * @param text the text
+     * @param withTime true for "dd/MM/yy HH:mm", false for "dd/MM/yy"
+     * @return the result
+     */
+    private DateParseResult parse(CharSequence text, boolean withTime) {
+        // check the format : the digits and the separators
+        int day = twoDigits(text, 0);
+        int month = twoDigits(text, 3);
+        int year = twoDigits(text, 6);
+        if (day < 0 || month < 0 || year < 0 || text.charAt(2) != '/' || text.charAt(5) != '/') {
+            return DateParseResult.WRONG_FORMAT;
+        }
+        int hour = 0;
+        int minute = 0;
+        if (withTime) {
+            hour = twoDigits(text, 9);
+            minute = twoDigits(text, 12);
+            if (hour < 0 || minute < 0 || text.charAt(8) != ' ' || text.charAt(11) != ':') {
+                return DateParseResult.WRONG_FORMAT;
+            }
+        }
+
+        // check the values
+        if (month < 1 || month > 12 || day < 1 || day > 31 || minute > 59
+                || hour > 24 || (hour == 24 && minute != 0)) {
+            return DateParseResult.INVALID_VALUE;
+        }
+        year += BASE_YEAR;
+        // a day too big for the month is the last day of the month
+        day = Math.min(day, lengthOfMonth(year, month));
+
+        long epochDay = ZonedEpochCalendar.daysFromCivil(year, month, day);
+        if (!withTime) {
+            return DateParseResult.success(Instant.ofEpochSecond(mCalendar.startOfLocalDayToEpochSecond(epochDay)));
+        }
+        // 24:00 is the midnight of the next day
+        long localEpochSecond = epochDay * SECONDS_PER_DAY + hour * SECONDS_PER_HOUR + minute * SECONDS_PER_MINUTE;
+        return DateParseResult.success(Instant.ofEpochSecond(mCalendar.localToEpochSecond(localEpochSecond)));
+    }
+
+    /**
+     * Read two ascii digits
+     * @param text the text
+     * @param index the index of the first digit
+     * @return the value, or -1 if not two digits
+     */
+    private static int twoDigits(CharSequence text, int index) {
+        int tens = text.charAt(index) - '0';
+        int units = text.charAt(index + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+
+    /**
+     * Get the number of days of a month
+     * @param year the year
+     * @param month the month, from 1 to 12
+     * @return the number of days
+     */
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean isLeap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return isLeap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+}
@@ -2,15 +2,24 @@ package com.openclassrooms.mareu.utils;
 
 import com.google.common.base.Joiner;
 import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
 
+import java.util.Arrays;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * Une classe simple pour formater une liste de personnes
+ * Pour les longues listes (des milliers d'invités), ne formater que le résumé (nombre et premiers emails),
+ * et afficher la liste complète dans une vue recycleur, qui ne formate que les emails visibles.
  */
 public class PersonsListFormatter {
 
+    /**
+     * Number of emails shown in the summary
+     */
+    public static final int SUMMARY_EMAILS_COUNT = 3;
+
     /**
      * The persons list
      */
@@ -40,4 +49,53 @@ public class PersonsListFormatter {
         return "Persons invited list:\n\n" + Joiner.on("\n").join(emailsSet);
     }
 
+    /**
+     * Get the ids of the persons (see {@link PersonRegistry}), sorted by email
+     * The full list is then displayed lazily, by resolving the emails of the visible rows only
+     * @return the sorted ids
+     */
+    public int[] getIdsSortedByEmail() {
+        PersonRegistry registry = PersonRegistry.getInstance();
+        int size = mPersonsSet.size();
+        int[] ids = new int[size];
+        String[] emails = new String[size];
+        Integer[] order = new Integer[size];
+        int index = 0;
+        for (Person person : mPersonsSet) {
+            ids[index] = registry.getId(person);
+            emails[index] = person.getEmail();
+            order[index] = index;
+            index++;
+        }
+        // sort the positions by email, then pick the ids in that order
+        Arrays.sort(order, (i1, i2) -> emails[i1].compareTo(emails[i2]));
+        int[] ret = new int[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = ids[order[i]];
+        }
+        return ret;
+    }
+
+    /**
+     * Format the summary of a persons list : the number of persons, and the first emails
+     * @param sortedIds the ids of the persons, sorted by email
+     * @return the summary, e.g. "1250 persons invited: a@b.fr, c@d.fr, e@f.fr, …"
+     */
+    public static String formatSummary(int[] sortedIds) {
+        PersonRegistry registry = PersonRegistry.getInstance();
+        StringBuilder ret = new StringBuilder();
+        ret.append(sortedIds.length).append(sortedIds.length == 1 ? " person invited: " : " persons invited: ");
+        int count = Math.min(sortedIds.length, SUMMARY_EMAILS_COUNT);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                ret.append(", ");
+            }
+            ret.append(registry.getPerson(sortedIds[i]).getEmail());
+        }
+        if (sortedIds.length > count) {
+            ret.append(", …");
+        }
+        return ret.toString();
+    }
+
 }
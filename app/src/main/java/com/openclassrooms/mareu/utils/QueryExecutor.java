@@ -0,0 +1,192 @@
+package com.openclassrooms.mareu.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteur de requêtes hors du thread principal
+ * Toutes les tâches sont exécutées dans l'ordre, sur un unique thread de travail, et les résultats
+ * sont postés sur le thread principal. Une requête "latest" remplace les requêtes précédentes :
+ * celles qui n'ont pas démarré sont annulées, et les résultats de celles en cours sont ignorés.
+ * Une requête "latest" peut être différée d'une période de calme : plusieurs demandes rapprochées
+ * (saisie rapide, changements de plusieurs filtres) ne produisent alors qu'une seule requête.
+ * Une requête qui échoue ne bloque pas les suivantes : son exception est postée au callback
+ * (journalisée par défaut), et celle d'une tâche sans callback est journalisée.
+ */
+public class QueryExecutor {
+
+    /**
+     * Set logger TAG
+     */
+    private static final String TAG = "QueryExecutor";
+
+    /**
+     * A query, run on the worker thread
+     * @param <T> the result type
+     */
+    public interface Query<T> {
+        T run();
+    }
+
+    /**
+     * A callback, run on the main thread with the result of a query
+     * @param <T> the result type
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        /**
+         * Called on the main thread instead of onResult, if the query threw an exception
+         * @param e the exception
+         */
+        default void onError(RuntimeException e) {
+            Log.e(TAG, "Query failed", e);
+        }
+    }
+
+    /**
+     * The single worker thread (tasks are run in submission order)
+     */
+    private final ScheduledExecutorService mWorker;
+
+    /**
+     * The executor posting to the main thread
+     */
+    private final Executor mMainThread;
+
+    /**
+     * Generation of the latest query, incremented each time a query supersedes the previous one
+     */
+    private final AtomicInteger mLatestGeneration = new AtomicInteger();
+
+    /**
+     * The latest query, not started yet or still running
+     */
+    private Future<?> mLatestQuery;
+
+    /**
+     * True once the executor is shut down : no result is posted anymore
+     */
+    private volatile boolean mShutdown;
+
+    /**
+     * Constructor, posting results to the Android main thread
+     */
+    public QueryExecutor() {
+        this(Executors.newSingleThreadScheduledExecutor(), new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * Constructor
+     * @param worker the worker thread
+     * @param mainThread the executor posting to the main thread
+     */
+    public QueryExecutor(ScheduledExecutorService worker, Executor mainThread) {
+        mWorker = worker;
+        mMainThread = mainThread;
+    }
+
+    /**
+     * Run a task on the worker thread, which is never cancelled (e.g. to update the model)
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        mWorker.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Task failed", e);
+            }
+        });
+    }
+
+    /**
+     * Run a query on the worker thread, which is never cancelled, and post its result
+     * @param query the query
+     * @param callback the callback, called on the main thread
+     * @param <T> the result type
+     */
+    public <T> void execute(Query<T> query, Callback<T> callback) {
+        mWorker.execute(() -> {
+            Runnable post = run(query, callback);
+            mMainThread.execute(() -> {
+                if (!mShutdown) {
+                    post.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Run a query on the worker thread, superseding the previous "latest" query :
+     * the result is posted only if no other query has been submitted in the meantime
+     * @param query the query
+     * @param callback the callback, called on the main thread
+     * @param <T> the result type
+     */
+    public <T> void submitLatest(Query<T> query, Callback<T> callback) {
+        submitLatest(0, query, callback);
+    }
+
+    /**
+     * Run a query on the worker thread after a quiet period, superseding the previous "latest" query :
+     * if another query is submitted during the quiet period, this one is never run (debounce)
+     * @param quietPeriodMillis the quiet period, in milliseconds
+     * @param query the query
+     * @param callback the callback, called on the main thread
+     * @param <T> the result type
+     */
+    public synchronized <T> void submitLatest(long quietPeriodMillis, Query<T> query, Callback<T> callback) {
+        // drop the previous query, if not started yet
+        if (mLatestQuery != null) {
+            mLatestQuery.cancel(false);
+        }
+        final int generation = mLatestGeneration.incrementAndGet();
+        mLatestQuery = mWorker.schedule(() -> {
+            // superseded before running : do nothing
+            if (generation != mLatestGeneration.get()) {
+                return;
+            }
+            Runnable post = run(query, callback);
+            mMainThread.execute(() -> {
+                // superseded while running : drop the stale result
+                if (!mShutdown && generation == mLatestGeneration.get()) {
+                    post.run();
+                }
+            });
+        }, quietPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a query on the worker thread
+     * @param query the query
+     * @param callback the callback
+     * @param <T> the result type
+     * @return the call of the callback to post : with the result, or with the exception thrown by the query
+     */
+    private static <T> Runnable run(Query<T> query, Callback<T> callback) {
+        try {
+            T result = query.run();
+            return () -> callback.onResult(result);
+        } catch (RuntimeException e) {
+            return () -> callback.onError(e);
+        }
+    }
+
+    /**
+     * Stop the worker thread, and drop the pending results
+     */
+    public void shutdown() {
+        mShutdown = true;
+        mWorker.shutdownNow();
+    }
+
+}
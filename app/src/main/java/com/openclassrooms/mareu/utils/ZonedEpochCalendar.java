@@ -0,0 +1,429 @@
+package com.openclassrooms.mareu.utils;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculs de calendrier sur des secondes epoch, dans un fuseau horaire donné
+ * Les transitions de décalage du fuseau (heure d'été, heure d'hiver) sont mises en cache dans des
+ * tableaux, une fois pour toutes : les jours, heures, débuts et fins de journée sont ensuite calculés
+ * avec des entiers, sans allouer de ZonedDateTime, avec les mêmes résultats que ZonedDateTime
+ * (y compris les jours de changement d'heure). Hors de la plage mise en cache, ZonedDateTime est utilisé.
+ */
+public class ZonedEpochCalendar {
+
+    /**
+     * Seconds per day, per hour, per minute
+     */
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    /**
+     * Default cached range : from 1970-01-01 to 2100-01-01 (UTC)
+     */
+    private static final long DEFAULT_FROM_EPOCH_SECOND = 0L;
+    private static final long DEFAULT_TO_EPOCH_SECOND = 4102444800L;
+
+    /**
+     * Margin kept at both ends of the cached range, so a local date time near the bounds is resolved safely
+     */
+    private static final long MARGIN_SECONDS = 2L * SECONDS_PER_DAY;
+
+    /**
+     * The zone
+     */
+    private final ZoneId mZone;
+
+    /**
+     * Bounds of the fast path (inclusive)
+     */
+    private final long mMinEpochSecond;
+    private final long mMaxEpochSecond;
+
+    /**
+     * Offset before the first cached transition
+     */
+    private final int mInitialOffset;
+
+    /**
+     * The cached transitions : instant, offsets before and after
+     */
+    private final long[] mTransitionEpochSeconds;
+    private final int[] mOffsetsBefore;
+    private final int[] mOffsetsAfter;
+
+    /**
+     * Local date time (as local epoch seconds) where each transition starts its gap or overlap
+     */
+    private final long[] mTransitionLocalStarts;
+
+    /**
+     * Constructor, caching the transitions from 1970 to 2100
+     * @param zone the zone
+     */
+    public ZonedEpochCalendar(ZoneId zone) {
+        this(zone, DEFAULT_FROM_EPOCH_SECOND, DEFAULT_TO_EPOCH_SECOND);
+    }
+
+    /**
+     * Constructor
+     * @param zone the zone
+     * @param fromEpochSecond start of the cached range
+     * @param toEpochSecond end of the cached range
+     */
+    public ZonedEpochCalendar(ZoneId zone, long fromEpochSecond, long toEpochSecond) {
+        mZone = zone;
+        mMinEpochSecond = fromEpochSecond + MARGIN_SECONDS;
+        mMaxEpochSecond = toEpochSecond - MARGIN_SECONDS;
+        ZoneRules rules = zone.getRules();
+        Instant from = Instant.ofEpochSecond(fromEpochSecond);
+        mInitialOffset = rules.getOffset(from).getTotalSeconds();
+        // walk the transitions once
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition = rules.nextTransition(from);
+        while (transition != null && transition.toEpochSecond() < toEpochSecond) {
+            transitions.add(transition);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        int size = transitions.size();
+        mTransitionEpochSeconds = new long[size];
+        mOffsetsBefore = new int[size];
+        mOffsetsAfter = new int[size];
+        mTransitionLocalStarts = new long[size];
+        for (int i = 0; i < size; i++) {
+            transition = transitions.get(i);
+            mTransitionEpochSeconds[i] = transition.toEpochSecond();
+            mOffsetsBefore[i] = transition.getOffsetBefore().getTotalSeconds();
+            mOffsetsAfter[i] = transition.getOffsetAfter().getTotalSeconds();
+            mTransitionLocalStarts[i] = mTransitionEpochSeconds[i] + Math.min(mOffsetsBefore[i], mOffsetsAfter[i]);
+        }
+    }
+
+    /**
+     * Check if an instant is within the cached range
+     * @param epochSecond the instant
+     * @return true if the fast path applies
+     */
+    private boolean covers(long epochSecond) {
+        return epochSecond >= mMinEpochSecond && epochSecond <= mMaxEpochSecond;
+    }
+
+    /**
+     * Get the offset of the zone at an instant, thanks to a binary search in the transitions
+     * @param epochSecond the instant
+     * @return the offset, in seconds
+     */
+    private int getOffset(long epochSecond) {
+        // index of the last transition at or before the instant
+        int low = 0;
+        int high = mTransitionEpochSeconds.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (mTransitionEpochSeconds[middle] <= epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high < 0 ? mInitialOffset : mOffsetsAfter[high];
+    }
+
+    /**
+     * Resolve a local date time to an instant, as ZonedDateTime.ofLocal does :
+     * - in a gap (spring forward), the local time is shifted by the length of the gap
+     * - in an overlap (fall back), the preferred offset is kept if valid, else the earlier offset
+     * @param localEpochSecond the local date time, as local epoch seconds
+     * @param preferredOffset the preferred offset, in seconds
+     * @return the instant, as epoch seconds
+     */
+    private long resolveLocal(long localEpochSecond, int preferredOffset) {
+        int index = findLocalTransition(localEpochSecond);
+        if (index < 0) {
+            return localEpochSecond - mInitialOffset;
+        }
+        int before = mOffsetsBefore[index];
+        int after = mOffsetsAfter[index];
+        if (localEpochSecond < mTransitionEpochSeconds[index] + Math.max(before, after)) {
+            if (after > before) {
+                // gap : shifted forward, with the offset after
+                return localEpochSecond - before;
+            }
+            // overlap : both offsets are valid
+            return localEpochSecond - (preferredOffset == after ? after : before);
+        }
+        return localEpochSecond - after;
+    }
+
+    /**
+     * Find the last transition whose gap or overlap starts at or before a local date time
+     * @param localEpochSecond the local date time, as local epoch seconds
+     * @return the index of the transition, or -1 if none
+     */
+    private int findLocalTransition(long localEpochSecond) {
+        int low = 0;
+        int high = mTransitionLocalStarts.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (mTransitionLocalStarts[middle] <= localEpochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Get the local date time of an instant, as local epoch seconds
+     * @param epochSecond the instant
+     * @return the local epoch seconds
+     */
+    private long toLocal(long epochSecond) {
+        return epochSecond + getOffset(epochSecond);
+    }
+
+    /**
+     * Set one field of the local time, then resolve the local date time (as ZonedDateTime.withXxx does)
+     * @param epochSecond the instant
+     * @param unitSeconds the field unit : 3600 for hours, 60 for minutes, 1 for seconds
+     * @param rangeSeconds the field range : 86400 for hours, 3600 for minutes, 60 for seconds
+     * @param value the new value of the field
+     * @return the resulting instant
+     */
+    private long withTimeField(long epochSecond, int unitSeconds, int rangeSeconds, int value) {
+        int offset = getOffset(epochSecond);
+        long local = epochSecond + offset;
+        int current = (int) (Math.floorMod(local, (long) rangeSeconds) / unitSeconds);
+        return resolveLocal(local + (long) (value - current) * unitSeconds, offset);
+    }
+
+    /**
+     * Set the local time to hh:mm:ss, field by field (the sub-second part is kept by the caller)
+     * @param epochSecond the instant
+     * @param hour the hour
+     * @param minute the minute
+     * @param second the second
+     * @return the resulting instant
+     */
+    private long withTime(long epochSecond, int hour, int minute, int second) {
+        long ret = withTimeField(epochSecond, SECONDS_PER_HOUR, SECONDS_PER_DAY, hour);
+        ret = withTimeField(ret, SECONDS_PER_MINUTE, SECONDS_PER_HOUR, minute);
+        return withTimeField(ret, 1, SECONDS_PER_MINUTE, second);
+    }
+
+    /**
+     * Set the local time to 00:00:00, keeping the nanoseconds
+     * @param date the date
+     * @return the resulting date
+     */
+    public Instant startOfDay(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).withHour(0).withMinute(0).withSecond(0).toInstant();
+        }
+        return Instant.ofEpochSecond(withTime(date.getEpochSecond(), 0, 0, 0), date.getNano());
+    }
+
+    /**
+     * Set the local time to 23:59:59, keeping the nanoseconds
+     * @param date the date
+     * @return the resulting date
+     */
+    public Instant endOfDay(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).withHour(23).withMinute(59).withSecond(59).toInstant();
+        }
+        return Instant.ofEpochSecond(withTime(date.getEpochSecond(), 23, 59, 59), date.getNano());
+    }
+
+    /**
+     * Add days to the local date, keeping the local time
+     * @param date the date
+     * @param days the number of days
+     * @return the resulting date
+     */
+    public Instant plusDays(Instant date, int days) {
+        long epochSecond = date.getEpochSecond();
+        long shift = (long) days * SECONDS_PER_DAY;
+        if (!covers(epochSecond) || !covers(epochSecond + shift)) {
+            return date.atZone(mZone).plusDays(days).toInstant();
+        }
+        int offset = getOffset(epochSecond);
+        return Instant.ofEpochSecond(resolveLocal(epochSecond + offset + shift, offset), date.getNano());
+    }
+
+    /**
+     * Get the instant of a local date time, as LocalDateTime.atZone does
+     * (in a gap the time is shifted forward, in an overlap the earlier offset is kept)
+     * @param localEpochSecond the local date time, as local epoch seconds
+     * @return the instant, as epoch seconds
+     */
+    public long localToEpochSecond(long localEpochSecond) {
+        if (!covers(localEpochSecond)) {
+            return LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC).atZone(mZone).toEpochSecond();
+        }
+        return resolveLocal(localEpochSecond, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Get the instant where a local date starts, as LocalDate.atStartOfDay does
+     * (if midnight is in a gap, the day starts at the end of the gap)
+     * @param epochDay the local date, as days since 1970-01-01
+     * @return the instant, as epoch seconds
+     */
+    public long startOfLocalDayToEpochSecond(long epochDay) {
+        long localEpochSecond = epochDay * SECONDS_PER_DAY;
+        if (!covers(localEpochSecond)) {
+            return LocalDate.ofEpochDay(epochDay).atStartOfDay(mZone).toEpochSecond();
+        }
+        int index = findLocalTransition(localEpochSecond);
+        if (index >= 0 && mOffsetsAfter[index] > mOffsetsBefore[index]
+                && localEpochSecond < mTransitionEpochSeconds[index] + mOffsetsAfter[index]) {
+            // midnight does not exist : the day starts with the transition
+            return mTransitionEpochSeconds[index];
+        }
+        return resolveLocal(localEpochSecond, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Get the local year
+     * @param date the date
+     * @return the year
+     */
+    public int getYear(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).getYear();
+        }
+        return (int) civilFromDays(Math.floorDiv(toLocal(date.getEpochSecond()), SECONDS_PER_DAY), 0);
+    }
+
+    /**
+     * Get the local month
+     * @param date the date
+     * @return the month, from 1 to 12
+     */
+    public int getMonthValue(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).getMonthValue();
+        }
+        return (int) civilFromDays(Math.floorDiv(toLocal(date.getEpochSecond()), SECONDS_PER_DAY), 1);
+    }
+
+    /**
+     * Get the local day of month
+     * @param date the date
+     * @return the day of month, from 1 to 31
+     */
+    public int getDayOfMonth(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).getDayOfMonth();
+        }
+        return (int) civilFromDays(Math.floorDiv(toLocal(date.getEpochSecond()), SECONDS_PER_DAY), 2);
+    }
+
+    /**
+     * Get the local date, as days since 1970-01-01
+     * @param date the date
+     * @return the local epoch day
+     */
+    public long getEpochDay(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).toLocalDate().toEpochDay();
+        }
+        return Math.floorDiv(toLocal(date.getEpochSecond()), SECONDS_PER_DAY);
+    }
+
+    /**
+     * Get the local day of week
+     * @param date the date
+     * @return the day of week
+     */
+    public DayOfWeek getDayOfWeek(Instant date) {
+        return dayOfWeek(getEpochDay(date));
+    }
+
+    /**
+     * Get the day of week of a local date (1970-01-01 is a thursday)
+     * @param epochDay the local date, as days since 1970-01-01
+     * @return the day of week
+     */
+    public static DayOfWeek dayOfWeek(long epochDay) {
+        return DayOfWeek.of((int) Math.floorMod(epochDay + 3, 7L) + 1);
+    }
+
+    /**
+     * Get the local hour
+     * @param date the date
+     * @return the hour, from 0 to 23
+     */
+    public int getHour(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).getHour();
+        }
+        return (int) (Math.floorMod(toLocal(date.getEpochSecond()), (long) SECONDS_PER_DAY) / SECONDS_PER_HOUR);
+    }
+
+    /**
+     * Get the local minute
+     * @param date the date
+     * @return the minute, from 0 to 59
+     */
+    public int getMinute(Instant date) {
+        if (!covers(date.getEpochSecond())) {
+            return date.atZone(mZone).getMinute();
+        }
+        return (int) (Math.floorMod(toLocal(date.getEpochSecond()), (long) SECONDS_PER_HOUR) / SECONDS_PER_MINUTE);
+    }
+
+    /**
+     * Convert a proleptic gregorian date to a count of days since 1970-01-01
+     * (H. Hinnant's "days from civil" algorithm, on primitives only)
+     * @param year the year
+     * @param month the month, from 1 to 12
+     * @param day the day of month, from 1 to 31
+     * @return the days since 1970-01-01
+     */
+    public static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        // months start in march, so the leap day is the last day of the year
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Convert a count of days since 1970-01-01 to a field of the proleptic gregorian date
+     * (H. Hinnant's "civil from days" algorithm, on primitives only)
+     * @param epochDay the days since 1970-01-01
+     * @param field 0 for the year, 1 for the month (1 to 12), 2 for the day of month
+     * @return the field value
+     */
+    public static long civilFromDays(long epochDay, int field) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // months start in march, so the leap day is the last day of the year
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        if (field == 2) {
+            return dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        }
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        if (field == 1) {
+            return month;
+        }
+        return yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    }
+
+}
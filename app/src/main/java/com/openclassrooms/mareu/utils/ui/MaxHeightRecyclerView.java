@@ -0,0 +1,60 @@
+package com.openclassrooms.mareu.utils.ui;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Vue recycleur dont la hauteur s'adapte au contenu, dans la limite d'une hauteur maximale
+ * Au-delà, la liste défile : le gestionnaire de mise en page ne crée alors que les lignes visibles,
+ * au lieu de toutes les lignes comme le ferait une hauteur wrap_content sans limite.
+ */
+public class MaxHeightRecyclerView extends RecyclerView {
+
+    /**
+     * The maximum height, in pixels (0 means no limit)
+     */
+    private int mMaxHeight;
+
+    public MaxHeightRecyclerView(@NonNull Context context) {
+        super(context);
+    }
+
+    public MaxHeightRecyclerView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public MaxHeightRecyclerView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    /**
+     * Set the maximum height
+     * @param maxHeight the maximum height, in pixels
+     */
+    public void setMaxHeight(int maxHeight) {
+        if (mMaxHeight != maxHeight) {
+            mMaxHeight = maxHeight;
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthSpec, int heightSpec) {
+        if (mMaxHeight > 0) {
+            // never higher than the maximum height, nor than what the parent allows
+            int mode = View.MeasureSpec.getMode(heightSpec);
+            int size = View.MeasureSpec.getSize(heightSpec);
+            if (mode == View.MeasureSpec.UNSPECIFIED || size > mMaxHeight) {
+                heightSpec = View.MeasureSpec.makeMeasureSpec(mMaxHeight,
+                        mode == View.MeasureSpec.EXACTLY ? View.MeasureSpec.EXACTLY : View.MeasureSpec.AT_MOST);
+            }
+        }
+        super.onMeasure(widthSpec, heightSpec);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.mareu.utils.ui;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.openclassrooms.mareu.R;
+import com.openclassrooms.mareu.model.PersonRegistry;
+
+import java.util.Arrays;
+
+/**
+ * Adaptateur d'une liste de personnes invitées
+ * La liste ne contient que les identifiants des personnes (voir PersonRegistry) : seuls les emails
+ * des lignes visibles sont lus et affichés, quel que soit le nombre d'invités.
+ */
+public class PersonsListAdapter extends RecyclerView.Adapter<PersonsListAdapter.ViewHolder> {
+
+    /**
+     * No person
+     */
+    private static final int[] NO_PERSON_IDS = new int[0];
+
+    /**
+     * The ids of the persons to display, in display order
+     */
+    private int[] mPersonIds = NO_PERSON_IDS;
+
+    /**
+     * Set the persons to display
+     * @param personIds the ids of the persons, in display order (must not be modified afterwards)
+     */
+    public void setPersonIds(int[] personIds) {
+        if (Arrays.equals(mPersonIds, personIds)) {
+            return;
+        }
+        mPersonIds = personIds;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.persons_list_item, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        // resolve the email of this row only
+        holder.mEmailText.setText(PersonRegistry.getInstance().getPerson(mPersonIds[position]).getEmail());
+    }
+
+    @Override
+    public int getItemCount() {
+        return mPersonIds.length;
+    }
+
+    /**
+     * A row : the email of a person
+     */
+    static class ViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView mEmailText;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            mEmailText = (TextView) itemView;
+        }
+    }
+
+}
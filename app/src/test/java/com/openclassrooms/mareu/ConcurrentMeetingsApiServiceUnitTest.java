@@ -0,0 +1,258 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.PersistentSortedList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class to test the ConcurrentMeetingsApiService, and its persistent indexes
+ */
+public class ConcurrentMeetingsApiServiceUnitTest {
+
+    private static final Instant ORIGIN = Instant.parse("2030-03-04T08:00:00Z");
+
+    /**
+     * Test the persistent list matches a sorted set, and keeps its previous versions unchanged
+     */
+    @Test
+    public void persistentListMatchesSortedSet() {
+        Random random = new Random(3);
+        TreeSet<Integer> reference = new TreeSet<>();
+        PersistentSortedList<Integer> list = PersistentSortedList.empty(Comparator.<Integer>naturalOrder());
+        for (int i = 0; i < 5000; i++) {
+            Integer value = random.nextInt(1000);
+            PersistentSortedList<Integer> previous = list;
+            List<Integer> previousContent = new ArrayList<>(previous);
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(value), (list = list.with(value)) != previous);
+            } else {
+                assertEquals(reference.remove(value), (list = list.without(value)) != previous);
+            }
+            // the previous version is never modified
+            assertEquals(previousContent, previous);
+        }
+        assertEquals(new ArrayList<>(reference), list);
+        assertEquals(reference.headSet(500).size(), list.lowerCount(500));
+        assertEquals(reference.headSet(500, true).size(), list.lowerOrEqualCount(500));
+        assertEquals(new ArrayList<>(reference.subSet(100, 200)),
+                list.subList(list.lowerCount(100), list.lowerCount(200)));
+        List<Integer> range = list.subList(3, reference.size() / 2);
+        assertEquals(new ArrayList<>(reference).subList(3, reference.size() / 2), new ArrayList<>(range));
+        assertEquals(list.get(5), range.subList(2, 4).get(0));
+        assertEquals(new ArrayList<>(reference), PersistentSortedList.fromSorted(Comparator.<Integer>naturalOrder(),
+                new ArrayList<>(reference)));
+    }
+
+    /**
+     * Test the concurrent service answers as the indexed one, after random changes
+     */
+    @Test
+    public void matchesIndexedService() {
+        Random random = new Random(11);
+        MeetingsApiService reference = new IndexedMeetingsApiService();
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        Place[] places = {new Place("Salle A"), new Place("salle a"), new Place("Salle B"), new Place("Cafétéria")};
+
+        for (int i = 0; i < 3000; i++) {
+            Meeting meeting = randomMeeting(random, places);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(reference.addMeeting(meeting), service.addMeeting(meeting));
+                    break;
+                case 2:
+                    List<Meeting> registered = reference.getMeetings();
+                    if (!registered.isEmpty()) {
+                        Meeting deleted = registered.get(random.nextInt(registered.size()));
+                        reference.deleteMeeting(deleted);
+                        service.deleteMeeting(deleted);
+                    }
+                    break;
+                default:
+                    registered = reference.getMeetings();
+                    if (!registered.isEmpty()) {
+                        Meeting previous = registered.get(random.nextInt(registered.size()));
+                        assertEquals(reference.updateMeeting(previous, meeting), service.updateMeeting(previous, meeting));
+                    }
+            }
+        }
+        List<Meeting> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(randomMeeting(random, places));
+        }
+        assertEquals(reference.addMeetings(batch), service.addMeetings(batch));
+        assertEquals(reference.deleteMeetings(batch.subList(0, 250)), service.deleteMeetings(batch.subList(0, 250)));
+
+        assertEquals(reference.getMeetings(), service.getMeetings());
+        assertEquals(reference.getVersion(), service.getVersion());
+        Instant from = ORIGIN.plus(Duration.ofDays(2));
+        Instant to = ORIGIN.plus(Duration.ofDays(5));
+        assertEquals(list(reference.getMeetingsBetween(from, to)), list(service.getMeetingsBetween(from, to)));
+        assertEquals(list(reference.getMeetingsBetween(null, to)), list(service.getMeetingsBetween(null, to)));
+        for (Place place : places) {
+            assertEquals(list(reference.getMeetingsBetween(place, from, null)),
+                    list(service.getMeetingsBetween(place, from, null)));
+            for (int i = 0; i < 50; i++) {
+                Instant start = ORIGIN.plus(Duration.ofMinutes(15 * random.nextInt(960)));
+                Instant end = start.plus(Duration.ofMinutes(15 * (1 + random.nextInt(8))));
+                assertEquals(reference.getOverlappingMeetings(place, start, end),
+                        service.getOverlappingMeetings(place, start, end));
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            Person person = new Person("concurrent" + i + "@entreprise.fr");
+            assertEquals(list(reference.getMeetingsOf(person, from, to)), list(service.getMeetingsOf(person, from, to)));
+            assertEquals(list(reference.getMeetingsOf(person, null, null)),
+                    list(service.getMeetingsOf(person, null, null)));
+        }
+        for (String prefix : new String[]{"", "s", "SALLE A", "caf", "x"}) {
+            assertEquals(new HashSet<>(reference.getPlacesStartingWith(prefix)),
+                    new HashSet<>(service.getPlacesStartingWith(prefix)));
+        }
+        assertTrue(service.getMeetingsOf(new Person("unknown.concurrent@entreprise.fr"), null, null).isEmpty());
+    }
+
+    /**
+     * Test a registered meeting whose persons changed is still deleted from every index, in both services
+     */
+    @Test
+    public void personsChangedOnceRegistered() {
+        for (MeetingsApiService service : new MeetingsApiService[] {
+                new IndexedMeetingsApiService(), new ConcurrentMeetingsApiService()}) {
+            Person invited = new Person("invited.changed@entreprise.fr");
+            Person added = new Person("added.changed@entreprise.fr");
+            Meeting meeting = new Meeting(ORIGIN, "Réunion de service", new Place("Salle A"), invited);
+            service.addMeeting(meeting);
+            // a person never indexed yet, invited to the registered meeting
+            meeting.addPerson(added);
+
+            // the meeting stays indexed with its previous persons, and is deleted from their indexes
+            assertTrue(service.getMeetingsOf(added, null, null).isEmpty());
+            service.deleteMeeting(meeting);
+            assertTrue(service.getMeetings().isEmpty());
+            assertTrue(service.getMeetingsOf(invited, null, null).isEmpty());
+            assertTrue(service.getMeetingsOf(added, null, null).isEmpty());
+
+            // an update indexes the persons of the updated meeting
+            service.addMeeting(meeting);
+            Meeting updated = new Meeting(ORIGIN, "Réunion de service", new Place("Salle A"), invited);
+            assertTrue(service.updateMeeting(meeting, updated));
+            assertEquals(1, service.getMeetingsOf(invited, null, null).size());
+            assertTrue(service.getMeetingsOf(added, null, null).isEmpty());
+        }
+    }
+
+    /**
+     * Test a list obtained by a reader is an immutable snapshot
+     */
+    @Test
+    public void readersGetSnapshots() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        Place place = new Place("Salle A");
+        Meeting one = new Meeting(ORIGIN, "Réunion de service", place);
+        Meeting two = new Meeting(ORIGIN.plus(Duration.ofHours(2)), "Atelier", place);
+        service.addMeeting(one);
+        List<Meeting> meetings = service.getMeetings();
+        Collection<Meeting> between = service.getMeetingsBetween(place, null, null);
+
+        service.addMeeting(two);
+        service.deleteMeeting(one);
+        assertEquals(1, meetings.size());
+        assertSame(one, meetings.get(0));
+        assertSame(one, between.iterator().next());
+        assertSame(two, service.getMeetings().get(0));
+        try {
+            meetings.add(two);
+            fail("a snapshot must be read-only");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(1, meetings.size());
+        }
+    }
+
+    /**
+     * Test readers iterate consistent snapshots while writers change the service, without lock
+     */
+    @Test
+    public void readWhileWriting() throws InterruptedException {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (writing.get()) {
+                        List<Meeting> meetings = service.getMeetings();
+                        int size = meetings.size();
+                        Meeting previous = null;
+                        int count = 0;
+                        for (Meeting meeting : meetings) {
+                            assertTrue(previous == null || Meeting.CHRONOLOGICAL_ORDER.compare(previous, meeting) < 0);
+                            previous = meeting;
+                            count++;
+                        }
+                        assertEquals(size, count);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Random random = new Random(5);
+        Place[] places = {new Place("Salle A"), new Place("Salle B")};
+        List<Meeting> added = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Meeting meeting = randomMeeting(random, places);
+            if (service.addMeeting(meeting)) {
+                added.add(meeting);
+            }
+            if (i % 3 == 0 && !added.isEmpty()) {
+                service.deleteMeeting(added.remove(random.nextInt(added.size())));
+            }
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(added.size(), service.getMeetings().size());
+    }
+
+    private static Meeting randomMeeting(Random random, Place[] places) {
+        Meeting meeting = new Meeting(ORIGIN.plus(Duration.ofMinutes(15 * random.nextInt(960))),
+                "Réunion " + random.nextInt(100), places[random.nextInt(places.length)],
+                Duration.ofMinutes(15 * (1 + random.nextInt(8))));
+        for (int j = random.nextInt(3); j > 0; j--) {
+            meeting.addPerson(new Person("concurrent" + random.nextInt(8) + "@entreprise.fr"));
+        }
+        return meeting;
+    }
+
+    private static List<Meeting> list(Collection<Meeting> meetings) {
+        return new ArrayList<>(meetings);
+    }
+
+}
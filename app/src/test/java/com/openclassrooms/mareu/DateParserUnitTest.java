@@ -0,0 +1,111 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.utils.DateParseResult;
+import com.openclassrooms.mareu.utils.DateParser;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+/**
+ * Test class to test the DateParser accepts the same texts as the DateTimeFormatter, with the same results
+ */
+public class DateParserUnitTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("dd/MM/yy HH:mm").withZone(ZONE);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yy");
+
+    private final DateParser mParser = new DateParser(new ZonedEpochCalendar(ZONE));
+
+    /**
+     * Test the results and the failures
+     */
+    @Test
+    public void parseDateTime() {
+        assertEquals(Instant.parse("2023-12-03T09:15:00Z"), mParser.parseDateTime("03/12/23 10:15").getInstant());
+        assertEquals(Instant.parse("2023-12-02T23:00:00Z"), mParser.parseDate("03/12/23").getInstant());
+        // a day too big for the month is the last day of the month, 24:00 is the next midnight
+        assertEquals(Instant.parse("2023-04-30T08:00:00Z"), mParser.parseDateTime("31/04/23 10:00").getInstant());
+        assertEquals(Instant.parse("2023-12-03T23:00:00Z"), mParser.parseDateTime("03/12/23 24:00").getInstant());
+        // changes of time
+        assertEquals(Instant.parse("2023-03-26T01:30:00Z"), mParser.parseDateTime("26/03/23 02:30").getInstant());
+        assertEquals(Instant.parse("2023-10-29T00:30:00Z"), mParser.parseDateTime("29/10/23 02:30").getInstant());
+
+        assertEquals(DateParseResult.Status.EMPTY, mParser.parseDateTime("").getStatus());
+        assertFalse(mParser.parseDateTime("").isError());
+        assertEquals(DateParseResult.Status.WRONG_FORMAT, mParser.parseDateTime("3/12/23 10:00").getStatus());
+        assertEquals(DateParseResult.Status.WRONG_FORMAT, mParser.parseDateTime("03/12/23 10:00 ").getStatus());
+        assertEquals(DateParseResult.Status.WRONG_FORMAT, mParser.parseDateTime("03-12-23 10:00").getStatus());
+        assertEquals(DateParseResult.Status.INVALID_VALUE, mParser.parseDateTime("32/12/23 10:00").getStatus());
+        assertEquals(DateParseResult.Status.INVALID_VALUE, mParser.parseDateTime("03/12/23 24:01").getStatus());
+        assertTrue(mParser.parseDateTime("03/13/23 10:00").isError());
+        assertNull(mParser.parseDateTime("03/13/23 10:00").getInstant());
+
+        // one pass, the length tells the format
+        assertEquals(mParser.parseDateTime("03/12/23 10:15").getInstant(),
+                mParser.parseDateTimeOrDate("03/12/23 10:15").getInstant());
+        assertEquals(mParser.parseDate("03/12/23").getInstant(), mParser.parseDateTimeOrDate("03/12/23").getInstant());
+        assertTrue(mParser.parseDateTimeOrDate("03/12/23 10").isError());
+    }
+
+    /**
+     * Test every day of a few years, every time of the days of change of time, and random texts,
+     * against the DateTimeFormatter
+     */
+    @Test
+    public void sameResultsAsDateTimeFormatter() {
+        for (int year : new int[]{0, 23, 24, 99}) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    String date = String.format("%02d/%02d/%02d", day, month, year);
+                    checkSameResults(date);
+                    checkSameResults(date + " 12:34");
+                }
+            }
+        }
+        for (String date : new String[]{"26/03/23", "29/10/23", "31/03/24", "27/10/24"}) {
+            for (int hour = 0; hour <= 25; hour++) {
+                for (int minute = 0; minute <= 60; minute += 15) {
+                    checkSameResults(String.format("%s %02d:%02d", date, hour, minute));
+                }
+            }
+        }
+        Random random = new Random(42);
+        char[] alphabet = "0123456789/: -a".toCharArray();
+        for (int i = 0; i < 20000; i++) {
+            char[] text = "03/12/23 10:15".toCharArray();
+            text[random.nextInt(text.length)] = alphabet[random.nextInt(alphabet.length)];
+            checkSameResults(new String(text));
+            checkSameResults(new String(text, 0, 8));
+        }
+    }
+
+    /**
+     * Compare a text with the DateTimeFormatter
+     */
+    private void checkSameResults(String text) {
+        assertEquals(text, parseWithFormatter(text, DATE_TIME_FORMATTER, true), mParser.parseDateTime(text).getInstant());
+        assertEquals(text, parseWithFormatter(text, DATE_FORMATTER, false), mParser.parseDate(text).getInstant());
+    }
+
+    private static Instant parseWithFormatter(String text, DateTimeFormatter formatter, boolean withTime) {
+        try {
+            return withTime ? ZonedDateTime.parse(text, formatter).toInstant()
+                    : LocalDate.parse(text, formatter).atStartOfDay(ZONE).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.IcsMeetingsReader;
+import com.openclassrooms.mareu.service.IcsMeetingsWriter;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the iCalendar import and export of the meetings
+ */
+public class IcsMeetingsUnitTest {
+
+    /**
+     * The zone of the floating dates
+     */
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+
+    /**
+     * Test the meetings written are read back, whatever the size of the buffers
+     */
+    @Test
+    public void writeThenReadMeetings() throws IOException {
+        Random random = new Random(42);
+        Instant origin = Instant.parse("2030-01-07T08:00:00Z");
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Meeting meeting = new Meeting(origin.plus(Duration.ofMinutes(15 * i)),
+                    "Réunion n°" + i + ", \"ordre du jour\" ; suivi\\budget\nsuite 🙂 " + repeat("é", i % 90),
+                    new Place("Salle " + (i % 7) + repeat("∆", i % 40)),
+                    Duration.ofMinutes(15 * (1 + random.nextInt(12))));
+            for (int j = random.nextInt(4); j > 0; j--) {
+                meeting.addPerson(new Person("ics" + random.nextInt(50) + "@entreprise.fr"));
+            }
+            meetings.add(meeting);
+        }
+
+        for (int bufferSize : new int[]{16, 100, IcsMeetingsWriter.DEFAULT_BUFFER_SIZE}) {
+            byte[] bytes = write(meetings, bufferSize);
+            // every line fits in 75 octets, and ends with CRLF
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            for (String line : text.split("\r\n")) {
+                assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75);
+                assertFalse(line.contains("\n"));
+            }
+
+            IcsMeetingsReader reader = new IcsMeetingsReader(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                    new ZonedEpochCalendar(PARIS), bufferSize);
+            for (Meeting meeting : meetings) {
+                Meeting read = reader.read();
+                assertEquals(meeting, read);
+                assertEquals(meeting.getSubject(), read.getSubject());
+                assertEquals(meeting.getPlace().getName(), read.getPlace().getName());
+                assertEquals(meeting.getDuration(), read.getDuration());
+                assertArrayEquals(meeting.getPersonIds(), read.getPersonIds());
+            }
+            assertNull(reader.read());
+            assertEquals(0, reader.getSkippedCount());
+        }
+    }
+
+    /**
+     * Test the dates, durations, attendees, alarms and invalid events of a hand-written calendar
+     */
+    @Test
+    public void readHandWrittenCalendar() throws IOException {
+        String ics = "BEGIN:VCALENDAR\r\n"
+                + "VERSION:2.0\r\n"
+                // a time zone of the file, ignored : the TZID are resolved by name
+                + "BEGIN:VTIMEZONE\r\nTZID:Europe/Paris\r\nEND:VTIMEZONE\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "DTSTART;TZID=America/New_York:20300315T090000\r\n"
+                + "DURATION:PT1H30M\r\n"
+                + "SUMMARY:Point\\, hebdo\r\n"
+                + "LOCATION;LANGUAGE=fr:Salle\r\n  A\r\n"
+                + "ATTENDEE;CN=\"Jean: chef\";ROLE=CHAIR:MAILTO:jean@entreprise.fr\r\n"
+                + "ATTENDEE:urn:uuid:ignored\r\n"
+                + "BEGIN:VALARM\r\nATTENDEE:mailto:alarm@entreprise.fr\r\nEND:VALARM\r\n"
+                + "END:VEVENT\r\n"
+                // floating date time, with bare line feeds
+                + "begin:vevent\n"
+                + "dtstart:20300316T100000\n"
+                + "dtend:20300316T113000\n"
+                + "location:Salle B\n"
+                + "end:vevent\n"
+                // a whole day
+                + "BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:20300317\r\nLOCATION:Salle C\r\nEND:VEVENT\r\n"
+                // no place, invalid date, negative duration : skipped
+                + "BEGIN:VEVENT\r\nDTSTART:20300318T100000Z\r\nEND:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\nDTSTART:20300230T100000Z\r\nLOCATION:Salle D\r\nEND:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\nDTSTART:20300318T100000Z\r\nDURATION:-PT1H\r\nLOCATION:Salle D\r\n"
+                + "END:VEVENT\r\n"
+                + "END:VCALENDAR";
+        IcsMeetingsReader reader = new IcsMeetingsReader(
+                Channels.newChannel(new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8))),
+                new ZonedEpochCalendar(PARIS), 7);
+
+        Meeting meeting = reader.read();
+        assertEquals(LocalDateTime.of(2030, 3, 15, 9, 0).atZone(ZoneId.of("America/New_York")).toInstant(),
+                meeting.getDate());
+        assertEquals(Duration.ofMinutes(90), meeting.getDuration());
+        assertEquals("Point, hebdo", meeting.getSubject());
+        assertEquals("Salle A", meeting.getPlace().getName());
+        assertEquals(new HashSet<>(Arrays.asList(new Person("jean@entreprise.fr"))),
+                new HashSet<>(meeting.getPersons()));
+
+        meeting = reader.read();
+        assertEquals(LocalDateTime.of(2030, 3, 16, 10, 0).atZone(PARIS).toInstant(), meeting.getDate());
+        assertEquals(Duration.ofMinutes(90), meeting.getDuration());
+        assertEquals("", meeting.getSubject());
+
+        meeting = reader.read();
+        assertEquals(LocalDateTime.of(2030, 3, 17, 0, 0).atZone(PARIS).toInstant(), meeting.getDate());
+        assertEquals(Duration.ofDays(1), meeting.getDuration());
+        assertEquals("Salle C", meeting.getPlace().getName());
+
+        assertNull(reader.read());
+        assertEquals(3, reader.getSkippedCount());
+    }
+
+    /**
+     * Test the import adds the meetings to the service by batches, and reports the outcomes
+     */
+    @Test
+    public void importIntoService() throws IOException {
+        Instant origin = Instant.parse("2030-01-07T08:00:00Z");
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            meetings.add(new Meeting(origin.plus(Duration.ofHours(i)), "Réunion " + i, new Place("Salle A")));
+        }
+        // a duplicate, and a conflict
+        meetings.add(new Meeting(origin, "Doublon", new Place("Salle A")));
+        meetings.add(new Meeting(origin.plus(Duration.ofMinutes(30)), "Conflit", new Place("Salle A")));
+        byte[] bytes = write(meetings, IcsMeetingsWriter.DEFAULT_BUFFER_SIZE);
+
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        IcsMeetingsReader reader = new IcsMeetingsReader(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                new ZonedEpochCalendar(PARIS), IcsMeetingsReader.DEFAULT_BUFFER_SIZE);
+        IcsMeetingsReader.ImportReport report = reader.importInto(service, 100);
+        assertEquals(250, report.getAdded());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getConflicts());
+        assertEquals(0, report.getSkipped());
+        assertEquals(250, service.getMeetings().size());
+    }
+
+    /**
+     * Write meetings to an array
+     * @param meetings the meetings
+     * @param bufferSize the size of the write buffer
+     * @return the calendar
+     */
+    private static byte[] write(List<Meeting> meetings, int bufferSize) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        IcsMeetingsWriter writer = new IcsMeetingsWriter(Channels.newChannel(output),
+                Instant.parse("2029-12-31T12:00:00Z"), bufferSize);
+        writer.writeAll(meetings);
+        assertEquals(meetings.size(), writer.getWrittenCount());
+        writer.close();
+        return output.toByteArray();
+    }
+
+    /**
+     * Repeat a string
+     * @param string the string
+     * @param count the number of times
+     * @return the repeated string
+     */
+    private static String repeat(String string, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(string);
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,467 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.DummyMeetingsApiService;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the IndexedMeetingsApiService
+ */
+public class IndexedMeetingsApiServiceUnitTest {
+
+    /**
+     * MeetingsApiService object as a base for testing
+     */
+    private MeetingsApiService mMeetingsApiService;
+
+    /**
+     * List of four concrete meetings as a base for testing
+     */
+    private Meeting mMeetingOne;
+    private Meeting mMeetingTwo;
+    private Meeting mMeetingThree;
+    private Meeting mMeetingFour;
+
+    /**
+     * Instantiate the service, and the four concrete meetings
+     */
+    @Before
+    public void setup() {
+        // instantiate the indexed service
+        mMeetingsApiService = new IndexedMeetingsApiService();
+
+        // create two places
+        Place placeOne = new Place("Salle conférence A");
+        Place placeTwo = new Place("Salle conférence B");
+
+        // create two persons
+        Person personOne = new Person("jean@entreprise.fr");
+        Person personTwo = new Person("luc@entreprise.fr");
+
+        // create dates depending on the current time
+        Instant now = DateEasy.now();
+        Instant date1 = DateEasy.plusDays(now, 10);
+        Instant date2 = DateEasy.plusDays(now, 20);
+        Instant date3 = DateEasy.plusDays(now, 30);
+
+        // the third and the fourth meetings share the same date, in two different places
+        mMeetingOne = new Meeting(date1, "Réunion de service", placeOne, personOne);
+        mMeetingTwo = new Meeting(date2, "Atelier technique Android", placeOne, personTwo);
+        mMeetingThree = new Meeting(date3, "Afterwork Repas Noel", placeTwo, personOne);
+        mMeetingFour = new Meeting(date3, "Mise en exploitaion MaReu", placeOne, personTwo);
+    }
+
+    /**
+     * Test if the meeting service has no meeting at startup
+     */
+    @Test
+    public void emptyMeetingsAtServiceStartup() {
+        assertEquals(0, mMeetingsApiService.getMeetings().size());
+    }
+
+    /**
+     * Test the meetings are returned in chronological order, whatever the insertion order
+     */
+    @Test
+    public void getMeetingsInChronologicalOrder() {
+        // add four meetings, unordered
+        mMeetingsApiService.addMeeting(mMeetingThree);
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingFour);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+
+        // check the meetings are sorted by date, then by place
+        List<Meeting> meetings = mMeetingsApiService.getMeetings();
+        assertEquals(4, meetings.size());
+        assertSame(mMeetingOne, meetings.get(0));
+        assertSame(mMeetingTwo, meetings.get(1));
+        assertSame(mMeetingFour, meetings.get(2));
+        assertSame(mMeetingThree, meetings.get(3));
+    }
+
+    /**
+     * Test a meeting with the same date and place is not added twice
+     */
+    @Test
+    public void addDuplicateMeeting() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(
+                new Meeting(mMeetingOne.getDate(), "Doublon", new Place("Salle conférence A"))
+        );
+
+        // only the first meeting is kept
+        assertEquals(1, mMeetingsApiService.getMeetings().size());
+        assertSame(mMeetingOne, mMeetingsApiService.getMeetings().get(0));
+    }
+
+    /**
+     * Test the meetings are correctly deleted from the service
+     */
+    @Test
+    public void deleteMeetings() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+        assertTrue(mMeetingsApiService.containsMeeting(mMeetingOne));
+        assertTrue(mMeetingsApiService.containsMeeting(mMeetingTwo));
+
+        // delete the first meeting
+        mMeetingsApiService.deleteMeeting(mMeetingOne);
+        assertFalse(mMeetingsApiService.containsMeeting(mMeetingOne));
+        assertTrue(mMeetingsApiService.containsMeeting(mMeetingTwo));
+        assertEquals(1, mMeetingsApiService.getMeetings().size());
+
+        // deleting an unknown meeting does nothing
+        mMeetingsApiService.deleteMeeting(mMeetingThree);
+        assertEquals(1, mMeetingsApiService.getMeetings().size());
+    }
+
+    /**
+     * Test the meetings list cannot be modified from outside the service
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void getMeetingsIsReadOnly() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.getMeetings().clear();
+    }
+
+    /**
+     * Test the meetings within a time span are found, bounds included
+     */
+    @Test
+    public void getMeetingsBetween() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+        mMeetingsApiService.addMeeting(mMeetingThree);
+        mMeetingsApiService.addMeeting(mMeetingFour);
+
+        // both bounds are inclusive
+        List<Meeting> meetings = new ArrayList<>(mMeetingsApiService.getMeetingsBetween(
+                mMeetingTwo.getDate(), mMeetingThree.getDate()
+        ));
+        assertEquals(3, meetings.size());
+        assertSame(mMeetingTwo, meetings.get(0));
+        assertSame(mMeetingFour, meetings.get(1));
+        assertSame(mMeetingThree, meetings.get(2));
+
+        // a null bound means no bound
+        assertEquals(4, mMeetingsApiService.getMeetingsBetween(null, null).size());
+        assertEquals(1, mMeetingsApiService.getMeetingsBetween(null, mMeetingOne.getDate()).size());
+        assertEquals(2, mMeetingsApiService.getMeetingsBetween(mMeetingThree.getDate(), null).size());
+
+        // an empty time span
+        assertEquals(0, mMeetingsApiService.getMeetingsBetween(
+                mMeetingOne.getDate().plusSeconds(1), mMeetingTwo.getDate().minusSeconds(1)
+        ).size());
+    }
+
+    /**
+     * Test the time span view cannot be modified from outside the service
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void getMeetingsBetweenIsReadOnly() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        Collection<Meeting> meetings = mMeetingsApiService.getMeetingsBetween(null, null);
+        meetings.clear();
+    }
+
+    /**
+     * Test the places are found by prefix (case insensitive), and their meetings by time span
+     */
+    @Test
+    public void getMeetingsByPlacePrefix() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+        mMeetingsApiService.addMeeting(mMeetingThree);
+
+        // both places match the common prefix
+        assertEquals(2, mMeetingsApiService.getPlacesStartingWith("salle CONF").size());
+        // only one place matches the full name
+        Collection<Place> places = mMeetingsApiService.getPlacesStartingWith("Salle conférence a");
+        assertEquals(1, places.size());
+        Place place = places.iterator().next();
+        assertEquals(mMeetingOne.getPlace(), place);
+        // no place matches
+        assertEquals(0, mMeetingsApiService.getPlacesStartingWith("Salle B").size());
+
+        // meetings of the place within a time span
+        assertEquals(2, mMeetingsApiService.getMeetingsBetween(place, null, null).size());
+        assertEquals(1, mMeetingsApiService.getMeetingsBetween(place, mMeetingTwo.getDate(), null).size());
+
+        // the place is dropped from the index with its last meeting
+        mMeetingsApiService.deleteMeeting(mMeetingThree);
+        assertEquals(1, mMeetingsApiService.getPlacesStartingWith("salle").size());
+    }
+
+    /**
+     * Test the meetings of a person are found thanks to the inverted index, and kept in sync
+     */
+    @Test
+    public void getMeetingsOfPerson() {
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+        mMeetingsApiService.addMeeting(mMeetingThree);
+        mMeetingsApiService.addMeeting(mMeetingFour);
+
+        // the first person is invited to the first and third meetings
+        Person person = new Person("jean@entreprise.fr");
+        List<Meeting> meetings = new ArrayList<>(mMeetingsApiService.getMeetingsOf(person, null, null));
+        assertEquals(2, meetings.size());
+        assertSame(mMeetingOne, meetings.get(0));
+        assertSame(mMeetingThree, meetings.get(1));
+        // within a time span
+        assertEquals(1, mMeetingsApiService.getMeetingsOf(person, mMeetingTwo.getDate(), null).size());
+        // an unknown person
+        assertEquals(0, mMeetingsApiService.getMeetingsOf(
+                new Person("inconnu@entreprise.fr"), null, null).size());
+
+        // deleting through a key (same date and place, without persons) updates the index
+        mMeetingsApiService.deleteMeeting(new Meeting(mMeetingOne.getDate(), null, mMeetingOne.getPlace()));
+        assertEquals(1, mMeetingsApiService.getMeetingsOf(person, null, null).size());
+        mMeetingsApiService.deleteMeeting(mMeetingThree);
+        assertEquals(0, mMeetingsApiService.getMeetingsOf(person, null, null).size());
+    }
+
+    /**
+     * Test a meeting overlapping another one in the same place is rejected, and the conflict reported
+     */
+    @Test
+    public void rejectOverlappingMeetings() {
+        assertTrue(mMeetingsApiService.addMeeting(mMeetingOne));
+        Place place = mMeetingOne.getPlace();
+        Instant start = mMeetingOne.getDate();
+
+        // starts during the first meeting : rejected
+        Meeting overlapping = new Meeting(start.plus(Duration.ofMinutes(30)), "Chevauchement",
+                place, Duration.ofHours(2));
+        assertFalse(mMeetingsApiService.addMeeting(overlapping));
+        assertFalse(mMeetingsApiService.containsMeeting(overlapping));
+        List<Meeting> conflicts = mMeetingsApiService.getOverlappingMeetings(
+                place, overlapping.getDate(), overlapping.getEndDate());
+        assertEquals(1, conflicts.size());
+        assertSame(mMeetingOne, conflicts.get(0));
+
+        // same time slot in another place : accepted
+        assertTrue(mMeetingsApiService.addMeeting(new Meeting(start, "Autre salle", new Place("Salle C"))));
+
+        // starts when the first meeting ends : accepted (time slots are half-open)
+        assertTrue(mMeetingsApiService.addMeeting(new Meeting(mMeetingOne.getEndDate(), "A la suite", place)));
+
+        // once the first meeting is deleted, its time slot is free again
+        mMeetingsApiService.deleteMeeting(mMeetingOne);
+        assertEquals(0, mMeetingsApiService.getOverlappingMeetings(
+                place, start, start.plus(Duration.ofMinutes(30))).size());
+    }
+
+    /**
+     * Test the interval trees find the same conflicts as a plain scan, after many additions and deletions
+     */
+    @Test
+    public void overlappingMeetingsMatchPlainScan() {
+        MeetingsApiService reference = new DummyMeetingsApiService();
+        Random random = new Random(42);
+        Instant origin = DateEasy.now();
+        Place[] places = {new Place("Salle A"), new Place("Salle B"), new Place("Salle C")};
+        List<Meeting> added = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!added.isEmpty() && random.nextInt(4) == 0) {
+                // delete a random meeting
+                Meeting meeting = added.remove(random.nextInt(added.size()));
+                mMeetingsApiService.deleteMeeting(meeting);
+                reference.deleteMeeting(meeting);
+            } else {
+                // try to add a random meeting, of 15 minutes to 3 hours, within 10 days
+                Meeting meeting = new Meeting(origin.plus(Duration.ofMinutes(15 * random.nextInt(960))),
+                        "Réunion " + i, places[random.nextInt(places.length)],
+                        Duration.ofMinutes(15 * (1 + random.nextInt(12))));
+                boolean isAdded = mMeetingsApiService.addMeeting(meeting);
+                assertEquals(reference.addMeeting(meeting), isAdded);
+                if (isAdded) {
+                    added.add(meeting);
+                }
+            }
+            // check a random time slot
+            Place place = places[random.nextInt(places.length)];
+            Instant start = origin.plus(Duration.ofMinutes(15 * random.nextInt(960)));
+            Instant end = start.plus(Duration.ofMinutes(15 * random.nextInt(24)));
+            assertEquals(reference.getOverlappingMeetings(place, start, end),
+                    mMeetingsApiService.getOverlappingMeetings(place, start, end));
+        }
+        assertEquals(reference.getMeetings().size(), mMeetingsApiService.getMeetings().size());
+    }
+
+    /**
+     * Test a batch reports one outcome per meeting, including the duplicates and conflicts within the batch,
+     * and notifies the listeners once
+     */
+    @Test
+    public void addAndDeleteMeetingsInBatch() {
+        assertTrue(mMeetingsApiService.addMeeting(mMeetingOne));
+        final List<List<Meeting>> notifications = new ArrayList<>();
+        mMeetingsApiService.addOnMeetingsChangedListener(new MeetingsApiService.OnMeetingsChangedListener() {
+            @Override
+            public void onMeetingAdded(Meeting meeting) {
+                fail("a batch must be notified at once");
+            }
+
+            @Override
+            public void onMeetingDeleted(Meeting meeting) {
+                fail("a batch must be notified at once");
+            }
+
+            @Override
+            public void onMeetingsAdded(List<Meeting> meetings) {
+                notifications.add(meetings);
+            }
+
+            @Override
+            public void onMeetingsDeleted(List<Meeting> meetings) {
+                notifications.add(meetings);
+            }
+        });
+
+        // starts during the fourth meeting, in the same place
+        Meeting overlapping = new Meeting(mMeetingFour.getDate().plus(Duration.ofMinutes(30)), "Chevauchement",
+                mMeetingFour.getPlace());
+        List<MeetingsApiService.AddOutcome> outcomes = mMeetingsApiService.addMeetings(Arrays.asList(
+                mMeetingTwo, mMeetingOne, mMeetingFour, mMeetingTwo, overlapping, mMeetingThree));
+        assertEquals(Arrays.asList(
+                MeetingsApiService.AddOutcome.ADDED,
+                MeetingsApiService.AddOutcome.DUPLICATE,
+                MeetingsApiService.AddOutcome.ADDED,
+                MeetingsApiService.AddOutcome.DUPLICATE,
+                MeetingsApiService.AddOutcome.CONFLICT,
+                MeetingsApiService.AddOutcome.ADDED), outcomes);
+        assertEquals(4, mMeetingsApiService.getMeetings().size());
+        assertEquals(1, notifications.size());
+        assertEquals(Arrays.asList(mMeetingTwo, mMeetingFour, mMeetingThree), notifications.get(0));
+
+        // an empty batch is not notified
+        assertEquals(0, mMeetingsApiService.addMeetings(new ArrayList<Meeting>()).size());
+        assertEquals(1, notifications.size());
+
+        // the unknown and the repeated meetings are ignored
+        assertEquals(2, mMeetingsApiService.deleteMeetings(
+                Arrays.asList(mMeetingOne, overlapping, mMeetingOne, mMeetingFour)));
+        assertEquals(2, notifications.size());
+        assertEquals(Arrays.asList(mMeetingOne, mMeetingFour), notifications.get(1));
+        assertEquals(Arrays.asList(mMeetingTwo, mMeetingThree), mMeetingsApiService.getMeetings());
+        assertEquals(0, mMeetingsApiService.getMeetingsOf(new Person("jean@entreprise.fr"),
+                null, mMeetingTwo.getDate()).size());
+    }
+
+    /**
+     * Test the batches give the same outcomes on both implementations, as single calls would
+     */
+    @Test
+    public void batchesMatchSingleCalls() {
+        MeetingsApiService reference = new DummyMeetingsApiService();
+        MeetingsApiService single = new IndexedMeetingsApiService();
+        Random random = new Random(7);
+        Instant origin = DateEasy.now();
+        Place[] places = {new Place("Salle A"), new Place("Salle B"), new Place("Salle C")};
+
+        for (int batch = 0; batch < 20; batch++) {
+            List<Meeting> meetings = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                meetings.add(new Meeting(origin.plus(Duration.ofMinutes(15 * random.nextInt(960))),
+                        "Réunion " + i, places[random.nextInt(places.length)],
+                        Duration.ofMinutes(15 * (1 + random.nextInt(12)))));
+            }
+            List<MeetingsApiService.AddOutcome> outcomes = mMeetingsApiService.addMeetings(meetings);
+            assertEquals(outcomes, reference.addMeetings(meetings));
+            for (int i = 0; i < meetings.size(); i++) {
+                assertEquals(single.addMeeting(meetings.get(i)),
+                        outcomes.get(i) == MeetingsApiService.AddOutcome.ADDED);
+            }
+
+            // delete a random half of the meetings
+            List<Meeting> toDelete = new ArrayList<>(mMeetingsApiService.getMeetings());
+            Collections.shuffle(toDelete, random);
+            toDelete = toDelete.subList(0, toDelete.size() / 2);
+            assertEquals(toDelete.size(), mMeetingsApiService.deleteMeetings(toDelete));
+            assertEquals(toDelete.size(), reference.deleteMeetings(toDelete));
+            for (Meeting meeting : toDelete) {
+                single.deleteMeeting(meeting);
+            }
+            assertEquals(single.getMeetings(), mMeetingsApiService.getMeetings());
+            assertEquals(reference.getMeetings().size(), mMeetingsApiService.getMeetings().size());
+        }
+    }
+
+    /**
+     * Test a meeting is updated in every index, unless it would collide with another one, on both implementations
+     */
+    @Test
+    public void updateMeetings() {
+        for (MeetingsApiService service : new MeetingsApiService[]{
+                new IndexedMeetingsApiService(), new DummyMeetingsApiService()}) {
+            service.addMeeting(mMeetingOne);
+            service.addMeeting(mMeetingTwo);
+            long version = service.getVersion();
+
+            // move the first meeting to the other place, a day later
+            Meeting moved = new Meeting(DateEasy.plusDays(mMeetingOne.getDate(), 1), "Réunion déplacée",
+                    mMeetingThree.getPlace(), mMeetingOne.getPersons().toArray(new Person[0]));
+            assertTrue(service.updateMeeting(mMeetingOne, moved));
+            assertEquals(version + 1, service.getVersion());
+            assertFalse(service.containsMeeting(mMeetingOne));
+            assertTrue(service.containsMeeting(moved));
+            assertEquals(Collections.singletonList(moved),
+                    new ArrayList<>(service.getMeetingsBetween(mMeetingThree.getPlace(), null, null)));
+            assertTrue(service.getMeetingsBetween(mMeetingOne.getPlace(), null, mMeetingOne.getDate()).isEmpty());
+
+            // an update overlapping another meeting, or of an unknown meeting, is refused and changes nothing
+            Meeting overlapping = new Meeting(mMeetingTwo.getDate().plus(Duration.ofMinutes(30)), "Conflit",
+                    mMeetingTwo.getPlace());
+            assertFalse(service.updateMeeting(moved, overlapping));
+            assertFalse(service.updateMeeting(mMeetingOne, moved));
+            assertEquals(version + 1, service.getVersion());
+            assertTrue(service.containsMeeting(moved));
+
+            // an update keeping the same slot does not conflict with the meeting it replaces
+            Meeting renamed = new Meeting(mMeetingTwo.getDate(), "Atelier renommé", mMeetingTwo.getPlace(),
+                    mMeetingTwo.getDuration());
+            assertTrue(service.updateMeeting(mMeetingTwo, renamed));
+            assertEquals(version + 2, service.getVersion());
+            assertEquals(2, service.getMeetings().size());
+        }
+    }
+
+    /**
+     * Test the version is incremented once per effective change, a batch included
+     */
+    @Test
+    public void versionChangesOncePerChange() {
+        assertEquals(0, mMeetingsApiService.getVersion());
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        assertEquals(1, mMeetingsApiService.getVersion());
+        // a refused addition, or an unknown deletion, is not a change
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.deleteMeeting(mMeetingTwo);
+        assertEquals(1, mMeetingsApiService.getVersion());
+        mMeetingsApiService.addMeetings(Arrays.asList(mMeetingTwo, mMeetingThree, mMeetingFour));
+        assertEquals(2, mMeetingsApiService.getVersion());
+        mMeetingsApiService.deleteMeetings(Arrays.asList(mMeetingOne, mMeetingTwo));
+        assertEquals(3, mMeetingsApiService.getVersion());
+    }
+
+}
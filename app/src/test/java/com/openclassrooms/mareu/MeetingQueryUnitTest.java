@@ -0,0 +1,214 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingQuery;
+import com.openclassrooms.mareu.service.MeetingQueryPlanner;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.SubjectIndex;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the meeting queries, and the choice of the index by the planner
+ */
+public class MeetingQueryUnitTest {
+
+    /**
+     * First local day of the meetings (2030-03-04, a monday), as days since 1970-01-01
+     */
+    private static final long FIRST_DAY = ZonedEpochCalendar.daysFromCivil(2030, 3, 4);
+
+    /**
+     * Test random queries return what a filter over all the meetings returns, whatever the index chosen
+     */
+    @Test
+    public void matchesFullScan() {
+        for (MeetingsApiService service : new MeetingsApiService[]{
+                new IndexedMeetingsApiService(), new ConcurrentMeetingsApiService()}) {
+            Random random = new Random(7);
+            Place[] places = {new Place("Salle A"), new Place("salle B"), new Place("Salle C"), new Place("Cafétéria")};
+            String[] subjects = {"Réunion de service", "Atelier technique", "Afterwork", "Point hebdo"};
+            // 400 days, across both changes of time of each year
+            for (int i = 0; i < 3000; i++) {
+                Meeting meeting = new Meeting(localDate(FIRST_DAY + random.nextInt(400), random.nextInt(48) * 30),
+                        subjects[random.nextInt(subjects.length)], places[random.nextInt(places.length)]);
+                for (int j = random.nextInt(3); j > 0; j--) {
+                    meeting.addPerson(new Person("query" + random.nextInt(20) + "@entreprise.fr"));
+                }
+                service.addMeeting(meeting);
+            }
+            MeetingQueryPlanner planner = new MeetingQueryPlanner(service, new SubjectIndex(service));
+            int[] indexes = new int[MeetingQueryPlanner.Index.values().length];
+            for (int i = 0; i < 300; i++) {
+                MeetingQuery query = randomQuery(random);
+                MeetingQueryPlanner.Plan plan = planner.plan(query);
+                indexes[plan.getIndex().ordinal()]++;
+                assertEquals(plan.getIndex() + " " + i, fullScan(service, query), plan.execute());
+            }
+            // every index has been chosen at least once
+            for (int count : indexes) {
+                assertTrue(count > 0);
+            }
+        }
+    }
+
+    /**
+     * Test the planner reads the most selective index
+     */
+    @Test
+    public void pickMostSelectiveIndex() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        Place room = new Place("Salle A");
+        Place cafeteria = new Place("Cafétéria");
+        Person rare = new Person("rare@entreprise.fr");
+        // ten meetings a day in the room, from 8:00 to 17:00, for 100 days, and one at the cafeteria on mondays
+        for (int day = 0; day < 100; day++) {
+            for (int hour = 8; hour < 18; hour++) {
+                Meeting meeting = new Meeting(localDate(FIRST_DAY + day, hour * 60), "Réunion", room);
+                if (day % 25 == 0 && hour == 9) {
+                    meeting.addPerson(rare);
+                }
+                service.addMeeting(meeting);
+            }
+            if (day % 7 == 0) {
+                service.addMeeting(new Meeting(localDate(FIRST_DAY + day, 12 * 60), "Repas", cafeteria));
+            }
+        }
+        MeetingQueryPlanner planner = new MeetingQueryPlanner(service);
+
+        assertEquals(MeetingQueryPlanner.Index.DATE, planner.plan(MeetingQuery.all()).getIndex());
+        assertEquals(MeetingQueryPlanner.Index.PLACE,
+                planner.plan(MeetingQuery.all().withPlacePrefix("caf")).getIndex());
+        assertEquals(MeetingQueryPlanner.Index.ATTENDEE,
+                planner.plan(MeetingQuery.all().withPlacePrefix("salle").withAttendee(rare)).getIndex());
+        // two days out of 100 : the indexes of the places are restricted to the date range too
+        Instant from = localDate(FIRST_DAY + 13, 0);
+        Instant to = localDate(FIRST_DAY + 15, 0);
+        assertTrue(planner.plan(MeetingQuery.all().withPlacePrefix("salle").withDates(from, to))
+                .getEstimatedCost() <= 21);
+        // an hour a day, or a day a week, are read day by day instead of a full scan
+        MeetingQuery lastHour = MeetingQuery.all().withTimeOfDay(LocalTime.of(17, 0), LocalTime.of(17, 59));
+        MeetingQueryPlanner.Plan plan = planner.plan(lastHour);
+        assertEquals(MeetingQueryPlanner.Index.TIME_SLOTS, plan.getIndex());
+        assertTrue(plan.getEstimatedCost() < 300);
+        assertEquals(100, plan.execute().size());
+        MeetingQuery sundays = MeetingQuery.all().withDaysOfWeek(DayOfWeek.SUNDAY);
+        assertEquals(MeetingQueryPlanner.Index.TIME_SLOTS, planner.plan(sundays).getIndex());
+        assertEquals(140, planner.execute(sundays).size());
+
+        // the first meetings of a chronological index, or the last ones
+        List<Meeting> first = planner.execute(lastHour.withLimit(3));
+        assertEquals(3, first.size());
+        assertEquals(localDate(FIRST_DAY, 17 * 60), first.get(0).getDate());
+        List<Meeting> last = planner.execute(lastHour.withLimit(2).withOrder(MeetingQuery.Order.REVERSE_CHRONOLOGICAL));
+        assertEquals(localDate(FIRST_DAY + 99, 17 * 60), last.get(0).getDate());
+        assertEquals(localDate(FIRST_DAY + 98, 17 * 60), last.get(1).getDate());
+        List<Meeting> byPlace = planner.execute(MeetingQuery.all().withDates(from, to)
+                .withOrder(MeetingQuery.Order.BY_PLACE));
+        assertSame(cafeteria, byPlace.get(0).getPlace());
+    }
+
+    /**
+     * Test each criterion of a query
+     */
+    @Test
+    public void matchCriteria() {
+        Meeting meeting = new Meeting(localDate(FIRST_DAY + 2, 14 * 60 + 30), "Réunion de Service",
+                new Place("Salle A"), Duration.ofHours(1), new Person("alice@entreprise.fr"));
+        assertTrue(MeetingQuery.all().matches(meeting));
+        assertTrue(MeetingQuery.all().withPlacePrefix("SALLE").withSubjectText("de serv")
+                .withAttendee(new Person("alice@entreprise.fr")).matches(meeting));
+        assertFalse(MeetingQuery.all().withPlacePrefix("Salle B").matches(meeting));
+        assertFalse(MeetingQuery.all().withAttendee(new Person("bob@entreprise.fr")).matches(meeting));
+        assertFalse(MeetingQuery.all().withSubjectText("atelier").matches(meeting));
+        assertTrue(MeetingQuery.all().withDates(meeting.getDate(), meeting.getDate()).matches(meeting));
+        assertFalse(MeetingQuery.all().withDates(meeting.getDate().plusNanos(1), null).matches(meeting));
+        assertTrue(MeetingQuery.all().withTimeOfDay(LocalTime.of(14, 30), LocalTime.of(14, 30)).matches(meeting));
+        assertFalse(MeetingQuery.all().withTimeOfDay(LocalTime.of(8, 0), LocalTime.of(14, 29)).matches(meeting));
+        assertTrue(MeetingQuery.all().withDaysOfWeek(DayOfWeek.WEDNESDAY).matches(meeting));
+        assertFalse(MeetingQuery.all().withDaysOfWeek(DayOfWeek.MONDAY, DayOfWeek.TUESDAY).matches(meeting));
+        try {
+            MeetingQuery.all().withTimeOfDay(LocalTime.of(18, 0), LocalTime.of(8, 0));
+            fail("a time of day window must not end before it starts");
+        } catch (IllegalArgumentException e) {
+            assertTrue(MeetingQuery.all().matches(meeting));
+        }
+    }
+
+    /**
+     * Get a local date time
+     */
+    private static Instant localDate(long epochDay, int minuteOfDay) {
+        return Instant.ofEpochSecond(DateEasy.getLocaleCalendar().localToEpochSecond(
+                epochDay * 86400 + minuteOfDay * 60L));
+    }
+
+    /**
+     * Get a random query, with some of the criteria
+     */
+    private static MeetingQuery randomQuery(Random random) {
+        MeetingQuery ret = MeetingQuery.all();
+        if (random.nextInt(3) == 0) {
+            ret = ret.withPlacePrefix(new String[]{"salle", "SALLE A", "caf", "x"}[random.nextInt(4)]);
+        }
+        if (random.nextInt(3) == 0) {
+            ret = ret.withAttendee(new Person("query" + random.nextInt(25) + "@entreprise.fr"));
+        }
+        if (random.nextInt(2) == 0) {
+            Instant from = random.nextInt(4) == 0 ? null : localDate(FIRST_DAY + random.nextInt(400), 0);
+            Instant to = random.nextInt(4) == 0 ? null
+                    : localDate(FIRST_DAY + random.nextInt(400), random.nextInt(1440)).plusNanos(1);
+            if (from == null || to == null || !to.isBefore(from)) {
+                ret = ret.withDates(from, to);
+            }
+        }
+        if (random.nextInt(3) == 0) {
+            String[] texts = {"reunion", "ATELIER", "o", "hebdo", "Réunion de s"};
+            ret = ret.withSubjectText(texts[random.nextInt(texts.length)]);
+        }
+        if (random.nextInt(3) == 0) {
+            int from = random.nextInt(1440);
+            int to = from + random.nextInt(1440 - from);
+            ret = ret.withTimeOfDay(LocalTime.of(from / 60, from % 60), LocalTime.of(to / 60, to % 60));
+        }
+        if (random.nextInt(3) == 0) {
+            ret = ret.withDaysOfWeek(DayOfWeek.of(1 + random.nextInt(7)), DayOfWeek.of(1 + random.nextInt(7)));
+        }
+        if (random.nextInt(4) == 0) {
+            ret = ret.withLimit(random.nextInt(20));
+        }
+        return ret.withOrder(MeetingQuery.Order.values()[random.nextInt(MeetingQuery.Order.values().length)]);
+    }
+
+    /**
+     * Filter all the meetings of the service, then sort and limit them
+     */
+    private static List<Meeting> fullScan(MeetingsApiService service, MeetingQuery query) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : service.getMeetings()) {
+            if (query.matches(meeting)) {
+                ret.add(meeting);
+            }
+        }
+        Collections.sort(ret, query.getOrder().getComparator());
+        return ret.subList(0, Math.min(ret.size(), query.getLimit()));
+    }
+
+}
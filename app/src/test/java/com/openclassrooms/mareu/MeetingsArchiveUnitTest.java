@@ -0,0 +1,262 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.di.DI;
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.repository.fake.MeetingsListFakeRepository;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsArchive;
+import com.openclassrooms.mareu.service.MeetingsStorage;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the archive of the past meetings, and its use by the meetings list repository
+ */
+public class MeetingsArchiveUnitTest {
+
+    private static final Instant ORIGIN = Instant.parse("2020-01-06T08:00:00Z");
+
+    /**
+     * Test the queries of the archive answer as the ones of the store
+     */
+    @Test
+    public void queryArchiveAsStore() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 3000, new Random(11));
+        MeetingsApiService reference = new IndexedMeetingsApiService();
+        reference.addMeetings(meetings);
+        MeetingsArchive archive = MeetingsArchive.open(ByteBuffer.wrap(MeetingsTestData.writeArchive(meetings)));
+
+        assertEquals(meetings.size(), archive.size());
+        assertEquals(reference.getMeetings(), archive.getMeetingsBetween(null, null));
+        assertEquals(reference.getMeetings().get(meetings.size() - 1).getDate(), archive.getLastDate());
+
+        Instant from = Instant.parse("2020-01-10T08:00:00Z");
+        Instant to = Instant.parse("2020-01-20T12:00:00Z");
+        assertEquals(new ArrayList<>(reference.getMeetingsBetween(from, to)), archive.getMeetingsBetween(from, to));
+        Place place = new Place("Salle 4");
+        assertEquals(new ArrayList<>(reference.getMeetingsBetween(place, from, to)),
+                archive.getMeetingsBetween(place, from, to));
+        assertTrue(archive.getMeetingsBetween(new Place("Inconnue"), null, null).isEmpty());
+        Person person = new Person("person3@entreprise.fr");
+        assertEquals(new ArrayList<>(reference.getMeetingsOf(person, null, to)), archive.getMeetingsOf(person, null, to));
+        assertEquals(reference.getPlacesStartingWith("SALLE 1").size(), archive.getPlacesStartingWith("SALLE 1").size());
+
+        // a meeting is decoded with all its fields, and keeps its identity between two queries
+        Meeting expected = reference.getMeetings().get(1234);
+        Meeting archived = archive.getMeetingsBetween(expected.getPlace(), expected.getDate(), expected.getDate()).get(0);
+        assertEquals(expected, archived);
+        assertEquals(expected.getSubject(), archived.getSubject());
+        assertEquals(expected.getDuration(), archived.getDuration());
+        assertArrayEquals(expected.getPersonIds(), archived.getPersonIds());
+        assertTrue(archive.getMeetingsBetween(expected.getDate(), expected.getDate()).contains(archived));
+        assertSame(archived, archive.getMeetingsBetween(expected.getPlace(), expected.getDate(), null).get(0));
+    }
+
+    /**
+     * Test a deleted meeting is not returned anymore, and is dropped when the archive is rewritten
+     */
+    @Test
+    public void deleteArchivedMeeting() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 100, new Random(5));
+        MeetingsArchive archive = MeetingsArchive.open(ByteBuffer.wrap(MeetingsTestData.writeArchive(meetings)));
+        Meeting meeting = meetings.get(42);
+
+        assertTrue(archive.containsMeeting(meeting));
+        assertTrue(archive.deleteMeeting(meeting));
+        assertFalse(archive.deleteMeeting(meeting));
+        assertFalse(archive.containsMeeting(meeting));
+        assertEquals(99, archive.getMeetingsBetween(null, null).size());
+        assertFalse(archive.getMeetingsBetween(meeting.getPlace(), null, null).contains(meeting));
+
+        // moving nothing more rewrites the archive without the deleted meeting
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MeetingsArchive.moveMeetingsBefore(new IndexedMeetingsApiService(), Instant.EPOCH, archive,
+                Channels.newChannel(output));
+        assertEquals(99, MeetingsArchive.open(ByteBuffer.wrap(output.toByteArray())).size());
+    }
+
+    /**
+     * Test a rewritten archive merges the rows of the previous one, but the deleted ones, with the moved
+     * meetings, each meeting once, with all its fields
+     */
+    @Test
+    public void rewriteMergesPreviousArchive() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 400, new Random(21));
+        Collections.sort(meetings, Meeting.CHRONOLOGICAL_ORDER);
+        MeetingsArchive previous = MeetingsArchive.open(ByteBuffer.wrap(MeetingsTestData.writeArchive(meetings.subList(150, 400))));
+        assertTrue(previous.deleteMeeting(meetings.get(300)));
+        // the service holds earlier meetings (so the ids of the archive are renumbered), and archived ones again
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        service.addMeetings(meetings.subList(0, 250));
+        Meeting first = new Meeting(meetings.get(0).getDate().minusSeconds(3600), "Accueil",
+                new Place("Amphithéâtre"));
+        service.addMeeting(first);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(251, MeetingsArchive.moveMeetingsBefore(service, meetings.get(399).getDate().plusNanos(1),
+                previous, Channels.newChannel(output)));
+        assertTrue(service.getMeetings().isEmpty());
+        List<Meeting> expected = new ArrayList<>(meetings);
+        expected.remove(300);
+        expected.add(0, first);
+        List<Meeting> archived = MeetingsArchive.open(ByteBuffer.wrap(output.toByteArray()))
+                .getMeetingsBetween(null, null);
+        assertEquals(expected, archived);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getSubject(), archived.get(i).getSubject());
+            assertEquals(expected.get(i).getDuration(), archived.get(i).getDuration());
+            assertArrayEquals(expected.get(i).getPersonIds(), archived.get(i).getPersonIds());
+        }
+    }
+
+    /**
+     * Test the past meetings of a store are moved to a mapped archive file
+     */
+    @Test
+    public void moveMeetingsToArchiveFile() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 500, new Random(9));
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        service.addMeetings(meetings);
+        Instant before = Instant.parse("2020-01-07T12:00:00Z");
+        int pastCount = service.getMeetingsBetween(null, before.minusNanos(1)).size();
+
+        File file = File.createTempFile("mareu-archive", ".bin");
+        try {
+            try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+                assertEquals(pastCount, MeetingsArchive.moveMeetingsBefore(service, before, null, channel));
+            }
+            assertEquals(meetings.size() - pastCount, service.getMeetings().size());
+            assertFalse(service.getMeetings().get(0).getDate().isBefore(before));
+            try (FileChannel channel = new FileInputStream(file).getChannel()) {
+                MeetingsArchive archive = MeetingsArchive.open(channel);
+                assertEquals(pastCount, archive.size());
+                assertTrue(archive.getLastDate().isBefore(before));
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * Test a truncated or unknown archive is rejected
+     */
+    @Test
+    public void rejectInvalidArchives() throws IOException {
+        byte[] bytes = MeetingsTestData.writeArchive(MeetingsTestData.buildMeetings(ORIGIN, 100, new Random(1)));
+        byte[] truncated = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[7] = (byte) (MeetingsArchive.VERSION + 1);
+
+        for (byte[] invalid : new byte[][]{truncated, unknownVersion, new byte[10]}) {
+            try {
+                MeetingsArchive.open(ByteBuffer.wrap(invalid));
+                fail("an invalid archive must be rejected");
+            } catch (IOException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Test the meetings list queries the archive only when its start date filter reaches the past
+     */
+    @Test
+    public void repositoryQueriesArchiveForThePast() throws IOException {
+        Instant now = DateEasy.now();
+        Meeting past = new Meeting(DateEasy.plusDays(now, -400), "Bilan", new Place("Salle archive"));
+        Meeting future = new Meeting(DateEasy.plusDays(now, 10), "Revue", new Place("Salle archive"));
+        List<Meeting> archived = new ArrayList<>();
+        archived.add(past);
+        MeetingsApiService service = DI.getMeetingsApiService();
+        DI.setMeetingsArchive(MeetingsArchive.open(ByteBuffer.wrap(MeetingsTestData.writeArchive(archived))));
+        MeetingsListFakeRepository repository = new MeetingsListFakeRepository();
+        try {
+            service.addMeeting(future);
+            // the default filters start today : the archive is not queried
+            assertEquals(Collections.singletonList(future), repository.getFilteredAndSortedMeetings());
+
+            repository.setFilterStartDate(DateEasy.plusDays(now, -500));
+            assertEquals(2, repository.getFilteredAndSortedMeetings().size());
+            assertEquals(past, repository.getFilteredAndSortedMeetings().get(0));
+            repository.setFilterPlace("salle arch");
+            assertEquals(2, repository.getFilteredAndSortedMeetings().size());
+
+            // an archived meeting is deleted from the archive
+            repository.deleteMeeting(repository.getFilteredAndSortedMeetings().get(0));
+            assertEquals(Collections.singletonList(future), repository.getFilteredAndSortedMeetings());
+            assertEquals(1, service.getMeetings().size());
+        } finally {
+            repository.release();
+            service.deleteMeeting(future);
+            DI.setMeetingsArchive(null);
+        }
+    }
+
+    /**
+     * Test the storage moves the past meetings to its archive, and the meetings list keeps them listed
+     */
+    @Test
+    public void storageArchivesPastMeetings() throws IOException {
+        Instant now = DateEasy.now();
+        Meeting past = new Meeting(DateEasy.plusDays(now, -10), "Bilan", new Place("Salle archive"));
+        Meeting future = new Meeting(DateEasy.plusDays(now, 10), "Revue", new Place("Salle archive"));
+        MeetingsApiService service = DI.getMeetingsApiService();
+        service.addMeetings(Arrays.asList(past, future));
+        MeetingsListFakeRepository repository = new MeetingsListFakeRepository();
+        File directory = File.createTempFile("mareu-storage", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            repository.setFilterStartDate(DateEasy.plusDays(now, -30));
+            assertEquals(Arrays.asList(past, future), repository.getFilteredAndSortedMeetings());
+
+            // the past meeting leaves the service, for the archive opened meanwhile
+            MeetingsStorage storage = new MeetingsStorage(directory, service, DI::setMeetingsArchive);
+            assertEquals(1, storage.archiveMeetingsBefore(DateEasy.startOfDay(now)));
+            assertFalse(service.containsMeeting(past));
+            assertSame(storage.getArchive(), DI.getMeetingsArchive());
+            // it is still listed, read from the archive
+            assertEquals(Arrays.asList(past, future), repository.getFilteredAndSortedMeetings());
+            assertEquals(1, storage.archiveMeetingsBefore(DateEasy.startOfDay(DateEasy.plusDays(now, 20))));
+            assertEquals(Arrays.asList(past, future), repository.getFilteredAndSortedMeetings());
+
+            // the archive and the snapshot are restored at the next launch
+            DI.setMeetingsArchive(null);
+            MeetingsApiService restored = new ConcurrentMeetingsApiService();
+            assertEquals(0, new MeetingsStorage(directory, restored, DI::setMeetingsArchive).load());
+            assertEquals(2, DI.getMeetingsArchive().size());
+            assertTrue(restored.getMeetings().isEmpty());
+        } finally {
+            repository.release();
+            service.deleteMeetings(Arrays.asList(past, future));
+            DI.setMeetingsArchive(null);
+            for (File file : directory.listFiles()) {
+                assertTrue(file.delete());
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
+}
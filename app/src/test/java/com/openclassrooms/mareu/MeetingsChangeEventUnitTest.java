@@ -0,0 +1,89 @@
+package com.openclassrooms.mareu;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsChangeEvent;
+import com.openclassrooms.mareu.service.MeetingsChangeEventPublisher;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class to test the change events of the meetings service, published on an event bus
+ */
+public class MeetingsChangeEventUnitTest {
+
+    /**
+     * Subscriber recording the events
+     */
+    public static class Recorder {
+        final List<MeetingsChangeEvent> events = new ArrayList<>();
+
+        @Subscribe
+        public void onMeetingsChanged(MeetingsChangeEvent event) {
+            events.add(event);
+        }
+    }
+
+    /**
+     * Test each change produces a single typed event, with increasing versions
+     */
+    @Test
+    public void publishTypedEvents() {
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        EventBus eventBus = EventBus.builder().build();
+        Recorder recorder = new Recorder();
+        eventBus.register(recorder);
+        MeetingsChangeEventPublisher publisher = new MeetingsChangeEventPublisher(service, eventBus);
+
+        Instant now = DateEasy.now();
+        Meeting one = new Meeting(DateEasy.plusDays(now, 1), "Réunion de service", new Place("Salle A"));
+        Meeting two = new Meeting(DateEasy.plusDays(now, 2), "Atelier technique", new Place("Salle A"));
+        Meeting three = new Meeting(DateEasy.plusDays(now, 3), "Afterwork", new Place("Salle B"));
+        Meeting renamed = new Meeting(one.getDate(), "Réunion renommée", one.getPlace());
+
+        service.addMeeting(one);
+        service.addMeetings(Arrays.asList(two, three));
+        // refused changes publish nothing
+        service.addMeeting(one);
+        service.updateMeeting(three, new Meeting(two.getDate(), "Doublon", two.getPlace()));
+        service.updateMeeting(one, renamed);
+        service.deleteMeetings(Arrays.asList(two, three));
+
+        List<MeetingsChangeEvent> events = recorder.events;
+        assertEquals(4, events.size());
+        assertEquals(MeetingsChangeEvent.Type.ADDED, events.get(0).getType());
+        assertEquals(Collections.singletonList(one), events.get(0).getMeetings());
+        assertEquals(MeetingsChangeEvent.Type.ADDED, events.get(1).getType());
+        assertEquals(Arrays.asList(two, three), events.get(1).getMeetings());
+        assertEquals(MeetingsChangeEvent.Type.UPDATED, events.get(2).getType());
+        assertSame(renamed, events.get(2).getMeetings().get(0));
+        assertSame(one, events.get(2).getPreviousMeetings().get(0));
+        assertEquals(MeetingsChangeEvent.Type.REMOVED, events.get(3).getType());
+        assertEquals(2, events.get(3).getMeetings().size());
+        assertTrue(events.get(3).getPreviousMeetings().isEmpty());
+        // each event carries the version following its change
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 1, events.get(i).getVersion());
+        }
+        assertEquals(service.getVersion(), events.get(3).getVersion());
+
+        // once released, the publisher posts nothing more
+        publisher.release();
+        service.deleteMeeting(renamed);
+        assertEquals(4, events.size());
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.openclassrooms.mareu;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.di.DI;
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.repository.fake.MeetingsListFakeRepository;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class to test the filtered meetings of the MeetingsListFakeRepository
+ */
+public class MeetingsListFakeRepositoryUnitTest {
+
+    /**
+     * The shared service, and the repository under test
+     */
+    private MeetingsApiService mMeetingsApiService;
+    private MeetingsListFakeRepository mRepository;
+
+    /**
+     * Three concrete meetings as a base for testing
+     */
+    private Meeting mMeetingOne;
+    private Meeting mMeetingTwo;
+    private Meeting mMeetingThree;
+
+    /**
+     * Instantiate the repository, and register the three meetings
+     */
+    @Before
+    public void setup() {
+        mMeetingsApiService = DI.getMeetingsApiService();
+        mRepository = new MeetingsListFakeRepository();
+
+        Instant now = DateEasy.now();
+        mMeetingOne = new Meeting(DateEasy.plusDays(now, 10), "Réunion de service",
+                new Place("Salle conférence A"));
+        mMeetingTwo = new Meeting(DateEasy.plusDays(now, 20), "Atelier technique Android",
+                new Place("Salle conférence B"));
+        mMeetingThree = new Meeting(DateEasy.plusDays(now, 30), "Afterwork Repas Noel",
+                new Place("Cafétéria"));
+
+        mMeetingsApiService.addMeeting(mMeetingThree);
+        mMeetingsApiService.addMeeting(mMeetingOne);
+        mMeetingsApiService.addMeeting(mMeetingTwo);
+    }
+
+    /**
+     * Clean the shared service
+     */
+    @After
+    public void tearDown() {
+        mRepository.release();
+        for (Meeting meeting : new ArrayList<>(mMeetingsApiService.getMeetings())) {
+            mMeetingsApiService.deleteMeeting(meeting);
+        }
+    }
+
+    /**
+     * Test the meetings are filtered by place prefix, and sorted by date
+     */
+    @Test
+    public void filterByPlace() {
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(3, meetings.size());
+        assertSame(mMeetingOne, meetings.get(0));
+        assertSame(mMeetingThree, meetings.get(2));
+
+        mRepository.setFilterPlace("salle");
+        meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(2, meetings.size());
+        assertSame(mMeetingOne, meetings.get(0));
+        assertSame(mMeetingTwo, meetings.get(1));
+    }
+
+    /**
+     * Test the meetings are filtered by attendee, combined with the place filter
+     */
+    @Test
+    public void filterByPerson() {
+        Meeting meeting = new Meeting(DateEasy.plusDays(DateEasy.now(), 15), "Point projet",
+                new Place("Cafétéria"), new Person("jean@entreprise.fr"));
+        mMeetingsApiService.addMeeting(meeting);
+
+        // the meetings of the person
+        mRepository.setFilterPerson("jean@entreprise.fr");
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(1, meetings.size());
+        assertSame(meeting, meetings.get(0));
+
+        // combined with the place filter
+        mRepository.setFilterPlace("salle");
+        assertEquals(0, mRepository.getFilteredAndSortedMeetings().size());
+
+        // a meeting of the person is patched in
+        Meeting newMeeting = new Meeting(DateEasy.plusDays(DateEasy.now(), 16), "Atelier",
+                new Place("Salle conférence C"), new Person("jean@entreprise.fr"));
+        mMeetingsApiService.addMeeting(newMeeting);
+        meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(1, meetings.size());
+        assertSame(newMeeting, meetings.get(0));
+
+        // an unknown person has no meeting
+        mRepository.setFilterPlace("");
+        mRepository.setFilterPerson("personne@entreprise.fr");
+        assertEquals(0, mRepository.getFilteredAndSortedMeetings().size());
+    }
+
+    /**
+     * Test the meetings are filtered by subject, whatever the case and the accents
+     */
+    @Test
+    public void filterBySubject() {
+        mRepository.setFilterSubject("REUNION");
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(1, meetings.size());
+        assertSame(mMeetingOne, meetings.get(0));
+
+        // a matching meeting is patched in
+        Meeting meeting = new Meeting(DateEasy.plusDays(DateEasy.now(), 15), "Réunion d'équipe",
+                new Place("Cafétéria"));
+        mMeetingsApiService.addMeeting(meeting);
+        assertEquals(Arrays.asList(mMeetingOne, meeting), mRepository.getFilteredAndSortedMeetings());
+
+        // a longer text narrows the result
+        mRepository.setFilterSubject("réunion d'e");
+        assertEquals(Collections.singletonList(meeting), mRepository.getFilteredAndSortedMeetings());
+        mRepository.setFilterSubject("");
+        assertEquals(4, mRepository.getFilteredAndSortedMeetings().size());
+    }
+
+    /**
+     * Test the meetings filtered by subject are ranked : subject starting with the text, then a word,
+     * then anywhere, and the patches keep the rank
+     */
+    @Test
+    public void filterBySubjectRanksMatches() {
+        Instant now = DateEasy.now();
+        Meeting inside = new Meeting(DateEasy.plusDays(now, 5), "Préréunion", new Place("Cafétéria"));
+        Meeting word = new Meeting(DateEasy.plusDays(now, 12), "Atelier réunion", new Place("Cafétéria"));
+        mMeetingsApiService.addMeetings(Arrays.asList(inside, word));
+
+        mRepository.setFilterSubject("réunion");
+        assertEquals(Arrays.asList(mMeetingOne, word, inside), mRepository.getFilteredAndSortedMeetings());
+
+        // a meeting starting with the text is patched in among the best matches
+        Meeting start = new Meeting(DateEasy.plusDays(now, 25), "Réunion d'équipe", new Place("Cafétéria"));
+        mMeetingsApiService.addMeeting(start);
+        assertEquals(Arrays.asList(mMeetingOne, start, word, inside), mRepository.getFilteredAndSortedMeetings());
+        mMeetingsApiService.deleteMeeting(word);
+        assertEquals(Arrays.asList(mMeetingOne, start, inside), mRepository.getFilteredAndSortedMeetings());
+
+        // without the subject filter, the meetings are sorted by date again
+        mRepository.setFilterSubject("");
+        assertEquals(Arrays.asList(inside, mMeetingOne, mMeetingTwo, start, mMeetingThree),
+                mRepository.getFilteredAndSortedMeetings());
+    }
+
+    /**
+     * Test the meetings are filtered by time span
+     */
+    @Test
+    public void filterByTimeSpan() {
+        mRepository.setFilterStartDate(mMeetingTwo.getDate());
+        mRepository.setFilterEndDate(mMeetingTwo.getDate());
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(1, meetings.size());
+        assertSame(mMeetingTwo, meetings.get(0));
+
+        // null means no bound
+        mRepository.setFilterStartDate(null);
+        mRepository.setFilterEndDate(null);
+        assertEquals(3, mRepository.getFilteredAndSortedMeetings().size());
+    }
+
+    /**
+     * Test the filtered meetings are patched when the service changes
+     */
+    @Test
+    public void patchOnServiceChange() {
+        mRepository.setFilterPlace("salle");
+        assertEquals(2, mRepository.getFilteredAndSortedMeetings().size());
+
+        // a matching meeting is inserted at its place
+        Meeting meeting = new Meeting(DateEasy.plusDays(DateEasy.now(), 15), "Point projet",
+                new Place("Salle conférence C"));
+        mMeetingsApiService.addMeeting(meeting);
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(3, meetings.size());
+        assertSame(meeting, meetings.get(1));
+
+        // a meeting which does not match is ignored
+        mMeetingsApiService.addMeeting(new Meeting(DateEasy.plusDays(DateEasy.now(), 16),
+                "Pause", new Place("Cafétéria")));
+        assertEquals(3, mRepository.getFilteredAndSortedMeetings().size());
+
+        // a deleted meeting is dropped
+        mRepository.deleteMeeting(mMeetingOne);
+        meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(2, meetings.size());
+        assertSame(meeting, meetings.get(0));
+    }
+
+    /**
+     * Test the same list is returned while nothing changed
+     */
+    @Test
+    public void noChangeNoCopy() {
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        mRepository.setFilterPlace(mRepository.getFilterPlace());
+        assertSame(meetings, mRepository.getFilteredAndSortedMeetings());
+    }
+
+    /**
+     * Test a list handed out is never changed by the later patches
+     */
+    @Test
+    public void patchKeepsHandedOutList() {
+        List<Meeting> before = mRepository.getFilteredAndSortedMeetings();
+        Meeting meeting = new Meeting(DateEasy.plusDays(DateEasy.now(), 15), "Point projet",
+                new Place("Salle conférence C"));
+        mMeetingsApiService.addMeeting(meeting);
+        mMeetingsApiService.deleteMeeting(mMeetingOne);
+
+        assertEquals(Arrays.asList(mMeetingOne, mMeetingTwo, mMeetingThree), before);
+        assertEquals(Arrays.asList(meeting, mMeetingTwo, mMeetingThree), mRepository.getFilteredAndSortedMeetings());
+        try {
+            before.remove(0);
+            fail("the list handed out must be read-only");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(3, before.size());
+        }
+    }
+
+    /**
+     * Test the filtered meetings are patched by a batch of the service
+     */
+    @Test
+    public void patchOnServiceBatch() {
+        mRepository.setFilterPlace("salle");
+        assertEquals(2, mRepository.getFilteredAndSortedMeetings().size());
+
+        // the matching meetings are merged at their place, the others are ignored
+        Meeting first = new Meeting(DateEasy.plusDays(DateEasy.now(), 5), "Point projet",
+                new Place("Salle conférence C"));
+        Meeting last = new Meeting(DateEasy.plusDays(DateEasy.now(), 25), "Revue de code",
+                new Place("Salle conférence C"));
+        Meeting ignored = new Meeting(DateEasy.plusDays(DateEasy.now(), 15), "Pause", new Place("Cafétéria"));
+        mMeetingsApiService.addMeetings(Arrays.asList(last, ignored, first, mMeetingTwo));
+        List<Meeting> meetings = mRepository.getFilteredAndSortedMeetings();
+        assertEquals(Arrays.asList(first, mMeetingOne, mMeetingTwo, last), meetings);
+
+        // the deleted meetings are dropped
+        mMeetingsApiService.deleteMeetings(Arrays.asList(mMeetingTwo, ignored, first));
+        assertEquals(Arrays.asList(mMeetingOne, last), mRepository.getFilteredAndSortedMeetings());
+    }
+
+    /**
+     * Test the filtered meetings stay right while the service changes during the queries
+     */
+    @Test
+    public void queryWhileServiceChanges() throws InterruptedException {
+        Instant origin = DateEasy.plusDays(DateEasy.now(), 1);
+        List<Meeting> kept = new ArrayList<>();
+        for (int i = 0; i < 2000; i += 2) {
+            kept.add(new Meeting(origin.plus(Duration.ofHours(i)), "Gardée", new Place("Salle concurrente")));
+        }
+        // the writer adds the meetings, and deletes every other one right after adding it
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                Meeting meeting = new Meeting(origin.plus(Duration.ofHours(i)), "Gardée",
+                        new Place("Salle concurrente"));
+                mMeetingsApiService.addMeeting(meeting);
+                if (i % 2 == 1) {
+                    mMeetingsApiService.deleteMeeting(meeting);
+                }
+            }
+        });
+        writer.start();
+        // the queries are recomputed meanwhile
+        boolean toggle = false;
+        while (writer.isAlive()) {
+            mRepository.setFilterPlace(toggle ? "salle" : "salle conc");
+            mRepository.getFilteredAndSortedMeetings();
+            toggle = !toggle;
+        }
+        writer.join();
+
+        mRepository.setFilterPlace("salle conc");
+        assertEquals(kept, mRepository.getFilteredAndSortedMeetings());
+    }
+
+}
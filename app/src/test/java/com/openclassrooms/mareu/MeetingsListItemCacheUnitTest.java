@@ -0,0 +1,79 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.ui.meetings_list.MeetingsListItem;
+import com.openclassrooms.mareu.ui.meetings_list.MeetingsListItemCache;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class to test the texts of the meetings list rows are computed once per meeting version
+ */
+public class MeetingsListItemCacheUnitTest {
+
+    /**
+     * Test the version of a meeting changes with the meeting only
+     */
+    @Test
+    public void meetingVersionChangesOnModification() {
+        Person person = new Person("cache.one@entreprise.fr");
+        Meeting meeting = new Meeting(DateEasy.now(), "Réunion de service", new Place("Salle A"), person);
+        int version = meeting.getVersion();
+        meeting.addPerson(person);
+        meeting.addPeople(person);
+        assertEquals(version, meeting.getVersion());
+        meeting.addPerson(new Person("cache.two@entreprise.fr"));
+        assertNotEquals(version, meeting.getVersion());
+        version = meeting.getVersion();
+        meeting.setSubject("Atelier technique Android");
+        assertNotEquals(version, meeting.getVersion());
+    }
+
+    /**
+     * Test the rows are reused until their meeting changes
+     */
+    @Test
+    public void itemsAreComputedOncePerVersion() {
+        MeetingsListItemCache cache = new MeetingsListItemCache();
+        Meeting meetingOne = new Meeting(DateEasy.now(), "Réunion de service", new Place("Salle A"),
+                new Person("cache.three@entreprise.fr"));
+        Meeting meetingTwo = new Meeting(DateEasy.now(), "Atelier technique Android", new Place("Salle B"));
+
+        List<MeetingsListItem> items = cache.getItems(Arrays.asList(meetingOne, meetingTwo));
+        assertEquals(2, cache.getComputedCount());
+        assertEquals("Salle A", items.get(0).getPlaceLabel());
+        assertEquals(DateEasy.localeSpecialStringFromInstant(meetingOne.getDate()), items.get(0).getDateLabel());
+        assertEquals("1 person invited: cache.three@entreprise.fr", items.get(0).getPersonsSummary());
+        assertNull(items.get(1).getPersonsSummary());
+
+        // same meetings : the rows are reused
+        List<MeetingsListItem> sameItems = cache.getItems(Arrays.asList(meetingOne, meetingTwo));
+        assertEquals(2, cache.getComputedCount());
+        assertSame(items.get(0), sameItems.get(0));
+        assertSame(items.get(1), sameItems.get(1));
+
+        // a modified meeting : only its row is computed again
+        meetingTwo.addPerson(new Person("cache.four@entreprise.fr"));
+        List<MeetingsListItem> newItems = cache.getItems(Arrays.asList(meetingOne, meetingTwo));
+        assertEquals(3, cache.getComputedCount());
+        assertSame(items.get(0), newItems.get(0));
+        assertNotSame(items.get(1), newItems.get(1));
+        assertFalse(items.get(1).hasSameContents(newItems.get(1)));
+        assertTrue(newItems.get(1).getPersonsSummary().contains("cache.four@entreprise.fr"));
+
+        // a meeting no longer displayed is forgotten
+        cache.getItems(Collections.singletonList(meetingTwo));
+        cache.getItems(Arrays.asList(meetingOne, meetingTwo));
+        assertEquals(4, cache.getComputedCount());
+    }
+
+}
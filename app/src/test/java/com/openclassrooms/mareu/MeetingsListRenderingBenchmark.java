@@ -0,0 +1,318 @@
+package com.openclassrooms.mareu;
+
+import android.os.Looper;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.openclassrooms.mareu.di.DI;
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.ui.main.MainActivity;
+import com.openclassrooms.mareu.ui.meetings_list.MeetingsListAdapter;
+import com.openclassrooms.mareu.ui.meetings_list.MeetingsListViewHolder;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Benchmark of the meetings list rendering, on the JVM thanks to Robolectric
+ * The MainActivity inflates the MeetingsListFragment on synthetic data sets, then the benchmark
+ * measures the creation and the binding of the view holders, and scrolls through the RecyclerView.
+ * For each step, it reports the time (median, 90th percentile) and the bytes allocated by the main thread.
+ *
+ * Skipped by default, run it with : ./gradlew :app:testDebugUnitTest --tests '*MeetingsListRenderingBenchmark' -Pbenchmark
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class MeetingsListRenderingBenchmark {
+
+    /**
+     * The sizes of the data sets
+     */
+    private static final int[] MEETINGS_COUNTS = {100, 1000, 10000};
+
+    /**
+     * The number of places and persons the meetings are spread over
+     */
+    private static final int PLACES_COUNT = 20;
+    private static final int PERSONS_COUNT = 300;
+
+    /**
+     * The number of view holders created, and bound in turn (as the recycler pool would do)
+     */
+    private static final int VIEW_HOLDERS_COUNT = 12;
+
+    /**
+     * The size of the screen
+     */
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+
+    /**
+     * The maximum time to wait for the list to be displayed
+     */
+    private static final long LOADING_TIMEOUT_MS = 60000;
+
+    /**
+     * The shared service
+     */
+    private MeetingsApiService mMeetingsApiService;
+
+    /**
+     * Run only when asked (-Pbenchmark)
+     */
+    @Before
+    public void setup() {
+        Assume.assumeTrue("benchmark skipped, run it with -Pbenchmark", Boolean.getBoolean("mareu.benchmark"));
+        mMeetingsApiService = DI.getMeetingsApiService();
+    }
+
+    /**
+     * Clean the shared service
+     */
+    @After
+    public void tearDown() {
+        if (mMeetingsApiService != null) {
+            deleteAllMeetings();
+        }
+    }
+
+    /**
+     * Render each data set, and report the measures
+     */
+    @Test
+    public void renderMeetingsList() {
+        System.out.println("Meetings list rendering (time in µs, allocations in bytes, by the main thread)");
+        for (int meetingsCount : MEETINGS_COUNTS) {
+            renderMeetingsList(meetingsCount);
+            deleteAllMeetings();
+        }
+    }
+
+    /**
+     * Render a data set
+     * @param meetingsCount the number of meetings
+     */
+    private void renderMeetingsList(int meetingsCount) {
+        addMeetings(meetingsCount);
+
+        // inflate the fragment, and wait for the list to be queried and diffed in the background
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        RecyclerView recyclerView = controller.get().findViewById(R.id.fragment_meetings_recycler_view);
+        MeetingsListAdapter adapter = (MeetingsListAdapter) recyclerView.getAdapter();
+        assertNotNull(adapter);
+        waitForItems(adapter, meetingsCount);
+        layout(recyclerView);
+
+        // create the view holders
+        Measures creations = new Measures(VIEW_HOLDERS_COUNT);
+        List<MeetingsListViewHolder> holders = new ArrayList<>();
+        for (int i = 0; i < VIEW_HOLDERS_COUNT; i++) {
+            creations.start();
+            holders.add(adapter.onCreateViewHolder(recyclerView, 0));
+            creations.stop();
+        }
+
+        // bind every position, with the view holders in turn
+        Measures binds = new Measures(meetingsCount);
+        for (int position = 0; position < meetingsCount; position++) {
+            MeetingsListViewHolder holder = holders.get(position % VIEW_HOLDERS_COUNT);
+            binds.start();
+            adapter.onBindViewHolder(holder, position);
+            binds.stop();
+        }
+
+        // scroll through the list, one screen at a time, counting the attached items
+        final int[] attachedItems = {0};
+        recyclerView.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
+            @Override
+            public void onChildViewAttachedToWindow(@NonNull View view) {
+                attachedItems[0]++;
+            }
+
+            @Override
+            public void onChildViewDetachedFromWindow(@NonNull View view) {
+            }
+        });
+        Measures scrolls = new Measures(meetingsCount);
+        while (recyclerView.canScrollVertically(1)) {
+            scrolls.start();
+            recyclerView.scrollBy(0, SCREEN_HEIGHT);
+            scrolls.stop();
+        }
+
+        report(meetingsCount, "create view holder", creations);
+        report(meetingsCount, "bind view holder", binds);
+        report(meetingsCount, "scroll one screen", scrolls);
+        report(meetingsCount, "scroll, per shown item", scrolls, attachedItems[0]);
+
+        controller.pause().stop().destroy();
+    }
+
+    /**
+     * Add meetings which never overlap : one meeting per hour in each place, with 2 to 8 persons
+     * @param meetingsCount the number of meetings
+     */
+    private void addMeetings(int meetingsCount) {
+        Random random = new Random(42);
+        Instant origin = DateEasy.startOfDay(DateEasy.plusDays(DateEasy.now(), 1));
+        for (int i = 0; i < meetingsCount; i++) {
+            Meeting meeting = new Meeting(origin.plus(Duration.ofHours(i / PLACES_COUNT)),
+                    "Réunion " + i, new Place("Salle " + (i % PLACES_COUNT)));
+            int personsCount = 2 + random.nextInt(7);
+            for (int j = 0; j < personsCount; j++) {
+                meeting.addPerson(new Person("collaborateur" + random.nextInt(PERSONS_COUNT) + "@entreprise.fr"));
+            }
+            assertTrue(mMeetingsApiService.addMeeting(meeting));
+        }
+    }
+
+    /**
+     * Delete all the meetings of the shared service
+     */
+    private void deleteAllMeetings() {
+        for (Meeting meeting : new ArrayList<>(mMeetingsApiService.getMeetings())) {
+            mMeetingsApiService.deleteMeeting(meeting);
+        }
+    }
+
+    /**
+     * Run the main looper until the adapter shows the expected number of items
+     * @param adapter the adapter
+     * @param itemsCount the expected number of items
+     */
+    private static void waitForItems(MeetingsListAdapter adapter, int itemsCount) {
+        long deadline = System.currentTimeMillis() + LOADING_TIMEOUT_MS;
+        while (adapter.getItemCount() != itemsCount) {
+            assertTrue("list not displayed in time", System.currentTimeMillis() < deadline);
+            shadowOf(Looper.getMainLooper()).idle();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+
+    /**
+     * Measure and layout the recycler view on the whole screen
+     * @param recyclerView the recycler view
+     */
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+
+    /**
+     * Print a line of the report, per run
+     * @param meetingsCount the number of meetings
+     * @param step the measured step
+     * @param measures the measures
+     */
+    private static void report(int meetingsCount, String step, Measures measures) {
+        System.out.printf("%6d meetings | %-24s | %6d runs  | median %9.1f µs | p90 %9.1f µs | %9d bytes/run%n",
+                meetingsCount, step, measures.size(),
+                measures.timePercentile(50) / 1000.0, measures.timePercentile(90) / 1000.0,
+                measures.totalAllocatedBytes() / Math.max(1, measures.size()));
+    }
+
+    /**
+     * Print a line of the report, per item
+     * @param meetingsCount the number of meetings
+     * @param step the measured step
+     * @param measures the measures
+     * @param itemsCount the number of items processed by all the runs
+     */
+    private static void report(int meetingsCount, String step, Measures measures, int itemsCount) {
+        System.out.printf("%6d meetings | %-24s | %6d items | mean   %9.1f µs |                 | %9d bytes/item%n",
+                meetingsCount, step, itemsCount,
+                measures.totalTime() / 1000.0 / Math.max(1, itemsCount),
+                measures.totalAllocatedBytes() / Math.max(1, itemsCount));
+    }
+
+    /**
+     * Time and allocations of a series of runs, on the current thread
+     */
+    private static final class Measures {
+
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        private long[] mTimes;
+        private int mSize;
+        private long mTotalTime;
+        private long mTotalAllocatedBytes;
+        private long mStartTime;
+        private long mStartAllocatedBytes;
+
+        Measures(int capacity) {
+            mTimes = new long[Math.max(1, capacity)];
+        }
+
+        void start() {
+            mStartAllocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+            mStartTime = System.nanoTime();
+        }
+
+        void stop() {
+            long time = System.nanoTime() - mStartTime;
+            mTotalTime += time;
+            mTotalAllocatedBytes += THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId())
+                    - mStartAllocatedBytes;
+            if (mSize == mTimes.length) {
+                mTimes = Arrays.copyOf(mTimes, mSize * 2);
+            }
+            mTimes[mSize++] = time;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        long totalTime() {
+            return mTotalTime;
+        }
+
+        long totalAllocatedBytes() {
+            return mTotalAllocatedBytes;
+        }
+
+        double timePercentile(int percentile) {
+            if (mSize == 0) {
+                return 0;
+            }
+            long[] times = Arrays.copyOf(mTimes, mSize);
+            Arrays.sort(times);
+            return times[Math.min(mSize - 1, mSize * percentile / 100)];
+        }
+    }
+
+}
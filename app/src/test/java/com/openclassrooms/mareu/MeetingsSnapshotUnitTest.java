@@ -0,0 +1,176 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsSnapshot;
+import com.openclassrooms.mareu.service.MeetingsStorage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the binary snapshot of the meetings, and the restoration of the store from it
+ */
+public class MeetingsSnapshotUnitTest {
+
+    private static final Instant ORIGIN = Instant.parse("2030-01-07T08:00:00Z");
+
+    /**
+     * Test the meetings are read back as written, in chronological order
+     */
+    @Test
+    public void writeThenReadSnapshot() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 500, new Random(42));
+        // a date with nanos, and a meeting without subject
+        meetings.add(new Meeting(Instant.parse("2040-01-01T10:00:00.123456789Z"), null, new Place("Salle ∆")));
+        List<Meeting> read = MeetingsSnapshot.read(ByteBuffer.wrap(MeetingsTestData.writeSnapshot(meetings)));
+
+        List<Meeting> sorted = new ArrayList<>(meetings);
+        Collections.sort(sorted, Meeting.CHRONOLOGICAL_ORDER);
+        assertEquals(sorted, read);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i).getSubject(), read.get(i).getSubject());
+            assertEquals(sorted.get(i).getDuration(), read.get(i).getDuration());
+            assertArrayEquals(sorted.get(i).getPersonIds(), read.get(i).getPersonIds());
+        }
+        // the places are shared by their meetings
+        assertSame(read.get(0).getPlace(), findByPlace(read, read.get(0).getPlace()).getPlace());
+    }
+
+    /**
+     * Test a snapshot file is read through a memory mapping
+     */
+    @Test
+    public void readMappedSnapshot() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 2000, new Random(7));
+        File file = File.createTempFile("mareu-snapshot", ".bin");
+        try {
+            try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+                MeetingsSnapshot.write(meetings, channel);
+            }
+            try (FileChannel channel = new FileInputStream(file).getChannel()) {
+                assertEquals(meetings.size(), MeetingsSnapshot.read(channel).size());
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * Test a corrupted, truncated or unknown snapshot is rejected
+     */
+    @Test
+    public void rejectInvalidSnapshots() throws IOException {
+        byte[] bytes = MeetingsTestData.writeSnapshot(MeetingsTestData.buildMeetings(ORIGIN, 100, new Random(1)));
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length / 2] ^= 1;
+        byte[] truncated = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[7] = (byte) (MeetingsSnapshot.VERSION + 1);
+
+        for (byte[] invalid : new byte[][]{corrupted, truncated, unknownVersion, new byte[10]}) {
+            try {
+                MeetingsSnapshot.read(ByteBuffer.wrap(invalid));
+                fail("an invalid snapshot must be rejected");
+            } catch (IOException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Test a store restored from a snapshot answers as a store filled meeting by meeting
+     */
+    @Test
+    public void restoreStoreFromSnapshot() throws IOException {
+        List<Meeting> meetings = MeetingsTestData.buildMeetings(ORIGIN, 3000, new Random(3));
+        MeetingsApiService reference = new IndexedMeetingsApiService();
+        for (Meeting meeting : meetings) {
+            reference.addMeeting(meeting);
+        }
+
+        MeetingsApiService restored = new IndexedMeetingsApiService();
+        List<MeetingsApiService.AddOutcome> outcomes = restored.addMeetings(
+                MeetingsSnapshot.read(ByteBuffer.wrap(MeetingsTestData.writeSnapshot(reference.getMeetings()))));
+        assertEquals(Collections.nCopies(reference.getMeetings().size(), MeetingsApiService.AddOutcome.ADDED),
+                outcomes);
+        assertEquals(reference.getMeetings(), restored.getMeetings());
+
+        Place place = new Place("Salle 3");
+        Instant from = Instant.parse("2030-01-10T00:00:00Z");
+        Instant to = Instant.parse("2030-01-20T00:00:00Z");
+        assertEquals(new ArrayList<>(reference.getMeetingsBetween(place, from, to)),
+                new ArrayList<>(restored.getMeetingsBetween(place, from, to)));
+        Person person = new Person("person7@entreprise.fr");
+        assertEquals(new ArrayList<>(reference.getMeetingsOf(person, null, null)),
+                new ArrayList<>(restored.getMeetingsOf(person, null, null)));
+        assertEquals(reference.getPlacesStartingWith("salle 1").size(),
+                restored.getPlacesStartingWith("salle 1").size());
+        Meeting meeting = reference.getMeetings().get(1234);
+        assertEquals(reference.getOverlappingMeetings(meeting.getPlace(), meeting.getDate(), meeting.getEndDate()),
+                restored.getOverlappingMeetings(meeting.getPlace(), meeting.getDate(), meeting.getEndDate()));
+
+        // the restored store keeps detecting the duplicates and the conflicts
+        assertFalse(restored.addMeeting(new Meeting(meeting.getDate().plus(Duration.ofMinutes(1)), "Conflit",
+                meeting.getPlace())));
+        restored.deleteMeeting(meeting);
+        assertEquals(reference.getMeetings().size() - 1, restored.getMeetings().size());
+    }
+
+    /**
+     * Test the storage saves the changed meetings only, and restores them into a new service
+     */
+    @Test
+    public void saveThenLoadStorage() throws IOException {
+        File directory = File.createTempFile("mareu-storage", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            MeetingsApiService service = new ConcurrentMeetingsApiService();
+            MeetingsStorage storage = new MeetingsStorage(directory, service, archive -> { });
+            // nothing to restore yet
+            assertEquals(0, storage.load());
+            service.addMeetings(MeetingsTestData.buildMeetings(ORIGIN, 1000, new Random(5)));
+            assertTrue(storage.save());
+            // unchanged since saved
+            assertFalse(storage.save());
+
+            MeetingsApiService restored = new ConcurrentMeetingsApiService();
+            assertEquals(1000, new MeetingsStorage(directory, restored, archive -> { }).load());
+            assertEquals(service.getMeetings(), restored.getMeetings());
+        } finally {
+            for (File file : directory.listFiles()) {
+                assertTrue(file.delete());
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
+    private static Meeting findByPlace(List<Meeting> meetings, Place place) {
+        for (int i = meetings.size() - 1; i >= 0; i--) {
+            if (meetings.get(i).getPlace().equals(place)) {
+                return meetings.get(i);
+            }
+        }
+        return null;
+    }
+
+}
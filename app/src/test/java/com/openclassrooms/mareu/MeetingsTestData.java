@@ -0,0 +1,73 @@
+package com.openclassrooms.mareu;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.MeetingsArchive;
+import com.openclassrooms.mareu.service.MeetingsSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test data shared by the tests of the binary formats of the meetings (snapshot and archive)
+ */
+final class MeetingsTestData {
+
+    private MeetingsTestData() {
+    }
+
+    /**
+     * Build meetings without conflict, in random order : ten per hour from an origin, in "Salle 0" to
+     * "Salle 9", some without subject, with up to four of the persons "person0@entreprise.fr" to
+     * "person39@entreprise.fr"
+     * @param origin the date of the first meetings
+     * @param count the number of meetings
+     * @param random the random generator
+     * @return the meetings
+     */
+    static List<Meeting> buildMeetings(Instant origin, int count, Random random) {
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Meeting meeting = new Meeting(origin.plus(Duration.ofHours(i / 10)),
+                    random.nextInt(8) == 0 ? null : "Réunion " + random.nextInt(count / 4 + 1),
+                    new Place("Salle " + i % 10), Duration.ofMinutes(15 * (1 + random.nextInt(4))));
+            for (int j = random.nextInt(5); j > 0; j--) {
+                meeting.addPerson(new Person("person" + random.nextInt(40) + "@entreprise.fr"));
+            }
+            meetings.add(meeting);
+        }
+        Collections.shuffle(meetings, random);
+        return meetings;
+    }
+
+    /**
+     * Write a snapshot of meetings
+     * @param meetings the meetings
+     * @return the bytes of the snapshot
+     */
+    static byte[] writeSnapshot(List<Meeting> meetings) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MeetingsSnapshot.write(meetings, Channels.newChannel(output));
+        return output.toByteArray();
+    }
+
+    /**
+     * Write an archive of meetings
+     * @param meetings the meetings
+     * @return the bytes of the archive
+     */
+    static byte[] writeArchive(List<Meeting> meetings) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MeetingsArchive.write(meetings, Channels.newChannel(output));
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Test class to test the PersonRegistry, and the persons of the meetings
+ */
+public class PersonRegistryUnitTest {
+
+    /**
+     * Test a person is registered once, with a dense id, and interned
+     */
+    @Test
+    public void internPersons() {
+        PersonRegistry registry = PersonRegistry.getInstance();
+        Person person = new Person("registry.one@entreprise.fr");
+        assertEquals(PersonRegistry.NO_ID, registry.findId(person));
+
+        // the first use gives the next id
+        int size = registry.size();
+        int id = registry.getId(person);
+        assertEquals(size, id);
+        assertEquals(size + 1, registry.size());
+
+        // an equal person gets the same id, and the canonical instance
+        Person samePerson = new Person("registry.one@entreprise.fr");
+        assertEquals(id, registry.getId(samePerson));
+        assertSame(person, registry.intern(samePerson));
+        assertSame(person, registry.getPerson(id));
+        assertEquals(size + 1, registry.size());
+    }
+
+    /**
+     * Test the persons of a meeting are stored once, as sorted ids, and shared between meetings
+     */
+    @Test
+    public void meetingPersonsAreSharedIds() {
+        Person personOne = new Person("registry.two@entreprise.fr");
+        Person personTwo = new Person("registry.three@entreprise.fr");
+        Meeting meetingOne = new Meeting(DateEasy.now(), "Réunion de service",
+                new Place("Salle A"), personTwo, personOne, personTwo);
+        Meeting meetingTwo = new Meeting(DateEasy.now(), "Atelier technique Android",
+                new Place("Salle B"), new Person("registry.two@entreprise.fr"));
+        meetingTwo.addPerson(new Person("registry.three@entreprise.fr"));
+        meetingTwo.addPerson(personOne);
+
+        // duplicates are dropped, and the ids are sorted
+        int[] personIds = meetingOne.getPersonIds();
+        assertEquals(2, personIds.length);
+        assertTrue(personIds[0] < personIds[1]);
+        assertTrue(Arrays.equals(personIds, meetingTwo.getPersonIds()));
+
+        // the persons are resolved through the registry
+        Set<Person> persons = meetingTwo.getPersons();
+        assertEquals(2, persons.size());
+        assertTrue(persons.contains(new Person("registry.three@entreprise.fr")));
+        assertFalse(persons.contains(new Person("registry.unknown@entreprise.fr")));
+        assertEquals(meetingOne.getPersons(), persons);
+        for (Person person : persons) {
+            assertSame(PersonRegistry.getInstance().intern(person), person);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.PersonRegistry;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.utils.DateEasy;
+import com.openclassrooms.mareu.utils.PersonsListFormatter;
+
+/**
+ * Test class to test the PersonsListFormatter (sorted ids and summary of the lazy persons lists)
+ */
+public class PersonsListFormatterUnitTest {
+
+    /**
+     * Test the ids are sorted by email, and the summary shows the count and the first emails
+     */
+    @Test
+    public void sortedIdsAndSummary() {
+        Meeting meeting = new Meeting(DateEasy.now(), "Réunion de service", new Place("Salle A"),
+                new Person("formatter.delta@entreprise.fr"), new Person("formatter.alpha@entreprise.fr"),
+                new Person("formatter.charlie@entreprise.fr"), new Person("formatter.bravo@entreprise.fr"));
+        int[] sortedIds = new PersonsListFormatter(meeting.getPersons()).getIdsSortedByEmail();
+
+        PersonRegistry registry = PersonRegistry.getInstance();
+        assertEquals(4, sortedIds.length);
+        assertEquals("formatter.alpha@entreprise.fr", registry.getPerson(sortedIds[0]).getEmail());
+        assertEquals("formatter.bravo@entreprise.fr", registry.getPerson(sortedIds[1]).getEmail());
+        assertEquals("formatter.charlie@entreprise.fr", registry.getPerson(sortedIds[2]).getEmail());
+        assertEquals("formatter.delta@entreprise.fr", registry.getPerson(sortedIds[3]).getEmail());
+
+        assertEquals("4 persons invited: formatter.alpha@entreprise.fr, formatter.bravo@entreprise.fr, "
+                + "formatter.charlie@entreprise.fr, …", PersonsListFormatter.formatSummary(sortedIds));
+        assertEquals("0 persons invited: ", PersonsListFormatter.formatSummary(new int[0]));
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.mareu;
+
+import static org.junit.Assert.assertEquals;
+
+import com.openclassrooms.mareu.utils.QueryExecutor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test on QueryExecutor class
+ */
+public class QueryExecutorUnitTest {
+
+    /**
+     * The worker thread, and the executor under test (results are "posted" on the worker itself)
+     */
+    private ScheduledExecutorService mWorker;
+    private QueryExecutor mQueryExecutor;
+
+    /**
+     * The results received by the callbacks
+     */
+    private final List<String> mResults = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        mWorker = Executors.newSingleThreadScheduledExecutor();
+        mQueryExecutor = new QueryExecutor(mWorker, Runnable::run);
+    }
+
+    /**
+     * Wait until every task submitted so far is done
+     */
+    private void awaitWorker() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        mQueryExecutor.execute(done::countDown);
+        done.await(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test only the result of the latest query is delivered, when the queries are superseded
+     */
+    @Test
+    public void onlyLatestQueryIsDelivered() throws InterruptedException {
+        // block the worker, so the queries pile up
+        CountDownLatch blocker = new CountDownLatch(1);
+        mQueryExecutor.execute(() -> {
+            try {
+                blocker.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // three queries, as if the user was typing
+        mQueryExecutor.submitLatest(() -> "S", mResults::add);
+        mQueryExecutor.submitLatest(() -> "Sa", mResults::add);
+        mQueryExecutor.submitLatest(() -> "Sal", mResults::add);
+
+        // unblock the worker, and wait for the queries
+        blocker.countDown();
+        awaitWorker();
+
+        // only the latest query result is delivered
+        assertEquals(1, mResults.size());
+        assertEquals("Sal", mResults.get(0));
+    }
+
+    /**
+     * Test the tasks are run in submission order, and never cancelled
+     */
+    @Test
+    public void tasksAreRunInOrder() throws InterruptedException {
+        mQueryExecutor.execute(() -> mResults.add("set filter"));
+        mQueryExecutor.execute(() -> "get filter", mResults::add);
+        mQueryExecutor.submitLatest(() -> "query", mResults::add);
+        awaitWorker();
+
+        assertEquals(3, mResults.size());
+        assertEquals("set filter", mResults.get(0));
+        assertEquals("get filter", mResults.get(1));
+        assertEquals("query", mResults.get(2));
+    }
+
+    /**
+     * Test several queries within the quiet period are coalesced into a single query
+     */
+    @Test
+    public void queriesAreDebounced() throws InterruptedException {
+        final int[] runs = {0};
+        for (String text : new String[]{"S", "Sa", "Sal", "Sall", "Salle"}) {
+            mQueryExecutor.submitLatest(200, () -> {
+                runs[0]++;
+                return text;
+            }, mResults::add);
+        }
+        // wait for the end of the quiet period
+        Thread.sleep(400);
+        awaitWorker();
+
+        // a single query has been run
+        assertEquals(1, runs[0]);
+        assertEquals(1, mResults.size());
+        assertEquals("Salle", mResults.get(0));
+    }
+
+    /**
+     * Test a failing query posts its exception to the callback, and does not stop the next queries
+     */
+    @Test
+    public void failedQueryIsPostedToCallback() throws InterruptedException {
+        QueryExecutor.Callback<String> callback = new QueryExecutor.Callback<String>() {
+            @Override
+            public void onResult(String result) {
+                mResults.add(result);
+            }
+
+            @Override
+            public void onError(RuntimeException e) {
+                mResults.add("error " + e.getMessage());
+            }
+        };
+        mQueryExecutor.execute(() -> {
+            throw new IllegalStateException("task");
+        });
+        mQueryExecutor.execute(() -> {
+            throw new IllegalStateException("query");
+        }, callback);
+        mQueryExecutor.submitLatest(() -> {
+            throw new IllegalStateException("latest");
+        }, callback);
+        // the failed latest query is posted before the next one is submitted, so it is not superseded
+        awaitWorker();
+        mQueryExecutor.submitLatest(() -> "next", callback);
+        awaitWorker();
+
+        // the task exception is only logged, the query exceptions are posted, the next query still runs
+        assertEquals(Arrays.asList("error query", "error latest", "next"), mResults);
+    }
+
+}
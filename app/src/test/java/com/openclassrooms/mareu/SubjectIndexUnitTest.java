@@ -0,0 +1,236 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingQuery;
+import com.openclassrooms.mareu.service.MeetingQueryPlanner;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.SubjectIndex;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test class to test the full-text index of the subjects
+ */
+public class SubjectIndexUnitTest {
+
+    private static final Instant ORIGIN = Instant.parse("2030-03-04T08:00:00Z");
+
+    /**
+     * Test the normalization ignores the case and the accents
+     */
+    @Test
+    public void normalizeCaseAndAccents() {
+        assertEquals("reunion de service", SubjectIndex.normalize("Réunion de Service"));
+        assertEquals("oeuvre a l'ete", SubjectIndex.normalize("ŒUVRE À L'ÉTÉ"));
+        assertEquals("cafeteria", SubjectIndex.normalize("Cafétéria"));
+        assertEquals("noel", SubjectIndex.normalize("Noël"));
+        // a text already normalized is not copied
+        String text = "point hebdo";
+        assertSame(text, SubjectIndex.normalize(text));
+    }
+
+    /**
+     * Test the index finds what a scan of all the subjects finds, while the service changes
+     */
+    @Test
+    public void matchesFullScan() {
+        Random random = new Random(13);
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        SubjectIndex index = new SubjectIndex(service);
+        String[] words = {"Réunion", "de", "service", "Atelier", "technique", "Afterwork", "Noël", "équipe",
+                "revue"};
+        String[] texts = {"", "r", "é", "e", "re", "reu", "REUNION", "reunion de", "union", "ice", "noe",
+                "revue d", "d", "xyz", "atelier technique", "erv"};
+        for (int i = 0; i < 4000; i++) {
+            StringBuilder subject = new StringBuilder(words[random.nextInt(words.length)]);
+            for (int j = random.nextInt(3); j > 0; j--) {
+                subject.append(' ').append(words[random.nextInt(words.length)]);
+            }
+            Meeting meeting = new Meeting(ORIGIN.plus(Duration.ofMinutes(30 * random.nextInt(2000))),
+                    subject.toString(), new Place("Salle " + random.nextInt(3)));
+            List<Meeting> registered = service.getMeetings();
+            if (random.nextInt(3) > 0 || registered.isEmpty()) {
+                service.addMeeting(meeting);
+            } else if (random.nextBoolean()) {
+                service.deleteMeeting(registered.get(random.nextInt(registered.size())));
+            } else {
+                service.updateMeeting(registered.get(random.nextInt(registered.size())), meeting);
+            }
+            if (i % 50 == 0) {
+                // a few searches, extending each other or not
+                for (int j = 0; j < 4; j++) {
+                    String text = texts[random.nextInt(texts.length)];
+                    assertEquals(text, fullScan(service, text), new HashSet<>(index.getMeetingsContaining(text)));
+                }
+            }
+        }
+        // delete most of the meetings, so the index is compacted
+        List<Meeting> registered = new ArrayList<>(service.getMeetings());
+        service.deleteMeetings(registered.subList(0, registered.size() * 3 / 4));
+        for (String text : texts) {
+            assertEquals(text, fullScan(service, text), new HashSet<>(index.getMeetingsContaining(text)));
+        }
+
+        // once released, the index does not follow the service anymore
+        index.release();
+        service.deleteMeetings(service.getMeetings());
+        assertFalse(index.getMeetingsContaining("").isEmpty());
+    }
+
+    /**
+     * Test a text extending the previous one narrows its result, unless the service changed
+     */
+    @Test
+    public void narrowPreviousResult() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        SubjectIndex index = new SubjectIndex(service);
+        Meeting service1 = meeting(0, "Réunion de service");
+        Meeting workshop = meeting(1, "Atelier réunion");
+        Meeting lunch = meeting(2, "Repas");
+        service.addMeetings(Arrays.asList(service1, workshop, lunch));
+
+        // typing, one character at a time
+        assertEquals(3, index.getMeetingsContaining("r").size());
+        assertEquals(3, index.getMeetingsContaining("re").size());
+        assertEquals(2, index.getMeetingsContaining("reu").size());
+        assertEquals(2, index.getMeetingsContaining("reun").size());
+        // a meeting added meanwhile is found
+        Meeting team = meeting(3, "Réunion d'équipe");
+        service.addMeeting(team);
+        assertEquals(new HashSet<>(Arrays.asList(service1, workshop, team)),
+                new HashSet<>(index.getMeetingsContaining("reuni")));
+        // a meeting deleted meanwhile is not
+        service.deleteMeeting(workshop);
+        assertEquals(new HashSet<>(Arrays.asList(service1, team)),
+                new HashSet<>(index.getMeetingsContaining("reunio")));
+        // a shorter text searches again
+        assertEquals(new HashSet<>(Arrays.asList(service1, team, lunch)),
+                new HashSet<>(index.getMeetingsContaining("re")));
+        // an updated subject is indexed again
+        Meeting renamed = new Meeting(lunch.getDate(), "Repas de service", lunch.getPlace());
+        service.updateMeeting(lunch, renamed);
+        assertEquals(new HashSet<>(Arrays.asList(service1, renamed)),
+                new HashSet<>(index.getMeetingsContaining("de serv")));
+    }
+
+    /**
+     * Test the matches are ranked : subject starting with the text, then a word, then anywhere
+     */
+    @Test
+    public void rankMatches() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        Meeting inside = meeting(0, "Préréunion");
+        Meeting word = meeting(1, "Atelier réunion");
+        Meeting start = meeting(2, "Réunion de service");
+        Meeting laterStart = meeting(3, "REUNION hebdo");
+        service.addMeetings(Arrays.asList(inside, word, start, laterStart, meeting(4, "Repas")));
+        SubjectIndex index = new SubjectIndex(service);
+
+        assertEquals(Arrays.asList(start, laterStart, word, inside), index.search("réunion", 10));
+        assertEquals(Arrays.asList(start, laterStart, word), index.search("reunion", 3));
+        assertEquals(Arrays.asList(start), index.search("Reu", 1));
+        assertTrue(index.search("atelier service", 10).isEmpty());
+        // a query sorted by relevance is ranked the same
+        MeetingQuery query = MeetingQuery.all().withSubjectText("réunion")
+                .withOrder(MeetingQuery.Order.BY_SUBJECT_RELEVANCE);
+        assertEquals(index.search("réunion", 10), new MeetingQueryPlanner(service, index).execute(query));
+    }
+
+    /**
+     * Test the order by relevance ranks a meeting again once its subject changed
+     */
+    @Test
+    public void relevanceOrderFollowsChanges() {
+        Meeting word = meeting(0, "Atelier réunion");
+        Meeting start = meeting(1, "Réunion de service");
+        Comparator<Meeting> order = SubjectIndex.relevanceOrder("reunion");
+        assertTrue(order.compare(start, word) < 0);
+        assertTrue(order.compare(start, word) < 0);
+
+        start.setSubject("Repas");
+        assertTrue(order.compare(start, word) > 0);
+        word.setSubject("Réunion d'atelier");
+        assertTrue(order.compare(word, start) < 0);
+        assertEquals(0, order.compare(word, word));
+    }
+
+    /**
+     * Test the matches are restricted to a date range, and given up once too many
+     */
+    @Test
+    public void boundAndDateRange() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        for (int i = 0; i < 10; i++) {
+            service.addMeeting(meeting(i, "Réunion " + i));
+        }
+        SubjectIndex index = new SubjectIndex(service);
+
+        List<Meeting> meetings = index.getMeetingsContaining("reunion", ORIGIN.plus(Duration.ofHours(2)),
+                ORIGIN.plus(Duration.ofHours(4)), 3);
+        assertEquals(new HashSet<>(Arrays.asList(meeting(2, "Réunion 2"), meeting(3, "Réunion 3"),
+                meeting(4, "Réunion 4"))), new HashSet<>(meetings));
+        // a fourth match reaches the bound
+        assertNull(index.getMeetingsContaining("reunion", ORIGIN.plus(Duration.ofHours(2)), null, 3));
+        assertEquals(10, index.getMeetingsContaining("reunion", null, null, 11).size());
+    }
+
+    /**
+     * Test the planner reads the index of the subjects, when the text is selective
+     */
+    @Test
+    public void planOnSubjects() {
+        MeetingsApiService service = new ConcurrentMeetingsApiService();
+        for (int i = 0; i < 200; i++) {
+            service.addMeeting(meeting(i, i % 50 == 0 ? "Revue de code" : "Réunion de service"));
+        }
+        MeetingQueryPlanner planner = new MeetingQueryPlanner(service, new SubjectIndex(service));
+        MeetingQuery query = MeetingQuery.all().withSubjectText("revue");
+        assertEquals(MeetingQueryPlanner.Index.SUBJECT, planner.plan(query).getIndex());
+        List<Meeting> meetings = planner.execute(query);
+        assertEquals(4, meetings.size());
+        // the candidates of the index are sorted back
+        for (int i = 1; i < meetings.size(); i++) {
+            assertTrue(Meeting.CHRONOLOGICAL_ORDER.compare(meetings.get(i - 1), meetings.get(i)) < 0);
+        }
+        // a text found everywhere, within a few hours : only the matches of the date range are candidates
+        MeetingQueryPlanner.Plan plan = planner.plan(MeetingQuery.all().withSubjectText("de")
+                .withDates(ORIGIN, ORIGIN.plus(Duration.ofHours(3))));
+        assertEquals(5, plan.getEstimatedCost());
+        assertEquals(4, plan.execute().size());
+        // a text found everywhere, for a person : the index of the subjects is given up
+        service.addMeeting(new Meeting(ORIGIN.plus(Duration.ofHours(300)), "Réunion de service",
+                new Place("Salle A"), new Person("jean@entreprise.fr")));
+        assertEquals(MeetingQueryPlanner.Index.ATTENDEE, planner.plan(MeetingQuery.all().withSubjectText("de")
+                .withAttendee(new Person("jean@entreprise.fr"))).getIndex());
+    }
+
+    private static Meeting meeting(int hours, String subject) {
+        return new Meeting(ORIGIN.plus(Duration.ofHours(hours)), subject, new Place("Salle A"));
+    }
+
+    private static Set<Meeting> fullScan(MeetingsApiService service, String text) {
+        Set<Meeting> ret = new HashSet<>();
+        for (Meeting meeting : service.getMeetings()) {
+            if (SubjectIndex.normalize(meeting.getSubject()).contains(SubjectIndex.normalize(text))) {
+                ret.add(meeting);
+            }
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.mareu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.openclassrooms.mareu.utils.ZonedEpochCalendar;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class to test the ZonedEpochCalendar gives the same results as ZonedDateTime
+ */
+public class ZonedEpochCalendarUnitTest {
+
+    /**
+     * Zones with daylight saving time (north and south), half-hour shifts, or no shift at all
+     */
+    private static final String[] ZONES = {
+            "Europe/Paris", "America/New_York", "America/Santiago", "Australia/Lord_Howe", "Asia/Kolkata", "UTC"
+    };
+
+    /**
+     * Test random instants, and instants around each transition (changes of time)
+     */
+    @Test
+    public void sameResultsAsZonedDateTime() {
+        Random random = new Random(42);
+        for (String zoneName : ZONES) {
+            ZoneId zone = ZoneId.of(zoneName);
+            ZonedEpochCalendar calendar = new ZonedEpochCalendar(zone);
+            for (Instant date : getInstantsToCheck(zone, random)) {
+                checkSameResults(zone, calendar, date);
+            }
+        }
+    }
+
+    /**
+     * Test the instants out of the cached range are still right
+     */
+    @Test
+    public void sameResultsOutOfCachedRange() {
+        ZoneId zone = ZoneId.of("Europe/Paris");
+        ZonedEpochCalendar calendar = new ZonedEpochCalendar(zone,
+                Instant.parse("2020-01-01T00:00:00Z").getEpochSecond(),
+                Instant.parse("2021-01-01T00:00:00Z").getEpochSecond());
+        checkSameResults(zone, calendar, Instant.parse("2019-03-31T01:30:00Z"));
+        checkSameResults(zone, calendar, Instant.parse("2020-01-01T10:00:00Z"));
+        checkSameResults(zone, calendar, Instant.parse("2020-12-31T10:00:00Z"));
+        checkSameResults(zone, calendar, Instant.parse("2021-10-31T01:30:00Z"));
+        // a shift from inside to outside the cached range
+        assertEquals(ZonedDateTime.ofInstant(Instant.parse("2020-12-20T10:00:00Z"), zone).plusDays(30).toInstant(),
+                calendar.plusDays(Instant.parse("2020-12-20T10:00:00Z"), 30));
+    }
+
+    /**
+     * Compare each computation with ZonedDateTime
+     */
+    private static void checkSameResults(ZoneId zone, ZonedEpochCalendar calendar, Instant date) {
+        ZonedDateTime zdt = date.atZone(zone);
+        String message = zone + " " + date;
+        assertEquals(message, zdt.getYear(), calendar.getYear(date));
+        assertEquals(message, zdt.getMonthValue(), calendar.getMonthValue(date));
+        assertEquals(message, zdt.getDayOfMonth(), calendar.getDayOfMonth(date));
+        assertEquals(message, zdt.getHour(), calendar.getHour(date));
+        assertEquals(message, zdt.getMinute(), calendar.getMinute(date));
+        assertEquals(message, zdt.toLocalDate().toEpochDay(), calendar.getEpochDay(date));
+        assertEquals(message, zdt.getDayOfWeek(), calendar.getDayOfWeek(date));
+        assertEquals(message, zdt.withHour(0).withMinute(0).withSecond(0).toInstant(), calendar.startOfDay(date));
+        assertEquals(message, zdt.withHour(23).withMinute(59).withSecond(59).toInstant(), calendar.endOfDay(date));
+        for (int days : new int[]{-1, 1, 7, 31, 365}) {
+            assertEquals(message + " " + days, zdt.plusDays(days).toInstant(), calendar.plusDays(date, days));
+        }
+    }
+
+    /**
+     * Get random instants (with nanoseconds) from 1971 to 2099, and instants around the transitions
+     */
+    private static List<Instant> getInstantsToCheck(ZoneId zone, Random random) {
+        List<Instant> ret = new ArrayList<>();
+        long from = Instant.parse("1971-01-01T00:00:00Z").getEpochSecond();
+        long to = Instant.parse("2099-01-01T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < 2000; i++) {
+            ret.add(Instant.ofEpochSecond(from + (long) (random.nextDouble() * (to - from)), random.nextInt(1000000000)));
+        }
+        ZoneRules rules = zone.getRules();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(from));
+        while (transition != null && transition.toEpochSecond() < to) {
+            // one hour and a half around each transition, by quarters of an hour, and the day after
+            for (long shift = -5400; shift <= 5400; shift += 900) {
+                ret.add(transition.getInstant().plusSeconds(shift));
+                ret.add(transition.getInstant().plusSeconds(shift - 86400));
+                ret.add(transition.getInstant().plusSeconds(shift + 86400).plusNanos(1));
+            }
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        return ret;
+    }
+
+}
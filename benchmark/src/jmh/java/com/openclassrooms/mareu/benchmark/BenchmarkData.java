@@ -0,0 +1,82 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.model.Place;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeux de données synthétiques et reproductibles pour les benchmarks
+ */
+final class BenchmarkData {
+
+    /**
+     * Number of places, and of persons, the meetings are spread over
+     */
+    static final int PLACES_COUNT = 20;
+    static final int PERSONS_COUNT = 300;
+
+    /**
+     * Start date of the first meeting (fixed, so the runs can be compared)
+     */
+    static final Instant ORIGIN = Instant.parse("2030-01-07T08:00:00Z");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Build the places
+     * @return the places, named "Salle 00", "Salle 01"...
+     */
+    static Place[] places() {
+        Place[] places = new Place[PLACES_COUNT];
+        for (int i = 0; i < PLACES_COUNT; i++) {
+            places[i] = new Place(String.format("Salle %02d", i));
+        }
+        return places;
+    }
+
+    /**
+     * Build the persons
+     * @param count the number of persons
+     * @return the persons
+     */
+    static Person[] persons(int count) {
+        Person[] persons = new Person[count];
+        for (int i = 0; i < count; i++) {
+            persons[i] = new Person("collaborateur" + i + "@entreprise.fr");
+        }
+        return persons;
+    }
+
+    /**
+     * Build meetings which never overlap : one meeting per hour in each place, in random order,
+     * with 2 to 8 persons invited
+     * @param count the number of meetings
+     * @return the meetings
+     */
+    static List<Meeting> meetings(int count) {
+        Random random = new Random(42);
+        Place[] places = places();
+        Person[] persons = persons(PERSONS_COUNT);
+        List<Meeting> meetings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Meeting meeting = new Meeting(ORIGIN.plus(Duration.ofHours(i / PLACES_COUNT)),
+                    "Réunion " + i, places[i % PLACES_COUNT]);
+            int personsCount = 2 + random.nextInt(7);
+            for (int j = 0; j < personsCount; j++) {
+                meeting.addPerson(persons[random.nextInt(persons.length)]);
+            }
+            meetings.add(meeting);
+        }
+        // shuffle, so the insertion order is not the chronological order
+        java.util.Collections.shuffle(meetings, random);
+        return meetings;
+    }
+
+}
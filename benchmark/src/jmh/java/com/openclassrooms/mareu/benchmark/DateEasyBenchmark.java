@@ -0,0 +1,77 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.utils.DateEasy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the date parsing and formatting helpers
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateEasyBenchmark {
+
+    private final Instant mDate = BenchmarkData.ORIGIN;
+    private final String mDateTimeText = "07/01/30 09:30";
+    private final String mDateText = "07/01/30";
+    private final String mWrongText = "07/01/30 9h30";
+
+    @Benchmark
+    public Instant parseDateTime() {
+        return DateEasy.parseDateTimeStringToInstant(mDateTimeText);
+    }
+
+    @Benchmark
+    public Instant parseDate() {
+        return DateEasy.parseDateStringToInstant(mDateText);
+    }
+
+    /**
+     * Parsing a wrong text (the user is typing)
+     */
+    @Benchmark
+    public Instant parseWrongDateTime() {
+        return DateEasy.parseDateTimeStringToInstant(mWrongText);
+    }
+
+    /**
+     * Parsing a date without time, as the date picker request does
+     */
+    @Benchmark
+    public Instant parseDateTimeOrDate() {
+        return DateEasy.parseDateTimeOrDateOrReturnNow(mDateText);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return DateEasy.localeDateTimeStringFromInstant(mDate);
+    }
+
+    /**
+     * Format of the list items
+     */
+    @Benchmark
+    public String formatSpecial() {
+        return DateEasy.localeSpecialStringFromInstant(mDate);
+    }
+
+    @Benchmark
+    public Instant startOfDay() {
+        return DateEasy.startOfDay(mDate);
+    }
+
+    @Benchmark
+    public Instant plusDays() {
+        return DateEasy.plusDays(mDate, 7);
+    }
+
+}
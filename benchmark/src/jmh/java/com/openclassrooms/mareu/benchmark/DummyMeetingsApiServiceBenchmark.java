@@ -0,0 +1,27 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.service.DummyMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks of the list based service
+ * (no 100k store : each addition walks the whole list, so filling it would take minutes)
+ */
+public class DummyMeetingsApiServiceBenchmark extends MeetingsApiServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    public int meetingsCount;
+
+    @Override
+    protected int getMeetingsCount() {
+        return meetingsCount;
+    }
+
+    @Override
+    protected MeetingsApiService createService() {
+        return new DummyMeetingsApiService();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.IcsMeetingsReader;
+import com.openclassrooms.mareu.service.IcsMeetingsWriter;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the iCalendar export and import, on files of n meetings
+ * (export to a file, read a file, and import a file into an empty service)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IcsMeetingsBenchmark {
+
+    /**
+     * The number of meetings of the file
+     */
+    @Param({"10000", "100000", "300000"})
+    public int meetingsCount;
+
+    private List<Meeting> mMeetings;
+    private File mImportFile;
+    private File mExportFile;
+
+    /**
+     * Build the meetings, and the file to read, once per trial
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mMeetings = BenchmarkData.meetings(meetingsCount);
+        mImportFile = File.createTempFile("mareu-import", ".ics");
+        mExportFile = File.createTempFile("mareu-export", ".ics");
+        IcsMeetingsWriter writer = new IcsMeetingsWriter(new FileOutputStream(mImportFile).getChannel());
+        writer.writeAll(mMeetings);
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mImportFile.delete();
+        mExportFile.delete();
+    }
+
+    /**
+     * Write all the meetings to a file
+     */
+    @Benchmark
+    public int export() throws IOException {
+        IcsMeetingsWriter writer = new IcsMeetingsWriter(new FileOutputStream(mExportFile).getChannel());
+        writer.writeAll(mMeetings);
+        writer.close();
+        return writer.getWrittenCount();
+    }
+
+    /**
+     * Read all the meetings of a file, without keeping them
+     */
+    @Benchmark
+    public int read() throws IOException {
+        int count = 0;
+        try (IcsMeetingsReader reader = new IcsMeetingsReader(new FileInputStream(mImportFile).getChannel())) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Import all the meetings of a file into an empty service, by batches
+     */
+    @Benchmark
+    public int importIntoService() throws IOException {
+        try (IcsMeetingsReader reader = new IcsMeetingsReader(new FileInputStream(mImportFile).getChannel())) {
+            return reader.importInto(new IndexedMeetingsApiService()).getAdded();
+        }
+    }
+
+}
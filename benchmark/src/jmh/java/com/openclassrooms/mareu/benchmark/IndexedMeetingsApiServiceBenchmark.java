@@ -0,0 +1,26 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks of the indexed service
+ */
+public class IndexedMeetingsApiServiceBenchmark extends MeetingsApiServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int meetingsCount;
+
+    @Override
+    protected int getMeetingsCount() {
+        return meetingsCount;
+    }
+
+    @Override
+    protected MeetingsApiService createService() {
+        return new IndexedMeetingsApiService();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingQuery;
+import com.openclassrooms.mareu.service.MeetingQueryPlanner;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of queries of n meetings : run by the planner, on the most selective index,
+ * or by a filter over all the meetings (for comparison)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MeetingQueryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int meetingsCount;
+
+    private MeetingsApiService mService;
+    private MeetingQueryPlanner mPlanner;
+
+    /**
+     * The meetings of a person, in a few places
+     */
+    private MeetingQuery mAttendeeQuery;
+
+    /**
+     * The meetings of the early morning, on sundays
+     */
+    private MeetingQuery mTimeSlotsQuery;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Meeting> meetings = BenchmarkData.meetings(meetingsCount);
+        mService = new ConcurrentMeetingsApiService();
+        mService.addMeetings(meetings);
+        mPlanner = new MeetingQueryPlanner(mService);
+        mAttendeeQuery = MeetingQuery.all()
+                .withAttendee(BenchmarkData.persons(1)[0])
+                .withPlacePrefix("Salle 0");
+        mTimeSlotsQuery = MeetingQuery.all()
+                .withTimeOfDay(LocalTime.of(6, 0), LocalTime.of(7, 59))
+                .withDaysOfWeek(DayOfWeek.SUNDAY);
+    }
+
+    @Benchmark
+    public List<Meeting> attendeePlanned() {
+        return mPlanner.execute(mAttendeeQuery);
+    }
+
+    @Benchmark
+    public List<Meeting> attendeeFullScan() {
+        return fullScan(mAttendeeQuery);
+    }
+
+    @Benchmark
+    public List<Meeting> timeSlotsPlanned() {
+        return mPlanner.execute(mTimeSlotsQuery);
+    }
+
+    @Benchmark
+    public List<Meeting> timeSlotsFullScan() {
+        return fullScan(mTimeSlotsQuery);
+    }
+
+    private List<Meeting> fullScan(MeetingQuery query) {
+        List<Meeting> ret = new ArrayList<>();
+        for (Meeting meeting : mService.getMeetings()) {
+            if (query.matches(meeting)) {
+                ret.add(meeting);
+            }
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of a meetings service : add, delete and getMeetings, on a store of n meetings,
+ * one meeting at a time or by batches of {@link #BATCH_SIZE} meetings
+ * (see the subclasses, one per implementation)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public abstract class MeetingsApiServiceBenchmark {
+
+    /**
+     * Number of meetings of a batch
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private MeetingsApiService mService;
+    private List<Meeting> mMeetings;
+    private Meeting mNewMeeting;
+    private Meeting mExistingMeeting;
+    private List<Meeting> mNewMeetings;
+
+    /**
+     * Get the number of meetings already registered
+     * @return the number of meetings
+     */
+    protected abstract int getMeetingsCount();
+
+    /**
+     * Create an empty service
+     * @return the service under benchmark
+     */
+    protected abstract MeetingsApiService createService();
+
+    /**
+     * Build the meetings once per trial
+     */
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        int meetingsCount = getMeetingsCount();
+        mMeetings = BenchmarkData.meetings(meetingsCount);
+        // a meeting after all the others, in the first place
+        mNewMeeting = new Meeting(BenchmarkData.ORIGIN.plus(Duration.ofDays(365 * 10)), "Nouvelle réunion",
+                mMeetings.get(0).getPlace());
+        mExistingMeeting = mMeetings.get(meetingsCount / 2);
+        // a batch of meetings after all the others
+        mNewMeetings = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            mNewMeetings.add(new Meeting(BenchmarkData.ORIGIN.plus(Duration.ofDays(365 * 10).plusHours(i)),
+                    "Nouvelle réunion " + i, mMeetings.get(i % mMeetings.size()).getPlace()));
+        }
+    }
+
+    /**
+     * Fill a fresh service before each iteration
+     */
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        mService = createService();
+        for (Meeting meeting : mMeetings) {
+            mService.addMeeting(meeting);
+        }
+    }
+
+    /**
+     * Add then delete a new meeting (the store keeps its size)
+     */
+    @Benchmark
+    public boolean addAndDeleteMeeting() {
+        boolean added = mService.addMeeting(mNewMeeting);
+        mService.deleteMeeting(mNewMeeting);
+        return added;
+    }
+
+    /**
+     * Delete then add back an existing meeting (the store keeps its size)
+     */
+    @Benchmark
+    public boolean deleteAndAddMeeting() {
+        mService.deleteMeeting(mExistingMeeting);
+        return mService.addMeeting(mExistingMeeting);
+    }
+
+    /**
+     * Try to add a meeting already registered
+     */
+    @Benchmark
+    public boolean addDuplicateMeeting() {
+        return mService.addMeeting(mExistingMeeting);
+    }
+
+    /**
+     * Add then delete a batch of new meetings, one call per meeting
+     */
+    @Benchmark
+    public int addAndDeleteMeetingsOneByOne() {
+        int added = 0;
+        for (Meeting meeting : mNewMeetings) {
+            if (mService.addMeeting(meeting)) {
+                added++;
+            }
+        }
+        for (Meeting meeting : mNewMeetings) {
+            mService.deleteMeeting(meeting);
+        }
+        return added;
+    }
+
+    /**
+     * Add then delete a batch of new meetings, with a single call each way
+     */
+    @Benchmark
+    public int addAndDeleteMeetingsInBatch() {
+        mService.addMeetings(mNewMeetings);
+        return mService.deleteMeetings(mNewMeetings);
+    }
+
+    /**
+     * Get all the meetings
+     */
+    @Benchmark
+    public List<Meeting> getMeetings() {
+        return mService.getMeetings();
+    }
+
+}
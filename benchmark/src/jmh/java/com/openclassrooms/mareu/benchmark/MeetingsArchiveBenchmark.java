@@ -0,0 +1,149 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.model.Place;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsArchive;
+import com.openclassrooms.mareu.service.MeetingsSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a query of one week of n archived meetings : from the mapped archive, which only decodes
+ * the meetings of the week, or from a snapshot, which has to be read entirely first (for comparison) ;
+ * and of the rewrite of the archive with new meetings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MeetingsArchiveBenchmark {
+
+    /**
+     * The number of archived meetings
+     */
+    @Param({"10000", "100000"})
+    public int meetingsCount;
+
+    private File mArchiveFile;
+    private File mSnapshotFile;
+    private Instant mFrom;
+    private Instant mTo;
+    private Place mPlace;
+
+    /**
+     * A service holding a hundred meetings after the archived ones, and a channel discarding what it gets
+     */
+    private MeetingsApiService mService;
+    private Instant mBefore;
+    private final WritableByteChannel mDiscard = Channels.newChannel(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    });
+
+    /**
+     * Write the archive and the snapshot of the meetings, once per trial
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<Meeting> meetings = BenchmarkData.meetings(meetingsCount);
+        mArchiveFile = File.createTempFile("mareu-archive", ".bin");
+        mSnapshotFile = File.createTempFile("mareu-snapshot", ".bin");
+        try (FileChannel channel = new FileOutputStream(mArchiveFile).getChannel()) {
+            MeetingsArchive.write(meetings, channel);
+        }
+        try (FileChannel channel = new FileOutputStream(mSnapshotFile).getChannel()) {
+            MeetingsSnapshot.write(meetings, channel);
+        }
+        Meeting middle = meetings.get(meetingsCount / 2);
+        mFrom = middle.getDate();
+        mTo = mFrom.plusSeconds(7 * 24 * 3600);
+        mPlace = middle.getPlace();
+        Instant last = meetings.get(meetingsCount - 1).getDate();
+        mService = new IndexedMeetingsApiService();
+        for (int i = 1; i <= 100; i++) {
+            mService.addMeeting(new Meeting(last.plus(Duration.ofHours(i)), "Réunion " + i, mPlace));
+        }
+        mBefore = last.plus(Duration.ofDays(30));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mArchiveFile.delete();
+        mSnapshotFile.delete();
+    }
+
+    /**
+     * Open the archive, and query a week
+     */
+    @Benchmark
+    public List<Meeting> archiveWeek() throws IOException {
+        try (FileChannel channel = new FileInputStream(mArchiveFile).getChannel()) {
+            return MeetingsArchive.open(channel).getMeetingsBetween(mFrom, mTo);
+        }
+    }
+
+    /**
+     * Open the archive, and query a week of a place
+     */
+    @Benchmark
+    public List<Meeting> archiveWeekOfPlace() throws IOException {
+        try (FileChannel channel = new FileInputStream(mArchiveFile).getChannel()) {
+            return MeetingsArchive.open(channel).getMeetingsBetween(mPlace, mFrom, mTo);
+        }
+    }
+
+    /**
+     * Rewrite the archive with the meetings of the service, its rows copied without decoding them
+     */
+    @Benchmark
+    public List<Meeting> rewrite() throws IOException {
+        try (FileChannel channel = new FileInputStream(mArchiveFile).getChannel()) {
+            return MeetingsArchive.writeMeetingsBefore(mService, mBefore, MeetingsArchive.open(channel), mDiscard);
+        }
+    }
+
+    /**
+     * Read the whole snapshot, to get the same week
+     */
+    @Benchmark
+    public int snapshotWeek() throws IOException {
+        int ret = 0;
+        try (FileChannel channel = new FileInputStream(mSnapshotFile).getChannel()) {
+            for (Meeting meeting : MeetingsSnapshot.read(channel)) {
+                if (!meeting.getDate().isBefore(mFrom) && !meeting.getDate().isAfter(mTo)) {
+                    ret++;
+                }
+            }
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of readers running while a writer adds and deletes meetings on the same service :
+ * the readers of the indexed service iterate their views holding the service lock (as its contract requires),
+ * the readers of the concurrent service iterate their snapshots without lock
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MeetingsConcurrencyBenchmark {
+
+    /**
+     * The implementation of the service
+     */
+    @Param({"indexed", "concurrent"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int meetingsCount;
+
+    private MeetingsApiService mService;
+    private Meeting mNewMeeting;
+    private Instant mFrom;
+    private Instant mTo;
+
+    /**
+     * Fill a fresh service before each iteration
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        List<Meeting> meetings = BenchmarkData.meetings(meetingsCount);
+        mService = implementation.equals("indexed") ? new IndexedMeetingsApiService()
+                : new ConcurrentMeetingsApiService();
+        mService.addMeetings(meetings);
+        mNewMeeting = new Meeting(BenchmarkData.ORIGIN.plus(Duration.ofDays(365 * 10)), "Nouvelle réunion",
+                meetings.get(0).getPlace());
+        mFrom = meetings.get(meetingsCount / 2).getDate();
+        mTo = mFrom.plus(Duration.ofDays(7));
+    }
+
+    /**
+     * Read a week of meetings
+     */
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public int read() {
+        if (mService instanceof ConcurrentMeetingsApiService) {
+            return count(mService.getMeetingsBetween(mFrom, mTo));
+        }
+        synchronized (mService) {
+            return count(mService.getMeetingsBetween(mFrom, mTo));
+        }
+    }
+
+    /**
+     * Add then delete a meeting
+     */
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public boolean write() {
+        boolean added = mService.addMeeting(mNewMeeting);
+        mService.deleteMeeting(mNewMeeting);
+        return added;
+    }
+
+    private static int count(Iterable<Meeting> meetings) {
+        int ret = 0;
+        for (Meeting meeting : meetings) {
+            ret += meeting.getPersons().size();
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.di.DI;
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.repository.fake.MeetingsListFakeRepository;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the meetings list repository : filtered and sorted meetings, on a store of n meetings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class MeetingsListRepositoryBenchmark {
+
+    /**
+     * The number of meetings registered in the shared service
+     */
+    @Param({"1000", "10000", "100000"})
+    public int meetingsCount;
+
+    private MeetingsApiService mService;
+    private MeetingsListFakeRepository mRepository;
+    private boolean mToggle;
+
+    /**
+     * Fill the shared service, and open the repository on a one month time span
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        mService = DI.getMeetingsApiService();
+        for (Meeting meeting : BenchmarkData.meetings(meetingsCount)) {
+            mService.addMeeting(meeting);
+        }
+        mRepository = new MeetingsListFakeRepository();
+        mRepository.setFilterStartDate(BenchmarkData.ORIGIN);
+        mRepository.setFilterEndDate(BenchmarkData.ORIGIN.plus(Duration.ofDays(30)));
+    }
+
+    /**
+     * Empty the shared service
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mRepository.release();
+        for (Meeting meeting : new ArrayList<>(mService.getMeetings())) {
+            mService.deleteMeeting(meeting);
+        }
+    }
+
+    /**
+     * Filters unchanged since the last call
+     */
+    @Benchmark
+    public List<Meeting> filteredAndSortedMeetingsUnchanged() {
+        return mRepository.getFilteredAndSortedMeetings();
+    }
+
+    /**
+     * Place filter changed before each call (the whole result is recomputed)
+     */
+    @Benchmark
+    public List<Meeting> filteredAndSortedMeetingsByPlace() {
+        mToggle = !mToggle;
+        mRepository.setFilterPlace(mToggle ? "salle 1" : "salle 0");
+        return mRepository.getFilteredAndSortedMeetings();
+    }
+
+    /**
+     * Time span changed before each call, without place filter (the whole result is recomputed)
+     */
+    @Benchmark
+    public List<Meeting> filteredAndSortedMeetingsByTimeSpan() {
+        mToggle = !mToggle;
+        mRepository.setFilterPlace("");
+        mRepository.setFilterStartDate(BenchmarkData.ORIGIN.plus(Duration.ofDays(mToggle ? 1 : 2)));
+        return mRepository.getFilteredAndSortedMeetings();
+    }
+
+}
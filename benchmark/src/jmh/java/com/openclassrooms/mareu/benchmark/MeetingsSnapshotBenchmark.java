@@ -0,0 +1,112 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.IndexedMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the cold start from a snapshot of n meetings : write the snapshot, read it,
+ * and restore the store from it (with the bulk load of a sorted batch, or meeting by meeting)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeetingsSnapshotBenchmark {
+
+    /**
+     * The number of meetings of the snapshot
+     */
+    @Param({"10000", "100000"})
+    public int meetingsCount;
+
+    private List<Meeting> mMeetings;
+    private File mSnapshotFile;
+    private File mWrittenFile;
+
+    /**
+     * Build the meetings, and the snapshot to read, once per trial
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mMeetings = BenchmarkData.meetings(meetingsCount);
+        mSnapshotFile = File.createTempFile("mareu-snapshot", ".bin");
+        mWrittenFile = File.createTempFile("mareu-written", ".bin");
+        try (FileChannel channel = new FileOutputStream(mSnapshotFile).getChannel()) {
+            MeetingsSnapshot.write(mMeetings, channel);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mSnapshotFile.delete();
+        mWrittenFile.delete();
+    }
+
+    /**
+     * Write the snapshot of all the meetings
+     */
+    @Benchmark
+    public long write() throws IOException {
+        try (FileChannel channel = new FileOutputStream(mWrittenFile).getChannel()) {
+            MeetingsSnapshot.write(mMeetings, channel);
+            return channel.size();
+        }
+    }
+
+    /**
+     * Read the meetings of the snapshot
+     */
+    @Benchmark
+    public List<Meeting> read() throws IOException {
+        try (FileChannel channel = new FileInputStream(mSnapshotFile).getChannel()) {
+            return MeetingsSnapshot.read(channel);
+        }
+    }
+
+    /**
+     * Restore an empty store from the snapshot, with a single batch
+     */
+    @Benchmark
+    public MeetingsApiService restore() throws IOException {
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        try (FileChannel channel = new FileInputStream(mSnapshotFile).getChannel()) {
+            service.addMeetings(MeetingsSnapshot.read(channel));
+        }
+        return service;
+    }
+
+    /**
+     * Restore an empty store from the snapshot, meeting by meeting (the cost of the indexes, for comparison)
+     */
+    @Benchmark
+    public MeetingsApiService restoreOneByOne() throws IOException {
+        MeetingsApiService service = new IndexedMeetingsApiService();
+        try (FileChannel channel = new FileInputStream(mSnapshotFile).getChannel()) {
+            for (Meeting meeting : MeetingsSnapshot.read(channel)) {
+                service.addMeeting(meeting);
+            }
+        }
+        return service;
+    }
+
+}
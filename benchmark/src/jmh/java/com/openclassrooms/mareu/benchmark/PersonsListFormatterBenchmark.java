@@ -0,0 +1,58 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Person;
+import com.openclassrooms.mareu.utils.PersonsListFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the persons list formatter : the full list (as formatted before the lazy lists),
+ * and the summary of the collapsed rows
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersonsListFormatterBenchmark {
+
+    /**
+     * The number of persons invited
+     */
+    @Param({"3", "10", "100", "5000"})
+    public int personsCount;
+
+    private PersonsListFormatter mFormatter;
+
+    @Setup
+    public void setup() {
+        Set<Person> persons = new TreeSet<>();
+        for (Person person : BenchmarkData.persons(personsCount)) {
+            persons.add(person);
+        }
+        mFormatter = new PersonsListFormatter(persons);
+    }
+
+    @Benchmark
+    public String format() {
+        return mFormatter.format();
+    }
+
+    /**
+     * The sorted ids and the summary of a row, computed once per meeting version
+     */
+    @Benchmark
+    public String summary() {
+        return PersonsListFormatter.formatSummary(mFormatter.getIdsSortedByEmail());
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.openclassrooms.mareu.benchmark;
+
+import com.openclassrooms.mareu.model.Meeting;
+import com.openclassrooms.mareu.service.ConcurrentMeetingsApiService;
+import com.openclassrooms.mareu.service.MeetingsApiService;
+import com.openclassrooms.mareu.service.SubjectIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the full-text search of the subjects of n meetings : with the trigram index, while typing
+ * (each text extending the previous one), or by a scan of all the subjects (for comparison), and the sort
+ * of the meetings by relevance
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubjectIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int meetingsCount;
+
+    /**
+     * The texts typed in the search box, one character at a time
+     */
+    private static final String[] TYPED = {"r", "ré", "réu", "réun", "réuni", "réunio", "réunion", "réunion 1",
+            "réunion 12", "réunion 123"};
+
+    private MeetingsApiService mService;
+    private SubjectIndex mIndex;
+
+    /**
+     * The meetings, in random order
+     */
+    private List<Meeting> mShuffled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mService = new ConcurrentMeetingsApiService();
+        mService.addMeetings(BenchmarkData.meetings(meetingsCount));
+        mIndex = new SubjectIndex(mService);
+        mShuffled = new ArrayList<>(mService.getMeetings());
+        Collections.shuffle(mShuffled, new Random(3));
+    }
+
+    /**
+     * Build the index of the meetings
+     */
+    @Benchmark
+    public SubjectIndex build() {
+        SubjectIndex index = new SubjectIndex(mService);
+        index.release();
+        return index;
+    }
+
+    /**
+     * Search a selective text, the 20 best matches
+     */
+    @Benchmark
+    public List<Meeting> searchIndexed() {
+        // an unrelated text first, so the search is not narrowed
+        mIndex.search("atelier", 20);
+        return mIndex.search("union 123", 20);
+    }
+
+    /**
+     * Look up a text found almost everywhere, within a day, as the planner does when another plan has
+     * 20 candidates : the lookup is given up at the bound
+     */
+    @Benchmark
+    public List<Meeting> containingBounded() {
+        return mIndex.getMeetingsContaining("réunion", BenchmarkData.ORIGIN,
+                BenchmarkData.ORIGIN.plus(Duration.ofDays(1)), 20);
+    }
+
+    /**
+     * Search each typed text, the 20 best matches, each search narrowing the previous one
+     */
+    @Benchmark
+    public int typeIndexed() {
+        int ret = 0;
+        for (String text : TYPED) {
+            ret += mIndex.search(text, 20).size();
+        }
+        return ret;
+    }
+
+    /**
+     * Sort all the meetings by relevance for a text, as the filtered list of a subject filter
+     */
+    @Benchmark
+    public List<Meeting> sortByRelevance() {
+        List<Meeting> meetings = new ArrayList<>(mShuffled);
+        Collections.sort(meetings, SubjectIndex.relevanceOrder("union 1"));
+        return meetings;
+    }
+
+    /**
+     * Search each typed text by a scan of all the subjects
+     */
+    @Benchmark
+    public int typeFullScan() {
+        int ret = 0;
+        for (String text : TYPED) {
+            String key = SubjectIndex.normalize(text);
+            List<Meeting> matches = new ArrayList<>();
+            for (Meeting meeting : mService.getMeetings()) {
+                if (SubjectIndex.normalize(meeting.getSubject()).contains(key)) {
+                    matches.add(meeting);
+                }
+            }
+            ret += Math.min(20, matches.size());
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stub of the Android looper : EventBus looks for the main looper as soon as android.util.Log is found,
+ * and without a main looper, it delivers the events on the posting thread (as on a plain JVM)
+ */
+public final class Looper {
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return null;
+    }
+
+}
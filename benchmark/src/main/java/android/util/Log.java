@@ -0,0 +1,23 @@
+package android.util;
+
+/**
+ * Stub of the Android logger, so the app sources run on a plain JVM (messages are dropped)
+ */
+public final class Log {
+
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return 0;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.mareu;
+
+/**
+ * Stub of the generated build config, as for a release build
+ */
+public final class BuildConfig {
+
+    public static final boolean DEBUG = false;
+
+    private BuildConfig() {
+    }
+
+}